@@ -0,0 +1,179 @@
+package com.arogyajal.benchmark;
+
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.codec.AlertCodec;
+import com.arogyajal.repository.codec.DocumentCodec;
+import com.arogyajal.repository.codec.SensorReadingCodec;
+import com.arogyajal.repository.codec.SymptomReportCodec;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BenchmarkSnapshots;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Decoding and encoding 100k-document query snapshots with the hand-written
+ * codecs against the bean mapper behind {@code toObject} / {@code set(Object)}.
+ *
+ * The bean mapper rejects {@code LocalDateTime} fields marked
+ * {@code @ServerTimestamp}, so only sensor readings can be compared with it;
+ * alerts and symptom reports are measured with their codecs alone.
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Dbenchmark=DocumentMappingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DocumentMappingBenchmark {
+
+    @Param("100000")
+    public int documents;
+
+    private Firestore firestore;
+    private List<QueryDocumentSnapshot> readings;
+    private List<QueryDocumentSnapshot> alerts;
+    private List<QueryDocumentSnapshot> reports;
+    private List<SensorReading> readingEntities;
+
+    @Setup
+    public void setUp() {
+        firestore = BenchmarkSnapshots.offlineFirestore();
+        SplittableRandom random = new SplittableRandom(42);
+        readingEntities = new ArrayList<>(documents);
+        List<Alert> alertEntities = new ArrayList<>(documents);
+        List<SymptomReport> reportEntities = new ArrayList<>(documents);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < documents; i++) {
+            readingEntities.add(reading(i, random));
+            alertEntities.add(alert(i, random, now));
+            reportEntities.add(report(i, random, now));
+        }
+        readings = snapshots("sensor_readings", readingEntities, SensorReadingCodec.INSTANCE);
+        alerts = snapshots("alerts", alertEntities, AlertCodec.INSTANCE);
+        reports = snapshots("symptom_reports", reportEntities, SymptomReportCodec.INSTANCE);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        firestore.close();
+    }
+
+    private <T> List<QueryDocumentSnapshot> snapshots(String collection, List<T> entities, DocumentCodec<T> codec) {
+        List<String> ids = new ArrayList<>(entities.size());
+        List<Map<String, Object>> data = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            ids.add(collection + "-" + i);
+            data.add(codec.encode(entities.get(i)));
+        }
+        return BenchmarkSnapshots.snapshots(firestore, collection, ids, data);
+    }
+
+    private static SensorReading reading(int i, SplittableRandom random) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("S" + (i % 500));
+        reading.setLocation("26.85,80.95");
+        reading.setLatitude(26.85 + random.nextDouble(-0.5, 0.5));
+        reading.setLongitude(80.95 + random.nextDouble(-0.5, 0.5));
+        reading.setPh(random.nextDouble(6, 9));
+        reading.setTemperature(random.nextDouble(15, 35));
+        reading.setTurbidity(random.nextDouble(0, 10));
+        reading.setDissolvedOxygen(random.nextDouble(2, 10));
+        reading.setConductivity(random.nextDouble(100, 1500));
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(1_760_000_000L + i, 0));
+        reading.setQualityStatus("GOOD");
+        reading.setWqi(random.nextDouble(0, 100));
+        return reading;
+    }
+
+    private static Alert alert(int i, SplittableRandom random, LocalDateTime now) {
+        return Alert.builder()
+                .alertType("WATER_QUALITY")
+                .severity(random.nextBoolean() ? "HIGH" : "CRITICAL")
+                .title("Turbidity above limit")
+                .description("Turbidity at sensor S" + (i % 500) + " exceeded the threshold")
+                .location("Ward " + (i % 40))
+                .sensorId("S" + (i % 500))
+                .parameter("TURBIDITY")
+                .thresholdValue(5.0)
+                .actualValue(random.nextDouble(5, 20))
+                .triggeredAt(now.minusMinutes(i))
+                .lastSeenAt(now.minusMinutes(i / 2))
+                .occurrenceCount(1 + random.nextInt(20))
+                .status("ACTIVE")
+                .relatedSymptomReportIds(List.of("R" + i, "R" + (i + 1)))
+                .build();
+    }
+
+    private static SymptomReport report(int i, SplittableRandom random, LocalDateTime now) {
+        return SymptomReport.builder()
+                .userId("U" + (i % 5000))
+                .location("Ward " + (i % 40))
+                .latitude(26.85 + random.nextDouble(-0.5, 0.5))
+                .longitude(80.95 + random.nextDouble(-0.5, 0.5))
+                .waterSource("WELL")
+                .symptoms(List.of("DIARRHEA", "FEVER"))
+                .severity("MODERATE")
+                .duration("DAYS")
+                .waterConsumption(2 + random.nextInt(4))
+                .lastWaterConsumption(now.minusHours(6))
+                .additionalNotes("Started after drinking from the community well")
+                .reportedAt(now.minusMinutes(i))
+                .status("PENDING")
+                .build();
+    }
+
+    private static <T> void decodeAll(List<QueryDocumentSnapshot> snapshots, Function<QueryDocumentSnapshot, T> decoder,
+                                      Blackhole blackhole) {
+        for (QueryDocumentSnapshot snapshot : snapshots) {
+            blackhole.consume(decoder.apply(snapshot));
+        }
+    }
+
+    @Benchmark
+    public void readingsToObject(Blackhole blackhole) {
+        decodeAll(readings, snapshot -> snapshot.toObject(SensorReading.class), blackhole);
+    }
+
+    @Benchmark
+    public void readingsCodec(Blackhole blackhole) {
+        decodeAll(readings, SensorReadingCodec.INSTANCE::decode, blackhole);
+    }
+
+    @Benchmark
+    public void alertsCodec(Blackhole blackhole) {
+        decodeAll(alerts, AlertCodec.INSTANCE::decode, blackhole);
+    }
+
+    @Benchmark
+    public void reportsCodec(Blackhole blackhole) {
+        decodeAll(reports, SymptomReportCodec.INSTANCE::decode, blackhole);
+    }
+
+    @Benchmark
+    public void readingsEncodeBeanMapper(Blackhole blackhole) {
+        for (SensorReading reading : readingEntities) {
+            blackhole.consume(BenchmarkSnapshots.beanMap(reading));
+        }
+    }
+
+    @Benchmark
+    public void readingsEncodeCodec(Blackhole blackhole) {
+        for (SensorReading reading : readingEntities) {
+            blackhole.consume(SensorReadingCodec.INSTANCE.encode(reading));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.google.cloud.Timestamp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Startup of the reading store and device buffers: restoring them from a
+ * checkpoint against rebuilding them from an already-decoded window of
+ * readings.
+ *
+ * The rebuild leaves out the Firestore query and document decoding it needs
+ * on a real cold start (see {@code DocumentMappingBenchmark}), so it is a
+ * lower bound. Both sides catch up against a repository with nothing newer.
+ * Lives in the service package to reach the views' package-private
+ * {@code load}.
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Dbenchmark=WarmStartBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WarmStartBenchmark {
+
+    @Param("200000")
+    public int readings;
+
+    @Param("2000")
+    public int devices;
+
+    private SensorRepository repository;
+    private LocationAggregateView locationAggregateView;
+    private List<SensorReading> window;
+    private long fromNanos;
+    private Path stateDir;
+
+    @Setup
+    public void setUp() throws Exception {
+        repository = mock(SensorRepository.class);
+        when(repository.findByTimestampBetween(any(), any())).thenAnswer(invocation -> new ArrayList<>());
+        locationAggregateView = mock(LocationAggregateView.class);
+        SplittableRandom random = new SplittableRandom(42);
+        long end = Timestamp.now().getSeconds();
+        long start = end - 24 * 3600;
+        fromNanos = start * 1_000_000_000L;
+        window = new ArrayList<>(readings);
+        for (int i = 0; i < readings; i++) {
+            window.add(reading(i, start + (long) i * 24 * 3600 / readings, random));
+        }
+
+        SensorReadingStore store = newStore();
+        DeviceReadingBuffers buffers = newBuffers();
+        store.load(window, List.of(), fromNanos);
+        buffers.load(window, fromNanos);
+        stateDir = Files.createTempDirectory("checkpoint-benchmark");
+        newService(store, buffers).write();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(stateDir.resolve("checkpoint.bin"));
+        Files.deleteIfExists(stateDir);
+    }
+
+    private SensorReading reading(int i, long seconds, SplittableRandom random) {
+        SensorReading reading = new SensorReading();
+        reading.setId(String.format("%020d", i));
+        reading.setSensorId("S" + (i % devices));
+        reading.setLocation("Ward " + (i % devices % 40));
+        reading.setLatitude(26.85 + random.nextDouble(-0.5, 0.5));
+        reading.setLongitude(80.95 + random.nextDouble(-0.5, 0.5));
+        reading.setPh(random.nextDouble(6, 9));
+        reading.setTemperature(random.nextDouble(15, 35));
+        reading.setTurbidity(random.nextDouble(0, 10));
+        reading.setDissolvedOxygen(random.nextDouble(2, 10));
+        reading.setConductivity(random.nextDouble(100, 1500));
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(seconds, 0));
+        reading.setQualityStatus("Good");
+        reading.setWqi(random.nextDouble(0, 100));
+        return reading;
+    }
+
+    private SensorReadingStore newStore() {
+        return new SensorReadingStore(repository, locationAggregateView);
+    }
+
+    private DeviceReadingBuffers newBuffers() {
+        return new DeviceReadingBuffers(repository);
+    }
+
+    private CheckpointService newService(SensorReadingStore store, DeviceReadingBuffers buffers) {
+        CheckpointService service = new CheckpointService(List.of(store, buffers));
+        ReflectionTestUtils.setField(service, "stateDir", stateDir.toString());
+        return service;
+    }
+
+    @Benchmark
+    public void rebuildFromReadings(Blackhole blackhole) {
+        SensorReadingStore store = newStore();
+        DeviceReadingBuffers buffers = newBuffers();
+        store.load(window, List.of(), fromNanos);
+        buffers.load(window, fromNanos);
+        blackhole.consume(store);
+        blackhole.consume(buffers);
+    }
+
+    @Benchmark
+    public void restoreFromCheckpoint(Blackhole blackhole) {
+        SensorReadingStore store = newStore();
+        DeviceReadingBuffers buffers = newBuffers();
+        if (newService(store, buffers).restore() != 2) {
+            throw new IllegalStateException("Checkpoint was not restored");
+        }
+        blackhole.consume(store);
+        blackhole.consume(buffers);
+    }
+}
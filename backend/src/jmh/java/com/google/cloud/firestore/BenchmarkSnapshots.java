@@ -0,0 +1,60 @@
+package com.google.cloud.firestore;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.firestore.v1.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query snapshots built in memory from field maps, exactly as the client
+ * builds them from a query response, so decoding can be benchmarked without a
+ * server. Lives in the client's package for its package-private factories.
+ */
+public final class BenchmarkSnapshots {
+
+    private BenchmarkSnapshots() {
+    }
+
+    /**
+     * A client that is never used for RPCs.
+     */
+    public static Firestore offlineFirestore() {
+        return FirestoreOptions.newBuilder()
+                .setProjectId("benchmark")
+                .setEmulatorHost("localhost:8080")
+                .setCredentials(NoCredentials.getInstance())
+                .build()
+                .getService();
+    }
+
+    /**
+     * What {@code set(Object)} sends for a POJO, via the bean mapper.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> beanMap(Object entity) {
+        return (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(entity);
+    }
+
+    public static List<QueryDocumentSnapshot> snapshots(Firestore firestore, String collection,
+                                                        List<String> ids, List<Map<String, Object>> documents) {
+        FirestoreImpl client = (FirestoreImpl) firestore;
+        String prefix = client.getResourcePath().toString() + "/documents/" + collection + "/";
+        Timestamp readTime = Timestamp.now();
+        List<QueryDocumentSnapshot> snapshots = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document.Builder document = Document.newBuilder()
+                    .setName(prefix + ids.get(i))
+                    .setCreateTime(readTime.toProto())
+                    .setUpdateTime(readTime.toProto());
+            for (Map.Entry<String, Object> field : documents.get(i).entrySet()) {
+                document.putFields(field.getKey(), UserDataConverter.encodeValue(
+                        FieldPath.of(field.getKey()), field.getValue(), UserDataConverter.NO_DELETES));
+            }
+            snapshots.add(QueryDocumentSnapshot.fromDocument(client, readTime, document.build()));
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,105 @@
+package com.arogyajal.config;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads that write {@link OutboundSessionQueue} flushes to their sockets.
+ *
+ * A fixed number of senders, plus one spare thread for every write that has
+ * been blocked longer than the stall threshold; the spare is retired when that
+ * write returns. A session stuck on a dead socket therefore holds only its own
+ * thread until the send time limit closes it, and the others keep their
+ * senders.
+ */
+public class OutboundSenderPool {
+
+    @FunctionalInterface
+    interface Write<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static final int WRITING = 0;
+    private static final int DONE = 1;
+    private static final int STALLED = 2;
+
+    private final int threads;
+    private final long stallMillis;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledThreadPoolExecutor timer;
+    // Guarded by "this"
+    private int spares;
+
+    public OutboundSenderPool(int threads, long stallMillis) {
+        this.threads = Math.max(1, threads);
+        this.stallMillis = stallMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "ws-sender-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ws-sender-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    void schedule(Runnable task, long delayMillis) {
+        if (delayMillis <= 0) {
+            senders.execute(task);
+        } else {
+            timer.schedule(() -> senders.execute(task), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Run a blocking socket write on the calling sender thread, adding a spare
+     * sender for as long as it stays blocked past the stall threshold.
+     */
+    <E extends Exception> void write(Write<E> write) throws E {
+        AtomicInteger state = new AtomicInteger(WRITING);
+        ScheduledFuture<?> watch = timer.schedule(() -> {
+            if (state.compareAndSet(WRITING, STALLED)) {
+                resize(1);
+            }
+        }, stallMillis, TimeUnit.MILLISECONDS);
+        try {
+            write.run();
+        } finally {
+            watch.cancel(false);
+            if (!state.compareAndSet(WRITING, DONE)) {
+                resize(-1);
+            }
+        }
+    }
+
+    public synchronized int getPoolSize() {
+        return threads + spares;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private synchronized void resize(int delta) {
+        spares += delta;
+        int size = threads + spares;
+        // The maximum may never drop below the core size
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.arogyajal.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded, conflating outbound queue for one WebSocket session.
+ *
+ * {@link #sendMessage} never blocks the broker: frames are queued and written by a
+ * shared {@link OutboundSenderPool}, which keeps a blocked write from holding up
+ * other sessions. STOMP MESSAGE frames are keyed by destination, so a newer
+ * message for a topic replaces one still waiting (latest-value conflation). When
+ * the queue is full the oldest frame is dropped. A session whose oldest frame has
+ * waited longer than the lag limit is either disconnected or downgraded to one
+ * flush per downgrade interval, depending on {@link Limits#disconnectSlow}; a
+ * downgraded session that falls twice as far behind is disconnected, and so is any
+ * session whose single write exceeds the send time limit.
+ */
+public class OutboundSessionQueue extends WebSocketSessionDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundSessionQueue.class);
+
+    /**
+     * Limits shared by all sessions.
+     */
+    public static class Limits {
+        final int maxQueue;
+        final long maxLagMillis;
+        final long sendTimeLimitMillis;
+        final long downgradedIntervalMillis;
+        final boolean disconnectSlow;
+
+        public Limits(int maxQueue, long maxLagMillis, long sendTimeLimitMillis, long downgradedIntervalMillis,
+                      boolean disconnectSlow) {
+            this.maxQueue = maxQueue;
+            this.maxLagMillis = maxLagMillis;
+            this.sendTimeLimitMillis = sendTimeLimitMillis;
+            this.downgradedIntervalMillis = downgradedIntervalMillis;
+            this.disconnectSlow = disconnectSlow;
+        }
+    }
+
+    private static final class Entry {
+        WebSocketMessage<?> message;
+        final long enqueuedAt;
+
+        Entry(WebSocketMessage<?> message, long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final OutboundSenderPool sender;
+    private final WebSocketSessionMetrics metrics;
+    private final Limits limits;
+
+    // Guarded by pending
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long sequence;
+    private long lastFlushAt;
+
+    private volatile long sendStartedAt;
+    private volatile boolean downgraded;
+    private volatile boolean closed;
+
+    public OutboundSessionQueue(WebSocketSession delegate, OutboundSenderPool sender,
+                                WebSocketSessionMetrics metrics, Limits limits) {
+        super(delegate);
+        this.sender = sender;
+        this.metrics = metrics;
+        this.limits = limits;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String key = conflationKey(message);
+        boolean overflow = false;
+        synchronized (pending) {
+            Entry existing = key != null ? pending.get(key) : null;
+            if (existing != null) {
+                existing.message = message;
+                metrics.onConflated();
+            } else {
+                if (pending.size() >= limits.maxQueue) {
+                    Iterator<Entry> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    metrics.onDropped();
+                    overflow = true;
+                }
+                pending.put(key != null ? key : "#" + sequence++, new Entry(message, now));
+            }
+            if (!scheduled) {
+                scheduled = true;
+                schedule(now);
+            }
+        }
+        if (overflow && limits.disconnectSlow) {
+            closeSlow("outbound queue full");
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public boolean isDowngraded() {
+        return downgraded;
+    }
+
+    /**
+     * Apply the lag and send-time limits. Called by the sender on every flush and by
+     * a periodic watchdog for sessions stuck in a write.
+     */
+    void checkLag(long now) {
+        if (closed) {
+            return;
+        }
+        long started = sendStartedAt;
+        if (started > 0 && now - started > limits.sendTimeLimitMillis) {
+            closeSlow("send time limit exceeded");
+            return;
+        }
+        long oldest;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            oldest = pending.values().iterator().next().enqueuedAt;
+        }
+        long lag = now - oldest;
+        if (lag <= limits.maxLagMillis) {
+            return;
+        }
+        if (limits.disconnectSlow || (downgraded && lag > 2 * limits.maxLagMillis)) {
+            closeSlow("lagging " + lag + " ms");
+        } else if (!downgraded) {
+            downgraded = true;
+            metrics.onDowngraded();
+            log.info("Downgraded slow WebSocket session {} (lag {} ms)", getId(), lag);
+        }
+    }
+
+    private void schedule(long now) {
+        long delay = downgraded ? Math.max(0, lastFlushAt + limits.downgradedIntervalMillis - now) : 0;
+        sender.schedule(this::flush, delay);
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        checkLag(now);
+        List<Entry> batch;
+        synchronized (pending) {
+            if (closed) {
+                pending.clear();
+                scheduled = false;
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            lastFlushAt = now;
+        }
+        try {
+            for (Entry entry : batch) {
+                if (closed) {
+                    break;
+                }
+                sendStartedAt = System.currentTimeMillis();
+                sender.write(() -> getDelegate().sendMessage(entry.message));
+                metrics.onSent();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            sendStartedAt = 0;
+        }
+        long batchLag = batch.isEmpty() ? 0 : now - batch.get(0).enqueuedAt;
+        synchronized (pending) {
+            if (pending.isEmpty() || closed) {
+                scheduled = false;
+                if (downgraded && !closed && batchLag < limits.maxLagMillis / 2) {
+                    downgraded = false; // caught up
+                }
+            } else {
+                schedule(System.currentTimeMillis());
+            }
+        }
+    }
+
+    private void closeSlow(String reason) {
+        if (closed) {
+            return;
+        }
+        log.info("Closing slow WebSocket session {}: {}", getId(), reason);
+        metrics.onSlowDisconnect();
+        closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        closed = true;
+        synchronized (pending) {
+            pending.clear();
+        }
+        try {
+            getDelegate().close(status);
+        } catch (Exception e) {
+            log.debug("Error closing WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * STOMP MESSAGE frames conflate per destination and heartbeats with each other;
+     * everything else (CONNECTED, RECEIPT, ERROR) is always delivered.
+     */
+    static String conflationKey(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage)) {
+            return null;
+        }
+        String payload = ((TextMessage) message).getPayload();
+        if (payload.equals("\n") || payload.equals("\r\n")) {
+            return "heartbeat";
+        }
+        if (!payload.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = payload.indexOf("\n\n");
+        String destination = header(payload, "destination", headersEnd);
+        if (destination == null) {
+            return null;
+        }
+        // Two subscriptions to one destination are separate streams
+        return header(payload, "subscription", headersEnd) + "|" + destination;
+    }
+
+    private static String header(String payload, String name, int headersEnd) {
+        String prefix = "\n" + name + ":";
+        int start = payload.indexOf(prefix);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += prefix.length();
+        int end = payload.indexOf('\n', start);
+        return payload.substring(start, end < 0 ? payload.length() : end);
+    }
+}
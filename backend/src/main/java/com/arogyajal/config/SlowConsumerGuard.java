@@ -0,0 +1,101 @@
+package com.arogyajal.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps every WebSocket session in an {@link OutboundSessionQueue} and runs the
+ * shared {@link OutboundSenderPool} and the lag watchdog.
+ */
+@Component
+public class SlowConsumerGuard {
+
+    @Value("${arogyajal.websocket.max-queued-messages:256}")
+    private int maxQueuedMessages;
+
+    @Value("${arogyajal.websocket.max-lag-ms:10000}")
+    private long maxLagMillis;
+
+    @Value("${arogyajal.websocket.send-time-limit-ms:10000}")
+    private long sendTimeLimitMillis;
+
+    @Value("${arogyajal.websocket.downgraded-interval-ms:2000}")
+    private long downgradedIntervalMillis;
+
+    // DOWNGRADE or DISCONNECT
+    @Value("${arogyajal.websocket.slow-consumer-policy:DOWNGRADE}")
+    private String slowConsumerPolicy;
+
+    @Value("${arogyajal.websocket.sender-threads:8}")
+    private int senderThreads;
+
+    // A write blocked this long gets a spare sender so other sessions keep theirs
+    @Value("${arogyajal.websocket.sender-stall-ms:200}")
+    private long senderStallMillis;
+
+    private final WebSocketSessionMetrics metrics;
+    private OutboundSenderPool sender;
+    private ScheduledExecutorService watchdog;
+    private OutboundSessionQueue.Limits limits;
+
+    public SlowConsumerGuard(WebSocketSessionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void start() {
+        limits = new OutboundSessionQueue.Limits(maxQueuedMessages, maxLagMillis, sendTimeLimitMillis,
+                downgradedIntervalMillis, "DISCONNECT".equalsIgnoreCase(slowConsumerPolicy));
+        sender = new OutboundSenderPool(senderThreads, senderStallMillis);
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-lag-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleAtFixedRate(() -> metrics.checkLag(System.currentTimeMillis()), 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        sender.shutdown();
+    }
+
+    public OutboundSessionQueue decorate(WebSocketSession session) {
+        OutboundSessionQueue queue = new OutboundSessionQueue(session, sender, metrics, limits);
+        metrics.register(queue);
+        return queue;
+    }
+
+    public void release(WebSocketSession session) {
+        metrics.unregister(session.getId());
+    }
+
+    /**
+     * Handler decorator that hands the queued session to the STOMP handler.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(decorate(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                release(session);
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+}
@@ -8,12 +8,19 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    public WebSocketConfig(SlowConsumerGuard slowConsumerGuard) {
+        this.slowConsumerGuard = slowConsumerGuard;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker
@@ -21,6 +28,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Per-session bounded, conflating queues; sends never block the broker channel
+        registration.addDecoratorFactory(slowConsumerGuard::decorate);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Enable SockJS fallback options
@@ -28,7 +41,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")  // Allow all origins
                 .setHandshakeHandler(new DefaultHandshakeHandler())
                 .withSockJS()
-                .setClientLibraryUrl("https://cdn.jsdelivr.net/npm/sockjs-client@1.5.1/dist/sockjs.min.js");
+                // Served from the sockjs-client webjar so the fallback works offline
+                .setClientLibraryUrl("/webjars/sockjs-client/1.5.1/sockjs.min.js");
     }
     
     @Bean
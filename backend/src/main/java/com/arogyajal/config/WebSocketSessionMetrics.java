@@ -0,0 +1,116 @@
+package com.arogyajal.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of open {@link OutboundSessionQueue}s and their Micrometer meters
+ * (exposed through /actuator/metrics and /actuator/prometheus).
+ */
+@Component
+public class WebSocketSessionMetrics {
+
+    private final Map<String, OutboundSessionQueue> sessions = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter conflated;
+    private final Counter dropped;
+    private final Counter downgraded;
+    private final Counter disconnected;
+
+    public WebSocketSessionMetrics(MeterRegistry registry) {
+        Gauge.builder("arogyajal.websocket.sessions", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .register(registry);
+        Gauge.builder("arogyajal.websocket.sessions.downgraded", this, m -> m.count(true))
+                .description("Sessions currently downgraded as slow consumers")
+                .register(registry);
+        Gauge.builder("arogyajal.websocket.queue.depth", this, WebSocketSessionMetrics::totalDepth)
+                .description("Messages waiting in all session queues")
+                .register(registry);
+        Gauge.builder("arogyajal.websocket.queue.depth.max", this, WebSocketSessionMetrics::maxDepth)
+                .description("Largest single session queue")
+                .register(registry);
+        sent = Counter.builder("arogyajal.websocket.messages.sent").register(registry);
+        conflated = Counter.builder("arogyajal.websocket.messages.conflated")
+                .description("Messages replaced by a newer one for the same destination before sending")
+                .register(registry);
+        dropped = Counter.builder("arogyajal.websocket.messages.dropped")
+                .description("Messages dropped because a session queue was full")
+                .register(registry);
+        downgraded = Counter.builder("arogyajal.websocket.sessions.downgrades").register(registry);
+        disconnected = Counter.builder("arogyajal.websocket.sessions.slow-disconnects").register(registry);
+    }
+
+    void register(OutboundSessionQueue session) {
+        sessions.put(session.getId(), session);
+    }
+
+    void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    void onSent() {
+        sent.increment();
+    }
+
+    void onConflated() {
+        conflated.increment();
+    }
+
+    void onDropped() {
+        dropped.increment();
+    }
+
+    void onDowngraded() {
+        downgraded.increment();
+    }
+
+    void onSlowDisconnect() {
+        disconnected.increment();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int totalDepth() {
+        int depth = 0;
+        for (OutboundSessionQueue session : sessions.values()) {
+            depth += session.getQueueDepth();
+        }
+        return depth;
+    }
+
+    public int maxDepth() {
+        int max = 0;
+        for (OutboundSessionQueue session : sessions.values()) {
+            max = Math.max(max, session.getQueueDepth());
+        }
+        return max;
+    }
+
+    private int count(boolean downgradedOnly) {
+        int count = 0;
+        for (OutboundSessionQueue session : sessions.values()) {
+            if (!downgradedOnly || session.isDowngraded()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Close sessions whose lag or in-flight send has exceeded the limits. Called
+     * periodically, since a send blocked on a dead socket will not check itself.
+     */
+    public void checkLag(long now) {
+        for (OutboundSessionQueue session : sessions.values()) {
+            session.checkLag(now);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.arogyajal.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Conditional GET support for the polled read APIs.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Set the validators on the response and check them against the request's
+     * If-None-Match / If-Modified-Since. When this returns true the response is
+     * already a 304 and the handler should return null without doing any work.
+     * Responses are marked no-cache so browsers always revalidate instead of
+     * guessing a freshness lifetime from Last-Modified.
+     */
+    static boolean notModified(ServletWebRequest request, String etag, long lastModified) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+}
@@ -1,27 +1,40 @@
 package com.arogyajal.controller;
 
+import com.arogyajal.dto.ChangesResponse;
 import com.arogyajal.dto.DashboardResponse;
 import com.arogyajal.model.Alert;
 import com.arogyajal.model.SensorReading;
 import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.projection.AlertHeader;
+import com.arogyajal.repository.projection.SymptomReportHeader;
 import com.arogyajal.service.AlertService;
+import com.arogyajal.service.DashboardSnapshotService;
+import com.arogyajal.service.DataVersions;
+import com.arogyajal.service.LocationAggregateView;
+import com.arogyajal.service.SensorHeartbeatMonitor;
+import com.arogyajal.service.SensorReadingStore;
 import com.arogyajal.service.SensorService;
 import com.arogyajal.service.SymptomService;
+import com.arogyajal.service.WaterSymptomCorrelationEngine;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 //import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.http.HttpStatus;
 
 import com.google.cloud.Timestamp;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,43 +58,48 @@ public class DashboardController {
     private final SensorService sensorService;
     private final SymptomService symptomService;
     private final AlertService alertService;
+    private final SensorHeartbeatMonitor sensorHeartbeatMonitor;
+    private final WaterSymptomCorrelationEngine correlationEngine;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final LocationAggregateView locationAggregateView;
+    private final DataVersions dataVersions;
+    private final SensorReadingStore readingStore;
 
-    public DashboardController(SensorService sensorService, SymptomService symptomService, AlertService alertService) {
+    // Time-windowed summaries also change as data ages out, so their ETags roll over per bucket
+    @Value("${arogyajal.versions.window-bucket-ms:60000}")
+    private long windowBucketMillis;
+
+    public DashboardController(SensorService sensorService, SymptomService symptomService, AlertService alertService,
+                               SensorHeartbeatMonitor sensorHeartbeatMonitor,
+                               WaterSymptomCorrelationEngine correlationEngine,
+                               DashboardSnapshotService dashboardSnapshotService,
+                               LocationAggregateView locationAggregateView,
+                               DataVersions dataVersions,
+                               SensorReadingStore readingStore) {
         this.sensorService = sensorService;
         this.symptomService = symptomService;
         this.alertService = alertService;
+        this.sensorHeartbeatMonitor = sensorHeartbeatMonitor;
+        this.correlationEngine = correlationEngine;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.locationAggregateView = locationAggregateView;
+        this.dataVersions = dataVersions;
+        this.readingStore = readingStore;
     }
     
     @GetMapping("/overview")
     @Operation(summary = "Get dashboard overview", description = "Retrieve overall dashboard metrics and status")
-    public ResponseEntity<Object> getDashboardOverview() {
-        log.info("Retrieving dashboard overview");
+    public ResponseEntity<Object> getDashboardOverview(ServletWebRequest request) {
+        log.debug("Retrieving dashboard overview");
         try {
-            // Initialize a simple response with default values
-            DashboardResponse response = new DashboardResponse();
-            response.setOverallStatus("HEALTHY");
-            response.setLastUpdated(Timestamp.now().toString());
-            
-            // Set default values for all fields to avoid null pointers
-            response.setTotalSensors(0);
-            response.setActiveSensors(0);
-            response.setOfflineSensors(0);
-            response.setLatestReadings(new HashMap<>());
-            response.setQualityAlerts(new ArrayList<>());
-            response.setTotalSymptomReports(0);
-            response.setPendingReports(0);
-            response.setResolvedReports(0);
-            response.setRecentSymptoms(new ArrayList<>());
-            response.setTotalAlerts(0);
-            response.setActiveAlerts(0);
-            response.setCriticalAlerts(0);
-            response.setRecentAlerts(new ArrayList<>());
-            response.setQualityTrends(new HashMap<>());
-            response.setQualityStatus(new HashMap<>());
-            response.setLocationData(new HashMap<>());
-            
-            log.info("Sending default dashboard response");
-            return ResponseEntity.ok(response);
+            // Maintained from events and already serialized; no Firestore reads
+            DashboardSnapshotService.Snapshot snapshot = dashboardSnapshotService.getSnapshot();
+            if (ConditionalGet.notModified(request, dataVersions.etag(snapshot.version()), snapshot.builtAt())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.json());
             
         } catch (Exception e) {
             log.error("Error in getDashboardOverview: {}", e.getMessage(), e);
@@ -96,85 +114,92 @@ public class DashboardController {
     
     @GetMapping("/sensors/status")
     @Operation(summary = "Get sensor status summary", description = "Retrieve sensor status and health information")
-    public ResponseEntity<Object> getSensorStatus() {
+    public ResponseEntity<Object> getSensorStatus(ServletWebRequest request) {
         log.info("Retrieving sensor status");
         
-        List<String> distinctSensorIds = sensorService.getDistinctSensorIds();
-        List<String> distinctLocations = sensorService.getDistinctLocations();
-        
-        // Get latest readings for each sensor to determine status
-        Map<String, String> sensorStatus = new HashMap<>();
-        for (String sensorId : distinctSensorIds) {
-            Optional<SensorReading> latest = sensorService.getLatestReadingBySensorId(sensorId);
-            if (latest.isPresent()) {
-                Timestamp lastReading = latest.get().getTimestamp();
-                Timestamp oneHourAgo = Timestamp.ofTimeSecondsAndNanos(
-                    Timestamp.now().getSeconds() - 3600, 0);
-                if (lastReading.compareTo(oneHourAgo) > 0) {
-                    sensorStatus.put(sensorId, "ONLINE");
-                } else {
-                    sensorStatus.put(sensorId, "OFFLINE");
-                }
-            } else {
-                sensorStatus.put(sensorId, "OFFLINE");
-            }
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.SENSOR_STATUS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version()), stamp.modifiedAt())) {
+            return null;
         }
         
+        // Maintained by the heartbeat monitor; no Firestore reads
+        Map<String, String> sensorStatus = sensorHeartbeatMonitor.getStatusMap();
+        
         long onlineSensors = sensorStatus.values().stream().mapToLong(status -> "ONLINE".equals(status) ? 1 : 0).sum();
         long offlineSensors = sensorStatus.size() - onlineSensors;
         
         SensorStatusResponse response = new SensorStatusResponse();
-        response.setTotalSensors(distinctSensorIds.size());
+        response.setTotalSensors(sensorStatus.size());
         response.setOnlineSensors(onlineSensors);
         response.setOfflineSensors(offlineSensors);
         response.setSensorStatusMap(sensorStatus);
-        response.setTotalLocations(distinctLocations.size());
+        response.setTotalLocations(sensorHeartbeatMonitor.getLocations().size());
         
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/alerts/summary")
     @Operation(summary = "Get alerts summary", description = "Retrieve summary of all alerts")
-    public ResponseEntity<Object> getAlertsSummary() {
+    public ResponseEntity<Object> getAlertsSummary(ServletWebRequest request) {
         log.info("Retrieving alerts summary");
         
-        List<Alert> allAlerts = alertService.getAllAlerts();
-        List<Alert> activeAlerts = alertService.getActiveAlerts();
-        List<Alert> criticalAlerts = alertService.getCriticalAlerts();
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.ALERTS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version()), stamp.modifiedAt())) {
+            return null;
+        }
+        
+        // Count and rank on projected headers; only the ten shown are read in full
+        List<AlertHeader> headers = alertService.getAlertHeaders();
         
         AlertsSummaryResponse response = new AlertsSummaryResponse();
-        response.totalAlerts = allAlerts.size();
-        response.activeAlerts = activeAlerts.size();
-        response.criticalAlerts = criticalAlerts.size();
-        response.recentAlerts = allAlerts.stream()
-                .sorted((a, b) -> b.getTriggeredAt().compareTo(a.getTriggeredAt()))
+        response.totalAlerts = headers.size();
+        response.activeAlerts = headers.stream().filter(h -> "ACTIVE".equals(h.status())).count();
+        response.criticalAlerts = headers.stream().filter(h -> "CRITICAL".equals(h.severity())).count();
+        response.recentAlerts = alertService.getAlertsByIds(headers.stream()
+                .filter(h -> h.triggeredAt() != null)
+                .sorted(Comparator.comparing(AlertHeader::triggeredAt).reversed())
                 .limit(10)
-                .collect(Collectors.toList());
+                .map(AlertHeader::id)
+                .collect(Collectors.toList()));
         
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/alerts/changes")
+    @Operation(summary = "Get alert changes", description = "Alerts created or updated after the given version")
+    public ResponseEntity<ChangesResponse<Alert>> getAlertChanges(@RequestParam long since) {
+        return ResponseEntity.ok(dataVersions.alertsSince(since));
+    }
+    
     @GetMapping("/symptoms/summary")
     @Operation(summary = "Get symptoms summary", description = "Retrieve summary of symptom reports")
-    public ResponseEntity<Object> getSymptomsSummary() {
+    public ResponseEntity<Object> getSymptomsSummary(ServletWebRequest request) {
         log.info("Retrieving symptoms summary");
         
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.SYMPTOMS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version(), windowBucket()), stamp.modifiedAt())) {
+            return null;
+        }
+        
         long totalReports = symptomService.getReportCount();
         long pendingReports = symptomService.getReportCountByStatus("PENDING");
         long resolvedReports = symptomService.getReportCountByStatus("RESOLVED");
         
         // Get recent high severity reports
         LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-        List<SymptomReport> recentHighSeverity = symptomService.getHighSeverityRecentReports(last24Hours);
+        List<SymptomReportHeader> recentHighSeverity = symptomService.getHighSeverityRecentReportHeaders(last24Hours);
         
         SymptomsSummaryResponse response = new SymptomsSummaryResponse();
         response.totalReports = totalReports;
         response.pendingReports = pendingReports;
         response.resolvedReports = resolvedReports;
         response.recentHighSeverityReports = recentHighSeverity.size();
-        response.recentReports = recentHighSeverity.stream()
+        response.recentReports = symptomService.getReportsByIds(recentHighSeverity.stream()
+                .sorted(Comparator.comparing(SymptomReportHeader::reportedAt,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
                 .limit(10)
-                .collect(Collectors.toList());
+                .map(SymptomReportHeader::id)
+                .collect(Collectors.toList()));
         
         return ResponseEntity.ok(response);
     }
@@ -182,15 +207,18 @@ public class DashboardController {
     @GetMapping("/water-quality/trends")
     @Operation(summary = "Get water quality trends", description = "Retrieve water quality trends over time")
     public ResponseEntity<Object> getWaterQualityTrends(
-            @RequestParam(defaultValue = "24") int hours) {
+            @RequestParam(defaultValue = "24") int hours, ServletWebRequest request) {
         log.info("Retrieving water quality trends for last {} hours", hours);
         
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.READINGS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version(), windowBucket()), stamp.modifiedAt())) {
+            return null;
+        }
+        
         Timestamp end = Timestamp.now();
         Timestamp start = Timestamp.ofTimeSecondsAndNanos(
             end.getSeconds() - (hours * 3600), 0);
         
-        List<SensorReading> readings = sensorService.getReadingsByTimeRange(start, end);
-        
         // Group readings by parameter and create trend data
         Map<String, List<DashboardResponse.DataPoint>> trends = new HashMap<>();
         Map<String, Double> latestValues = new HashMap<>();
@@ -198,24 +226,51 @@ public class DashboardController {
         // Process each parameter
         String[] parameters = {"ph", "temperature", "turbidity", "dissolvedOxygen", "conductivity"};
         
-        for (String param : parameters) {
-            List<DashboardResponse.DataPoint> dataPoints = new ArrayList<>();
-            Double latestValue = null;
-            
-            for (SensorReading reading : readings) {
-                Double value = getParameterValue(reading, param);
-                if (value != null) {
+        long startNanos = SensorReadingStore.nanos(start);
+        if (readingStore.covers(startNanos)) {
+            // Scanned from the in-memory columns, newest first like the Firestore query
+            long endNanos = SensorReadingStore.nanos(end);
+            for (String param : parameters) {
+                SensorReadingStore.Series series = readingStore.series(
+                        SensorReadingStore.Column.of(param).orElseThrow(), null, startNanos, endNanos);
+                if (series.size() == 0) {
+                    continue;
+                }
+                List<DashboardResponse.DataPoint> dataPoints = new ArrayList<>(series.size());
+                for (int i = series.size() - 1; i >= 0; i--) {
                     dataPoints.add(DashboardResponse.DataPoint.builder()
-                            .timestamp(TimestampToLocalDateTime(reading.getTimestamp()))
-                            .value(value)
+                            .timestamp(TimestampToLocalDateTime(SensorReadingStore.timestamp(series.timesNanos()[i])))
+                            .value(series.values()[i])
                             .build());
-                    latestValue = value;
                 }
+                trends.put(param, dataPoints);
+                latestValues.put(param, series.values()[series.size() - 1]);
             }
+        } else {
+            List<SensorReading> readings = sensorService.getReadingsByTimeRange(start, end);
             
-            if (!dataPoints.isEmpty()) {
-                trends.put(param, dataPoints);
-                latestValues.put(param, latestValue);
+            for (String param : parameters) {
+                List<DashboardResponse.DataPoint> dataPoints = new ArrayList<>();
+                Double latestValue = null;
+                
+                // Readings come newest first
+                for (SensorReading reading : readings) {
+                    Double value = getParameterValue(reading, param);
+                    if (value != null) {
+                        dataPoints.add(DashboardResponse.DataPoint.builder()
+                                .timestamp(TimestampToLocalDateTime(reading.getTimestamp()))
+                                .value(value)
+                                .build());
+                        if (latestValue == null) {
+                            latestValue = value;
+                        }
+                    }
+                }
+                
+                if (!dataPoints.isEmpty()) {
+                    trends.put(param, dataPoints);
+                    latestValues.put(param, latestValue);
+                }
             }
         }
         
@@ -229,69 +284,46 @@ public class DashboardController {
     
     @GetMapping("/locations/summary")
     @Operation(summary = "Get locations summary", description = "Retrieve summary data for all locations")
-    public ResponseEntity<Object> getLocationsSummary() {
-        log.info("Retrieving locations summary");
-        
-        List<String> distinctLocations = sensorService.getDistinctLocations();
-        List<DashboardResponse.LocationSummary> locationSummaries = new ArrayList<>();
-        
-        // Filter out null locations and get distinct ones
-        List<String> uniqueLocations = distinctLocations.stream()
-                .filter(Objects::nonNull)  // Filter out null locations
-                .distinct()
-                .collect(Collectors.toList());
-                
-        for (String locationName : uniqueLocations) {
-            if (locationName == null) continue;  // Skip null location names
-            
-            // Get sensor count for this location
-            long sensorCount = sensorService.getSensorCountByLocation(locationName);
-            
-            // Get alert count for this location
-            List<Alert> locationAlerts = alertService.getAlertsByLocation(locationName);
-            
-            // Get symptom report count for this location
-            long symptomCount = symptomService.getReportCountByLocation(locationName);
-            
-            // Get latest readings for this location
-            List<SensorReading> latestReadings = sensorService.getReadingsByLocation(locationName);
-            Map<String, Double> latestValues = new HashMap<>();
-            
-            if (latestReadings != null && !latestReadings.isEmpty()) {
-                SensorReading latest = latestReadings.get(0);
-                if (latest != null) {
-                    latestValues.put("ph", latest.getPh());
-                    latestValues.put("temperature", latest.getTemperature());
-                    latestValues.put("turbidity", latest.getTurbidity());
-                    latestValues.put("dissolvedOxygen", latest.getDissolvedOxygen());
-                }
-            }
-            
-            // Determine overall status for this location
-            String status = "HEALTHY";
-            if (locationAlerts.stream().anyMatch(alert -> "CRITICAL".equals(alert.getSeverity()))) {
-                status = "CRITICAL";
-            } else if (locationAlerts.stream().anyMatch(alert -> "HIGH".equals(alert.getSeverity()))) {
-                status = "WARNING";
-            }
-            
-            locationSummaries.add(DashboardResponse.LocationSummary.builder()
-                    .location(locationName)
-                    .status(status)
-                    .sensorCount((int) sensorCount)
-                    .alertCount(locationAlerts.size())
-                    .symptomReportCount((int) symptomCount)
-                    .latestReadings(latestValues)
-                    .build());
+    public ResponseEntity<Object> getLocationsSummary(ServletWebRequest request) {
+        log.debug("Retrieving locations summary");
+        
+        // Served from the incrementally maintained view; until it is warm the request is refused and a
+        // warm-up retried in the background rather than on this thread
+        if (!locationAggregateView.isWarm()) {
+            locationAggregateView.warmUpInBackground();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (ConditionalGet.notModified(request, dataVersions.etag(locationAggregateView.getVersion()), -1)) {
+            return null;
         }
         
         LocationsSummaryResponse response = new LocationsSummaryResponse();
-        response.locations = locationSummaries;
-        response.totalLocations = locationSummaries.size();
+        response.locations = locationAggregateView.getSummaries();
+        response.totalLocations = response.locations.size();
         
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/correlations")
+    @Operation(summary = "Get water quality and symptom correlations",
+            description = "Lagged correlation between sensor parameters and symptom reports per sensor location")
+    public ResponseEntity<Object> getCorrelations(@RequestParam(required = false) String location) {
+        log.info("Retrieving water quality/symptom correlations");
+        
+        if (location != null) {
+            Optional<WaterSymptomCorrelationEngine.LocationCorrelation> correlation = correlationEngine.getCorrelation(location);
+            if (correlation.isPresent()) {
+                return ResponseEntity.ok(correlation.get());
+            }
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(correlationEngine.getCorrelations());
+    }
+    
+    private long windowBucket() {
+        return System.currentTimeMillis() / Math.max(1, windowBucketMillis);
+    }
+    
     private Double getParameterValue(SensorReading reading, String parameter) {
         switch (parameter) {
             case "ph":
@@ -0,0 +1,118 @@
+package com.arogyajal.controller;
+
+import com.arogyajal.service.MapClusterService;
+import com.arogyajal.service.SpatialIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/map")
+@Tag(name = "Map", description = "Spatial queries over sensors and symptom reports, and map tile aggregates")
+public class MapController {
+
+    private static final String BBOX_DESCRIPTION = "minLat,minLon,maxLat,maxLon";
+
+    private final SpatialIndexService spatialIndexService;
+    private final MapClusterService mapClusterService;
+
+    public MapController(SpatialIndexService spatialIndexService, MapClusterService mapClusterService) {
+        this.spatialIndexService = spatialIndexService;
+        this.mapClusterService = mapClusterService;
+    }
+
+    @GetMapping("/sensors")
+    @Operation(summary = "Sensors inside a bounding box, at their latest position")
+    public ResponseEntity<List<SpatialIndexService.SensorPoint>> getSensorsWithin(
+            @Parameter(description = BBOX_DESCRIPTION) @RequestParam String bbox) {
+        double[] box = parseBbox(bbox);
+        return ResponseEntity.ok(spatialIndexService.sensorsWithin(box[0], box[1], box[2], box[3]));
+    }
+
+    @GetMapping("/sensors/nearest")
+    @Operation(summary = "Sensors nearest to a point, closest first")
+    public ResponseEntity<List<SpatialIndexService.Nearby<SpatialIndexService.SensorPoint>>> getNearestSensors(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @Parameter(description = "Maximum number of sensors") @RequestParam(defaultValue = "10") int k,
+            @Parameter(description = "Search radius in meters") @RequestParam(defaultValue = "50000") double radiusMeters) {
+        validatePoint(lat, lon, k);
+        return ResponseEntity.ok(spatialIndexService.nearestSensors(lat, lon, k, radiusMeters));
+    }
+
+    @GetMapping("/symptom-reports")
+    @Operation(summary = "Symptom reports inside a bounding box")
+    public ResponseEntity<List<SpatialIndexService.ReportPoint>> getReportsWithin(
+            @Parameter(description = BBOX_DESCRIPTION) @RequestParam String bbox) {
+        double[] box = parseBbox(bbox);
+        return ResponseEntity.ok(spatialIndexService.reportsWithin(box[0], box[1], box[2], box[3]));
+    }
+
+    @GetMapping("/symptom-reports/nearest")
+    @Operation(summary = "Symptom reports nearest to a point, closest first")
+    public ResponseEntity<List<SpatialIndexService.Nearby<SpatialIndexService.ReportPoint>>> getNearestReports(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @Parameter(description = "Maximum number of reports") @RequestParam(defaultValue = "10") int k,
+            @Parameter(description = "Search radius in meters") @RequestParam(defaultValue = "5000") double radiusMeters) {
+        validatePoint(lat, lon, k);
+        return ResponseEntity.ok(spatialIndexService.nearestReports(lat, lon, k, radiusMeters));
+    }
+
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    @Operation(summary = "Get map tile aggregates",
+              description = "Sensor and symptom report counts and the worst latest WQI per geohash cell of a web map tile; "
+                      + "the geohash precision follows the zoom level")
+    public ResponseEntity<List<SpatialIndexService.Tile>> getTile(
+            @PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        double[] box = SpatialIndexService.tileBounds(z, x, y);
+        return ResponseEntity.ok(spatialIndexService.tiles(z, box[0], box[1], box[2], box[3]));
+    }
+
+    @GetMapping("/clusters")
+    @Operation(summary = "Get map clusters",
+              description = "Sensors and recent symptom reports in the viewport, clustered for the zoom level; "
+                      + "single points carry their device or report id")
+    public ResponseEntity<List<MapClusterService.Cluster>> getClusters(
+            @Parameter(description = BBOX_DESCRIPTION) @RequestParam String bbox,
+            @RequestParam int zoom) {
+        double[] box = parseBbox(bbox);
+        return ResponseEntity.ok(mapClusterService.clusters(box[0], box[1], box[2], box[3], zoom));
+    }
+
+    private static double[] parseBbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox must be " + BBOX_DESCRIPTION);
+        }
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bbox must be " + BBOX_DESCRIPTION);
+        }
+        if (box[0] > box[2] || box[1] > box[3]) {
+            throw new IllegalArgumentException("bbox minimums must not exceed maximums");
+        }
+        return box;
+    }
+
+    private static void validatePoint(double lat, double lon, int k) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        if (k < 1 || k > 1000) {
+            throw new IllegalArgumentException("k must be within 1..1000");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.arogyajal.controller;
+
+import com.arogyajal.service.FullTextSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search", description = "Full-text search over symptom report notes and alert text")
+public class SearchController {
+
+    private final FullTextSearchService fullTextSearchService;
+
+    public SearchController(FullTextSearchService fullTextSearchService) {
+        this.fullTextSearchService = fullTextSearchService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Search notes and alerts",
+              description = "Hindi or English words, ranked by relevance; documents matching more and rarer words come first")
+    public ResponseEntity<FullTextSearchService.SearchResult> search(
+            @Parameter(description = "Search text") @RequestParam String q,
+            @Parameter(description = "REPORT or ALERT") @RequestParam(required = false) FullTextSearchService.DocType type,
+            @Parameter(description = "Location name") @RequestParam(required = false) String location,
+            @Parameter(description = "First day") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Maximum number of results") @RequestParam(defaultValue = "20") int limit) {
+        if (!fullTextSearchService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(fullTextSearchService.search(q, type, location, from, to, limit));
+    }
+}
@@ -1,7 +1,13 @@
 package com.arogyajal.controller;
 
+import com.arogyajal.dto.ChangesResponse;
 import com.arogyajal.dto.SensorData;
 import com.arogyajal.model.SensorReading;
+import com.arogyajal.service.CardinalityService;
+import com.arogyajal.service.DataVersions;
+import com.arogyajal.service.ParameterDistributionService;
+import com.arogyajal.service.SensorHeartbeatMonitor;
+import com.arogyajal.service.SensorReadingStore;
 import com.arogyajal.service.SensorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,10 +16,14 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.cloud.Timestamp;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.LocalDate;
 import java.util.*;
 
 /**
@@ -51,9 +61,19 @@ public class SensorController {
 
     private static final Logger log = LoggerFactory.getLogger(SensorController.class);
     private final SensorService sensorService;
+    private final DataVersions dataVersions;
+    private final ParameterDistributionService parameterDistributionService;
+    private final CardinalityService cardinalityService;
+    private final SensorHeartbeatMonitor sensorHeartbeatMonitor;
 
-    public SensorController(SensorService sensorService) {
+    public SensorController(SensorService sensorService, DataVersions dataVersions,
+                            ParameterDistributionService parameterDistributionService,
+                            CardinalityService cardinalityService, SensorHeartbeatMonitor sensorHeartbeatMonitor) {
         this.sensorService = sensorService;
+        this.dataVersions = dataVersions;
+        this.parameterDistributionService = parameterDistributionService;
+        this.cardinalityService = cardinalityService;
+        this.sensorHeartbeatMonitor = sensorHeartbeatMonitor;
     }
 
     @PostMapping("/sensor-data")
@@ -106,7 +126,11 @@ public class SensorController {
     @Operation(summary = "Get recent sensor readings",
               description = "Retrieve a list of recent sensor readings with pagination")
     public ResponseEntity<List<SensorData>> getRecentReadings(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit, ServletWebRequest request) {
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.READINGS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version()), stamp.modifiedAt())) {
+            return null;
+        }
         try {
             List<SensorData> readings = sensorService.getRecentReadings(limit);
             return ResponseEntity.ok(readings);
@@ -116,10 +140,22 @@ public class SensorController {
         }
     }
     
+    @GetMapping("/sensor-data/readings/changes")
+    @Operation(summary = "Get sensor reading changes",
+              description = "Readings ingested after the given version, oldest first")
+    public ResponseEntity<ChangesResponse<SensorData>> getReadingChanges(
+            @Parameter(description = "Version from the previous response") @RequestParam long since) {
+        return ResponseEntity.ok(dataVersions.readingsSince(since));
+    }
+    
     @GetMapping("/sensor-data/latest")
     @Operation(summary = "Get latest sensor data", 
               description = "Retrieve the most recent sensor data")
-    public ResponseEntity<?> getLatestSensorData() {
+    public ResponseEntity<?> getLatestSensorData(ServletWebRequest request) {
+        DataVersions.Stamp stamp = dataVersions.get(DataVersions.Domain.READINGS);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version()), stamp.modifiedAt())) {
+            return null;
+        }
         try {
             SensorData latestData = sensorService.getLatestSensorData();
             if (latestData != null) {
@@ -143,7 +179,11 @@ public class SensorController {
     @Operation(summary = "Get latest sensor data by device ID", 
               description = "Retrieve the most recent sensor data for a specific device")
     public ResponseEntity<?> getLatestSensorDataByDeviceId(
-            @Parameter(description = "Device ID") @PathVariable String deviceId) {
+            @Parameter(description = "Device ID") @PathVariable String deviceId, ServletWebRequest request) {
+        DataVersions.Stamp stamp = dataVersions.getDevice(deviceId);
+        if (ConditionalGet.notModified(request, dataVersions.etag(stamp.version()), stamp.modifiedAt())) {
+            return null;
+        }
         try {
             SensorData sensorData = sensorService.getSensorDataByDeviceId(deviceId);
             if (sensorData != null) {
@@ -183,7 +223,8 @@ public class SensorController {
     public ResponseEntity<Map<String, Object>> listDeviceIds() {
         log.info("Fetching all device IDs");
         try {
-            List<String> deviceIds = sensorService.getDistinctDeviceIds();
+            // Known to the heartbeat monitor; no collection scan
+            List<String> deviceIds = new ArrayList<>(new TreeSet<>(sensorHeartbeatMonitor.getStatusMap().keySet()));
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("count", deviceIds.size());
@@ -204,8 +245,12 @@ public class SensorController {
         try {
             SensorStatisticsResponse response = new SensorStatisticsResponse();
             response.setTotalReadings(sensorService.getTotalReadings());
-            response.setDeviceIds(sensorService.getDistinctDeviceIds());
-            response.setLocations(sensorService.getDistinctLocations());
+            // Ids from the heartbeat monitor, counts from the cardinality sketches; no collection scans
+            response.setDeviceIds(new ArrayList<>(new TreeSet<>(sensorHeartbeatMonitor.getStatusMap().keySet())));
+            response.setLocations(new ArrayList<>(new TreeSet<>(sensorHeartbeatMonitor.getLocations())));
+            response.setDistinctDevices(cardinalityService.estimateAll(CardinalityService.Dimension.DEVICES, CardinalityService.ALL));
+            response.setDistinctLocations(cardinalityService.estimateAll(CardinalityService.Dimension.LOCATIONS, CardinalityService.ALL));
+            response.setDistinctReporters(cardinalityService.estimateAll(CardinalityService.Dimension.REPORTERS, CardinalityService.ALL));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error fetching sensor data statistics: {}", e.getMessage(), e);
@@ -213,6 +258,74 @@ public class SensorController {
         }
     }
     
+    @GetMapping("/sensor-data/statistics/cardinality")
+    @Operation(summary = "Get distinct counts",
+              description = "Estimated distinct devices, locations, reporting users or symptom types over the given days, "
+                      + "for one location or the whole system")
+    public ResponseEntity<CardinalityService.Estimate> getCardinality(
+            @Parameter(description = "devices, locations, reporters or symptoms") @RequestParam String dimension,
+            @Parameter(description = "First day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Location, or the whole system") @RequestParam(required = false) String location) {
+        return ResponseEntity.ok(cardinalityService.estimate(CardinalityService.Dimension.of(dimension),
+                location != null ? location : CardinalityService.ALL, from, to));
+    }
+    
+    @GetMapping(value = "/sensor-data/statistics/cardinality/sketch", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Export a distinct-count sketch",
+              description = "Serialized HyperLogLog sketch of one dimension, scope and day, for merging on another node")
+    public ResponseEntity<byte[]> getCardinalitySketch(
+            @Parameter(description = "devices, locations, reporters or symptoms") @RequestParam String dimension,
+            @Parameter(description = "Day of the sketch") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day,
+            @Parameter(description = "Location, or the whole system") @RequestParam(required = false) String location) {
+        return cardinalityService.getSketch(CardinalityService.Dimension.of(dimension),
+                        location != null ? location : CardinalityService.ALL, day)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping(value = "/sensor-data/statistics/cardinality/sketch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Merge a distinct-count sketch",
+              description = "Fold a sketch exported by another node into this node's sketch of the same dimension, scope and day")
+    public ResponseEntity<Void> mergeCardinalitySketch(
+            @Parameter(description = "devices, locations, reporters or symptoms") @RequestParam String dimension,
+            @Parameter(description = "Day of the sketch") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day,
+            @Parameter(description = "Location, or the whole system") @RequestParam(required = false) String location,
+            @RequestBody byte[] sketch) {
+        cardinalityService.mergeSketch(CardinalityService.Dimension.of(dimension),
+                location != null ? location : CardinalityService.ALL, day, sketch);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/sensor-data/statistics/distribution")
+    @Operation(summary = "Get parameter distributions",
+              description = "p5/p50/p95, min, max and mean of pH, turbidity, TDS and dissolved oxygen per location, "
+                      + "merged from daily sketches over the given days")
+    public ResponseEntity<List<ParameterDistributionService.Distribution>> getDistributionStatistics(
+            @Parameter(description = "First day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Location, or all") @RequestParam(required = false) String location,
+            @Parameter(description = "ph, turbidity, totalDissolvedSolids or dissolvedOxygen, or all") @RequestParam(required = false) String parameter,
+            @Parameter(description = "One entry per day instead of one per range") @RequestParam(defaultValue = "false") boolean daily) {
+        log.info("Fetching parameter distributions from {} to {}", from, to);
+        return ResponseEntity.ok(parameterDistributionService.getDistributions(location, parameter, from, to, daily));
+    }
+    
+    @GetMapping("/sensor-data/statistics/window")
+    @Operation(summary = "Get windowed parameter statistics",
+              description = "Count, min, max, mean, standard deviation and latest value of one parameter over the "
+                      + "last hours, computed from the in-memory reading store")
+    public ResponseEntity<SensorReadingStore.Stats> getWindowStatistics(
+            @Parameter(description = "Reading field, e.g. ph, turbidity, dissolvedOxygen, wqi or batteryVoltage") @RequestParam String parameter,
+            @Parameter(description = "Window length in hours") @RequestParam(defaultValue = "24") int hours,
+            @Parameter(description = "Device, or all") @RequestParam(required = false) String deviceId) {
+        SensorReadingStore.Stats stats = sensorService.getWindowStatistics(parameter, deviceId, hours);
+        if (stats == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+    
     @GetMapping("/sensor-data/all-readings")
     @Operation(summary = "Get all sensor readings", description = "Retrieve all sensor readings")
     public ResponseEntity<List<SensorReading>> getAllSensorReadings() {
@@ -289,6 +402,17 @@ public class SensorController {
         }
     }
     
+    @GetMapping("/sensor-data/readings/sensor/{sensorId}/trend")
+    @Operation(summary = "Get short-window trend of a sensor",
+              description = "One parameter of a sensor over the last minutes, oldest first, as epoch-nanosecond "
+                      + "times and values; served from the device's in-memory ring when it holds the window")
+    public ResponseEntity<SensorReadingStore.Series> getDeviceTrend(
+            @Parameter(description = "Sensor ID") @PathVariable String sensorId,
+            @Parameter(description = "Reading field, e.g. ph, turbidity or dissolvedOxygen") @RequestParam String parameter,
+            @Parameter(description = "Window length in minutes") @RequestParam(defaultValue = "60") int minutes) {
+        return ResponseEntity.ok(sensorService.getDeviceTrend(sensorId, parameter, minutes));
+    }
+    
     @GetMapping("/sensor-data/readings/quality/{qualityStatus}")
     @Operation(summary = "Get readings by quality status", 
               description = "Retrieve readings filtered by quality status (GOOD, WARNING, CRITICAL)")
@@ -322,6 +446,9 @@ public class SensorController {
     // Inner class for sensor statistics response
     public static class SensorStatisticsResponse {
         private long totalReadings;
+        private long distinctDevices;
+        private long distinctLocations;
+        private long distinctReporters;
         private List<String> deviceIds;
         private List<String> locations;
         
@@ -353,5 +480,29 @@ public class SensorController {
         public void setLocations(List<String> locations) {
             this.locations = locations;
         }
+        
+        public long getDistinctDevices() {
+            return distinctDevices;
+        }
+        
+        public void setDistinctDevices(long distinctDevices) {
+            this.distinctDevices = distinctDevices;
+        }
+        
+        public long getDistinctLocations() {
+            return distinctLocations;
+        }
+        
+        public void setDistinctLocations(long distinctLocations) {
+            this.distinctLocations = distinctLocations;
+        }
+        
+        public long getDistinctReporters() {
+            return distinctReporters;
+        }
+        
+        public void setDistinctReporters(long distinctReporters) {
+            this.distinctReporters = distinctReporters;
+        }
     }
 }
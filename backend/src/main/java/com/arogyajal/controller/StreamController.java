@@ -0,0 +1,52 @@
+package com.arogyajal.controller;
+
+import com.arogyajal.service.LiveEventStream;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@Tag(name = "Live Streams", description = "Server-Sent Events streams for clients that cannot use STOMP")
+public class StreamController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final LiveEventStream liveEventStream;
+
+    public StreamController(LiveEventStream liveEventStream) {
+        this.liveEventStream = liveEventStream;
+    }
+
+    @GetMapping(value = "/readings", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream sensor readings as they are ingested")
+    public SseEmitter streamReadings(
+            @Parameter(description = "Only readings from this device")
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        return liveEventStream.subscribe(LiveEventStream.READINGS, deviceId, lastEventId);
+    }
+
+    @GetMapping(value = "/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream alerts as they are raised, updated and resolved")
+    public SseEmitter streamAlerts(
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        return liveEventStream.subscribe(LiveEventStream.ALERTS, null, lastEventId);
+    }
+
+    @GetMapping(value = "/sensor-status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream sensor online/offline changes")
+    public SseEmitter streamSensorStatus(
+            @Parameter(description = "Only changes of this device")
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        return liveEventStream.subscribe(LiveEventStream.SENSOR_STATUS, deviceId, lastEventId);
+    }
+}
@@ -1,9 +1,13 @@
 package com.arogyajal.controller;
 
 import com.arogyajal.dto.SymptomRequest;
+import com.arogyajal.dto.SymptomSyncRequest;
+import com.arogyajal.dto.SymptomSyncResponse;
 import com.arogyajal.model.SymptomReport;
-import com.arogyajal.service.AlertService;
+import com.arogyajal.service.OutbreakClusterEngine;
+import com.arogyajal.service.SymptomIndexService;
 import com.arogyajal.service.SymptomService;
+import com.arogyajal.service.SymptomSyncService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -34,11 +38,16 @@ public class SymptomController {
     private static final Logger log = LoggerFactory.getLogger(SymptomController.class);
     
     private final SymptomService symptomService;
-    private final AlertService alertService;
+    private final OutbreakClusterEngine outbreakClusterEngine;
+    private final SymptomIndexService symptomIndexService;
+    private final SymptomSyncService symptomSyncService;
 
-    public SymptomController(SymptomService symptomService, AlertService alertService) {
+    public SymptomController(SymptomService symptomService, OutbreakClusterEngine outbreakClusterEngine,
+                             SymptomIndexService symptomIndexService, SymptomSyncService symptomSyncService) {
         this.symptomService = symptomService;
-        this.alertService = alertService;
+        this.outbreakClusterEngine = outbreakClusterEngine;
+        this.symptomIndexService = symptomIndexService;
+        this.symptomSyncService = symptomSyncService;
     }
     
     @PostMapping("/reports")
@@ -48,12 +57,19 @@ public class SymptomController {
         
         SymptomReport report = symptomService.saveSymptomReport(request);
         
-        // Check for symptom cluster alerts after saving the report
-        alertService.checkForSymptomClusterAlerts(request.getLocation());
-        
         return ResponseEntity.status(HttpStatus.CREATED).body(report);
     }
     
+    @PostMapping("/reports/sync")
+    @Operation(summary = "Sync a batch of offline symptom reports",
+              description = "Stores reports collected offline in one batch. Items carry device-generated idempotency keys, "
+                      + "so retried uploads are reported as duplicates instead of stored twice; the response has one "
+                      + "status per item")
+    public ResponseEntity<SymptomSyncResponse> syncSymptomReports(@Valid @RequestBody SymptomSyncRequest request) {
+        log.info("Syncing {} symptom reports", request.getReports().size());
+        return ResponseEntity.ok(symptomSyncService.sync(request));
+    }
+    
     @GetMapping("/reports")
     @Operation(summary = "Get all symptom reports", description = "Retrieve all symptom reports")
     public ResponseEntity<List<SymptomReport>> getAllSymptomReports() {
@@ -142,7 +158,9 @@ public class SymptomController {
             @Parameter(description = "List of symptoms") @RequestParam List<String> symptoms) {
         log.info("Retrieving reports with symptoms: {}", symptoms);
         
-        List<SymptomReport> reports = symptomService.getReportsBySymptoms(symptoms);
+        List<SymptomReport> reports = symptomIndexService.isReady()
+                ? symptomIndexService.findByLocationAndAnySymptom(null, symptoms)
+                : symptomService.getReportsBySymptoms(symptoms);
         return ResponseEntity.ok(reports);
     }
     
@@ -153,10 +171,27 @@ public class SymptomController {
             @Parameter(description = "List of symptoms") @RequestParam List<String> symptoms) {
         log.info("Retrieving reports for location {} with symptoms: {}", location, symptoms);
         
-        List<SymptomReport> reports = symptomService.getReportsByLocationAndSymptoms(location, symptoms);
+        List<SymptomReport> reports = symptomIndexService.isReady()
+                ? symptomIndexService.findByLocationAndAnySymptom(location, symptoms)
+                : symptomService.getReportsByLocationAndSymptoms(location, symptoms);
         return ResponseEntity.ok(reports);
     }
     
+    @GetMapping("/reports/search")
+    @Operation(summary = "Search symptom reports",
+              description = "Boolean query over field:value terms (symptom, location, severity, status, day), combined with "
+                      + "AND, OR, NOT and parentheses, e.g. symptom:DIARRHEA AND symptom:FEVER AND location:\"Ward 5\"")
+    public ResponseEntity<SymptomIndexService.SearchResult> searchReports(
+            @Parameter(description = "Query") @RequestParam String q,
+            @Parameter(description = "Only reports from the last N days") @RequestParam(required = false) Integer days,
+            @Parameter(description = "Maximum number of reports returned") @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Return ids without the reports") @RequestParam(defaultValue = "false") boolean idsOnly) {
+        if (!symptomIndexService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(symptomIndexService.search(q, days, limit, idsOnly));
+    }
+    
     @GetMapping("/reports/high-severity/recent")
     @Operation(summary = "Get high severity recent reports", description = "Retrieve high severity reports from the last 24 hours")
     public ResponseEntity<List<SymptomReport>> getHighSeverityRecentReports(
@@ -200,6 +235,13 @@ public class SymptomController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/clusters")
+    @Operation(summary = "Get active outbreak clusters", description = "Spatio-temporal clusters of recent symptom reports with nearby sensors")
+    public ResponseEntity<List<OutbreakClusterEngine.ClusterView>> getActiveClusters() {
+        log.info("Retrieving active outbreak clusters");
+        return ResponseEntity.ok(outbreakClusterEngine.getActiveClusters());
+    }
+    
     // Response class
     public static class SymptomStatisticsResponse {
         public long totalReports;
@@ -0,0 +1,47 @@
+package com.arogyajal.dto;
+
+import java.util.List;
+
+/**
+ * Answer to a "changes since version" request. When {@code complete} is false
+ * the requested version is too old for the change log and the client should
+ * re-read the full list, then continue from {@code version}.
+ */
+public class ChangesResponse<T> {
+    private long version;
+    private boolean complete;
+    private List<T> changes;
+
+    public ChangesResponse() {
+    }
+
+    public ChangesResponse(long version, boolean complete, List<T> changes) {
+        this.version = version;
+        this.complete = complete;
+        this.changes = changes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public List<T> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<T> changes) {
+        this.changes = changes;
+    }
+}
@@ -10,6 +10,7 @@ public class DashboardResponse {
     // Overall system status
     private String overallStatus; // HEALTHY, WARNING, CRITICAL
     private String lastUpdated;
+    private Long version; // snapshot version, increases with every change
     
     // Sensor statistics
     private Integer totalSensors;
@@ -86,6 +87,14 @@ public class DashboardResponse {
         this.lastUpdated = lastUpdated;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Integer getTotalSensors() {
         return totalSensors;
     }
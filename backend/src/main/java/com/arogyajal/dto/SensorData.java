@@ -1,5 +1,8 @@
 package com.arogyajal.dto;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import com.google.cloud.Timestamp;
@@ -20,6 +23,7 @@ public class SensorData {
     @JsonDeserialize(using = TimestampDeserializer.class)
     private Timestamp timestamp;
     
+    @Valid
     @NotNull(message = "Location is required")
     private Location location;
     
@@ -131,9 +135,13 @@ public class SensorData {
             return Objects.hash(lat, lon);
         }
         @NotNull(message = "Latitude is required")
+        @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+        @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
         private Double lat;
         
         @NotNull(message = "Longitude is required")
+        @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+        @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
         private Double lon;
 
         public Location() {
@@ -0,0 +1,94 @@
+package com.arogyajal.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * ONLINE/OFFLINE transition of a sensor, pushed to /topic/sensor-status.
+ */
+public class SensorStatusUpdate {
+    private String deviceId;
+    private String status; // ONLINE, OFFLINE
+    private String location;
+    private LocalDateTime lastSeen;
+    private LocalDateTime changedAt;
+
+    public SensorStatusUpdate() {
+    }
+
+    public SensorStatusUpdate(String deviceId, String status, String location, LocalDateTime lastSeen, LocalDateTime changedAt) {
+        this.deviceId = deviceId;
+        this.status = status;
+        this.location = location;
+        this.lastSeen = lastSeen;
+        this.changedAt = changedAt;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(LocalDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SensorStatusUpdate that = (SensorStatusUpdate) o;
+        return Objects.equals(deviceId, that.deviceId) &&
+               Objects.equals(status, that.status) &&
+               Objects.equals(location, that.location) &&
+               Objects.equals(lastSeen, that.lastSeen) &&
+               Objects.equals(changedAt, that.changedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(deviceId, status, location, lastSeen, changedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "SensorStatusUpdate{" +
+                "deviceId='" + deviceId + '\'' +
+                ", status='" + status + '\'' +
+                ", location='" + location + '\'' +
+                ", lastSeen=" + lastSeen +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
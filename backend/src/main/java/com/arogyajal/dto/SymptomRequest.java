@@ -1,5 +1,7 @@
 package com.arogyajal.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -18,6 +20,15 @@ public class SymptomRequest {
     @NotBlank(message = "Location is required")
     private String location;
     
+    // Optional coordinates of the reporting household; used for spatial clustering
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+    
     @NotBlank(message = "Water source is required")
     private String waterSource;
     
@@ -76,6 +87,22 @@ public class SymptomRequest {
         this.location = location;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public String getWaterSource() {
         return waterSource;
     }
@@ -140,6 +167,8 @@ public class SymptomRequest {
         SymptomRequest that = (SymptomRequest) o;
         return Objects.equals(userId, that.userId) &&
                Objects.equals(location, that.location) &&
+               Objects.equals(latitude, that.latitude) &&
+               Objects.equals(longitude, that.longitude) &&
                Objects.equals(waterSource, that.waterSource) &&
                Objects.equals(symptoms, that.symptoms) &&
                Objects.equals(severity, that.severity) &&
@@ -151,7 +180,7 @@ public class SymptomRequest {
 
     @Override
     public int hashCode() {
-        return Objects.hash(userId, location, waterSource, symptoms, severity, 
+        return Objects.hash(userId, location, latitude, longitude, waterSource, symptoms, severity, 
                           duration, waterConsumption, additionalNotes, contactInfo);
     }
 
@@ -161,6 +190,8 @@ public class SymptomRequest {
         return "SymptomRequest{" +
                "userId='" + userId + '\'' +
                ", location='" + location + '\'' +
+               ", latitude=" + latitude +
+               ", longitude=" + longitude +
                ", waterSource='" + waterSource + '\'' +
                ", symptoms=" + symptoms +
                ", severity='" + severity + '\'' +
@@ -179,6 +210,8 @@ public class SymptomRequest {
     public static class Builder {
         private String userId;
         private String location;
+        private Double latitude;
+        private Double longitude;
         private String waterSource;
         private List<String> symptoms;
         private String severity;
@@ -197,6 +230,16 @@ public class SymptomRequest {
             return this;
         }
 
+        public Builder latitude(Double latitude) {
+            this.latitude = latitude;
+            return this;
+        }
+
+        public Builder longitude(Double longitude) {
+            this.longitude = longitude;
+            return this;
+        }
+
         public Builder waterSource(String waterSource) {
             this.waterSource = waterSource;
             return this;
@@ -233,8 +276,11 @@ public class SymptomRequest {
         }
 
         public SymptomRequest build() {
-            return new SymptomRequest(userId, location, waterSource, symptoms, severity, 
+            SymptomRequest request = new SymptomRequest(userId, location, waterSource, symptoms, severity, 
                                     duration, waterConsumption, additionalNotes, contactInfo);
+            request.setLatitude(latitude);
+            request.setLongitude(longitude);
+            return request;
         }
     }
 }
@@ -0,0 +1,38 @@
+package com.arogyajal.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * One report of an offline sync batch: the fields of a {@link SymptomRequest}
+ * plus a key generated on the device, so a retried upload is recognised, and
+ * the time the report was collected.
+ */
+public class SymptomSyncItem extends SymptomRequest {
+
+    @NotBlank(message = "Idempotency key is required")
+    @Size(max = 128, message = "Idempotency key must be at most 128 characters")
+    private String idempotencyKey;
+
+    // When the report was taken on the device; defaults to the sync time. Checked
+    // against the server clock with some skew allowed, see SymptomSyncService
+    private LocalDateTime collectedAt;
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public LocalDateTime getCollectedAt() {
+        return collectedAt;
+    }
+
+    public void setCollectedAt(LocalDateTime collectedAt) {
+        this.collectedAt = collectedAt;
+    }
+}
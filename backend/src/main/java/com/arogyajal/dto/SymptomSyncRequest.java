@@ -0,0 +1,24 @@
+package com.arogyajal.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * A batch of symptom reports uploaded by a field worker's device. Items are
+ * validated one by one, so an invalid item is rejected without failing the
+ * rest of the batch.
+ */
+public class SymptomSyncRequest {
+
+    @NotEmpty(message = "At least one report is required")
+    private List<SymptomSyncItem> reports;
+
+    public List<SymptomSyncItem> getReports() {
+        return reports;
+    }
+
+    public void setReports(List<SymptomSyncItem> reports) {
+        this.reports = reports;
+    }
+}
@@ -0,0 +1,105 @@
+package com.arogyajal.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a sync batch, one result per submitted item in request order.
+ */
+public class SymptomSyncResponse {
+
+    public enum Status {
+        /** Stored by this request. */
+        CREATED,
+        /** Stored by an earlier upload with the same key; nothing written. */
+        DUPLICATE,
+        /** Not stored; see the error. */
+        REJECTED
+    }
+
+    private int created;
+    private int duplicates;
+    private int rejected;
+    private List<ItemResult> results = new ArrayList<>();
+
+    public static class ItemResult {
+        private String idempotencyKey;
+        private Status status;
+        private String reportId;
+        private String error;
+
+        public ItemResult() {
+        }
+
+        public ItemResult(String idempotencyKey, Status status, String reportId, String error) {
+            this.idempotencyKey = idempotencyKey;
+            this.status = status;
+            this.reportId = reportId;
+            this.error = error;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public void setIdempotencyKey(String idempotencyKey) {
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public String getReportId() {
+            return reportId;
+        }
+
+        public void setReportId(String reportId) {
+            this.reportId = reportId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ItemResult> results) {
+        this.results = results;
+    }
+}
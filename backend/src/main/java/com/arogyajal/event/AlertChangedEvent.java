@@ -0,0 +1,21 @@
+package com.arogyajal.event;
+
+import com.arogyajal.model.Alert;
+
+/**
+ * Published by {@link com.arogyajal.service.AlertService} whenever an alert is
+ * created or its stored state changes (escalation, occurrence count,
+ * acknowledgement, resolution).
+ */
+public class AlertChangedEvent {
+
+    private final Alert alert;
+
+    public AlertChangedEvent(Alert alert) {
+        this.alert = alert;
+    }
+
+    public Alert getAlert() {
+        return alert;
+    }
+}
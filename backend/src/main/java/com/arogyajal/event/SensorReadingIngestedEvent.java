@@ -0,0 +1,27 @@
+package com.arogyajal.event;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.model.SensorReading;
+
+/**
+ * Published by {@link com.arogyajal.service.SensorService} after a reading has been
+ * stored. Listeners run synchronously on the ingest thread, so they must be cheap.
+ */
+public class SensorReadingIngestedEvent {
+
+    private final SensorReading reading;
+    private final SensorData sensorData;
+
+    public SensorReadingIngestedEvent(SensorReading reading, SensorData sensorData) {
+        this.reading = reading;
+        this.sensorData = sensorData;
+    }
+
+    public SensorReading getReading() {
+        return reading;
+    }
+
+    public SensorData getSensorData() {
+        return sensorData;
+    }
+}
@@ -0,0 +1,20 @@
+package com.arogyajal.event;
+
+import com.arogyajal.dto.SensorStatusUpdate;
+
+/**
+ * Published by {@link com.arogyajal.service.SensorHeartbeatMonitor} when a sensor
+ * goes offline or comes back.
+ */
+public class SensorStatusChangedEvent {
+
+    private final SensorStatusUpdate update;
+
+    public SensorStatusChangedEvent(SensorStatusUpdate update) {
+        this.update = update;
+    }
+
+    public SensorStatusUpdate getUpdate() {
+        return update;
+    }
+}
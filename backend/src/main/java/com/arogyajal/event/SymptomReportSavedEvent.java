@@ -0,0 +1,34 @@
+package com.arogyajal.event;
+
+import com.arogyajal.model.SymptomReport;
+
+/**
+ * Published by {@link com.arogyajal.service.SymptomService} after a symptom report
+ * has been stored.
+ */
+public class SymptomReportSavedEvent {
+
+    private final SymptomReport report;
+    private final boolean batched;
+
+    public SymptomReportSavedEvent(SymptomReport report) {
+        this(report, false);
+    }
+
+    public SymptomReportSavedEvent(SymptomReport report, boolean batched) {
+        this.report = report;
+        this.batched = batched;
+    }
+
+    public SymptomReport getReport() {
+        return report;
+    }
+
+    /**
+     * True when the report arrived in a synced batch; a
+     * {@link SymptomReportsBatchSavedEvent} follows the batch's reports.
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+}
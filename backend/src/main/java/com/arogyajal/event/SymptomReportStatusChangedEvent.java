@@ -0,0 +1,26 @@
+package com.arogyajal.event;
+
+import com.arogyajal.model.SymptomReport;
+
+/**
+ * Published by {@link com.arogyajal.service.SymptomService} when the status of a
+ * stored symptom report changes.
+ */
+public class SymptomReportStatusChangedEvent {
+
+    private final SymptomReport report;
+    private final String previousStatus;
+
+    public SymptomReportStatusChangedEvent(SymptomReport report, String previousStatus) {
+        this.report = report;
+        this.previousStatus = previousStatus;
+    }
+
+    public SymptomReport getReport() {
+        return report;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+}
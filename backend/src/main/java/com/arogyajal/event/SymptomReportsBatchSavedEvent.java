@@ -0,0 +1,24 @@
+package com.arogyajal.event;
+
+import com.arogyajal.model.SymptomReport;
+
+import java.util.List;
+
+/**
+ * Published by {@link com.arogyajal.service.SymptomSyncService} once all reports
+ * of a synced batch have been stored, after their individual
+ * {@link SymptomReportSavedEvent}s. Cluster detection runs on this event so a
+ * batch is evaluated once.
+ */
+public class SymptomReportsBatchSavedEvent {
+
+    private final List<SymptomReport> reports;
+
+    public SymptomReportsBatchSavedEvent(List<SymptomReport> reports) {
+        this.reports = reports;
+    }
+
+    public List<SymptomReport> getReports() {
+        return reports;
+    }
+}
@@ -34,6 +34,8 @@ public class Alert {
     
     @ServerTimestamp
     private LocalDateTime resolvedAt;
+    private LocalDateTime lastSeenAt;
+    private Integer occurrenceCount; // number of breaching readings folded into this alert
     private String status; // ACTIVE, ACKNOWLEDGED, RESOLVED, DISMISSED
     private String notificationMethod; // EMAIL, SMS, PUSH, etc.
     private List<String> relatedSymptomReportIds = new ArrayList<>();
@@ -199,6 +201,22 @@ public class Alert {
         this.resolvedAt = resolvedAt;
     }
 
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+
+    public Integer getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public void setOccurrenceCount(Integer occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -284,6 +302,8 @@ public class Alert {
         private LocalDateTime triggeredAt = LocalDateTime.now();
         private LocalDateTime acknowledgedAt;
         private LocalDateTime resolvedAt;
+        private LocalDateTime lastSeenAt;
+        private Integer occurrenceCount;
         private String status = "ACTIVE";
         private List<String> notifiedUsers = new ArrayList<>();
         private String notificationMethod;
@@ -368,6 +388,16 @@ public class Alert {
             return this;
         }
 
+        public Builder lastSeenAt(LocalDateTime lastSeenAt) {
+            this.lastSeenAt = lastSeenAt;
+            return this;
+        }
+
+        public Builder occurrenceCount(Integer occurrenceCount) {
+            this.occurrenceCount = occurrenceCount;
+            return this;
+        }
+
         public Builder status(String status) {
             this.status = status;
             return this;
@@ -425,6 +455,8 @@ public class Alert {
             alert.setTriggeredAt(triggeredAt);
             alert.setAcknowledgedAt(acknowledgedAt);
             alert.setResolvedAt(resolvedAt);
+            alert.setLastSeenAt(lastSeenAt);
+            alert.setOccurrenceCount(occurrenceCount);
             alert.setStatus(status);
             alert.setNotifiedUsers(notifiedUsers);
             alert.setNotificationMethod(notificationMethod);
@@ -455,6 +487,8 @@ public class Alert {
                 ", triggeredAt=" + triggeredAt +
                 ", acknowledgedAt=" + acknowledgedAt +
                 ", resolvedAt=" + resolvedAt +
+                ", lastSeenAt=" + lastSeenAt +
+                ", occurrenceCount=" + occurrenceCount +
                 ", status='" + status + '\'' +
                 ", notifiedUsers=" + notifiedUsers +
                 ", notificationMethod='" + notificationMethod + '\'' +
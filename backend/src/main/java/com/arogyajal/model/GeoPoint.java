@@ -0,0 +1,65 @@
+package com.arogyajal.model;
+
+import com.arogyajal.util.Geohash;
+
+/**
+ * A WGS84 coordinate pair. Readings and reports carry typed latitude/longitude;
+ * documents written before that only have the {@code "lat,lon"} location string,
+ * which is parsed once here.
+ */
+public record GeoPoint(double lat, double lon) {
+
+    public GeoPoint {
+        if (!isValid(lat, lon)) {
+            throw new IllegalArgumentException("Coordinates out of range: " + lat + "," + lon);
+        }
+    }
+
+    /**
+     * @return the point, or null if {@code value} is not a coordinate pair
+     */
+    public static GeoPoint parse(String value) {
+        double[] latLon = Geohash.parseLatLon(value);
+        return latLon != null ? new GeoPoint(latLon[0], latLon[1]) : null;
+    }
+
+    /**
+     * @return the reading's point, or null if it has none or it is out of range
+     */
+    public static GeoPoint of(SensorReading reading) {
+        if (reading.getLatitude() != null && reading.getLongitude() != null) {
+            return of(reading.getLatitude(), reading.getLongitude());
+        }
+        return parse(reading.getLocation());
+    }
+
+    /**
+     * @return the report's point, or null if it has none or it is out of range
+     */
+    public static GeoPoint of(SymptomReport report) {
+        if (report.getLatitude() != null && report.getLongitude() != null) {
+            return of(report.getLatitude(), report.getLongitude());
+        }
+        return parse(report.getLocation());
+    }
+
+    private static GeoPoint of(double lat, double lon) {
+        return isValid(lat, lon) ? new GeoPoint(lat, lon) : null;
+    }
+
+    public static boolean isValid(double lat, double lon) {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    public double distanceMeters(GeoPoint other) {
+        return Geohash.distanceMeters(lat, lon, other.lat, other.lon);
+    }
+
+    /**
+     * The {@code "lat,lon"} form stored in the location field.
+     */
+    @Override
+    public String toString() {
+        return lat + "," + lon;
+    }
+}
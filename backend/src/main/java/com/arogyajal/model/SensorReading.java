@@ -10,7 +10,9 @@ public class SensorReading {
     @DocumentId
     private String id;
     private String sensorId;
-    private String location;
+    private String location; // "lat,lon"
+    private Double latitude;
+    private Double longitude;
     
     // Water quality parameters
     private Double ph;
@@ -32,6 +34,7 @@ public class SensorReading {
     
     // Quality status
     private String qualityStatus; // GOOD, WARNING, CRITICAL
+    private Double wqi; // predicted water quality index, 0-100, higher is better
     private String notes;
     
     // Constructors
@@ -86,6 +89,22 @@ public class SensorReading {
         this.location = location;
     }
     
+    public Double getLatitude() {
+        return latitude;
+    }
+    
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+    
+    public Double getLongitude() {
+        return longitude;
+    }
+    
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+    
     public Double getPh() {
         return ph;
     }
@@ -182,6 +201,14 @@ public class SensorReading {
         this.qualityStatus = qualityStatus;
     }
     
+    public Double getWqi() {
+        return wqi;
+    }
+    
+    public void setWqi(Double wqi) {
+        this.wqi = wqi;
+    }
+    
     public String getNotes() {
         return notes;
     }
@@ -198,6 +225,8 @@ public class SensorReading {
         return (id == null ? that.id == null : id.equals(that.id)) &&
                (sensorId == null ? that.sensorId == null : sensorId.equals(that.sensorId)) &&
                (location == null ? that.location == null : location.equals(that.location)) &&
+               (latitude == null ? that.latitude == null : latitude.equals(that.latitude)) &&
+               (longitude == null ? that.longitude == null : longitude.equals(that.longitude)) &&
                (ph == null ? that.ph == null : ph.equals(that.ph)) &&
                (temperature == null ? that.temperature == null : temperature.equals(that.temperature)) &&
                (turbidity == null ? that.turbidity == null : turbidity.equals(that.turbidity)) &&
@@ -210,6 +239,7 @@ public class SensorReading {
                (flowRate == null ? that.flowRate == null : flowRate.equals(that.flowRate)) &&
                (timestamp == null ? that.timestamp == null : timestamp.equals(that.timestamp)) &&
                (qualityStatus == null ? that.qualityStatus == null : qualityStatus.equals(that.qualityStatus)) &&
+               (wqi == null ? that.wqi == null : wqi.equals(that.wqi)) &&
                (notes == null ? that.notes == null : notes.equals(that.notes));
     }
 
@@ -220,6 +250,8 @@ public class SensorReading {
         result = prime * result + (id == null ? 0 : id.hashCode());
         result = prime * result + (sensorId == null ? 0 : sensorId.hashCode());
         result = prime * result + (location == null ? 0 : location.hashCode());
+        result = prime * result + (latitude == null ? 0 : latitude.hashCode());
+        result = prime * result + (longitude == null ? 0 : longitude.hashCode());
         result = prime * result + (ph == null ? 0 : ph.hashCode());
         result = prime * result + (temperature == null ? 0 : temperature.hashCode());
         result = prime * result + (turbidity == null ? 0 : turbidity.hashCode());
@@ -232,6 +264,7 @@ public class SensorReading {
         result = prime * result + (flowRate == null ? 0 : flowRate.hashCode());
         result = prime * result + (timestamp == null ? 0 : timestamp.hashCode());
         result = prime * result + (qualityStatus == null ? 0 : qualityStatus.hashCode());
+        result = prime * result + (wqi == null ? 0 : wqi.hashCode());
         result = prime * result + (notes == null ? 0 : notes.hashCode());
         return result;
     }
@@ -242,6 +275,8 @@ public class SensorReading {
                "id='" + id + '\'' +
                ", sensorId='" + sensorId + '\'' +
                ", location='" + location + '\'' +
+               ", latitude=" + latitude +
+               ", longitude=" + longitude +
                ", ph=" + ph +
                ", temperature=" + temperature +
                ", turbidity=" + turbidity +
@@ -254,6 +289,7 @@ public class SensorReading {
                ", flowRate=" + flowRate +
                ", timestamp=" + timestamp +
                ", qualityStatus='" + qualityStatus + '\'' +
+               ", wqi=" + wqi +
                ", notes='" + notes + '\'' +
                '}';
     }
@@ -16,6 +16,8 @@ public class SymptomReport {
     private String id;
     private String userId;
     private String location;
+    private Double latitude;
+    private Double longitude;
     private String waterSource; // TAP, WELL, BOTTLED, etc.
     
     // Symptoms
@@ -92,6 +94,22 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
         this.location = location;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public String getWaterSource() {
         return waterSource;
     }
@@ -196,6 +214,8 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
         return (id == null ? that.id == null : id.equals(that.id)) &&
                (userId == null ? that.userId == null : userId.equals(that.userId)) &&
                (location == null ? that.location == null : location.equals(that.location)) &&
+               (latitude == null ? that.latitude == null : latitude.equals(that.latitude)) &&
+               (longitude == null ? that.longitude == null : longitude.equals(that.longitude)) &&
                (waterSource == null ? that.waterSource == null : waterSource.equals(that.waterSource)) &&
                (symptoms == null ? that.symptoms == null : symptoms.equals(that.symptoms)) &&
                (severity == null ? that.severity == null : severity.equals(that.severity)) &&
@@ -217,6 +237,8 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
         result = prime * result + (id == null ? 0 : id.hashCode());
         result = prime * result + (userId == null ? 0 : userId.hashCode());
         result = prime * result + (location == null ? 0 : location.hashCode());
+        result = prime * result + (latitude == null ? 0 : latitude.hashCode());
+        result = prime * result + (longitude == null ? 0 : longitude.hashCode());
         result = prime * result + (waterSource == null ? 0 : waterSource.hashCode());
         result = prime * result + (symptoms == null ? 0 : symptoms.hashCode());
         result = prime * result + (severity == null ? 0 : severity.hashCode());
@@ -238,6 +260,8 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
                 "id='" + id + '\'' +
                 ", userId='" + userId + '\'' +
                 ", location='" + location + '\'' +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
                 ", waterSource='" + waterSource + '\'' +
                 ", symptoms=" + symptoms +
                 ", severity='" + severity + '\'' +
@@ -262,6 +286,8 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
         private String id;
         private String userId;
         private String location;
+        private Double latitude;
+        private Double longitude;
         private String waterSource;
         private List<String> symptoms;
         private String severity;
@@ -290,6 +316,16 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
             return this;
         }
 
+        public Builder latitude(Double latitude) {
+            this.latitude = latitude;
+            return this;
+        }
+
+        public Builder longitude(Double longitude) {
+            this.longitude = longitude;
+            return this;
+        }
+
         public Builder waterSource(String waterSource) {
             this.waterSource = waterSource;
             return this;
@@ -355,6 +391,8 @@ private List<String> symptoms = new ArrayList<>(); // NAUSEA, DIARRHEA, STOMACH_
             report.setId(id);
             report.setUserId(userId);
             report.setLocation(location);
+            report.setLatitude(latitude);
+            report.setLongitude(longitude);
             report.setWaterSource(waterSource);
             report.setSymptoms(symptoms);
             report.setSeverity(severity);
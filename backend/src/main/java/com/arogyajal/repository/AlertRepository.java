@@ -1,6 +1,9 @@
 package com.arogyajal.repository;
 
 import com.arogyajal.model.Alert;
+import com.arogyajal.repository.codec.AlertCodec;
+import com.arogyajal.repository.codec.DocumentValues;
+import com.arogyajal.repository.projection.AlertHeader;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.stereotype.Repository;
@@ -16,7 +19,7 @@ public class AlertRepository extends BaseFirestoreRepository<Alert> {
     private static final String COLLECTION_NAME = "alerts";
     
     public AlertRepository() {
-        super(COLLECTION_NAME, Alert.class);
+        super(COLLECTION_NAME, AlertCodec.INSTANCE);
     }
     
     public List<Alert> findByStatus(String status) throws ExecutionException, InterruptedException {
@@ -36,22 +39,19 @@ public class AlertRepository extends BaseFirestoreRepository<Alert> {
     }
     
     public long count() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME));
     }
     
     public long countByStatus(String status) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereEqualTo("status", status)
-                .get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME).whereEqualTo("status", status));
     }
     
     public long countBySeverity(String severity) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereEqualTo("severity", severity)
-                .get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME).whereEqualTo("severity", severity));
+    }
+    
+    public List<AlertHeader> findAllHeaders() throws ExecutionException, InterruptedException {
+        return findAll(AlertHeader::from, AlertHeader.FIELDS);
     }
     
     public List<Alert> findByLocation(String location) throws ExecutionException, InterruptedException {
@@ -64,8 +64,8 @@ public class AlertRepository extends BaseFirestoreRepository<Alert> {
     
     public List<Alert> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) throws ExecutionException, InterruptedException {
         ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereGreaterThanOrEqualTo("triggeredAt", startDate)
-                .whereLessThanOrEqualTo("triggeredAt", endDate)
+                .whereGreaterThanOrEqualTo("triggeredAt", DocumentValues.timestampOf(startDate))
+                .whereLessThanOrEqualTo("triggeredAt", DocumentValues.timestampOf(endDate))
                 .orderBy("triggeredAt", Query.Direction.DESCENDING)
                 .get();
         return getEntities(future);
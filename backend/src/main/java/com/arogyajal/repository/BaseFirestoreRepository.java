@@ -1,21 +1,23 @@
 package com.arogyajal.repository;
 
+import com.arogyajal.repository.codec.DocumentCodec;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 public abstract class BaseFirestoreRepository<T> {
     protected final Firestore db;
     protected final String collectionName;
-    protected final Class<T> typeParameterClass;
+    protected final DocumentCodec<T> codec;
 
-    protected BaseFirestoreRepository(String collectionName, Class<T> typeParameterClass) {
+    protected BaseFirestoreRepository(String collectionName, DocumentCodec<T> codec) {
         this.db = FirestoreClient.getFirestore();
         this.collectionName = collectionName;
-        this.typeParameterClass = typeParameterClass;
+        this.codec = codec;
     }
 
     public T save(T entity, String id) throws ExecutionException, InterruptedException {
@@ -23,7 +25,7 @@ public abstract class BaseFirestoreRepository<T> {
             id = UUID.randomUUID().toString();
         }
         DocumentReference docRef = db.collection(collectionName).document(id);
-        docRef.set(entity).get();
+        docRef.set(codec.encode(entity)).get();
         return entity;
     }
 
@@ -32,7 +34,7 @@ public abstract class BaseFirestoreRepository<T> {
         ApiFuture<DocumentSnapshot> future = docRef.get();
         DocumentSnapshot document = future.get();
         if (document.exists()) {
-            return Optional.of(document.toObject(typeParameterClass));
+            return Optional.of(codec.decode(document));
         }
         return Optional.empty();
     }
@@ -42,6 +44,52 @@ public abstract class BaseFirestoreRepository<T> {
         return getEntities(future);
     }
 
+    /**
+     * Full documents for the given ids, in the same order; missing ids are
+     * skipped. One batched read.
+     */
+    public List<T> findAllById(List<String> ids) throws ExecutionException, InterruptedException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        DocumentReference[] refs = ids.stream()
+                .map(id -> db.collection(collectionName).document(id))
+                .toArray(DocumentReference[]::new);
+        List<T> list = new ArrayList<>(ids.size());
+        for (DocumentSnapshot doc : db.getAll(refs).get()) {
+            if (doc.exists()) {
+                list.add(codec.decode(doc));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Only {@code fields} of every document, each mapped to a projection;
+     * Firestore sends nothing else and no entity is deserialized.
+     */
+    public <P> List<P> findAll(Function<DocumentSnapshot, P> mapper, String... fields)
+            throws ExecutionException, InterruptedException {
+        return select(db.collection(collectionName), mapper, fields);
+    }
+
+    protected <P> List<P> select(Query query, Function<DocumentSnapshot, P> mapper, String... fields)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = query.select(fields).get().get().getDocuments();
+        List<P> list = new ArrayList<>(documents.size());
+        for (DocumentSnapshot doc : documents) {
+            list.add(mapper.apply(doc));
+        }
+        return list;
+    }
+
+    /**
+     * Number of documents matching {@code query}, transferring only their ids.
+     */
+    protected long count(Query query) throws ExecutionException, InterruptedException {
+        return query.select(FieldPath.documentId()).get().get().size();
+    }
+
     public void deleteById(String id) throws ExecutionException, InterruptedException {
         db.collection(collectionName).document(id).delete().get();
     }
@@ -50,7 +98,7 @@ public abstract class BaseFirestoreRepository<T> {
         List<T> list = new ArrayList<>();
         QuerySnapshot querySnapshot = future.get();
         for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-            list.add(doc.toObject(typeParameterClass));
+            list.add(codec.decode(doc));
         }
         return list;
     }
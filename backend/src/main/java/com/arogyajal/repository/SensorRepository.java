@@ -1,6 +1,7 @@
 package com.arogyajal.repository;
 
 import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.codec.SensorReadingCodec;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.stereotype.Repository;
@@ -10,13 +11,16 @@ import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import static com.arogyajal.repository.codec.DocumentValues.asString;
+import static com.arogyajal.repository.codec.DocumentValues.asTimestamp;
+
 @Repository
 public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
     
     private static final String COLLECTION_NAME = "sensor_readings";
     
     public SensorRepository() {
-        super(COLLECTION_NAME, SensorReading.class);
+        super(COLLECTION_NAME, SensorReadingCodec.INSTANCE);
     }
     
     public List<SensorReading> findBySensorId(String sensorId) throws ExecutionException, InterruptedException {
@@ -32,11 +36,7 @@ public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
                 
         List<QueryDocumentSnapshot> documents = future.get().getDocuments();
         return documents.stream()
-                .map(doc -> {
-                    SensorReading reading = doc.toObject(SensorReading.class);
-                    reading.setId(doc.getId());
-                    return reading;
-                })
+                .map(codec::decode)
                 .collect(Collectors.toList());
     }
     
@@ -77,7 +77,7 @@ public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
     
     public Optional<SensorReading> findFirstBySensorIdOrderByTimestampDesc(String sensorId) throws ExecutionException, InterruptedException {
         ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereEqualTo("deviceId", sensorId)  // Changed from "sensorId" to "deviceId"
+                .whereEqualTo("sensorId", sensorId)
                 .orderBy("timestamp", Query.Direction.DESCENDING)
                 .limit(1)
                 .get();
@@ -125,6 +125,15 @@ public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
         return getEntities(future);
     }
     
+    public List<SensorReading> findRecentBySensorId(String sensorId, int limit) throws ExecutionException, InterruptedException {
+        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
+                .whereEqualTo("sensorId", sensorId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .get();
+        return getEntities(future);
+    }
+    
     public List<SensorReading> findByQualityStatusOrderByTimestampDesc(String qualityStatus) 
             throws ExecutionException, InterruptedException {
         ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
@@ -198,37 +207,71 @@ public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
     }
     
     public long countBySensorId(String sensorId) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereEqualTo("sensorId", sensorId)
-                .get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME).whereEqualTo("sensorId", sensorId));
     }
     
     public long countByLocation(String location) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                .whereEqualTo("location", location)
-                .get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME).whereEqualTo("location", location));
     }
     
     public long count() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-        return future.get().size();
+        return count(db.collection(COLLECTION_NAME));
     }
     
     // Find distinct device IDs
     public List<String> findDistinctDeviceIds() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-        return future.get().getDocuments().stream()
-                .map(doc -> {
+        return findAll(doc -> {
                     String deviceId = doc.getString("deviceId");
                     return deviceId != null ? deviceId : doc.getString("sensorId");
-                })
+                }, "deviceId", "sensorId").stream()
                 .filter(Objects::nonNull)
                 .distinct()
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The newest reading of every sensor, in two round trips: a projection of
+     * sensor id and timestamp over the collection picks each sensor's newest
+     * document, and one batched read fetches those documents.
+     */
+    public List<SensorReading> findLatestPerSensor() throws ExecutionException, InterruptedException {
+        Map<String, String> latestIds = latestIdPerSensor(findAll(doc -> doc, "sensorId", "deviceId", "timestamp"));
+        Map<String, String> sensorByDocument = new HashMap<>(latestIds.size() * 2);
+        latestIds.forEach((sensorId, documentId) -> sensorByDocument.put(documentId, sensorId));
+        List<SensorReading> readings = findAllById(new ArrayList<>(latestIds.values()));
+        for (SensorReading reading : readings) {
+            if (reading.getSensorId() == null) {
+                reading.setSensorId(sensorByDocument.get(reading.getId()));
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * Document id of the newest reading per sensor; legacy documents carrying
+     * {@code deviceId} instead of {@code sensorId} count too.
+     */
+    static Map<String, String> latestIdPerSensor(List<? extends DocumentSnapshot> documents) {
+        Map<String, String> ids = new HashMap<>();
+        Map<String, Timestamp> newest = new HashMap<>();
+        for (DocumentSnapshot doc : documents) {
+            String sensorId = asString(doc.get("sensorId"));
+            if (sensorId == null) {
+                sensorId = asString(doc.get("deviceId"));
+            }
+            if (sensorId == null) {
+                continue;
+            }
+            Timestamp timestamp = asTimestamp(doc.get("timestamp"));
+            Timestamp seen = newest.get(sensorId);
+            if (!ids.containsKey(sensorId) || (timestamp != null && (seen == null || timestamp.compareTo(seen) > 0))) {
+                ids.put(sensorId, doc.getId());
+                newest.put(sensorId, timestamp);
+            }
+        }
+        return ids;
+    }
+
     // Find distinct sensor IDs (legacy method)
     public List<String> findDistinctSensorIds() throws ExecutionException, InterruptedException {
         return findDistinctDeviceIds();
@@ -236,9 +279,7 @@ public class SensorRepository extends BaseFirestoreRepository<SensorReading> {
     
     // Find distinct locations
     public List<String> findDistinctLocations() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-        return future.get().getDocuments().stream()
-                .map(doc -> doc.getString("location"))
+        return findAll(doc -> doc.getString("location"), "location").stream()
                 .filter(Objects::nonNull)
                 .distinct()
                 .collect(Collectors.toList());
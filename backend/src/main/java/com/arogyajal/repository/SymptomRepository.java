@@ -1,18 +1,27 @@
 package com.arogyajal.repository;
 
 import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.codec.DocumentValues;
+import com.arogyajal.repository.codec.SymptomReportCodec;
+import com.arogyajal.repository.projection.SymptomReportHeader;
 import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
+import io.grpc.Status;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 @Repository
 public class SymptomRepository {
     private static final String COLLECTION_NAME = "symptom_reports";
+    // Firestore's limit on writes per batch commit
+    private static final int MAX_BATCH_WRITES = 500;
     private final Firestore db;
 
     public SymptomRepository() {
@@ -45,8 +54,7 @@ public class SymptomRepository {
 
     public long count() {
         try {
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-            return future.get().size();
+            return count(db.collection(COLLECTION_NAME));
         } catch (Exception e) {
             throw new RuntimeException("Error counting symptom reports", e);
         }
@@ -55,20 +63,101 @@ public class SymptomRepository {
     public SymptomReport save(SymptomReport report) {
         try {
             DocumentReference docRef = db.collection(COLLECTION_NAME).document(report.getId() != null ? report.getId() : UUID.randomUUID().toString());
-            docRef.set(report).get();
+            docRef.set(SymptomReportCodec.INSTANCE.encode(report)).get();
             return report;
         } catch (Exception e) {
             throw new RuntimeException("Error saving symptom report", e);
         }
     }
 
+    /**
+     * Create reports with batched writes, up to 500 per commit. Each commit is
+     * atomic and fails if any of its documents already exists; the existing
+     * ones are then looked up and the rest committed again, so a report
+     * written concurrently by another request is never overwritten. Reports
+     * must carry their ids.
+     *
+     * @return ids of the reports that already existed and were not written
+     */
+    public Set<String> createAll(List<SymptomReport> reports) {
+        Set<String> existing = new HashSet<>();
+        try {
+            for (int start = 0; start < reports.size(); start += MAX_BATCH_WRITES) {
+                List<SymptomReport> pending = new ArrayList<>(
+                        reports.subList(start, Math.min(reports.size(), start + MAX_BATCH_WRITES)));
+                while (!pending.isEmpty()) {
+                    WriteBatch batch = db.batch();
+                    for (SymptomReport report : pending) {
+                        batch.create(db.collection(COLLECTION_NAME).document(report.getId()), SymptomReportCodec.INSTANCE.encode(report));
+                    }
+                    try {
+                        batch.commit().get();
+                        break;
+                    } catch (ExecutionException e) {
+                        if (!isAlreadyExists(e)) {
+                            throw e;
+                        }
+                        Set<String> found = findExistingIds(pending.stream().map(SymptomReport::getId).toList());
+                        if (found.isEmpty()) {
+                            throw e;
+                        }
+                        existing.addAll(found);
+                        pending.removeIf(report -> found.contains(report.getId()));
+                    }
+                }
+            }
+            return existing;
+        } catch (Exception e) {
+            throw new RuntimeException("Error saving symptom report batch", e);
+        }
+    }
+
+    private static boolean isAlreadyExists(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FirestoreException firestoreException
+                    && firestoreException.getStatus() != null
+                    && firestoreException.getStatus().getCode() == Status.Code.ALREADY_EXISTS) {
+                return true;
+            }
+            if (cause instanceof ApiException apiException
+                    && apiException.getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Which of the given ids already exist, read in one round trip.
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            DocumentReference[] refs = ids.stream()
+                    .map(id -> db.collection(COLLECTION_NAME).document(id))
+                    .toArray(DocumentReference[]::new);
+            Set<String> existing = new HashSet<>();
+            // An empty field mask reads existence only
+            for (DocumentSnapshot snapshot : db.getAll(refs, FieldMask.of(new FieldPath[0])).get()) {
+                if (snapshot.exists()) {
+                    existing.add(snapshot.getId());
+                }
+            }
+            return existing;
+        } catch (Exception e) {
+            throw new RuntimeException("Error checking existing symptom reports", e);
+        }
+    }
+
     public Optional<SymptomReport> findById(String id) {
         try {
             DocumentReference docRef = db.collection(COLLECTION_NAME).document(id);
             ApiFuture<DocumentSnapshot> future = docRef.get();
             DocumentSnapshot document = future.get();
             if (document.exists()) {
-                return Optional.of(document.toObject(SymptomReport.class));
+                return Optional.of(SymptomReportCodec.INSTANCE.decode(document));
             }
             return Optional.empty();
         } catch (Exception e) {
@@ -93,11 +182,62 @@ public class SymptomRepository {
         }
     }
 
+    /**
+     * Full reports for the given ids, in the same order; missing ids are
+     * skipped. One batched read.
+     */
+    public List<SymptomReport> findAllById(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            DocumentReference[] refs = ids.stream()
+                    .map(id -> db.collection(COLLECTION_NAME).document(id))
+                    .toArray(DocumentReference[]::new);
+            List<SymptomReport> reports = new ArrayList<>(ids.size());
+            for (DocumentSnapshot snapshot : db.getAll(refs).get()) {
+                if (snapshot.exists()) {
+                    reports.add(SymptomReportCodec.INSTANCE.decode(snapshot));
+                }
+            }
+            return reports;
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding symptom reports by IDs", e);
+        }
+    }
+    
+    /**
+     * Only {@code fields} of every report, each mapped to a projection;
+     * Firestore sends nothing else and no report is deserialized.
+     */
+    public <P> List<P> findAll(Function<DocumentSnapshot, P> mapper, String... fields) {
+        try {
+            return select(db.collection(COLLECTION_NAME), mapper, fields);
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding projected symptom reports", e);
+        }
+    }
+    
+    private <P> List<P> select(Query query, Function<DocumentSnapshot, P> mapper, String... fields)
+            throws InterruptedException, ExecutionException {
+        List<QueryDocumentSnapshot> documents = query.select(fields).get().get().getDocuments();
+        List<P> list = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            list.add(mapper.apply(document));
+        }
+        return list;
+    }
+    
+    // Number of reports matching a query, transferring only their ids
+    private long count(Query query) throws InterruptedException, ExecutionException {
+        return query.select(FieldPath.documentId()).get().get().size();
+    }
+    
     private List<SymptomReport> getSymptomReports(ApiFuture<QuerySnapshot> future) throws InterruptedException, ExecutionException {
         List<QueryDocumentSnapshot> documents = future.get().getDocuments();
         List<SymptomReport> reports = new ArrayList<>();
         for (QueryDocumentSnapshot document : documents) {
-            reports.add(document.toObject(SymptomReport.class));
+            reports.add(SymptomReportCodec.INSTANCE.decode(document));
         }
         return reports;
     }
@@ -145,8 +285,8 @@ public class SymptomRepository {
     public List<SymptomReport> findByReportedAtBetweenOrderByReportedAtDesc(LocalDateTime start, LocalDateTime end) {
         try {
             ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                    .whereGreaterThanOrEqualTo("reportedAt", start)
-                    .whereLessThanOrEqualTo("reportedAt", end)
+                    .whereGreaterThanOrEqualTo("reportedAt", DocumentValues.timestampOf(start))
+                    .whereLessThanOrEqualTo("reportedAt", DocumentValues.timestampOf(end))
                     .orderBy("reportedAt", Query.Direction.DESCENDING)
                     .get();
             return getSymptomReports(future);
@@ -161,8 +301,8 @@ public class SymptomRepository {
         try {
             ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
                     .whereEqualTo("location", location)
-                    .whereGreaterThanOrEqualTo("reportedAt", start)
-                    .whereLessThanOrEqualTo("reportedAt", end)
+                    .whereGreaterThanOrEqualTo("reportedAt", DocumentValues.timestampOf(start))
+                    .whereLessThanOrEqualTo("reportedAt", DocumentValues.timestampOf(end))
                     .orderBy("reportedAt", Query.Direction.DESCENDING)
                     .get();
             return getSymptomReports(future);
@@ -253,7 +393,7 @@ public class SymptomRepository {
         try {
             ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
                     .whereEqualTo("severity", "HIGH")
-                    .whereGreaterThanOrEqualTo("reportedAt", date)
+                    .whereGreaterThanOrEqualTo("reportedAt", DocumentValues.timestampOf(date))
                     .get();
             return getSymptomReports(future);
         } catch (Exception e) {
@@ -261,6 +401,17 @@ public class SymptomRepository {
         }
     }
     
+    // Headers of the high severity reports since a date, for summaries that count them
+    public List<SymptomReportHeader> findHighSeverityRecentHeaders(LocalDateTime date) {
+        try {
+            return select(db.collection(COLLECTION_NAME)
+                    .whereEqualTo("severity", "HIGH")
+                    .whereGreaterThanOrEqualTo("reportedAt", DocumentValues.timestampOf(date)), SymptomReportHeader::from, SymptomReportHeader.FIELDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding high severity recent report headers", e);
+        }
+    }
+    
     // Find reports by location and severity
     public List<SymptomReport> findByLocationAndSeverityOrderByReportedAtDesc(String location, String severity) {
         try {
@@ -278,10 +429,7 @@ public class SymptomRepository {
     // Count reports by status
     public long countByStatus(String status) {
         try {
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                    .whereEqualTo("status", status)
-                    .get();
-            return future.get().size();
+            return count(db.collection(COLLECTION_NAME).whereEqualTo("status", status));
         } catch (Exception e) {
             throw new RuntimeException("Error counting reports by status", e);
         }
@@ -290,10 +438,7 @@ public class SymptomRepository {
     // Count reports by location
     public long countByLocation(String location) {
         try {
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                    .whereEqualTo("location", location)
-                    .get();
-            return future.get().size();
+            return count(db.collection(COLLECTION_NAME).whereEqualTo("location", location));
         } catch (Exception e) {
             throw new RuntimeException("Error counting reports by location", e);
         }
@@ -302,10 +447,7 @@ public class SymptomRepository {
     // Count reports by severity
     public long countBySeverity(String severity) {
         try {
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME)
-                    .whereEqualTo("severity", severity)
-                    .get();
-            return future.get().size();
+            return count(db.collection(COLLECTION_NAME).whereEqualTo("severity", severity));
         } catch (Exception e) {
             throw new RuntimeException("Error counting reports by severity", e);
         }
@@ -315,10 +457,7 @@ public class SymptomRepository {
     public List<String> findDistinctLocations() {
         try {
             Set<String> locations = new HashSet<>();
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            for (QueryDocumentSnapshot document : documents) {
-                String location = document.getString("location");
+            for (String location : findAll(doc -> doc.getString("location"), "location")) {
                 if (location != null) {
                     locations.add(location);
                 }
@@ -334,10 +473,7 @@ public class SymptomRepository {
     public List<String> findDistinctSymptoms() {
         try {
             Set<String> symptoms = new HashSet<>();
-            ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            for (QueryDocumentSnapshot document : documents) {
-                List<String> reportSymptoms = (List<String>) document.get("symptoms");
+            for (List<String> reportSymptoms : findAll(doc -> (List<String>) doc.get("symptoms"), "symptoms")) {
                 if (reportSymptoms != null) {
                     symptoms.addAll(reportSymptoms);
                 }
@@ -0,0 +1,95 @@
+package com.arogyajal.repository.codec;
+
+import com.arogyajal.model.Alert;
+import com.google.cloud.firestore.FieldValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.arogyajal.repository.codec.DocumentValues.*;
+
+/**
+ * Codec for {@code alerts}. Date-times are stored as Timestamps; an alert
+ * without {@code triggeredAt} gets the server time, while unset
+ * acknowledgement and resolution times stay null. Missing user and report id
+ * lists read back as empty lists, as the model defaults them.
+ */
+public final class AlertCodec implements DocumentCodec<Alert> {
+
+    public static final AlertCodec INSTANCE = new AlertCodec();
+
+    private AlertCodec() {
+    }
+
+    @Override
+    public Alert decode(String id, Map<String, Object> data) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setAlertType(asString(data.get("alertType")));
+        alert.setSeverity(asString(data.get("severity")));
+        alert.setTitle(asString(data.get("title")));
+        alert.setDescription(asString(data.get("description")));
+        alert.setLocation(asString(data.get("location")));
+        alert.setSensorId(asString(data.get("sensorId")));
+        alert.setParameter(asString(data.get("parameter")));
+        alert.setThresholdValue(asDouble(data.get("thresholdValue")));
+        alert.setActualValue(asDouble(data.get("actualValue")));
+        alert.setSensorReadingId(asString(data.get("sensorReadingId")));
+        alert.setTriggeredAt(asLocalDateTime(data.get("triggeredAt")));
+        alert.setAcknowledgedAt(asLocalDateTime(data.get("acknowledgedAt")));
+        alert.setResolvedAt(asLocalDateTime(data.get("resolvedAt")));
+        alert.setLastSeenAt(asLocalDateTime(data.get("lastSeenAt")));
+        alert.setOccurrenceCount(asInteger(data.get("occurrenceCount")));
+        alert.setStatus(asString(data.get("status")));
+        alert.setNotificationMethod(asString(data.get("notificationMethod")));
+        List<String> relatedSymptomReportIds = asStringList(data.get("relatedSymptomReportIds"));
+        if (relatedSymptomReportIds != null) {
+            alert.setRelatedSymptomReportIds(relatedSymptomReportIds);
+        }
+        List<String> notifiedUsers = asStringList(data.get("notifiedUsers"));
+        if (notifiedUsers != null) {
+            alert.setNotifiedUsers(notifiedUsers);
+        }
+        List<String> affectedUsers = asStringList(data.get("affectedUsers"));
+        if (affectedUsers != null) {
+            alert.setAffectedUsers(affectedUsers);
+        }
+        alert.setResolutionNotes(asString(data.get("resolutionNotes")));
+        alert.setResolvedBy(asString(data.get("resolvedBy")));
+        alert.setActionTaken(asString(data.get("actionTaken")));
+        alert.setNotes(asString(data.get("notes")));
+        return alert;
+    }
+
+    @Override
+    public Map<String, Object> encode(Alert alert) {
+        Map<String, Object> data = new HashMap<>(48);
+        data.put("alertType", alert.getAlertType());
+        data.put("severity", alert.getSeverity());
+        data.put("title", alert.getTitle());
+        data.put("description", alert.getDescription());
+        data.put("location", alert.getLocation());
+        data.put("sensorId", alert.getSensorId());
+        data.put("parameter", alert.getParameter());
+        data.put("thresholdValue", alert.getThresholdValue());
+        data.put("actualValue", alert.getActualValue());
+        data.put("sensorReadingId", alert.getSensorReadingId());
+        data.put("triggeredAt", alert.getTriggeredAt() != null
+                ? timestampOf(alert.getTriggeredAt()) : FieldValue.serverTimestamp());
+        data.put("acknowledgedAt", timestampOf(alert.getAcknowledgedAt()));
+        data.put("resolvedAt", timestampOf(alert.getResolvedAt()));
+        data.put("lastSeenAt", timestampOf(alert.getLastSeenAt()));
+        data.put("occurrenceCount", alert.getOccurrenceCount());
+        data.put("status", alert.getStatus());
+        data.put("notificationMethod", alert.getNotificationMethod());
+        data.put("relatedSymptomReportIds", alert.getRelatedSymptomReportIds());
+        data.put("notifiedUsers", alert.getNotifiedUsers());
+        data.put("affectedUsers", alert.getAffectedUsers());
+        data.put("resolutionNotes", alert.getResolutionNotes());
+        data.put("resolvedBy", alert.getResolvedBy());
+        data.put("actionTaken", alert.getActionTaken());
+        data.put("notes", alert.getNotes());
+        return data;
+    }
+}
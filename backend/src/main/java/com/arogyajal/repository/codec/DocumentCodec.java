@@ -0,0 +1,28 @@
+package com.arogyajal.repository.codec;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Hand-written mapping between a model class and its Firestore document, in
+ * place of the reflective bean mapping behind {@code toObject} and
+ * {@code set(Object)}.
+ */
+public interface DocumentCodec<T> {
+
+    /**
+     * Build the entity from a document's id and fields as Firestore returns
+     * them (Long for whole numbers, Double, String, Timestamp, List, ...).
+     */
+    T decode(String id, Map<String, Object> data);
+
+    /**
+     * Fields to pass to {@code set}; the id is not among them.
+     */
+    Map<String, Object> encode(T entity);
+
+    default T decode(DocumentSnapshot document) {
+        return decode(document.getId(), document.getData());
+    }
+}
@@ -0,0 +1,91 @@
+package com.arogyajal.repository.codec;
+
+import com.google.cloud.Timestamp;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Conversions from Firestore field values to model field types, lenient in the
+ * same way as the bean mapper: whole and fractional numbers convert into each
+ * other, and a missing or null field gives null. Date-times are stored as
+ * Timestamps and read in the system zone, matching how readings' timestamps
+ * are shown.
+ */
+public final class DocumentValues {
+
+    private DocumentValues() {
+    }
+
+    public static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    public static Double asDouble(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new IllegalArgumentException("Expected a number but found " + value.getClass().getSimpleName());
+    }
+
+    public static Integer asInteger(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return Math.toIntExact(number.longValue());
+        }
+        throw new IllegalArgumentException("Expected a number but found " + value.getClass().getSimpleName());
+    }
+
+    public static Timestamp asTimestamp(Object value) {
+        if (value == null || value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof Date date) {
+            return Timestamp.of(date);
+        }
+        throw new IllegalArgumentException("Expected a timestamp but found " + value.getClass().getSimpleName());
+    }
+
+    public static LocalDateTime asLocalDateTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String text) {
+            return LocalDateTime.parse(text);
+        }
+        Timestamp timestamp = asTimestamp(value);
+        return LocalDateTime.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos(),
+                ZoneId.systemDefault().getRules().getOffset(timestamp.toDate().toInstant()));
+    }
+
+    public static Timestamp timestampOf(LocalDateTime value) {
+        if (value == null) {
+            return null;
+        }
+        ZonedDateTime zoned = value.atZone(ZoneId.systemDefault());
+        return Timestamp.ofTimeSecondsAndNanos(zoned.toEpochSecond(), zoned.getNano());
+    }
+
+    public static List<String> asStringList(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Expected a list but found " + value.getClass().getSimpleName());
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        for (Object item : list) {
+            strings.add(asString(item));
+        }
+        return strings;
+    }
+}
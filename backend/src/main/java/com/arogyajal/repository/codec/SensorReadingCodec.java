@@ -0,0 +1,71 @@
+package com.arogyajal.repository.codec;
+
+import com.arogyajal.model.SensorReading;
+import com.google.cloud.firestore.FieldValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.arogyajal.repository.codec.DocumentValues.*;
+
+/**
+ * Codec for {@code sensor_readings}; field names and types are those the bean
+ * mapper used, so existing documents read back unchanged. A reading without a
+ * timestamp gets the server time, as with {@code @ServerTimestamp}.
+ */
+public final class SensorReadingCodec implements DocumentCodec<SensorReading> {
+
+    public static final SensorReadingCodec INSTANCE = new SensorReadingCodec();
+
+    private SensorReadingCodec() {
+    }
+
+    @Override
+    public SensorReading decode(String id, Map<String, Object> data) {
+        SensorReading reading = new SensorReading();
+        reading.setId(id);
+        reading.setSensorId(asString(data.get("sensorId")));
+        reading.setLocation(asString(data.get("location")));
+        reading.setLatitude(asDouble(data.get("latitude")));
+        reading.setLongitude(asDouble(data.get("longitude")));
+        reading.setPh(asDouble(data.get("ph")));
+        reading.setTemperature(asDouble(data.get("temperature")));
+        reading.setTurbidity(asDouble(data.get("turbidity")));
+        reading.setDissolvedOxygen(asDouble(data.get("dissolvedOxygen")));
+        reading.setConductivity(asDouble(data.get("conductivity")));
+        reading.setTotalDissolvedSolids(asDouble(data.get("totalDissolvedSolids")));
+        reading.setChlorine(asDouble(data.get("chlorine")));
+        reading.setHardness(asDouble(data.get("hardness")));
+        reading.setWaterLevel(asDouble(data.get("waterLevel")));
+        reading.setFlowRate(asDouble(data.get("flowRate")));
+        reading.setTimestamp(asTimestamp(data.get("timestamp")));
+        reading.setQualityStatus(asString(data.get("qualityStatus")));
+        reading.setWqi(asDouble(data.get("wqi")));
+        reading.setNotes(asString(data.get("notes")));
+        return reading;
+    }
+
+    @Override
+    public Map<String, Object> encode(SensorReading reading) {
+        Map<String, Object> data = new HashMap<>(32);
+        data.put("sensorId", reading.getSensorId());
+        data.put("location", reading.getLocation());
+        data.put("latitude", reading.getLatitude());
+        data.put("longitude", reading.getLongitude());
+        data.put("ph", reading.getPh());
+        data.put("temperature", reading.getTemperature());
+        data.put("turbidity", reading.getTurbidity());
+        data.put("dissolvedOxygen", reading.getDissolvedOxygen());
+        data.put("conductivity", reading.getConductivity());
+        data.put("totalDissolvedSolids", reading.getTotalDissolvedSolids());
+        data.put("chlorine", reading.getChlorine());
+        data.put("hardness", reading.getHardness());
+        data.put("waterLevel", reading.getWaterLevel());
+        data.put("flowRate", reading.getFlowRate());
+        data.put("timestamp", reading.getTimestamp() != null ? reading.getTimestamp() : FieldValue.serverTimestamp());
+        data.put("qualityStatus", reading.getQualityStatus());
+        data.put("wqi", reading.getWqi());
+        data.put("notes", reading.getNotes());
+        return data;
+    }
+}
@@ -0,0 +1,70 @@
+package com.arogyajal.repository.codec;
+
+import com.arogyajal.model.SymptomReport;
+import com.google.cloud.firestore.FieldValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.arogyajal.repository.codec.DocumentValues.*;
+
+/**
+ * Codec for {@code symptom_reports}. Date-times are stored as Timestamps; a
+ * report without {@code reportedAt} gets the server time, while an unset
+ * {@code investigatedAt} stays null until the report is investigated.
+ */
+public final class SymptomReportCodec implements DocumentCodec<SymptomReport> {
+
+    public static final SymptomReportCodec INSTANCE = new SymptomReportCodec();
+
+    private SymptomReportCodec() {
+    }
+
+    @Override
+    public SymptomReport decode(String id, Map<String, Object> data) {
+        SymptomReport report = new SymptomReport();
+        report.setId(id);
+        report.setUserId(asString(data.get("userId")));
+        report.setLocation(asString(data.get("location")));
+        report.setLatitude(asDouble(data.get("latitude")));
+        report.setLongitude(asDouble(data.get("longitude")));
+        report.setWaterSource(asString(data.get("waterSource")));
+        report.setSymptoms(asStringList(data.get("symptoms")));
+        report.setSeverity(asString(data.get("severity")));
+        report.setDuration(asString(data.get("duration")));
+        report.setWaterConsumption(asInteger(data.get("waterConsumption")));
+        report.setLastWaterConsumption(asLocalDateTime(data.get("lastWaterConsumption")));
+        report.setAdditionalNotes(asString(data.get("additionalNotes")));
+        report.setContactInfo(asString(data.get("contactInfo")));
+        report.setReportedAt(asLocalDateTime(data.get("reportedAt")));
+        if (data.get("status") != null) {
+            report.setStatus(asString(data.get("status")));
+        }
+        report.setInvestigationNotes(asString(data.get("investigationNotes")));
+        report.setInvestigatedAt(asLocalDateTime(data.get("investigatedAt")));
+        return report;
+    }
+
+    @Override
+    public Map<String, Object> encode(SymptomReport report) {
+        Map<String, Object> data = new HashMap<>(32);
+        data.put("userId", report.getUserId());
+        data.put("location", report.getLocation());
+        data.put("latitude", report.getLatitude());
+        data.put("longitude", report.getLongitude());
+        data.put("waterSource", report.getWaterSource());
+        data.put("symptoms", report.getSymptoms());
+        data.put("severity", report.getSeverity());
+        data.put("duration", report.getDuration());
+        data.put("waterConsumption", report.getWaterConsumption());
+        data.put("lastWaterConsumption", timestampOf(report.getLastWaterConsumption()));
+        data.put("additionalNotes", report.getAdditionalNotes());
+        data.put("contactInfo", report.getContactInfo());
+        data.put("reportedAt", report.getReportedAt() != null
+                ? timestampOf(report.getReportedAt()) : FieldValue.serverTimestamp());
+        data.put("status", report.getStatus());
+        data.put("investigationNotes", report.getInvestigationNotes());
+        data.put("investigatedAt", timestampOf(report.getInvestigatedAt()));
+        return data;
+    }
+}
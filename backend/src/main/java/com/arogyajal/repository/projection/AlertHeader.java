@@ -0,0 +1,20 @@
+package com.arogyajal.repository.projection;
+
+import com.arogyajal.repository.codec.DocumentValues;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of an alert that summaries count and sort by, read from a
+ * projected query instead of the whole document.
+ */
+public record AlertHeader(String id, String location, String severity, String status, LocalDateTime triggeredAt) {
+
+    public static final String[] FIELDS = {"location", "severity", "status", "triggeredAt"};
+
+    public static AlertHeader from(DocumentSnapshot doc) {
+        return new AlertHeader(doc.getId(), doc.getString("location"), doc.getString("severity"),
+                doc.getString("status"), DocumentValues.asLocalDateTime(doc.get("triggeredAt")));
+    }
+}
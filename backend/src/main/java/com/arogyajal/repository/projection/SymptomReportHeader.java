@@ -0,0 +1,21 @@
+package com.arogyajal.repository.projection;
+
+import com.arogyajal.repository.codec.DocumentValues;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a symptom report that summaries count and sort by, read from
+ * a projected query instead of the whole document.
+ */
+public record SymptomReportHeader(String id, String location, String severity, String status,
+                                  LocalDateTime reportedAt) {
+
+    public static final String[] FIELDS = {"location", "severity", "status", "reportedAt"};
+
+    public static SymptomReportHeader from(DocumentSnapshot doc) {
+        return new SymptomReportHeader(doc.getId(), doc.getString("location"), doc.getString("severity"),
+                doc.getString("status"), DocumentValues.asLocalDateTime(doc.get("reportedAt")));
+    }
+}
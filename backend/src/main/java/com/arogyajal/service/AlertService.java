@@ -1,15 +1,19 @@
 package com.arogyajal.service;
 
+import com.arogyajal.event.AlertChangedEvent;
 import com.arogyajal.model.Alert;
 import com.arogyajal.model.SensorReading;
-import com.arogyajal.model.SymptomReport;
 import com.arogyajal.repository.AlertRepository;
-import com.arogyajal.repository.SymptomRepository;
+import com.arogyajal.repository.projection.AlertHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 
@@ -19,11 +23,33 @@ public class AlertService {
     private static final Logger log = LoggerFactory.getLogger(AlertService.class);
     
     private final AlertRepository alertRepository;
-    private final SymptomRepository symptomRepository;
+    private final AlertStateMachine alertStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AlertService(AlertRepository alertRepository, SymptomRepository symptomRepository) {
+    // Track key for heartbeat alerts in the state machine
+    private static final String HEARTBEAT = "HEARTBEAT";
+
+    @Value("${alerts.thresholds.ph.min:6.5}")
+    private double phMin;
+
+    @Value("${alerts.thresholds.ph.max:8.5}")
+    private double phMax;
+
+    @Value("${alerts.thresholds.turbidity.max:5.0}")
+    private double turbidityMax;
+
+    @Value("${alerts.thresholds.conductivity.max:1000.0}")
+    private double conductivityMax;
+
+    // Fraction of the threshold a value has to move back inside before it counts as normal
+    @Value("${alerts.dedup.hysteresis-fraction:0.05}")
+    private double hysteresisFraction;
+
+    public AlertService(AlertRepository alertRepository, AlertStateMachine alertStateMachine,
+                        ApplicationEventPublisher eventPublisher) {
         this.alertRepository = alertRepository;
-        this.symptomRepository = symptomRepository;
+        this.alertStateMachine = alertStateMachine;
+        this.eventPublisher = eventPublisher;
     }
     
     public Alert createAlert(Alert alert) {
@@ -32,12 +58,16 @@ public class AlertService {
         alert.setStatus("ACTIVE");
         // Generate a unique ID for the alert
         String alertId = UUID.randomUUID().toString();
+        alert.setId(alertId);
+        Alert saved;
         try {
-            return alertRepository.save(alert, alertId);
+            saved = alertRepository.save(alert, alertId);
         } catch (Exception e) {
             log.error("Error creating alert", e);
             throw new RuntimeException("Failed to create alert", e);
         }
+        eventPublisher.publishEvent(new AlertChangedEvent(saved));
+        return saved;
     }
     
     public List<Alert> getAllAlerts() {
@@ -50,6 +80,27 @@ public class AlertService {
         }
     }
     
+    public List<AlertHeader> getAlertHeaders() {
+        log.info("Retrieving alert headers");
+        try {
+            return alertRepository.findAllHeaders();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error retrieving alert headers", e);
+            Thread.currentThread().interrupt(); // Restore the interrupted status
+            throw new RuntimeException("Failed to retrieve alert headers", e);
+        }
+    }
+    
+    public List<Alert> getAlertsByIds(List<String> ids) {
+        try {
+            return alertRepository.findAllById(ids);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error retrieving alerts by IDs", e);
+            Thread.currentThread().interrupt(); // Restore the interrupted status
+            throw new RuntimeException("Failed to retrieve alerts", e);
+        }
+    }
+    
     public Optional<Alert> getAlertById(String id) {
         log.info("Retrieving alert by ID: {}", id);
         try {
@@ -123,7 +174,10 @@ public class AlertService {
                 if (!alert.getNotifiedUsers().contains(userId)) {
                     alert.getNotifiedUsers().add(userId);
                 }
-                return alertRepository.save(alert, id);
+                Alert saved = alertRepository.save(alert, id);
+                alertStateMachine.onAlertUpdated(saved);
+                eventPublisher.publishEvent(new AlertChangedEvent(saved));
+                return saved;
             }
             throw new RuntimeException("Alert not found with id: " + id);
         } catch (Exception e) {
@@ -142,7 +196,10 @@ public class AlertService {
                 alert.setResolvedAt(LocalDateTime.now());
                 alert.setResolvedBy(resolvedBy);
                 alert.setResolutionNotes(resolutionNotes);
-                return alertRepository.save(alert, id);
+                Alert saved = alertRepository.save(alert, id);
+                alertStateMachine.onAlertUpdated(saved);
+                eventPublisher.publishEvent(new AlertChangedEvent(saved));
+                return saved;
             }
             throw new RuntimeException("Alert not found with id: " + id);
         } catch (Exception e) {
@@ -155,40 +212,241 @@ public class AlertService {
         log.info("Checking for water quality alerts for sensor: {}", reading.getSensorId());
         try {
             // Check for critical water quality parameters
-            if (reading.getPh() < 6.5 || reading.getPh() > 8.5) {
-                createAlert(createWaterQualityAlert(reading, "pH", reading.getPh()));
+            evaluateThreshold(reading, "pH", reading.getPh(), phMin, phMax);
+            evaluateThreshold(reading, "Turbidity", reading.getTurbidity(), Double.NEGATIVE_INFINITY, turbidityMax); // NTU
+            evaluateThreshold(reading, "Conductivity", reading.getConductivity(), Double.NEGATIVE_INFINITY, conductivityMax); // µS/cm
+        } catch (Exception e) {
+            log.error("Error checking for water quality alerts", e);
+        }
+    }
+
+    /**
+     * Feed one parameter of a reading through the alert state machine so that a
+     * sensor stuck outside its range updates a single alert instead of creating one
+     * per reading.
+     */
+    private void evaluateThreshold(SensorReading reading, String parameter, Double value, double min, double max) {
+        if (value == null || reading.getSensorId() == null) {
+            return;
+        }
+        boolean breached = value < min || value > max;
+        boolean normal = value >= min + hysteresis(min) && value <= max - hysteresis(max);
+        long now = System.currentTimeMillis();
+
+        if (breached) {
+            raiseTracked(parameter, createWaterQualityAlert(reading, parameter, value), now);
+        } else if (normal) {
+            clearTracked(reading.getSensorId(), parameter, String.format("%s back within range", parameter), now);
+        }
+        // Values inside the hysteresis band leave the state untouched
+    }
+
+    /**
+     * Raise or refresh a sensor anomaly/fault alert. Repeats for the same sensor,
+     * parameter and kind update one alert, like threshold breaches do.
+     */
+    public void raiseSensorAnomaly(SensorReading reading, String parameter, String kind, String alertType,
+                                   String severity, double value, String description) {
+        if (reading.getSensorId() == null) {
+            return;
+        }
+        Alert alert = new Alert();
+        alert.setAlertType(alertType);
+        alert.setSeverity(severity);
+        alert.setDescription(description);
+        alert.setLocation(reading.getLocation());
+        alert.setSensorId(reading.getSensorId());
+        // Parameter carries the kind so API updates find the right track
+        alert.setParameter(parameter + ":" + kind);
+        alert.setTitle(title(alert, severity));
+        alert.setActualValue(value);
+        alert.setSensorReadingId(reading.getId());
+        alert.setNotificationMethod("EMAIL");
+        try {
+            raiseTracked(alert.getParameter(), alert, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Error raising sensor anomaly alert for sensor: " + reading.getSensorId(), e);
+        }
+    }
+
+    /**
+     * Report a normal reading for a sensor, parameter and kind that had an anomaly alert.
+     * The alert is resolved once readings have stayed normal for the clear-after period.
+     * @return true once there is nothing left to clear
+     */
+    public boolean clearSensorAnomaly(String sensorId, String parameter, String kind) {
+        try {
+            return clearTracked(sensorId, parameter + ":" + kind,
+                    String.format("%s readings no longer show %s", parameter, kind), System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Error clearing sensor anomaly alert for sensor: " + sensorId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Raise a SENSOR_OFFLINE alert for a sensor that missed its heartbeat. A sensor
+     * that keeps dropping out reopens the same alert instead of creating new ones.
+     */
+    public void raiseSensorOffline(String sensorId, String location, LocalDateTime lastSeen) {
+        Alert alert = new Alert();
+        alert.setAlertType("SENSOR_OFFLINE");
+        alert.setSeverity("MEDIUM");
+        alert.setTitle(String.format("Sensor Offline - %s", sensorId));
+        alert.setDescription(String.format("No readings from sensor %s since %s%s", sensorId, lastSeen,
+                location != null ? " at " + location : ""));
+        alert.setLocation(location);
+        alert.setSensorId(sensorId);
+        alert.setParameter(HEARTBEAT);
+        alert.setNotificationMethod("EMAIL");
+        try {
+            raiseTracked(HEARTBEAT, alert, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Error raising offline alert for sensor: " + sensorId, e);
+        }
+    }
+
+    /**
+     * Resolve the SENSOR_OFFLINE alert of a sensor that is reporting again.
+     */
+    public void resolveSensorOffline(String sensorId) {
+        AlertStateMachine.Track track = alertStateMachine.find(sensorId, HEARTBEAT);
+        if (track == null) {
+            return;
+        }
+        Alert resolved = null;
+        synchronized (track) {
+            if (track.getState() == AlertStateMachine.State.CLEARED) {
+                return;
+            }
+            Alert alert = loadTrackedAlert(track);
+            if (alert != null && !"RESOLVED".equals(alert.getStatus())) {
+                alert.setStatus("RESOLVED");
+                alert.setResolvedAt(LocalDateTime.now());
+                alert.setResolvedBy("SYSTEM");
+                alert.setResolutionNotes("Sensor is reporting again");
+                saveTrackedAlert(track, alert);
+                resolved = alert;
             }
+        }
+        // Back online clears at once; there is no cool-down for heartbeats
+        if (resolved != null) {
+            alertStateMachine.onAlertUpdated(resolved);
+        }
+    }
+
+    private void raiseTracked(String trackKey, Alert candidate, long now) {
+        AlertStateMachine.Track track = alertStateMachine.track(candidate.getSensorId(), trackKey);
+        synchronized (track) {
+            AlertStateMachine.Transition transition = alertStateMachine.onBreach(track, candidate.getSeverity(), now);
+            applyBreach(track, transition, candidate);
+        }
+    }
 
-            if (reading.getTurbidity() > 5.0) { // NTU
-                createAlert(createWaterQualityAlert(reading, "Turbidity", reading.getTurbidity()));
+    private boolean clearTracked(String sensorId, String trackKey, String resolutionNotes, long now) {
+        AlertStateMachine.Track track = alertStateMachine.find(sensorId, trackKey);
+        if (track == null) {
+            return true;
+        }
+        synchronized (track) {
+            if (alertStateMachine.onNormal(track, now) == AlertStateMachine.Transition.CLEARED) {
+                Alert alert = loadTrackedAlert(track);
+                if (alert != null && !"RESOLVED".equals(alert.getStatus())) {
+                    alert.setStatus("RESOLVED");
+                    alert.setResolvedAt(LocalDateTime.now());
+                    alert.setResolvedBy("SYSTEM");
+                    alert.setResolutionNotes(resolutionNotes);
+                    saveTrackedAlert(track, alert);
+                }
             }
+            return track.getState() == AlertStateMachine.State.CLEARED;
+        }
+    }
 
-            if (reading.getConductivity() > 1000) { // µS/cm
-                createAlert(createWaterQualityAlert(reading, "Conductivity", reading.getConductivity()));
+    private void applyBreach(AlertStateMachine.Track track, AlertStateMachine.Transition transition, Alert candidate) {
+        if (transition == AlertStateMachine.Transition.NONE) {
+            return;
+        }
+        Alert alert = transition == AlertStateMachine.Transition.OPENED ? null : loadTrackedAlert(track);
+        if (alert == null) {
+            candidate.setSeverity(track.getSeverity());
+            candidate.setOccurrenceCount(track.getCount());
+            candidate.setLastSeenAt(toLocalDateTime(track.getLastSeen()));
+            track.attach(createAlert(candidate));
+            alertStateMachine.markFlushed(track, track.getLastSeen());
+            return;
+        }
+
+        switch (transition) {
+            case REOPENED:
+                alert.setStatus("ACTIVE");
+                alert.setResolvedAt(null);
+                alert.setResolvedBy(null);
+                alert.setResolutionNotes(null);
+                break;
+            case ESCALATED:
+                alert.setTitle(title(candidate, track.getSeverity()));
+                break;
+            default:
+                break;
+        }
+        alert.setSeverity(track.getSeverity());
+        alert.setActualValue(candidate.getActualValue());
+        alert.setSensorReadingId(candidate.getSensorReadingId());
+        saveTrackedAlert(track, alert);
+    }
+
+    private Alert loadTrackedAlert(AlertStateMachine.Track track) {
+        if (track.getAlert() == null && track.getAlertId() != null) {
+            // Only the id survives a restart; fetch the document once
+            try {
+                alertRepository.findById(track.getAlertId()).ifPresent(track::attach);
+            } catch (Exception e) {
+                log.warn("Failed to load tracked alert {}: {}", track.getAlertId(), e.getMessage());
             }
+        }
+        return track.getAlert();
+    }
+
+    private void saveTrackedAlert(AlertStateMachine.Track track, Alert alert) {
+        alert.setOccurrenceCount(track.getCount());
+        alert.setLastSeenAt(toLocalDateTime(track.getLastSeen()));
+        try {
+            alertRepository.save(alert, alert.getId());
+            alertStateMachine.markFlushed(track, track.getLastSeen());
         } catch (Exception e) {
-            log.error("Error checking for water quality alerts", e);
+            log.error("Error updating alert: " + alert.getId(), e);
+            return;
         }
+        eventPublisher.publishEvent(new AlertChangedEvent(alert));
+    }
+
+    private double hysteresis(double threshold) {
+        return Double.isInfinite(threshold) ? 0 : Math.abs(threshold) * hysteresisFraction;
     }
 
-    public void checkForSymptomClusterAlerts(String location) {
-        log.info("Checking for symptom cluster alerts in location: {}", location);
-        LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-        List<SymptomReport> recentReports = symptomRepository
-                .findByLocationAndReportedAtBetweenOrderByReportedAtDesc(location, last24Hours, LocalDateTime.now());
-        if (recentReports.size() >= 5) {
-            createSymptomClusterAlert(location, recentReports);
+    /**
+     * Title of a threshold or anomaly alert at a severity, built from its
+     * parameter ("parameter" or "parameter:kind") and location.
+     */
+    private static String title(Alert alert, String severity) {
+        String location = alert.getLocation() != null ? alert.getLocation() : "Unknown Location";
+        String parameter = alert.getParameter();
+        int kind = parameter.indexOf(':');
+        if (kind >= 0) {
+            return String.format("%s %s %s - %s", parameter.substring(0, kind), parameter.substring(kind + 1),
+                    severity, location);
         }
+        return String.format("%s %s Alert - %s", parameter, severity, location);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
     }
 
     private Alert createWaterQualityAlert(SensorReading reading, String parameter, double value) {
         try {
             String severity = getSeverityForParameter(parameter, value);
-            String title = String.format("%s %s Alert - %s",
-                    parameter,
-                    severity,
-                    reading.getLocation() != null ? reading.getLocation() : "Unknown Location");
-
             String description = String.format("%s value of %.2f is outside the normal range at %s",
                     parameter,
                     value,
@@ -197,11 +455,11 @@ public class AlertService {
             Alert alert = new Alert();
             alert.setAlertType("WATER_QUALITY");
             alert.setSeverity(severity);
-            alert.setTitle(title);
             alert.setDescription(description);
             alert.setLocation(reading.getLocation());
             alert.setSensorId(reading.getSensorId());
             alert.setParameter(parameter);
+            alert.setTitle(title(alert, severity));
             alert.setActualValue(value);
             alert.setSensorReadingId(reading.getId());
             alert.setNotificationMethod("EMAIL"); // Default notification method
@@ -213,18 +471,26 @@ public class AlertService {
         }
     }
 
-    private void createSymptomClusterAlert(String location, List<SymptomReport> reports) {
+    public Alert createSymptomClusterAlert(String location, List<String> relatedReportIds, String description) {
+        return createSymptomClusterAlert(location, relatedReportIds, description, null);
+    }
+
+    /**
+     * Create a symptom cluster alert linked to the nearest water sensor, if any.
+     */
+    public Alert createSymptomClusterAlert(String location, List<String> relatedReportIds, String description,
+                                           String sensorId) {
         Alert alert = Alert.builder()
                 .alertType("SYMPTOM_CLUSTER")
                 .severity("HIGH")
                 .title("Symptom Cluster Alert")
-                .description(String.format("High number of symptom reports (%d) in the last 24 hours in %s",
-                        reports.size(), location))
+                .description(description)
                 .location(location)
-                .relatedSymptomReportIds(reports.stream().map(SymptomReport::getId).toList())
+                .sensorId(sensorId)
+                .relatedSymptomReportIds(relatedReportIds)
                 .build();
 
-        createAlert(alert);
+        return createAlert(alert);
     }
 
     private String getSeverityForParameter(String parameter, double value) {
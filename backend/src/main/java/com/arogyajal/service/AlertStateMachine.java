@@ -0,0 +1,359 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.Alert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory alert lifecycle per (sensorId, parameter).
+ *
+ * A breaching sensor opens one alert and keeps folding further breaches into it
+ * instead of inserting a new document per reading. The machine only decides what
+ * happened; {@link AlertService} performs the Firestore writes.
+ *
+ * <pre>
+ *   CLEARED --breach--> OPEN --worse / too long--> ESCALATED
+ *   OPEN|ESCALATED --back inside hysteresis band--> COOLING_DOWN
+ *   COOLING_DOWN --breach--> previous state, --normal for clear-after--> CLEARED
+ * </pre>
+ *
+ * A breach within the suppression window after clearing reopens the previous alert.
+ * Tracks are snapshotted to disk by a background writer, never on the ingest path.
+ */
+@Component
+public class AlertStateMachine {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertStateMachine.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x41534D31; // "ASM1"
+    private static final String SNAPSHOT_FILE = "alert-state.bin";
+
+    public enum State { OPEN, ESCALATED, COOLING_DOWN, CLEARED }
+
+    public enum Transition {
+        /** Nothing to write. */
+        NONE,
+        /** A new alert has to be created. */
+        OPENED,
+        /** The previous alert is reactivated (breach inside the suppression window). */
+        REOPENED,
+        /** Severity went up; the alert has to be rewritten now. */
+        ESCALATED,
+        /** Repeated breach and the update interval elapsed; flush count/lastSeen. */
+        REPEATED,
+        /** Back to normal for long enough; the alert is resolved. */
+        CLEARED
+    }
+
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    @Value("${alerts.dedup.update-interval-seconds:300}")
+    private long updateIntervalSeconds;
+
+    @Value("${alerts.dedup.clear-after-seconds:900}")
+    private long clearAfterSeconds;
+
+    @Value("${alerts.dedup.suppression-window-seconds:3600}")
+    private long suppressionWindowSeconds;
+
+    @Value("${alerts.dedup.escalate-after-seconds:3600}")
+    private long escalateAfterSeconds;
+
+    @Value("${alerts.dedup.snapshot-interval-seconds:60}")
+    private long snapshotIntervalSeconds;
+
+    @Value("${arogyajal.state.dir:data/state}")
+    private String stateDir;
+
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private ScheduledExecutorService snapshotWriter;
+
+    /**
+     * State kept for one (sensorId, parameter) pair. Callers must hold the track's
+     * monitor while reading or mutating it.
+     */
+    public static class Track {
+        private final String sensorId;
+        private final String parameter;
+        private String alertId;
+        private Alert alert; // cached document, reloaded lazily after a restart
+        private State state = State.CLEARED;
+        private State stateBeforeCooling = State.OPEN;
+        private int severityRank;
+        private int count;
+        private long firstSeen;
+        private long lastSeen;
+        private long stateSince;
+        private long lastFlushed;
+
+        Track(String sensorId, String parameter) {
+            this.sensorId = sensorId;
+            this.parameter = parameter;
+        }
+
+        public String getSensorId() { return sensorId; }
+        public String getParameter() { return parameter; }
+        public String getAlertId() { return alertId; }
+        public Alert getAlert() { return alert; }
+        public State getState() { return state; }
+        public String getSeverity() { return SEVERITIES[severityRank]; }
+        public int getCount() { return count; }
+        public long getLastSeen() { return lastSeen; }
+
+        public void attach(Alert alert) {
+            this.alert = alert;
+            this.alertId = alert != null ? alert.getId() : null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        restore();
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "alert-state-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWriter.scheduleWithFixedDelay(this::snapshotIfDirty, snapshotIntervalSeconds, snapshotIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    void restore() {
+        Path file = Paths.get(stateDir, SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring alert state snapshot with unknown format: {}", file);
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                Track track = new Track(in.readUTF(), in.readUTF());
+                String alertId = in.readUTF();
+                track.alertId = alertId.isEmpty() ? null : alertId;
+                track.state = State.values()[in.readByte()];
+                track.stateBeforeCooling = State.values()[in.readByte()];
+                track.severityRank = in.readByte();
+                track.count = in.readInt();
+                track.firstSeen = in.readLong();
+                track.lastSeen = in.readLong();
+                track.stateSince = in.readLong();
+                track.lastFlushed = in.readLong();
+                tracks.put(key(track.sensorId, track.parameter), track);
+            }
+            log.info("Restored {} alert state entries from {}", size, file);
+        } catch (Exception e) {
+            log.warn("Failed to restore alert state snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+        }
+        snapshotIfDirty();
+    }
+
+    /**
+     * Get (or create) the track for a sensor parameter. Synchronize on the result
+     * before calling {@link #onBreach} or {@link #onNormal}.
+     */
+    public Track track(String sensorId, String parameter) {
+        return tracks.computeIfAbsent(key(sensorId, parameter), k -> new Track(sensorId, parameter));
+    }
+
+    /**
+     * Get the track for a sensor parameter if one was ever opened.
+     */
+    public Track find(String sensorId, String parameter) {
+        return tracks.get(key(sensorId, parameter));
+    }
+
+    /**
+     * Record a reading outside the threshold.
+     * @param severity severity computed for this reading
+     */
+    public Transition onBreach(Track track, String severity, long now) {
+        int rank = severityRank(severity);
+        Transition transition;
+        switch (track.state) {
+            case CLEARED:
+                boolean suppressed = track.alertId != null
+                        && now - track.stateSince < suppressionWindowSeconds * 1000;
+                track.state = State.OPEN;
+                track.stateSince = now;
+                track.severityRank = suppressed ? Math.max(track.severityRank, rank) : rank;
+                track.count = suppressed ? track.count + 1 : 1;
+                track.firstSeen = now;
+                track.lastSeen = now;
+                track.lastFlushed = now;
+                transition = suppressed ? Transition.REOPENED : Transition.OPENED;
+                break;
+            case COOLING_DOWN:
+                track.state = track.stateBeforeCooling;
+                track.stateSince = now;
+                transition = fold(track, rank, now);
+                break;
+            default:
+                transition = fold(track, rank, now);
+                break;
+        }
+        markDirty();
+        return transition;
+    }
+
+    /**
+     * Record a reading that is back inside the threshold by at least the hysteresis
+     * margin. Readings inside the band itself should not be reported at all.
+     */
+    public Transition onNormal(Track track, long now) {
+        Transition transition = Transition.NONE;
+        switch (track.state) {
+            case OPEN:
+            case ESCALATED:
+                track.stateBeforeCooling = track.state;
+                track.state = State.COOLING_DOWN;
+                track.stateSince = now;
+                break;
+            case COOLING_DOWN:
+                if (now - track.stateSince >= clearAfterSeconds * 1000) {
+                    track.state = State.CLEARED;
+                    track.stateSince = now;
+                    transition = Transition.CLEARED;
+                }
+                break;
+            default:
+                return Transition.NONE;
+        }
+        markDirty();
+        return transition;
+    }
+
+    /**
+     * Sync a track with an alert that was acknowledged or resolved through the API.
+     */
+    public void onAlertUpdated(Alert alert) {
+        if (alert == null || alert.getSensorId() == null || alert.getParameter() == null) {
+            return;
+        }
+        Track track = tracks.get(key(alert.getSensorId(), alert.getParameter()));
+        if (track == null) {
+            return;
+        }
+        synchronized (track) {
+            if (alert.getId() == null || !alert.getId().equals(track.alertId)) {
+                return;
+            }
+            track.alert = alert;
+            if ("RESOLVED".equals(alert.getStatus()) || "DISMISSED".equals(alert.getStatus())) {
+                track.state = State.CLEARED;
+                track.stateSince = System.currentTimeMillis();
+            }
+        }
+        markDirty();
+    }
+
+    public void markFlushed(Track track, long now) {
+        track.lastFlushed = now;
+    }
+
+    public int size() {
+        return tracks.size();
+    }
+
+    private Transition fold(Track track, int rank, long now) {
+        track.count++;
+        track.lastSeen = now;
+        boolean worse = rank > track.severityRank;
+        boolean overdue = track.state == State.OPEN
+                && now - track.firstSeen >= escalateAfterSeconds * 1000
+                && track.severityRank < SEVERITIES.length - 1;
+        if (worse || overdue) {
+            track.severityRank = worse ? rank : track.severityRank + 1;
+            track.state = State.ESCALATED;
+            track.stateSince = now;
+            return Transition.ESCALATED;
+        }
+        if (now - track.lastFlushed >= updateIntervalSeconds * 1000) {
+            return Transition.REPEATED;
+        }
+        return Transition.NONE;
+    }
+
+    private void markDirty() {
+        dirty = true;
+    }
+
+    private void snapshotIfDirty() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Write all tracks to a small binary file (~60 bytes per entry plus ids).
+     */
+    synchronized void snapshot() {
+        dirty = false;
+        try {
+            Path dir = Paths.get(stateDir);
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(tracks.size());
+                for (Track track : tracks.values()) {
+                    synchronized (track) {
+                        out.writeUTF(track.sensorId);
+                        out.writeUTF(track.parameter);
+                        out.writeUTF(track.alertId != null ? track.alertId : "");
+                        out.writeByte(track.state.ordinal());
+                        out.writeByte(track.stateBeforeCooling.ordinal());
+                        out.writeByte(track.severityRank);
+                        out.writeInt(track.count);
+                        out.writeLong(track.firstSeen);
+                        out.writeLong(track.lastSeen);
+                        out.writeLong(track.stateSince);
+                        out.writeLong(track.lastFlushed);
+                    }
+                }
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to write alert state snapshot: {}", e.getMessage());
+        }
+    }
+
+    static int severityRank(String severity) {
+        for (int i = 0; i < SEVERITIES.length; i++) {
+            if (SEVERITIES[i].equals(severity)) {
+                return i;
+            }
+        }
+        return 1; // MEDIUM
+    }
+
+    private static String key(String sensorId, String parameter) {
+        return sensorId + '\u0000' + parameter;
+    }
+}
@@ -0,0 +1,22 @@
+package com.arogyajal.service;
+
+/**
+ * Fan-out of server-side STOMP messages.
+ *
+ * The payload is serialized once and handed to the local broker, which delivers
+ * it to this node's subscribers; multi-node implementations additionally forward
+ * the serialized message once to every other node. Selected with
+ * {@code arogyajal.relay.mode}.
+ */
+public interface BrokerRelay {
+
+    /**
+     * Publish a payload to a destination on every node.
+     */
+    void publish(String destination, Object payload);
+
+    /**
+     * Identifier of this node, unique per process.
+     */
+    String getNodeId();
+}
@@ -0,0 +1,375 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.HyperLogLog;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct counts of devices, locations, reporting users and symptom types,
+ * from HyperLogLog sketches per (dimension, scope, day).
+ *
+ * The scope is a location, or {@link #ALL} for the whole system. Sketches are
+ * updated at ingest and merged over the requested days at query time, so a
+ * distinct count is a few KB of registers per day instead of a collection
+ * scan. Readings and reports are bucketed into days of the configured zone.
+ * Sketches from other nodes merge the same way ({@link #mergeSketch}).
+ *
+ * Persisted to the state directory like the other rollups, by a background
+ * writer so ingest never waits on the disk; without a snapshot the last
+ * {@code backfill-days} of readings and reports are replayed once.
+ */
+@Component
+public class CardinalityService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardinalityService.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x484C4C31; // "HLL1"
+    private static final String SNAPSHOT_FILE = "cardinality-sketches.bin";
+    public static final String ALL = "*";
+
+    public enum Dimension {
+        DEVICES, LOCATIONS, REPORTERS, SYMPTOMS;
+
+        public static Dimension of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown dimension: " + name);
+            }
+        }
+    }
+
+    @Value("${arogyajal.cardinality.precision:12}")
+    private int precision;
+
+    @Value("${arogyajal.statistics.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Value("${arogyajal.cardinality.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${arogyajal.cardinality.backfill-days:30}")
+    private int backfillDays;
+
+    @Value("${arogyajal.cardinality.snapshot-interval-seconds:300}")
+    private long snapshotIntervalSeconds;
+
+    @Value("${arogyajal.state.dir:data/state}")
+    private String stateDir;
+
+    private final SensorService sensorService;
+    private final SymptomService symptomService;
+    private final Map<SketchKey, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private ZoneId zoneId;
+    private boolean restored;
+    private volatile boolean dirty;
+    private ScheduledExecutorService snapshotWriter;
+
+    public CardinalityService(SensorService sensorService, SymptomService symptomService) {
+        this.sensorService = sensorService;
+        this.symptomService = symptomService;
+    }
+
+    record SketchKey(Dimension dimension, String scope, LocalDate day) {
+    }
+
+    /**
+     * Estimated distinct count over a range of days.
+     */
+    public static class Estimate {
+        public String dimension;
+        public String scope;
+        public LocalDate from;
+        public LocalDate to;
+        public long distinct;
+        public double standardError;
+    }
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+        restore();
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cardinality-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWriter.scheduleWithFixedDelay(this::snapshotIfDirty, snapshotIntervalSeconds, snapshotIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+        }
+        snapshotIfDirty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (restored || backfillDays <= 0) {
+            return;
+        }
+        try {
+            Timestamp end = Timestamp.now();
+            Timestamp start = Timestamp.ofTimeSecondsAndNanos(end.getSeconds() - backfillDays * 86400L, 0);
+            List<SensorReading> readings = sensorService.getReadingsByTimeRange(start, end);
+            readings.forEach(this::addReading);
+            LocalDateTime now = LocalDateTime.now();
+            List<SymptomReport> reports = symptomService.getReportsByTimeRange(now.minusDays(backfillDays), now);
+            reports.forEach(this::addReport);
+            log.info("Cardinality sketches backfilled from {} readings and {} reports into {} sketches",
+                    readings.size(), reports.size(), sketches.size());
+        } catch (Exception e) {
+            log.warn("Failed to backfill cardinality sketches: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() != null) {
+            addReading(event.getReading());
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        addReport(event.getReport());
+    }
+
+    void addReading(SensorReading reading) {
+        Instant at = reading.getTimestamp() != null ? reading.getTimestamp().toSqlTimestamp().toInstant() : Instant.now();
+        LocalDate day = LocalDate.ofInstant(at, zoneId);
+        String location = reading.getLocation() != null ? reading.getLocation().trim() : null;
+        add(Dimension.DEVICES, ALL, day, reading.getSensorId());
+        add(Dimension.LOCATIONS, ALL, day, location);
+        if (location != null) {
+            add(Dimension.DEVICES, location, day, reading.getSensorId());
+        }
+    }
+
+    void addReport(SymptomReport report) {
+        // reportedAt is in the server's zone; bucket it by the same days as readings
+        LocalDate day = report.getReportedAt() != null
+                ? report.getReportedAt().atZone(ZoneId.systemDefault()).withZoneSameInstant(zoneId).toLocalDate()
+                : LocalDate.now(zoneId);
+        String location = report.getLocation() != null ? report.getLocation().trim() : null;
+        add(Dimension.REPORTERS, ALL, day, report.getUserId());
+        if (location != null) {
+            add(Dimension.REPORTERS, location, day, report.getUserId());
+        }
+        if (report.getSymptoms() != null) {
+            for (String symptom : report.getSymptoms()) {
+                String normalized = symptom != null ? symptom.trim().toUpperCase() : null;
+                add(Dimension.SYMPTOMS, ALL, day, normalized);
+                if (location != null) {
+                    add(Dimension.SYMPTOMS, location, day, normalized);
+                }
+            }
+        }
+    }
+
+    private void add(Dimension dimension, String scope, LocalDate day, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        HyperLogLog sketch = sketches.computeIfAbsent(new SketchKey(dimension, scope, day), k -> new HyperLogLog(precision));
+        synchronized (sketch) {
+            sketch.add(value);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Distinct values of {@code dimension} within {@code scope} over
+     * [{@code from}, {@code to}].
+     */
+    public Estimate estimate(Dimension dimension, String scope, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        String key = scope != null ? scope.trim() : ALL;
+        HyperLogLog merged = new HyperLogLog(precision);
+        // Only retained days can hold sketches; a day ahead allows for device clocks running fast
+        LocalDate today = LocalDate.now(zoneId);
+        LocalDate first = max(from, today.minusDays(retentionDays));
+        LocalDate last = min(to, today.plusDays(1));
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            HyperLogLog sketch = sketches.get(new SketchKey(dimension, key, day));
+            if (sketch != null) {
+                synchronized (sketch) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        Estimate estimate = new Estimate();
+        estimate.dimension = dimension.name().toLowerCase();
+        estimate.scope = key;
+        estimate.from = from;
+        estimate.to = to;
+        estimate.distinct = merged.estimate();
+        estimate.standardError = merged.standardError();
+        return estimate;
+    }
+
+    /**
+     * Distinct count over every retained day.
+     */
+    public long estimateAll(Dimension dimension, String scope) {
+        LocalDate today = LocalDate.now(zoneId);
+        return estimate(dimension, scope, today.minusDays(retentionDays), today).distinct;
+    }
+
+    /**
+     * Serialized sketch of one day, for shipping to another node.
+     */
+    public Optional<byte[]> getSketch(Dimension dimension, String scope, LocalDate day) {
+        HyperLogLog sketch = sketches.get(new SketchKey(dimension, scope != null ? scope.trim() : ALL, day));
+        if (sketch == null) {
+            return Optional.empty();
+        }
+        synchronized (sketch) {
+            return Optional.of(encode(sketch));
+        }
+    }
+
+    /**
+     * Fold a sketch serialized by {@link #getSketch} (on any node) into this one.
+     */
+    public void mergeSketch(Dimension dimension, String scope, LocalDate day, byte[] bytes) {
+        HyperLogLog other = decode(bytes);
+        if (other.getPrecision() != precision) {
+            throw new IllegalArgumentException("Sketch precision " + other.getPrecision()
+                    + " does not match " + precision);
+        }
+        SketchKey key = new SketchKey(dimension, scope != null ? scope.trim() : ALL, day);
+        HyperLogLog sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog(precision));
+        synchronized (sketch) {
+            sketch.merge(other);
+        }
+        dirty = true;
+    }
+
+    public int getSketchCount() {
+        return sketches.size();
+    }
+
+    private void snapshotIfDirty() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Drop days beyond the retention and write every sketch as (dimension,
+     * scope, day, serialized registers).
+     */
+    synchronized void snapshot() {
+        dirty = false;
+        LocalDate oldest = LocalDate.now(zoneId).minusDays(retentionDays);
+        sketches.keySet().removeIf(key -> key.day().isBefore(oldest));
+        try {
+            Path dir = Paths.get(stateDir);
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                List<Map.Entry<SketchKey, HyperLogLog>> entries = new ArrayList<>(sketches.entrySet());
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<SketchKey, HyperLogLog> entry : entries) {
+                    SketchKey key = entry.getKey();
+                    out.writeByte(key.dimension().ordinal());
+                    out.writeUTF(key.scope());
+                    out.writeLong(key.day().toEpochDay());
+                    synchronized (entry.getValue()) {
+                        entry.getValue().writeTo(out);
+                    }
+                }
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to write cardinality snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void restore() {
+        Path file = Paths.get(stateDir, SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring cardinality snapshot with unknown format: {}", file);
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                Dimension dimension = Dimension.values()[in.readByte()];
+                String scope = in.readUTF();
+                LocalDate day = LocalDate.ofEpochDay(in.readLong());
+                sketches.put(new SketchKey(dimension, scope, day), HyperLogLog.readFrom(in));
+            }
+            restored = true;
+            log.info("Restored {} cardinality sketches from {}", size, file);
+        } catch (Exception e) {
+            sketches.clear();
+            log.warn("Failed to restore cardinality snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static byte[] encode(HyperLogLog sketch) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            sketch.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HyperLogLog decode(byte[] bytes) {
+        try {
+            return HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed sketch: " + e.getMessage());
+        }
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,254 @@
+package com.arogyajal.service;
+
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic checkpoint of the in-memory views into one memory-mapped file in
+ * the state directory, so a restart restores them instead of re-reading
+ * Firestore.
+ *
+ * The file is a header (magic, write time, section count), a directory of
+ * (name, offset, length, CRC-32) entries and the sections each
+ * {@link Checkpointable} encoded. It is written through a mapping of a
+ * temporary file, which is unmapped before the file is moved into place
+ * atomically. On startup, before the views' own warm-ups run, the file is
+ * mapped read-only and every section with a matching CRC is handed to its
+ * view, which then only fetches data newer than the checkpoint; the mapping is
+ * released once all views are restored. Checkpoints older than {@code max-age-hours} are
+ * ignored, and a final one is written on shutdown.
+ */
+@Component
+public class CheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckpointService.class);
+
+    private static final int MAGIC = 0x41434b31; // "ACK1"
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    @Value("${arogyajal.checkpoint.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${arogyajal.checkpoint.interval-seconds:300}")
+    private long intervalSeconds = 300;
+
+    @Value("${arogyajal.checkpoint.max-age-hours:24}")
+    private long maxAgeHours = 24;
+
+    @Value("${arogyajal.state.dir:data/state}")
+    private String stateDir;
+
+    private final List<Checkpointable> views;
+    private ScheduledExecutorService writer;
+
+    public CheckpointService(List<Checkpointable> views) {
+        this.views = views;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        restore();
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::write, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer != null) {
+            writer.shutdownNow();
+            write();
+        }
+    }
+
+    /**
+     * Write every view into a new checkpoint file.
+     */
+    public synchronized void write() {
+        long started = System.nanoTime();
+        long writtenAt = SensorReadingStore.nanos(Timestamp.now());
+        List<byte[]> names = new ArrayList<>(views.size());
+        List<List<ByteBuffer>> sections = new ArrayList<>(views.size());
+        for (Checkpointable view : views) {
+            try {
+                sections.add(view.writeCheckpoint());
+                names.add(view.checkpointName().getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.warn("Failed to checkpoint {}: {}", view.checkpointName(), e.getMessage());
+            }
+        }
+        long offset = HEADER_BYTES;
+        for (byte[] name : names) {
+            offset += Short.BYTES + name.length + Long.BYTES + Long.BYTES + Integer.BYTES;
+        }
+        long size = offset;
+        for (List<ByteBuffer> section : sections) {
+            size += length(section);
+        }
+        try {
+            Path dir = Paths.get(stateDir);
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                try {
+                    out.putInt(MAGIC).putLong(writtenAt).putInt(sections.size());
+                    for (int i = 0; i < sections.size(); i++) {
+                        List<ByteBuffer> section = sections.get(i);
+                        out.putShort((short) names.get(i).length).put(names.get(i));
+                        out.putLong(offset).putLong(length(section)).putInt(crc(section));
+                        offset += length(section);
+                    }
+                    for (List<ByteBuffer> section : sections) {
+                        section.forEach(out::put);
+                    }
+                    out.force();
+                } finally {
+                    unmap(out);
+                }
+            }
+            Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote {} KB checkpoint of {} views in {} ms", size / 1024, sections.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            log.warn("Failed to write checkpoint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Hand every intact section of the checkpoint file to its view.
+     *
+     * @return the number of views restored
+     */
+    public int restore() {
+        Path file = Paths.get(stateDir, CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        int restored = 0;
+        MappedByteBuffer in = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC) {
+                log.warn("Ignoring checkpoint with unknown format: {}", file);
+                return 0;
+            }
+            long writtenAt = in.getLong();
+            long ageSeconds = (SensorReadingStore.nanos(Timestamp.now()) - writtenAt) / 1_000_000_000L;
+            if (ageSeconds > maxAgeHours * 3600) {
+                log.info("Ignoring checkpoint written {} hours ago", ageSeconds / 3600);
+                return 0;
+            }
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.getShort()];
+                in.get(name);
+                long offset = in.getLong();
+                long length = in.getLong();
+                int crc = in.getInt();
+                Checkpointable view = find(new String(name, StandardCharsets.UTF_8));
+                if (view == null) {
+                    continue;
+                }
+                ByteBuffer section = in.slice(Math.toIntExact(offset), Math.toIntExact(length));
+                if (crc(List.of(section)) != crc) {
+                    log.warn("Ignoring corrupt checkpoint section {}", view.checkpointName());
+                    continue;
+                }
+                try {
+                    if (view.restoreCheckpoint(section, writtenAt)) {
+                        restored++;
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to restore {} from checkpoint: {}", view.checkpointName(), e.getMessage());
+                }
+            }
+            log.info("Restored {} of {} views from a checkpoint written {} s ago in {} ms", restored, views.size(),
+                    ageSeconds, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.warn("Failed to read checkpoint {}: {}", file, e.getMessage());
+        } finally {
+            // Views do not keep their sections, so nothing refers to the mapping any more
+            if (in != null) {
+                unmap(in);
+            }
+        }
+        return restored;
+    }
+
+    private Checkpointable find(String name) {
+        for (Checkpointable view : views) {
+            if (view.checkpointName().equals(name)) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    private static long length(List<ByteBuffer> section) {
+        long length = 0;
+        for (ByteBuffer piece : section) {
+            length += piece.remaining();
+        }
+        return length;
+    }
+
+    private static int crc(List<ByteBuffer> section) {
+        CRC32 crc = new CRC32();
+        for (ByteBuffer piece : section) {
+            crc.update(piece.duplicate());
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Release a mapping now rather than when it is garbage collected, so the
+     * file can be moved or replaced on every platform. Falls back to leaving
+     * it to the collector where the JDK does not allow it.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap checkpoint buffer: {}", e.getMessage());
+        }
+    }
+}
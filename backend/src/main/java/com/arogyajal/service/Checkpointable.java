@@ -0,0 +1,97 @@
+package com.arogyajal.service;
+
+import com.arogyajal.util.StringInterner;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory view that is saved into the shared checkpoint file and
+ * restored from it on startup, see {@link CheckpointService}.
+ */
+public interface Checkpointable {
+
+    /**
+     * Name of the view's section in the checkpoint; must stay stable across releases.
+     */
+    String checkpointName();
+
+    /**
+     * The view's state as consecutive pieces, each encoded from position to
+     * limit. Called on the checkpoint thread while ingest continues, so
+     * implementations copy a bounded piece at a time under their own lock and
+     * release it in between.
+     */
+    List<ByteBuffer> writeCheckpoint();
+
+    /**
+     * Replace the view's state with a section written by {@link #writeCheckpoint()},
+     * then fetch what changed after {@code checkpointNanos}. The section is
+     * a read-only view of the mapped file and must not be kept.
+     *
+     * @return false when the section does not fit the current configuration,
+     *         in which case the view warms up as if there were no checkpoint
+     */
+    boolean restoreCheckpoint(ByteBuffer section, long checkpointNanos);
+
+    static int stringBytes(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes {@link #putStrings} takes for an interner's table.
+     */
+    static long stringsBytes(StringInterner strings) {
+        long bytes = Integer.BYTES;
+        for (int code = 0; code < strings.size(); code++) {
+            bytes += stringBytes(strings.value(code));
+        }
+        return bytes;
+    }
+
+    /**
+     * Write an interner's table in code order, so interning the strings read
+     * back by {@link #getStrings} gives the same codes.
+     */
+    static void putStrings(ByteBuffer buffer, StringInterner strings) {
+        buffer.putInt(strings.size());
+        for (int code = 0; code < strings.size(); code++) {
+            putString(buffer, strings.value(code));
+        }
+    }
+
+    static List<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(getString(buffer));
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,353 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.DashboardResponse;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SensorStatusChangedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard overview maintained from ingest, alert, symptom and sensor status
+ * events instead of being computed from Firestore per request.
+ *
+ * Counters are adjusted as events arrive; every change bumps the version. The
+ * overview is serialized to JSON at most once per version, and no more often
+ * than {@code max-staleness-ms} while changes keep coming, so a read returns a
+ * cached byte array. Alerts and symptom reports are keyed by id, which makes
+ * replays (and events racing the warm-up) idempotent. Per-location data comes
+ * from the {@link LocationAggregateView}.
+ */
+@Component
+public class DashboardSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    static final String[] PARAMETERS = {"ph", "temperature", "turbidity", "dissolvedOxygen", "conductivity"};
+
+    @Value("${arogyajal.dashboard.max-staleness-ms:1000}")
+    private long maxStalenessMillis;
+
+    @Value("${arogyajal.dashboard.recent-items:10}")
+    private int recentItems;
+
+    @Value("${arogyajal.dashboard.trend-points:50}")
+    private int trendPoints;
+
+    private final SensorHeartbeatMonitor sensorHeartbeatMonitor;
+    private final LocationAggregateView locationAggregateView;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    // Guarded by "this"
+    private final Map<String, AlertEntry> alerts = new HashMap<>();
+    private final Map<String, Integer> alertsByStatus = new HashMap<>();
+    private final Map<String, Integer> openAlertsBySeverity = new HashMap<>();
+    private final Map<String, Map<String, Integer>> openQualityAlertsByParameter = new HashMap<>();
+    private final LinkedHashMap<String, String> openQualityAlertTitles = new LinkedHashMap<>();
+    private final LinkedHashMap<String, DashboardResponse.AlertSummary> recentAlerts = new LinkedHashMap<>();
+    private final Map<String, String> symptomStatus = new HashMap<>();
+    private final Map<String, Integer> symptomsByStatus = new HashMap<>();
+    private final ArrayDeque<String> recentSymptoms = new ArrayDeque<>();
+    private final Map<String, Double> latestReadings = new LinkedHashMap<>();
+    private final Map<String, ArrayDeque<DashboardResponse.DataPoint>> trends = new LinkedHashMap<>();
+    private volatile long lastChangedAt = System.currentTimeMillis();
+
+    public DashboardSnapshotService(SensorHeartbeatMonitor sensorHeartbeatMonitor,
+                                    LocationAggregateView locationAggregateView, ObjectMapper objectMapper) {
+        this.sensorHeartbeatMonitor = sensorHeartbeatMonitor;
+        this.locationAggregateView = locationAggregateView;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Serialized overview and the version it was built from.
+     */
+    public record Snapshot(long version, long builtAt, byte[] json) {
+    }
+
+    private record AlertEntry(String status, String severity, String alertType, String parameter) {
+        boolean open() {
+            return !"RESOLVED".equals(status) && !"DISMISSED".equals(status);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            // Shared with the location view, so Firestore is read once
+            LocationAggregateView.ColdStart data = locationAggregateView.coldStart().join();
+            List<Alert> stored = new ArrayList<>(data.alerts());
+            stored.sort(Comparator.comparing(Alert::getTriggeredAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (Alert alert : stored) {
+                onAlertChanged(new AlertChangedEvent(alert));
+            }
+            List<SymptomReport> reports = new ArrayList<>(data.symptomReports());
+            reports.sort(Comparator.comparing(SymptomReport::getReportedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (SymptomReport report : reports) {
+                onSymptomReportSaved(new SymptomReportSavedEvent(report));
+            }
+            List<SensorReading> latest = new ArrayList<>(data.latestReadings());
+            latest.sort(Comparator.comparing(SensorReading::getTimestamp,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+            latest.forEach(this::applyReading);
+            changed();
+            log.info("Dashboard snapshot warmed with {} alerts and {} symptom reports",
+                    alerts.size(), symptomStatus.size());
+        } catch (Exception e) {
+            log.warn("Failed to warm dashboard snapshot: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() != null) {
+            applyReading(event.getReading());
+            changed();
+        }
+    }
+
+    @EventListener
+    public void onSensorStatusChanged(SensorStatusChangedEvent event) {
+        changed();
+    }
+
+    @EventListener
+    public synchronized void onAlertChanged(AlertChangedEvent event) {
+        Alert alert = event.getAlert();
+        if (alert.getId() == null) {
+            return;
+        }
+        AlertEntry previous = alerts.get(alert.getId());
+        if (previous != null) {
+            count(previous, alert.getId(), -1);
+        }
+        AlertEntry entry = new AlertEntry(alert.getStatus(), alert.getSeverity(), alert.getAlertType(),
+                alert.getParameter());
+        alerts.put(alert.getId(), entry);
+        count(entry, alert.getId(), 1);
+        if (entry.open() && "WATER_QUALITY".equals(entry.alertType)) {
+            openQualityAlertTitles.put(alert.getId(), alert.getTitle());
+        }
+        if (previous == null) {
+            recentAlerts.put(alert.getId(), null);
+        }
+        if (recentAlerts.containsKey(alert.getId())) {
+            recentAlerts.put(alert.getId(), DashboardResponse.AlertSummary.builder()
+                    .id(alert.getId())
+                    .type(alert.getAlertType())
+                    .severity(alert.getSeverity())
+                    .title(alert.getTitle())
+                    .location(alert.getLocation())
+                    .triggeredAt(alert.getTriggeredAt())
+                    .build());
+            trim(recentAlerts, recentItems);
+        }
+        changed();
+    }
+
+    @EventListener
+    public synchronized void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        SymptomReport report = event.getReport();
+        if (report.getId() == null || symptomStatus.containsKey(report.getId())) {
+            return;
+        }
+        symptomStatus.put(report.getId(), report.getStatus());
+        increment(symptomsByStatus, report.getStatus(), 1);
+        recentSymptoms.addFirst(describe(report));
+        while (recentSymptoms.size() > recentItems) {
+            recentSymptoms.removeLast();
+        }
+        changed();
+    }
+
+    @EventListener
+    public synchronized void onSymptomReportStatusChanged(SymptomReportStatusChangedEvent event) {
+        SymptomReport report = event.getReport();
+        if (!symptomStatus.containsKey(report.getId())) {
+            onSymptomReportSaved(new SymptomReportSavedEvent(report));
+            return;
+        }
+        String previous = symptomStatus.put(report.getId(), report.getStatus());
+        increment(symptomsByStatus, previous, -1);
+        increment(symptomsByStatus, report.getStatus(), 1);
+        changed();
+    }
+
+    /**
+     * The current overview, rebuilt if it changed and the cached one is older
+     * than the staleness bound.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && (current.version == version.get() || now - current.builtAt < maxStalenessMillis)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || (current.version != version.get() && now - current.builtAt >= maxStalenessMillis)) {
+                current = rebuild(now);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private synchronized void applyReading(SensorReading reading) {
+        long at = reading.getTimestamp() != null ? reading.getTimestamp().toSqlTimestamp().getTime()
+                : System.currentTimeMillis();
+        Map<String, Double> values = values(reading);
+        latestReadings.putAll(values);
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(at), ZoneId.systemDefault());
+        values.forEach((parameter, value) -> {
+            ArrayDeque<DashboardResponse.DataPoint> points = trends.computeIfAbsent(parameter, k -> new ArrayDeque<>());
+            points.addLast(DashboardResponse.DataPoint.builder().timestamp(time).value(value).build());
+            while (points.size() > trendPoints) {
+                points.removeFirst();
+            }
+        });
+    }
+
+    private void count(AlertEntry entry, String id, int delta) {
+        increment(alertsByStatus, entry.status, delta);
+        if (!entry.open()) {
+            return;
+        }
+        increment(openAlertsBySeverity, entry.severity, delta);
+        if ("WATER_QUALITY".equals(entry.alertType)) {
+            if (entry.parameter != null) {
+                increment(openQualityAlertsByParameter.computeIfAbsent(entry.parameter, k -> new HashMap<>()),
+                        entry.severity, delta);
+            }
+            if (delta < 0) {
+                openQualityAlertTitles.remove(id);
+            }
+        }
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        lastChangedAt = System.currentTimeMillis();
+    }
+
+    private synchronized Snapshot rebuild(long now) {
+        long builtVersion = version.get();
+        DashboardResponse response = new DashboardResponse();
+        response.setVersion(builtVersion);
+        response.setLastUpdated(Instant.ofEpochMilli(lastChangedAt).toString());
+
+        int totalSensors = sensorHeartbeatMonitor.getSensorCount();
+        int online = sensorHeartbeatMonitor.getOnlineCount();
+        response.setTotalSensors(totalSensors);
+        response.setActiveSensors(online);
+        response.setOfflineSensors(totalSensors - online);
+
+        response.setLatestReadings(new LinkedHashMap<>(latestReadings));
+        List<String> qualityAlerts = new ArrayList<>(openQualityAlertTitles.values());
+        response.setQualityAlerts(qualityAlerts.subList(Math.max(0, qualityAlerts.size() - recentItems),
+                qualityAlerts.size()));
+        Map<String, List<DashboardResponse.DataPoint>> qualityTrends = new LinkedHashMap<>();
+        trends.forEach((parameter, points) -> qualityTrends.put(parameter, new ArrayList<>(points)));
+        response.setQualityTrends(qualityTrends);
+        Map<String, String> qualityStatus = new LinkedHashMap<>();
+        for (String parameter : latestReadings.keySet()) {
+            qualityStatus.put(parameter, "NORMAL");
+        }
+        openQualityAlertsByParameter.forEach((parameter, bySeverity) -> {
+            String status = LocationAggregateView.status(bySeverity);
+            if (!"HEALTHY".equals(status)) {
+                qualityStatus.put(parameter, status);
+            }
+        });
+        response.setQualityStatus(qualityStatus);
+
+        response.setTotalSymptomReports(symptomStatus.size());
+        response.setPendingReports(symptomsByStatus.getOrDefault("PENDING", 0));
+        response.setResolvedReports(symptomsByStatus.getOrDefault("RESOLVED", 0));
+        response.setRecentSymptoms(new ArrayList<>(recentSymptoms));
+
+        response.setTotalAlerts(alerts.size());
+        response.setActiveAlerts(alertsByStatus.getOrDefault("ACTIVE", 0));
+        response.setCriticalAlerts(openAlertsBySeverity.getOrDefault("CRITICAL", 0));
+        List<DashboardResponse.AlertSummary> recent = new ArrayList<>(recentAlerts.values());
+        Collections.reverse(recent);
+        response.setRecentAlerts(recent);
+
+        Map<String, DashboardResponse.LocationSummary> locationData = new LinkedHashMap<>();
+        for (DashboardResponse.LocationSummary location : locationAggregateView.getSummaries()) {
+            locationData.put(location.getLocation(), location);
+        }
+        response.setLocationData(locationData);
+
+        String overall = LocationAggregateView.status(openAlertsBySeverity);
+        if ("HEALTHY".equals(overall) && totalSensors > online) {
+            overall = "WARNING";
+        }
+        response.setOverallStatus(overall);
+
+        try {
+            return new Snapshot(builtVersion, now, objectMapper.writeValueAsBytes(response));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize dashboard snapshot", e);
+        }
+    }
+
+    static Map<String, Double> values(SensorReading reading) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        putIfPresent(values, PARAMETERS[0], reading.getPh());
+        putIfPresent(values, PARAMETERS[1], reading.getTemperature());
+        putIfPresent(values, PARAMETERS[2], reading.getTurbidity());
+        putIfPresent(values, PARAMETERS[3], reading.getDissolvedOxygen());
+        putIfPresent(values, PARAMETERS[4], reading.getConductivity());
+        return values;
+    }
+
+    private static void putIfPresent(Map<String, Double> values, String parameter, Double value) {
+        if (value != null) {
+            values.put(parameter, value);
+        }
+    }
+
+    private static String describe(SymptomReport report) {
+        String symptoms = report.getSymptoms() != null ? String.join(", ", report.getSymptoms()) : "";
+        return report.getLocation() != null ? report.getLocation() + ": " + symptoms : symptoms;
+    }
+
+    private static void increment(Map<String, Integer> counts, String key, int delta) {
+        if (key != null) {
+            counts.merge(key, delta, Integer::sum);
+        }
+    }
+
+    private static <K, V> void trim(LinkedHashMap<K, V> map, int max) {
+        Iterator<K> oldest = map.keySet().iterator();
+        while (map.size() > max && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+}
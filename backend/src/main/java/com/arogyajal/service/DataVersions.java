@@ -0,0 +1,172 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.ChangesResponse;
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SensorStatusChangedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.util.ChangeLog;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monotonic version counters per data domain (readings, alerts, symptom
+ * reports, sensor status) and per device, bumped by the same events that keep
+ * the in-memory views current.
+ *
+ * The read APIs derive strong ETags and Last-Modified from these, so a polling
+ * client whose copy is current gets a 304 without a Firestore read or a
+ * serialized body. Counters start from the boot time scaled by 1000, which
+ * keeps versions (and ETags) from repeating across restarts.
+ *
+ * Readings and alerts also keep a bounded log of recent changes for the
+ * "changes since version" endpoints.
+ *
+ * Versions are per node: they only see writes made through this instance.
+ */
+@Component
+public class DataVersions {
+
+    public enum Domain {
+        READINGS, ALERTS, SYMPTOMS, SENSOR_STATUS
+    }
+
+    /**
+     * A version and when it was reached.
+     */
+    public record Stamp(long version, long modifiedAt) {
+
+        Stamp next(long now) {
+            return new Stamp(version + 1, Math.max(now, modifiedAt));
+        }
+    }
+
+    @Value("${arogyajal.versions.change-log-size:1000}")
+    private int changeLogSize;
+
+    private final long bootMillis = System.currentTimeMillis();
+    private final Stamp initial = new Stamp(bootMillis * 1000, bootMillis);
+    private final Map<Domain, AtomicReference<Stamp>> domains = new EnumMap<>(Domain.class);
+    private final Map<String, Stamp> devices = new ConcurrentHashMap<>();
+    private ChangeLog<SensorData> readingChanges;
+    private ChangeLog<Alert> alertChanges;
+
+    public DataVersions() {
+        for (Domain domain : Domain.values()) {
+            domains.put(domain, new AtomicReference<>(initial));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        readingChanges = new ChangeLog<>(Math.max(1, changeLogSize), initial.version());
+        alertChanges = new ChangeLog<>(Math.max(1, changeLogSize), initial.version());
+    }
+
+    public Stamp get(Domain domain) {
+        return domains.get(domain).get();
+    }
+
+    /**
+     * Version of one device's readings; devices not seen since boot share the
+     * initial version.
+     */
+    public Stamp getDevice(String deviceId) {
+        return deviceId == null ? initial : devices.getOrDefault(deviceId, initial);
+    }
+
+    /**
+     * Strong ETag over one or more versions. The boot time is included so
+     * versions of views that count from zero do not repeat across restarts.
+     */
+    public String etag(long... versions) {
+        StringBuilder etag = new StringBuilder("\"").append(Long.toString(bootMillis, 36));
+        for (long version : versions) {
+            etag.append('.').append(Long.toString(version, 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Readings ingested after {@code version}, oldest first. Incomplete if the
+     * change log no longer reaches back that far.
+     */
+    public ChangesResponse<SensorData> readingsSince(long version) {
+        synchronized (readingChanges) {
+            return changes(get(Domain.READINGS).version(), readingChanges.since(version));
+        }
+    }
+
+    /**
+     * Current state of every alert changed after {@code version}. Incomplete if
+     * the change log no longer reaches back that far.
+     */
+    public ChangesResponse<Alert> alertsSince(long version) {
+        synchronized (alertChanges) {
+            return changes(get(Domain.ALERTS).version(), alertChanges.since(version));
+        }
+    }
+
+    private static <T> ChangesResponse<T> changes(long current, Optional<List<T>> changes) {
+        return changes.map(list -> new ChangesResponse<>(current, true, list))
+                .orElseGet(() -> new ChangesResponse<>(current, false, List.of()));
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        SensorData data = event.getSensorData();
+        String deviceId = data != null ? data.getDeviceId()
+                : event.getReading() != null ? event.getReading().getSensorId() : null;
+        long now = System.currentTimeMillis();
+        if (deviceId != null) {
+            devices.compute(deviceId, (id, stamp) -> (stamp != null ? stamp : initial).next(now));
+        }
+        // Bump and log under one lock so the log stays in version order
+        synchronized (readingChanges) {
+            Stamp stamp = bump(Domain.READINGS, now);
+            if (data != null) {
+                readingChanges.append(stamp.version(), null, data);
+            }
+        }
+    }
+
+    @EventListener
+    public void onAlertChanged(AlertChangedEvent event) {
+        Alert alert = event.getAlert();
+        synchronized (alertChanges) {
+            Stamp stamp = bump(Domain.ALERTS, System.currentTimeMillis());
+            alertChanges.append(stamp.version(), alert.getId(), alert);
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        bump(Domain.SYMPTOMS, System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onSymptomReportStatusChanged(SymptomReportStatusChangedEvent event) {
+        bump(Domain.SYMPTOMS, System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onSensorStatusChanged(SensorStatusChangedEvent event) {
+        bump(Domain.SENSOR_STATUS, System.currentTimeMillis());
+    }
+
+    private Stamp bump(Domain domain, long now) {
+        return domains.get(domain).updateAndGet(stamp -> stamp.next(now));
+    }
+}
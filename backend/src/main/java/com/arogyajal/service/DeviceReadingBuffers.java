@@ -0,0 +1,627 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.arogyajal.util.StringInterner;
+import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The newest {@code readings-per-device} readings of every device, in
+ * fixed-size rings outside the Java heap.
+ *
+ * Each device owns one slot of direct memory, allocated in chunks of
+ * {@value #SLOTS_PER_CHUNK} slots; a reading is a fixed {@value #RECORD_BYTES}-byte
+ * record of time, id, location and quality codes, presence mask and the
+ * {@link SensorReadingStore.Column} values. Only small per-slot counters live
+ * on the heap, so the buffers add no garbage and no GC scanning work however
+ * many devices report.
+ *
+ * Rings are filled from the last {@code warmup-hours} at startup and from
+ * ingest after that. A device not seen yet is loaded on first query with its
+ * newest readings. Every slot tracks the time from which it holds all of the
+ * device's readings, so callers can tell when a window, or the device's whole
+ * history, can be answered without Firestore.
+ *
+ * Slots are checkpointed record for record, one chunk of slots per hold of the
+ * lock, and restored with the readings stored since the checkpoint, so a
+ * restart skips the warm-up query.
+ */
+@Component
+public class DeviceReadingBuffers implements Checkpointable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceReadingBuffers.class);
+
+    static final int SLOTS_PER_CHUNK = 64;
+    static final int RECORD_BYTES = 160;
+    private static final int CHECKPOINT_VERSION = 2;
+
+    // Record layout
+    private static final int TIME = 0;
+    private static final int LOCATION = 8;
+    private static final int QUALITY = 12;
+    private static final int MASK = 16;
+    private static final int ID_KIND = 20;
+    private static final int ID_LENGTH = 21;
+    private static final int ID = 24;
+    private static final int ID_BYTES = 24;
+    private static final int VALUES = 48;
+
+    private static final byte ID_NONE = 0;
+    private static final byte ID_UUID = 1;
+    private static final byte ID_ASCII = 2;
+
+    private static final SensorReadingStore.Column[] COLUMNS = SensorReadingStore.Column.values();
+
+    @Value("${arogyajal.device-buffers.readings-per-device:128}")
+    private int readingsPerDevice = 128;
+
+    @Value("${arogyajal.device-buffers.max-devices:5000}")
+    private int maxDevices = 5000;
+
+    @Value("${arogyajal.device-buffers.warmup-hours:1}")
+    private int warmupHours = 1;
+
+    private final SensorRepository sensorRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All below guarded by lock; slot number = device code
+    private final StringInterner devices = new StringInterner();
+    private final StringInterner locations = new StringInterner();
+    private final StringInterner qualities = new StringInterner();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int[] heads = new int[SLOTS_PER_CHUNK];
+    private int[] counts = new int[SLOTS_PER_CHUNK];
+    // The slot holds every reading of its device at or after this time
+    private long[] coveredFrom = new long[SLOTS_PER_CHUNK];
+    private boolean[] loaded = new boolean[SLOTS_PER_CHUNK];
+    // Coverage new slots start with once warm-up has run
+    private long warmedFrom = Long.MAX_VALUE;
+    private final byte[] idScratch = new byte[ID_BYTES];
+    private volatile boolean restored;
+
+    public DeviceReadingBuffers(SensorRepository sensorRepository) {
+        this.sensorRepository = sensorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmupHours <= 0 || restored) {
+            return;
+        }
+        try {
+            Timestamp end = Timestamp.now();
+            Timestamp start = Timestamp.ofTimeSecondsAndNanos(end.getSeconds() - warmupHours * 3600L, 0);
+            load(sensorRepository.findByTimestampBetween(start, end), SensorReadingStore.nanos(start));
+            log.info("Device reading buffers warmed for {} devices in {} KB off-heap",
+                    deviceCount(), offHeapBytes() / 1024);
+        } catch (Exception e) {
+            log.warn("Failed to warm device reading buffers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add a window of readings complete from {@code fromNanos}.
+     */
+    void load(List<SensorReading> window, long fromNanos) {
+        lock.writeLock().lock();
+        try {
+            // Widen coverage before appending, so rings that overflow on the
+            // window narrow it again to what they still hold
+            for (int slot = 0; slot < devices.size(); slot++) {
+                coveredFrom[slot] = Math.min(coveredFrom[slot], fromNanos);
+            }
+            warmedFrom = Math.min(warmedFrom, fromNanos);
+            for (SensorReading reading : window) {
+                append(reading);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            append(event.getReading());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String checkpointName() {
+        return "device-reading-buffers";
+    }
+
+    /**
+     * Header (version, ring size, warm-up coverage, device count), the slots a
+     * chunk at a time, then the string tables. The tables go last so they hold
+     * every code the slots copied before them refer to; devices first seen
+     * during the copy are left to the catch-up after a restore.
+     */
+    @Override
+    public List<ByteBuffer> writeCheckpoint() {
+        List<ByteBuffer> pieces = new ArrayList<>();
+        int deviceCount;
+        lock.readLock().lock();
+        try {
+            deviceCount = devices.size();
+            pieces.add(ByteBuffer.allocate(3 * Integer.BYTES + Long.BYTES)
+                    .putInt(CHECKPOINT_VERSION).putInt(readingsPerDevice).putLong(warmedFrom).putInt(deviceCount)
+                    .flip());
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (int from = 0; from < deviceCount; from += SLOTS_PER_CHUNK) {
+            int to = Math.min(deviceCount, from + SLOTS_PER_CHUNK);
+            lock.readLock().lock();
+            try {
+                long bytes = 0;
+                for (int slot = from; slot < to; slot++) {
+                    bytes += Integer.BYTES + Long.BYTES + 1 + (long) counts[slot] * RECORD_BYTES;
+                }
+                ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(bytes));
+                for (int slot = from; slot < to; slot++) {
+                    out.putInt(counts[slot]).putLong(coveredFrom[slot]).put((byte) (loaded[slot] ? 1 : 0));
+                    ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+                    // Oldest first, so the restored ring starts at its head
+                    int first = Math.min(counts[slot], readingsPerDevice - heads[slot]);
+                    out.put(chunk.slice(offset(slot, 0), first * RECORD_BYTES));
+                    if (first < counts[slot]) {
+                        out.put(chunk.slice(offset(slot, first), (counts[slot] - first) * RECORD_BYTES));
+                    }
+                }
+                pieces.add(out.flip());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(Checkpointable.stringsBytes(devices)
+                    + Checkpointable.stringsBytes(locations) + Checkpointable.stringsBytes(qualities)));
+            Checkpointable.putStrings(out, devices);
+            Checkpointable.putStrings(out, locations);
+            Checkpointable.putStrings(out, qualities);
+            pieces.add(out.flip());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return pieces;
+    }
+
+    @Override
+    public boolean restoreCheckpoint(ByteBuffer in, long checkpointNanos) {
+        if (in.getInt() != CHECKPOINT_VERSION || in.getInt() != readingsPerDevice || deviceCount() > 0) {
+            return false;
+        }
+        long restoredWarmedFrom = in.getLong();
+        int deviceCount = in.getInt();
+        if (deviceCount > maxDevices) {
+            return false;
+        }
+        int capacity = Math.max(SLOTS_PER_CHUNK, deviceCount);
+        int[] restoredCounts = new int[capacity];
+        long[] restoredCoverage = new long[capacity];
+        boolean[] restoredLoaded = new boolean[capacity];
+        List<ByteBuffer> restoredChunks = new ArrayList<>();
+        long newest = Long.MIN_VALUE;
+        for (int slot = 0; slot < deviceCount; slot++) {
+            if (slot % SLOTS_PER_CHUNK == 0) {
+                restoredChunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * readingsPerDevice * RECORD_BYTES));
+            }
+            restoredCounts[slot] = in.getInt();
+            restoredCoverage[slot] = in.getLong();
+            restoredLoaded[slot] = in.get() != 0;
+            int length = restoredCounts[slot] * RECORD_BYTES;
+            int base = (slot % SLOTS_PER_CHUNK) * readingsPerDevice * RECORD_BYTES;
+            restoredChunks.get(slot / SLOTS_PER_CHUNK).put(base, in, in.position(), length);
+            if (restoredCounts[slot] > 0) {
+                newest = Math.max(newest, in.getLong(in.position() + length - RECORD_BYTES + TIME));
+            }
+            in.position(in.position() + length);
+        }
+        List<String> deviceNames = Checkpointable.getStrings(in);
+        List<String> locationNames = Checkpointable.getStrings(in);
+        List<String> qualityNames = Checkpointable.getStrings(in);
+        if (deviceNames.size() < deviceCount) {
+            throw new IllegalStateException("Checkpoint holds fewer device names than slots");
+        }
+
+        // Overlap with the checkpoint is harmless, records are matched by id
+        List<SensorReading> newer;
+        try {
+            long from = newest == Long.MIN_VALUE ? checkpointNanos : Math.min(checkpointNanos, newest + 1);
+            newer = sensorRepository.findByTimestampBetween(SensorReadingStore.timestamp(from), Timestamp.now());
+        } catch (Exception e) {
+            log.warn("Failed to fetch readings newer than the checkpoint: {}", e.getMessage());
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Devices named after the slots were copied get a fresh slot on their next reading
+            deviceNames.subList(0, deviceCount).forEach(devices::intern);
+            locationNames.forEach(locations::intern);
+            qualityNames.forEach(qualities::intern);
+            chunks.clear();
+            chunks.addAll(restoredChunks);
+            heads = new int[capacity];
+            counts = restoredCounts;
+            coveredFrom = restoredCoverage;
+            loaded = restoredLoaded;
+            warmedFrom = restoredWarmedFrom;
+            newer.forEach(this::append);
+            restored = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Device reading buffers restored for {} devices, {} readings fetched since the checkpoint",
+                deviceCount(), newer.size());
+        return true;
+    }
+
+    /**
+     * The device's whole history, newest first, when all of it fits its ring.
+     */
+    public Optional<List<SensorReading>> history(String deviceId) {
+        int slot = ensureLoaded(deviceId);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (coveredFrom[slot] != Long.MIN_VALUE) {
+                return Optional.empty();
+            }
+            List<SensorReading> readings = new ArrayList<>(counts[slot]);
+            for (int i = counts[slot] - 1; i >= 0; i--) {
+                readings.add(materialise(deviceId, slot, i));
+            }
+            return Optional.of(readings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<SensorReading> latest(String deviceId) {
+        int slot = ensureLoaded(deviceId);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return counts[slot] == 0 ? Optional.empty() : Optional.of(materialise(deviceId, slot, counts[slot] - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The newest reading of a device if its ring holds any, without going to
+     * Firestore. A newer reading would be in the ring as well, so it is the
+     * device's latest.
+     */
+    public Optional<SensorReading> heldLatest(String deviceId) {
+        lock.readLock().lock();
+        try {
+            int slot = devices.find(deviceId);
+            return slot < 0 || counts[slot] == 0
+                    ? Optional.empty() : Optional.of(materialise(deviceId, slot, counts[slot] - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Values of {@code column} in [{@code fromNanos}, {@code toNanos}], oldest
+     * first, when the device's ring holds the whole window.
+     */
+    public Optional<SensorReadingStore.Series> series(String deviceId, SensorReadingStore.Column column,
+                                                      long fromNanos, long toNanos) {
+        int slot = ensureLoaded(deviceId);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (fromNanos < coveredFrom[slot]) {
+                return Optional.empty();
+            }
+            ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+            long[] times = new long[counts[slot]];
+            double[] values = new double[counts[slot]];
+            int n = 0;
+            for (int i = 0; i < counts[slot]; i++) {
+                int at = offset(slot, i);
+                long time = chunk.getLong(at + TIME);
+                if (time > toNanos) {
+                    break;
+                }
+                if (time >= fromNanos && (chunk.getInt(at + MASK) & column.bit) != 0) {
+                    times[n] = time;
+                    values[n++] = chunk.getDouble(at + VALUES + column.ordinal() * Double.BYTES);
+                }
+            }
+            return Optional.of(new SensorReadingStore.Series(Arrays.copyOf(times, n), Arrays.copyOf(values, n)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deviceCount() {
+        lock.readLock().lock();
+        try {
+            return devices.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * SLOTS_PER_CHUNK * readingsPerDevice * RECORD_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Slot of the device, loading its newest readings from Firestore the first
+     * time it is asked for; -1 when it cannot be buffered.
+     */
+    private int ensureLoaded(String deviceId) {
+        if (deviceId == null) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = devices.find(deviceId);
+            if (slot >= 0 && loaded[slot]) {
+                return slot;
+            }
+            if (slot < 0 && devices.size() >= maxDevices) {
+                return -1;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SensorReading> newest;
+        try {
+            newest = sensorRepository.findRecentBySensorId(deviceId, readingsPerDevice);
+        } catch (Exception e) {
+            // What the slot already covers stays usable; loading is retried on the next query
+            log.warn("Failed to load recent readings of device {}: {}", deviceId, e.getMessage());
+            lock.readLock().lock();
+            try {
+                return devices.find(deviceId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            // Unknown devices do not take a slot until they report
+            int slot = newest.isEmpty() ? devices.find(deviceId) : slotFor(deviceId, Long.MAX_VALUE);
+            if (slot < 0) {
+                return -1;
+            }
+            if (!loaded[slot]) {
+                long oldest = Long.MAX_VALUE;
+                for (SensorReading reading : newest) {
+                    if (reading.getTimestamp() != null) {
+                        oldest = Math.min(oldest, SensorReadingStore.nanos(reading.getTimestamp()));
+                    }
+                }
+                // Fewer than a ring's worth means this is the device's whole history. Widened
+                // before inserting, like load(), so a ring that overflows narrows it again
+                long from = newest.size() < readingsPerDevice ? Long.MIN_VALUE : oldest;
+                coveredFrom[slot] = Math.min(coveredFrom[slot], from);
+                for (SensorReading reading : newest) {
+                    if (reading.getTimestamp() != null) {
+                        insert(slot, reading);
+                    }
+                }
+                loaded[slot] = true;
+            }
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(SensorReading reading) {
+        if (reading.getTimestamp() == null || reading.getSensorId() == null) {
+            return;
+        }
+        long time = SensorReadingStore.nanos(reading.getTimestamp());
+        int slot = slotFor(reading.getSensorId(), Math.min(time, warmedFrom));
+        if (slot >= 0) {
+            insert(slot, reading);
+        }
+    }
+
+    /**
+     * Slot of the device, creating it with the given coverage; -1 past {@code max-devices}.
+     */
+    private int slotFor(String deviceId, long initialCoverage) {
+        int slot = devices.find(deviceId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (devices.size() >= maxDevices) {
+            return -1;
+        }
+        slot = devices.intern(deviceId);
+        if (slot >= heads.length) {
+            int capacity = heads.length * 2;
+            heads = Arrays.copyOf(heads, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            coveredFrom = Arrays.copyOf(coveredFrom, capacity);
+            loaded = Arrays.copyOf(loaded, capacity);
+        }
+        if (slot / SLOTS_PER_CHUNK == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * readingsPerDevice * RECORD_BYTES));
+        }
+        coveredFrom[slot] = initialCoverage;
+        return slot;
+    }
+
+    /**
+     * Insert in time order, evicting the oldest record of a full ring. A record
+     * with the same time and id is already held and is skipped.
+     */
+    private void insert(int slot, SensorReading reading) {
+        long time = SensorReadingStore.nanos(reading.getTimestamp());
+        ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+        int count = counts[slot];
+        int at = count;
+        while (at > 0 && chunk.getLong(offset(slot, at - 1) + TIME) > time) {
+            at--;
+        }
+        int idLength = encodeId(reading.getId());
+        for (int i = at - 1; i >= 0 && chunk.getLong(offset(slot, i) + TIME) == time; i--) {
+            if (sameId(chunk, offset(slot, i), idLength)) {
+                return;
+            }
+        }
+        if (count == readingsPerDevice) {
+            if (at == 0) {
+                // Older than the whole ring; it falls outside what the slot covers
+                coveredFrom[slot] = Math.max(coveredFrom[slot], time + 1);
+                return;
+            }
+            coveredFrom[slot] = Math.max(coveredFrom[slot], chunk.getLong(offset(slot, 0) + TIME) + 1);
+            heads[slot] = (heads[slot] + 1) % readingsPerDevice;
+            count--;
+            at--;
+        }
+        for (int i = count; i > at; i--) {
+            chunk.put(offset(slot, i), chunk, offset(slot, i - 1), RECORD_BYTES);
+        }
+        write(chunk, offset(slot, at), time, reading, idLength);
+        counts[slot] = count + 1;
+    }
+
+    private void write(ByteBuffer chunk, int at, long time, SensorReading reading, int idLength) {
+        chunk.putLong(at + TIME, time);
+        chunk.putInt(at + LOCATION, locations.intern(reading.getLocation()));
+        chunk.putInt(at + QUALITY, qualities.intern(reading.getQualityStatus()));
+        int mask = 0;
+        for (SensorReadingStore.Column column : COLUMNS) {
+            Double value = column.getter.apply(reading);
+            boolean present = value != null && !value.isNaN();
+            chunk.putDouble(at + VALUES + column.ordinal() * Double.BYTES, present ? value : 0);
+            if (present) {
+                mask |= column.bit;
+            }
+        }
+        chunk.putInt(at + MASK, mask);
+        chunk.put(at + ID_KIND, idLength < 0 ? ID_NONE : idLength == 0 ? ID_UUID : ID_ASCII);
+        chunk.put(at + ID_LENGTH, (byte) Math.max(idLength, 0));
+        chunk.put(at + ID, idScratch, 0, ID_BYTES);
+    }
+
+    /**
+     * Encode the id into the scratch bytes: 0 for a UUID held as 16 bytes, the
+     * length for a short ASCII id, -1 when it has to be dropped.
+     */
+    private int encodeId(String id) {
+        Arrays.fill(idScratch, (byte) 0);
+        if (id == null) {
+            return -1;
+        }
+        if (id.length() == 36 && id.charAt(8) == '-') {
+            try {
+                UUID uuid = UUID.fromString(id);
+                ByteBuffer.wrap(idScratch).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+                if (uuid.toString().equals(id)) {
+                    return 0;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a UUID after all
+            }
+            Arrays.fill(idScratch, (byte) 0);
+        }
+        if (id.isEmpty() || id.length() > ID_BYTES || !id.chars().allMatch(c -> c < 128)) {
+            return -1;
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, idScratch, 0, bytes.length);
+        return bytes.length;
+    }
+
+    private boolean sameId(ByteBuffer chunk, int at, int idLength) {
+        byte kind = chunk.get(at + ID_KIND);
+        if (idLength < 0 || kind != (idLength == 0 ? ID_UUID : ID_ASCII) || chunk.get(at + ID_LENGTH) != idLength) {
+            return false;
+        }
+        for (int i = 0; i < ID_BYTES; i++) {
+            if (chunk.get(at + ID + i) != idScratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decodeId(ByteBuffer chunk, int at) {
+        byte kind = chunk.get(at + ID_KIND);
+        if (kind == ID_UUID) {
+            return new UUID(chunk.getLong(at + ID), chunk.getLong(at + ID + Long.BYTES)).toString();
+        }
+        if (kind == ID_ASCII) {
+            byte[] bytes = new byte[chunk.get(at + ID_LENGTH)];
+            chunk.get(at + ID, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+        return null;
+    }
+
+    private SensorReading materialise(String deviceId, int slot, int index) {
+        ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+        int at = offset(slot, index);
+        SensorReading reading = new SensorReading();
+        reading.setId(decodeId(chunk, at));
+        reading.setSensorId(deviceId);
+        reading.setLocation(locations.value(chunk.getInt(at + LOCATION)));
+        reading.setQualityStatus(qualities.value(chunk.getInt(at + QUALITY)));
+        reading.setTimestamp(SensorReadingStore.timestamp(chunk.getLong(at + TIME)));
+        int mask = chunk.getInt(at + MASK);
+        for (SensorReadingStore.Column column : COLUMNS) {
+            if ((mask & column.bit) != 0) {
+                column.setter.accept(reading, chunk.getDouble(at + VALUES + column.ordinal() * Double.BYTES));
+            }
+        }
+        return reading;
+    }
+
+    /**
+     * Byte offset in the slot's chunk of the record at logical {@code index}, oldest first.
+     */
+    private int offset(int slot, int index) {
+        int row = heads[slot] + index;
+        if (row >= readingsPerDevice) {
+            row -= readingsPerDevice;
+        }
+        return ((slot % SLOTS_PER_CHUNK) * readingsPerDevice + row) * RECORD_BYTES;
+    }
+}
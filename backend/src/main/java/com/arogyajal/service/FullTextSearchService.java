@@ -0,0 +1,401 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.TextAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index over the free text of symptom reports (additional and
+ * investigation notes) and alerts (title, description, action taken,
+ * resolution notes and notes).
+ *
+ * Text goes through {@link TextAnalyzer}, and each term maps to a postings
+ * list of (document ordinal, term frequency) in ordinal order. Queries are
+ * ranked with BM25 while walking only the postings of their terms; the type,
+ * location and date filters are checked per posting, so no collection is
+ * scanned. A changed document is tombstoned and appended under a new ordinal
+ * (metadata-only changes, such as an alert's occurrence count, are applied in
+ * place); postings are compacted once tombstones pass a quarter of the live
+ * documents. As in Lucene, document frequencies count tombstoned documents
+ * until then.
+ *
+ * Kept current from report and alert events and filled from the shared
+ * cold-start load; until then {@link #isReady()} is false.
+ */
+@Component
+public class FullTextSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(FullTextSearchService.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_COMPACT_TOMBSTONES = 64;
+
+    public enum DocType {
+        REPORT, ALERT
+    }
+
+    @Value("${arogyajal.search.max-limit:100}")
+    private int maxLimit = 100;
+
+    @Value("${arogyajal.search.snippet-chars:160}")
+    private int snippetChars = 160;
+
+    private final LocationAggregateView locationAggregateView;
+    private final TextAnalyzer analyzer = new TextAnalyzer();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock; docs.get(ordinal) is null once tombstoned
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long totalLength;
+    private int liveDocs;
+    private int tombstones;
+    private volatile boolean ready;
+
+    public FullTextSearchService(LocationAggregateView locationAggregateView) {
+        this.locationAggregateView = locationAggregateView;
+    }
+
+    private record Doc(DocType type, String id, String location, LocalDateTime date, String text, int length) {
+
+        String key() {
+            return key(type, id);
+        }
+
+        static String key(DocType type, String id) {
+            return type + ":" + id;
+        }
+    }
+
+    /**
+     * Ordinals and term frequencies of the documents containing a term, in
+     * ascending ordinal order.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size++] = freq;
+        }
+    }
+
+    public static class Hit {
+        public DocType type;
+        public String id;
+        public String location;
+        public LocalDateTime date;
+        public double score;
+        public String snippet;
+    }
+
+    /**
+     * Best matches of a query; {@code total} counts every matching document.
+     */
+    public static class SearchResult {
+        public String query;
+        public long total;
+        public List<Hit> hits;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocationAggregateView.ColdStart data = locationAggregateView.coldStart().join();
+            lock.writeLock().lock();
+            try {
+                // Documents indexed during warm-up are newer than the loaded copies
+                data.symptomReports().forEach(report -> indexIfAbsent(toDoc(report)));
+                data.alerts().forEach(alert -> indexIfAbsent(toDoc(alert)));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Full-text index built over {} documents with {} terms", getDocumentCount(), getTermCount());
+        } catch (Exception e) {
+            log.warn("Failed to build full-text index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        index(toDoc(event.getReport()));
+    }
+
+    @EventListener
+    public void onSymptomReportStatusChanged(SymptomReportStatusChangedEvent event) {
+        index(toDoc(event.getReport()));
+    }
+
+    @EventListener
+    public void onAlertChanged(AlertChangedEvent event) {
+        index(toDoc(event.getAlert()));
+    }
+
+    private static Doc toDoc(SymptomReport report) {
+        if (report == null || report.getId() == null) {
+            return null;
+        }
+        return doc(DocType.REPORT, report.getId(), report.getLocation(), report.getReportedAt(),
+                report.getAdditionalNotes(), report.getInvestigationNotes());
+    }
+
+    private static Doc toDoc(Alert alert) {
+        if (alert == null || alert.getId() == null) {
+            return null;
+        }
+        return doc(DocType.ALERT, alert.getId(), alert.getLocation(), alert.getTriggeredAt(),
+                alert.getTitle(), alert.getDescription(), alert.getActionTaken(), alert.getResolutionNotes(),
+                alert.getNotes());
+    }
+
+    private static Doc doc(DocType type, String id, String location, LocalDateTime date, String... fields) {
+        String text = Stream.of(fields)
+                .filter(field -> field != null && !field.isBlank())
+                .map(String::trim)
+                .collect(Collectors.joining("\n"));
+        return new Doc(type, id, location, date, text, 0);
+    }
+
+    private void index(Doc doc) {
+        if (doc == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(doc.key());
+            if (ordinal != null) {
+                Doc previous = docs.get(ordinal);
+                if (previous.text().equals(doc.text())) {
+                    docs.set(ordinal, new Doc(doc.type(), doc.id(), doc.location(), doc.date(), previous.text(),
+                            previous.length()));
+                    return;
+                }
+                remove(ordinal);
+            }
+            add(doc);
+            if (tombstones >= MIN_COMPACT_TOMBSTONES && tombstones * 4L > liveDocs) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexIfAbsent(Doc doc) {
+        if (doc != null && !ordinals.containsKey(doc.key())) {
+            add(doc);
+        }
+    }
+
+    private void add(Doc doc) {
+        Map<String, Integer> freqs = new HashMap<>();
+        analyzer.analyze(doc.text(), (term, start, end) -> freqs.merge(term, 1, Integer::sum));
+        if (freqs.isEmpty()) {
+            return;
+        }
+        int length = freqs.values().stream().mapToInt(Integer::intValue).sum();
+        int ordinal = docs.size();
+        docs.add(new Doc(doc.type(), doc.id(), doc.location(), doc.date(), doc.text(), length));
+        ordinals.put(doc.key(), ordinal);
+        freqs.forEach((term, freq) -> postings.computeIfAbsent(term, k -> new Postings()).add(ordinal, freq));
+        totalLength += length;
+        liveDocs++;
+    }
+
+    private void remove(int ordinal) {
+        Doc doc = docs.set(ordinal, null);
+        ordinals.remove(doc.key());
+        totalLength -= doc.length();
+        liveDocs--;
+        tombstones++;
+    }
+
+    /**
+     * Renumber the live documents densely and drop tombstones from every
+     * postings list; the relative order of ordinals is kept.
+     */
+    private void compact() {
+        int[] remap = new int[docs.size()];
+        List<Doc> live = new ArrayList<>(liveDocs);
+        for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+            Doc doc = docs.get(ordinal);
+            remap[ordinal] = doc != null ? live.size() : -1;
+            if (doc != null) {
+                ordinals.put(doc.key(), live.size());
+                live.add(doc);
+            }
+        }
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings list = it.next();
+            int n = 0;
+            for (int i = 0; i < list.size; i++) {
+                if (remap[list.docs[i]] >= 0) {
+                    list.docs[n] = remap[list.docs[i]];
+                    list.freqs[n++] = list.freqs[i];
+                }
+            }
+            list.size = n;
+            if (n == 0) {
+                it.remove();
+            }
+        }
+        docs.clear();
+        docs.addAll(live);
+        log.debug("Compacted full-text index, dropped {} tombstones", tombstones);
+        tombstones = 0;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Documents matching any term of {@code query}, best BM25 score first.
+     *
+     * @param type     only reports or only alerts, or null for both
+     * @param location exact location, case-insensitive, or null
+     * @param from     first day of the report or alert, inclusive, or null
+     * @param to       last day, inclusive, or null
+     */
+    public SearchResult search(String query, DocType type, String location, LocalDate from, LocalDate to, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be within 1.." + maxLimit);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Set<String> terms = new LinkedHashSet<>(analyzer.terms(query));
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query has no searchable terms");
+        }
+        Predicate<Doc> filter = doc -> (type == null || doc.type() == type)
+                && (location == null || location.trim().equalsIgnoreCase(doc.location()))
+                && (from == null || (doc.date() != null && !doc.date().toLocalDate().isBefore(from)))
+                && (to == null || (doc.date() != null && !doc.date().toLocalDate().isAfter(to)));
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            double averageLength = liveDocs > 0 ? (double) totalLength / liveDocs : 1;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docs.size() - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    Doc doc = docs.get(list.docs[i]);
+                    if (doc == null || !filter.test(doc)) {
+                        continue;
+                    }
+                    double tf = list.freqs[i];
+                    double norm = K1 * (1 - B + B * doc.length() / averageLength);
+                    scores.merge(list.docs[i], idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            Comparator<Map.Entry<Integer, Double>> worstFirst = Map.Entry.<Integer, Double>comparingByValue()
+                    .thenComparing(Map.Entry.comparingByKey());
+            PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(worstFirst);
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Integer, Double> entry = top.poll();
+                hits.add(hit(docs.get(entry.getKey()), entry.getValue(), terms));
+            }
+            Collections.reverse(hits);
+
+            SearchResult result = new SearchResult();
+            result.query = query;
+            result.total = scores.size();
+            result.hits = hits;
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Hit hit(Doc doc, double score, Set<String> terms) {
+        Hit hit = new Hit();
+        hit.type = doc.type();
+        hit.id = doc.id();
+        hit.location = doc.location();
+        hit.date = doc.date();
+        hit.score = score;
+        hit.snippet = snippet(doc.text(), terms);
+        return hit;
+    }
+
+    /**
+     * About {@code snippetChars} of the text around the first matching token.
+     */
+    private String snippet(String text, Set<String> terms) {
+        int[] first = {-1};
+        analyzer.analyze(text, (term, start, end) -> {
+            if (first[0] < 0 && terms.contains(term)) {
+                first[0] = start;
+            }
+        });
+        int start = Math.max(0, Math.max(first[0], 0) - snippetChars / 4);
+        int end = Math.min(text.length(), start + snippetChars);
+        if (start > 0) {
+            int space = text.indexOf(' ', start);
+            start = space >= 0 && space < first[0] ? space + 1 : start;
+        }
+        String snippet = text.substring(start, end).replace('\n', ' ');
+        return (start > 0 ? "…" : "") + snippet + (end < text.length() ? "…" : "");
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
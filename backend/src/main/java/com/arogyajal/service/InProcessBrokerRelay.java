@@ -0,0 +1,69 @@
+package com.arogyajal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+
+/**
+ * Single-node relay: publishes straight to the local simple broker.
+ *
+ * The payload is written to JSON bytes here rather than by the template's
+ * converter, so a relayed message from another node and a local one take the
+ * same path into the broker.
+ */
+@Component
+@ConditionalOnProperty(name = "arogyajal.relay.mode", havingValue = "in-process", matchIfMissing = true)
+public class InProcessBrokerRelay implements BrokerRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessBrokerRelay.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public InProcessBrokerRelay(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            deliverLocally(destination, json);
+            forward(destination, json);
+        } catch (Exception e) {
+            log.error("Error publishing to {}: {}", destination, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Hand an already serialized JSON payload to this node's broker.
+     */
+    protected void deliverLocally(String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Pass a message on to other nodes. Nothing to do on a single node.
+     */
+    protected void forward(String destination, byte[] json) {
+    }
+}
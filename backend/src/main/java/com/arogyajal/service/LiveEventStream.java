@@ -0,0 +1,325 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SensorStatusChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events streams of live readings, alert changes and sensor status
+ * changes, fed by the same application events as the STOMP push.
+ *
+ * Every event is serialized once and kept in a bounded per-stream replay ring,
+ * so a client reconnecting with {@code Last-Event-ID} gets what it missed. Ids
+ * start from the boot time in microseconds, which keeps them increasing across
+ * restarts; an id older than the ring replays the whole ring.
+ *
+ * Connections are async servlet requests and hold no thread. Each client has a
+ * bounded queue drained on a shared sender pool, so a slow client never blocks
+ * ingest; a client whose queue overflows is closed and resumes from its last id.
+ * Emitters are only ever sent to or completed from the sender pool, as both can
+ * wait behind a send stuck on a stalled socket.
+ * Idle connections get a comment line every {@code heartbeat-ms} to keep proxies
+ * from timing them out.
+ */
+@Component
+public class LiveEventStream {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventStream.class);
+
+    public static final String READINGS = "readings";
+    public static final String ALERTS = "alerts";
+    public static final String SENSOR_STATUS = "sensor-status";
+
+    @Value("${arogyajal.sse.replay-size:500}")
+    private int replaySize;
+
+    @Value("${arogyajal.sse.heartbeat-ms:15000}")
+    private long heartbeatMillis;
+
+    @Value("${arogyajal.sse.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${arogyajal.sse.max-queued-events:256}")
+    private int maxQueuedEvents;
+
+    @Value("${arogyajal.sse.sender-threads:4}")
+    private int senderThreads;
+
+    private final ObjectMapper objectMapper;
+    private Map<String, Stream> streams;
+    private ScheduledExecutorService sender;
+
+    public LiveEventStream(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    private record Entry(long id, String key, String json) {
+    }
+
+    private final class Stream {
+        final String name;
+        final Entry[] ring;
+        final List<Client> clients = new CopyOnWriteArrayList<>();
+        long lastId;
+
+        Stream(String name, long firstId) {
+            this.name = name;
+            this.ring = new Entry[replaySize];
+            this.lastId = firstId;
+        }
+
+        synchronized void append(String key, String json) {
+            Entry entry = new Entry(++lastId, key, json);
+            ring[(int) (entry.id % ring.length)] = entry;
+            // Enqueued under the lock so every client sees events in id order
+            for (Client client : clients) {
+                if (client.accepts(key)) {
+                    client.enqueue(entry);
+                }
+            }
+        }
+
+        synchronized void subscribe(Client client, Long lastEventId) {
+            if (lastEventId != null) {
+                long from = Math.max(lastEventId + 1, lastId - ring.length + 1);
+                for (long id = from; id <= lastId; id++) {
+                    Entry entry = ring[(int) (id % ring.length)];
+                    if (entry != null && entry.id == id && client.accepts(entry.key)) {
+                        // The replay does not count against the live backlog limit
+                        client.replayed++;
+                        client.enqueue(entry);
+                    }
+                }
+            }
+            clients.add(client);
+        }
+    }
+
+    private final class Client {
+        final Stream stream;
+        final String filter;
+        final SseEmitter emitter;
+        final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean finished = new AtomicBoolean();
+        volatile boolean closed;
+        volatile long lastSentAt = System.currentTimeMillis();
+        int replayed;
+
+        Client(Stream stream, String filter, SseEmitter emitter) {
+            this.stream = stream;
+            this.filter = filter;
+            this.emitter = emitter;
+        }
+
+        boolean accepts(String key) {
+            return filter == null || filter.equals(key);
+        }
+
+        void enqueue(Entry entry) {
+            if (closed) {
+                return;
+            }
+            if (depth.incrementAndGet() > maxQueuedEvents + replayed) {
+                log.debug("SSE client on {} fell {} events behind; closing", stream.name, maxQueuedEvents);
+                // The drain completes the emitter once any send in progress returns
+                close();
+                scheduleDrain();
+                return;
+            }
+            queue.add(entry);
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                Entry entry;
+                while (!closed && (entry = queue.poll()) != null) {
+                    depth.decrementAndGet();
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(entry.id))
+                            .name(stream.name)
+                            .data(entry.json, MediaType.APPLICATION_JSON));
+                    lastSentAt = System.currentTimeMillis();
+                }
+                if (closed) {
+                    finish(null);
+                }
+            } catch (Exception e) {
+                close();
+                finish(e);
+            } finally {
+                draining.set(false);
+            }
+            rescheduleIfPending();
+        }
+
+        void heartbeat(long now) {
+            if (closed || now - lastSentAt < heartbeatMillis || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                lastSentAt = now;
+            } catch (Exception e) {
+                close();
+                finish(e);
+            } finally {
+                draining.set(false);
+            }
+            rescheduleIfPending();
+        }
+
+        // Events or a close may have arrived after the drain last looked
+        void rescheduleIfPending() {
+            if (closed ? !finished.get() : !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void finish(Exception error) {
+            if (finished.compareAndSet(false, true)) {
+                if (error != null) {
+                    emitter.completeWithError(error);
+                } else {
+                    emitter.complete();
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            stream.clients.remove(this);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long firstId = System.currentTimeMillis() * 1000;
+        streams = Map.of(
+                READINGS, new Stream(READINGS, firstId),
+                ALERTS, new Stream(ALERTS, firstId),
+                SENSOR_STATUS, new Stream(SENSOR_STATUS, firstId));
+        AtomicInteger threads = new AtomicInteger();
+        sender = Executors.newScheduledThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "sse-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(heartbeatMillis / 2, 100);
+        sender.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        for (Stream stream : streams.values()) {
+            for (Client client : stream.clients) {
+                client.close();
+                client.finish(null);
+            }
+        }
+    }
+
+    /**
+     * Open a stream. {@code filter} limits readings and status changes to one
+     * device; {@code lastEventId} replays buffered events after that id.
+     */
+    public SseEmitter subscribe(String streamName, String filter, String lastEventId) {
+        Stream stream = streams.get(streamName);
+        if (stream == null) {
+            throw new IllegalArgumentException("Unknown stream: " + streamName);
+        }
+        SseEmitter emitter = newEmitter();
+        Client client = new Client(stream, filter, emitter);
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(e -> client.close());
+        stream.subscribe(client, parseEventId(lastEventId));
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public int getClientCount(String streamName) {
+        Stream stream = streams.get(streamName);
+        return stream != null ? stream.clients.size() : 0;
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        SensorData data = event.getSensorData();
+        if (data != null) {
+            publish(READINGS, data.getDeviceId(), data);
+        }
+    }
+
+    @EventListener
+    public void onAlertChanged(AlertChangedEvent event) {
+        publish(ALERTS, event.getAlert().getSensorId(), event.getAlert());
+    }
+
+    @EventListener
+    public void onSensorStatusChanged(SensorStatusChangedEvent event) {
+        publish(SENSOR_STATUS, event.getUpdate().getDeviceId(), event.getUpdate());
+    }
+
+    private void publish(String streamName, String key, Object payload) {
+        try {
+            streams.get(streamName).append(key, objectMapper.writeValueAsString(payload));
+        } catch (Exception e) {
+            log.error("Error publishing to SSE stream {}: {}", streamName, e.getMessage(), e);
+        }
+    }
+
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Stream stream : streams.values()) {
+            for (Client client : stream.clients) {
+                client.heartbeat(now);
+            }
+        }
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.DashboardResponse;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SensorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-location aggregates: distinct sensors, open alerts by severity, symptom
+ * report count and the latest reading values.
+ *
+ * Kept current from ingest, alert and symptom events, so the locations summary
+ * is a read of this view rather than four Firestore queries per location. The
+ * summary list is rebuilt only when the view has changed.
+ *
+ * On a cold start the view is filled from one load that fetches all alerts, all
+ * symptom reports and the latest reading of every sensor in parallel; the
+ * latest readings take one projection query and one batched read, not a query
+ * per sensor. A sensor whose latest reading is held in the device ring
+ * buffers, as after a checkpoint restore, uses the held one. The dashboard snapshot warms from the same load,
+ * so it runs only once. The load is released once the application is
+ * accepting traffic, when every startup warm-up has joined it; a later warm-up
+ * retry loads afresh.
+ */
+@Component
+public class LocationAggregateView {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationAggregateView.class);
+
+    @Value("${arogyajal.locations.warmup-threads:8}")
+    private int warmupThreads;
+
+    private final AlertService alertService;
+    private final SymptomService symptomService;
+    private final SensorRepository sensorRepository;
+    private final DeviceReadingBuffers deviceBuffers;
+
+    // Guarded by "this"
+    private final Map<String, LocationEntry> locations = new TreeMap<>();
+    private final Map<String, AlertRef> alerts = new HashMap<>();
+    private final Set<String> symptomReports = new HashSet<>();
+    private long version;
+    private long summaryVersion = -1;
+    private List<DashboardResponse.LocationSummary> summaries = List.of();
+    private CompletableFuture<ColdStart> coldStart;
+    private boolean coldStartReleased;
+    private final Object warmUpLock = new Object();
+    private final AtomicBoolean retrying = new AtomicBoolean();
+    private volatile boolean warm;
+
+    public LocationAggregateView(AlertService alertService, SymptomService symptomService,
+                                 SensorRepository sensorRepository, DeviceReadingBuffers deviceBuffers) {
+        this.alertService = alertService;
+        this.symptomService = symptomService;
+        this.sensorRepository = sensorRepository;
+        this.deviceBuffers = deviceBuffers;
+    }
+
+    /**
+     * Everything the in-memory views need after a restart.
+     */
+    public record ColdStart(List<Alert> alerts, List<SymptomReport> symptomReports,
+                            List<SensorReading> latestReadings) {
+    }
+
+    private record AlertRef(String location, String severity, boolean open) {
+    }
+
+    private static final class LocationEntry {
+        final Set<String> sensors = new HashSet<>();
+        final Map<String, Integer> openAlertsBySeverity = new HashMap<>();
+        int openAlerts;
+        int symptomReports;
+        Map<String, Double> latestReadings = new LinkedHashMap<>();
+        long latestReadingAt;
+    }
+
+    /**
+     * Fill the view from the cold-start load. Retried off the request thread by
+     * {@link #warmUpInBackground()} if a request arrives after a failed warm-up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        synchronized (warmUpLock) {
+            if (warm) {
+                return;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Start a warm-up on a background thread unless the view is warm or one is
+     * already running.
+     */
+    public void warmUpInBackground() {
+        if (warm || !retrying.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp();
+            } finally {
+                retrying.set(false);
+            }
+        }, "location-warmup-retry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void fill() {
+        try {
+            ColdStart data = coldStart().join();
+            for (Alert alert : data.alerts()) {
+                onAlertChanged(new AlertChangedEvent(alert));
+            }
+            for (SymptomReport report : data.symptomReports()) {
+                onSymptomReportSaved(new SymptomReportSavedEvent(report));
+            }
+            for (SensorReading reading : data.latestReadings()) {
+                applyReading(reading);
+            }
+            warm = true;
+            log.info("Location view warmed with {} locations", getLocationCount());
+        } catch (Exception e) {
+            log.warn("Failed to warm location view: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load the cold-start data once; later callers share the same result until
+     * it is released, after which each caller gets its own load.
+     */
+    public synchronized CompletableFuture<ColdStart> coldStart() {
+        if (coldStartReleased) {
+            return loadColdStart();
+        }
+        if (coldStart == null || coldStart.isCompletedExceptionally()) {
+            coldStart = loadColdStart();
+        }
+        return coldStart;
+    }
+
+    /**
+     * Drop the shared load once the startup warm-ups, all run as
+     * {@link ApplicationReadyEvent} listeners, are done with it.
+     */
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            releaseColdStart();
+        }
+    }
+
+    synchronized void releaseColdStart() {
+        coldStart = null;
+        coldStartReleased = true;
+    }
+
+    private CompletableFuture<ColdStart> loadColdStart() {
+        long start = System.currentTimeMillis();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, warmupThreads), r -> {
+            Thread thread = new Thread(r, "location-warmup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<List<Alert>> alertsFuture =
+                CompletableFuture.supplyAsync(alertService::getAllAlerts, pool);
+        CompletableFuture<List<SymptomReport>> reportsFuture =
+                CompletableFuture.supplyAsync(symptomService::getAllSymptomReports, pool);
+        CompletableFuture<List<SensorReading>> readingsFuture =
+                CompletableFuture.supplyAsync(this::latestReadings, pool);
+        return CompletableFuture.allOf(alertsFuture, reportsFuture, readingsFuture)
+                .thenApply(done -> {
+                    ColdStart data = new ColdStart(alertsFuture.join(), reportsFuture.join(), readingsFuture.join());
+                    log.info("Loaded {} alerts, {} symptom reports and {} latest readings in {} ms",
+                            data.alerts().size(), data.symptomReports().size(), data.latestReadings().size(),
+                            System.currentTimeMillis() - start);
+                    return data;
+                })
+                .whenComplete((data, e) -> pool.shutdown());
+    }
+
+    private List<SensorReading> latestReadings() {
+        List<SensorReading> stored;
+        try {
+            stored = sensorRepository.findLatestPerSensor();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load the latest sensor readings", e);
+        }
+        List<SensorReading> latest = new ArrayList<>(stored.size());
+        for (SensorReading reading : stored) {
+            latest.add(deviceBuffers.heldLatest(reading.getSensorId()).orElse(reading));
+        }
+        return latest;
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() != null) {
+            applyReading(event.getReading());
+        }
+    }
+
+    @EventListener
+    public synchronized void onAlertChanged(AlertChangedEvent event) {
+        Alert alert = event.getAlert();
+        if (alert.getId() == null) {
+            return;
+        }
+        AlertRef previous = alerts.get(alert.getId());
+        AlertRef current = new AlertRef(alert.getLocation(), alert.getSeverity(),
+                !"RESOLVED".equals(alert.getStatus()) && !"DISMISSED".equals(alert.getStatus()));
+        if (current.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            count(previous, -1);
+        }
+        alerts.put(alert.getId(), current);
+        count(current, 1);
+        version++;
+    }
+
+    @EventListener
+    public synchronized void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        SymptomReport report = event.getReport();
+        if (report.getId() == null || !symptomReports.add(report.getId()) || report.getLocation() == null) {
+            return;
+        }
+        location(report.getLocation()).symptomReports++;
+        version++;
+    }
+
+    /**
+     * Summary of every location, in name order. Rebuilt only after a change.
+     */
+    public synchronized List<DashboardResponse.LocationSummary> getSummaries() {
+        if (summaryVersion != version) {
+            List<DashboardResponse.LocationSummary> rebuilt = new ArrayList<>(locations.size());
+            locations.forEach((name, location) -> rebuilt.add(DashboardResponse.LocationSummary.builder()
+                    .location(name)
+                    .status(status(location.openAlertsBySeverity))
+                    .sensorCount(location.sensors.size())
+                    .alertCount(location.openAlerts)
+                    .symptomReportCount(location.symptomReports)
+                    .latestReadings(Collections.unmodifiableMap(new LinkedHashMap<>(location.latestReadings)))
+                    .build()));
+            summaries = Collections.unmodifiableList(rebuilt);
+            summaryVersion = version;
+        }
+        return summaries;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getLocationCount() {
+        return locations.size();
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * HEALTHY, WARNING (open HIGH alerts) or CRITICAL (open CRITICAL alerts).
+     */
+    static String status(Map<String, Integer> openBySeverity) {
+        if (openBySeverity.getOrDefault("CRITICAL", 0) > 0) {
+            return "CRITICAL";
+        }
+        if (openBySeverity.getOrDefault("HIGH", 0) > 0) {
+            return "WARNING";
+        }
+        return "HEALTHY";
+    }
+
+    private synchronized void applyReading(SensorReading reading) {
+        if (reading.getLocation() == null) {
+            return;
+        }
+        LocationEntry location = location(reading.getLocation());
+        if (reading.getSensorId() != null) {
+            location.sensors.add(reading.getSensorId());
+        }
+        long at = reading.getTimestamp() != null ? reading.getTimestamp().toSqlTimestamp().getTime()
+                : System.currentTimeMillis();
+        if (at >= location.latestReadingAt) {
+            location.latestReadingAt = at;
+            location.latestReadings = DashboardSnapshotService.values(reading);
+        }
+        version++;
+    }
+
+    private void count(AlertRef alert, int delta) {
+        if (!alert.open() || alert.location() == null) {
+            return;
+        }
+        LocationEntry location = location(alert.location());
+        location.openAlerts += delta;
+        if (alert.severity() != null) {
+            location.openAlertsBySeverity.merge(alert.severity(), delta, Integer::sum);
+        }
+    }
+
+    private LocationEntry location(String name) {
+        return locations.computeIfAbsent(name, k -> new LocationEntry());
+    }
+}
@@ -0,0 +1,313 @@
+package com.arogyajal.service;
+
+import com.arogyajal.util.KdTree;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarchical clustering of sensors and recent symptom reports for the map,
+ * one level per zoom.
+ *
+ * Points are projected to web mercator and, from the deepest zoom up, every
+ * point or cluster absorbs the unvisited ones within {@code radius-pixels} at
+ * that zoom into a weighted-centroid cluster. Each level keeps its items in a
+ * {@link KdTree}, so a viewport query is a range search on one level. A
+ * cluster carries its sensor, report and severe report counts and its worst
+ * WQI, and the zoom at which it splits.
+ *
+ * The levels are rebuilt off the request path from {@link SpatialIndexService}
+ * whenever it has changed (or reports may have aged out), then swapped in whole.
+ */
+@Component
+public class MapClusterService {
+
+    private static final Logger log = LoggerFactory.getLogger(MapClusterService.class);
+
+    private static final byte SENSOR = 0;
+    private static final byte REPORT = 1;
+    private static final byte CLUSTER = 2;
+
+    @Value("${arogyajal.map-clusters.radius-pixels:40}")
+    private double radiusPixels = 40;
+
+    @Value("${arogyajal.map-clusters.tile-extent:512}")
+    private double tileExtent = 512;
+
+    @Value("${arogyajal.map-clusters.min-zoom:0}")
+    private int minZoom = 0;
+
+    @Value("${arogyajal.map-clusters.max-zoom:16}")
+    private int maxZoom = 16;
+
+    @Value("${arogyajal.map-clusters.node-size:64}")
+    private int nodeSize = 64;
+
+    @Value("${arogyajal.map-clusters.report-hours:72}")
+    private long reportHours = 72;
+
+    @Value("${arogyajal.map-clusters.rebuild-interval-ms:5000}")
+    private long rebuildIntervalMillis = 5000;
+
+    @Value("${arogyajal.map-clusters.max-age-ms:60000}")
+    private long maxAgeMillis = 60000;
+
+    private final SpatialIndexService spatialIndexService;
+    private volatile Level[] levels;
+    private long builtVersion = -1;
+    private long builtAt;
+    private ScheduledExecutorService rebuilder;
+
+    public MapClusterService(SpatialIndexService spatialIndexService) {
+        this.spatialIndexService = spatialIndexService;
+    }
+
+    /**
+     * A cluster, or a single sensor or report when {@code pointCount} is 1.
+     */
+    public static class Cluster {
+        public String kind; // sensor, report or cluster
+        /** Device or report id of a single point. */
+        public String id;
+        public double lat;
+        public double lon;
+        public int pointCount;
+        public int sensorCount;
+        public int reportCount;
+        public int severeReportCount;
+        public Double worstWqi;
+        /** Zoom at which a cluster breaks into its parts. */
+        public Integer expansionZoom;
+    }
+
+    /**
+     * The items of one zoom level in parallel arrays, x and y in [0, 1] mercator.
+     */
+    private static final class Level {
+        double[] x, y, worstWqi;
+        int[] sensors, reports, severe, expansionZoom;
+        byte[] kind;
+        String[] id;
+        int size;
+        KdTree tree;
+
+        Level(int capacity) {
+            x = new double[capacity];
+            y = new double[capacity];
+            worstWqi = new double[capacity];
+            sensors = new int[capacity];
+            reports = new int[capacity];
+            severe = new int[capacity];
+            expansionZoom = new int[capacity];
+            kind = new byte[capacity];
+            id = new String[capacity];
+        }
+
+        int add(double px, double py, byte k, String pointId) {
+            int i = size++;
+            x[i] = px;
+            y[i] = py;
+            kind[i] = k;
+            id[i] = pointId;
+            worstWqi[i] = Double.NaN;
+            return i;
+        }
+
+        void copy(Level from, int i) {
+            int j = add(from.x[i], from.y[i], from.kind[i], from.id[i]);
+            worstWqi[j] = from.worstWqi[i];
+            sensors[j] = from.sensors[i];
+            reports[j] = from.reports[i];
+            severe[j] = from.severe[i];
+            expansionZoom[j] = from.expansionZoom[i];
+        }
+
+        int points(int i) {
+            return sensors[i] + reports[i];
+        }
+
+        void index(int nodeSize) {
+            tree = new KdTree(Arrays.copyOf(x, size), Arrays.copyOf(y, size), nodeSize);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        levels = build(List.of(), List.of());
+        rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "map-clusters");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuildIfChanged, rebuildIntervalMillis, rebuildIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    void rebuildIfChanged() {
+        try {
+            long version = spatialIndexService.getVersion();
+            long now = System.currentTimeMillis();
+            if (version == builtVersion && now - builtAt < maxAgeMillis) {
+                return;
+            }
+            LocalDateTime since = LocalDateTime.now().minusHours(reportHours);
+            List<SpatialIndexService.ReportPoint> reports = spatialIndexService.getReports().stream()
+                    .filter(r -> r.reportedAt() == null || r.reportedAt().isAfter(since))
+                    .toList();
+            List<SpatialIndexService.SensorPoint> sensors = spatialIndexService.getSensors();
+            levels = build(sensors, reports);
+            builtVersion = version;
+            builtAt = now;
+            log.debug("Map clusters rebuilt from {} sensors and {} reports in {} ms",
+                    sensors.size(), reports.size(), System.currentTimeMillis() - now);
+        } catch (Exception e) {
+            log.warn("Failed to rebuild map clusters: {}", e.getMessage());
+        }
+    }
+
+    private Level[] build(List<SpatialIndexService.SensorPoint> sensors, List<SpatialIndexService.ReportPoint> reports) {
+        Level points = new Level(sensors.size() + reports.size());
+        for (SpatialIndexService.SensorPoint sensor : sensors) {
+            int i = points.add(lonX(sensor.lon()), latY(sensor.lat()), SENSOR, sensor.deviceId());
+            points.sensors[i] = 1;
+            points.worstWqi[i] = sensor.wqi() != null ? sensor.wqi() : Double.NaN;
+        }
+        for (SpatialIndexService.ReportPoint report : reports) {
+            int i = points.add(lonX(report.lon()), latY(report.lat()), REPORT, report.reportId());
+            points.reports[i] = 1;
+            points.severe[i] = "SEVERE".equalsIgnoreCase(report.severity()) ? 1 : 0;
+        }
+        points.index(nodeSize);
+
+        Level[] built = new Level[maxZoom + 2];
+        built[maxZoom + 1] = points;
+        for (int zoom = maxZoom; zoom >= minZoom; zoom--) {
+            built[zoom] = cluster(built[zoom + 1], zoom);
+        }
+        return built;
+    }
+
+    /**
+     * Merge the items of the level below into clusters of radius
+     * {@code radius-pixels} at {@code zoom}.
+     */
+    private Level cluster(Level below, int zoom) {
+        double radius = radiusPixels / (tileExtent * Math.pow(2, zoom));
+        Level level = new Level(below.size);
+        boolean[] visited = new boolean[below.size];
+        int[][] neighbours = {new int[16]};
+        int[] found = new int[1];
+        IntConsumer collect = j -> {
+            if (!visited[j]) {
+                if (found[0] == neighbours[0].length) {
+                    neighbours[0] = Arrays.copyOf(neighbours[0], found[0] * 2);
+                }
+                neighbours[0][found[0]++] = j;
+            }
+        };
+        for (int i = 0; i < below.size; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            visited[i] = true;
+            found[0] = 0;
+            below.tree.within(below.x[i], below.y[i], radius, collect);
+            if (found[0] == 0) {
+                level.copy(below, i);
+                continue;
+            }
+            int weight = below.points(i);
+            double wx = below.x[i] * weight;
+            double wy = below.y[i] * weight;
+            int sensors = below.sensors[i];
+            int reports = below.reports[i];
+            int severe = below.severe[i];
+            double worst = below.worstWqi[i];
+            for (int n = 0; n < found[0]; n++) {
+                int j = neighbours[0][n];
+                visited[j] = true;
+                int w = below.points(j);
+                wx += below.x[j] * w;
+                wy += below.y[j] * w;
+                weight += w;
+                sensors += below.sensors[j];
+                reports += below.reports[j];
+                severe += below.severe[j];
+                if (Double.isNaN(worst) || below.worstWqi[j] < worst) {
+                    worst = below.worstWqi[j];
+                }
+            }
+            int c = level.add(wx / weight, wy / weight, CLUSTER, null);
+            level.sensors[c] = sensors;
+            level.reports[c] = reports;
+            level.severe[c] = severe;
+            level.worstWqi[c] = worst;
+            level.expansionZoom[c] = zoom + 1;
+        }
+        level.index(nodeSize);
+        return level;
+    }
+
+    /**
+     * Clusters and single points inside the box at {@code zoom}.
+     */
+    public List<Cluster> clusters(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        Level[] current = levels;
+        Level level = current[Math.max(minZoom, Math.min(maxZoom + 1, zoom))];
+        List<Cluster> result = new ArrayList<>();
+        level.tree.range(lonX(minLon), latY(maxLat), lonX(maxLon), latY(minLat), i -> {
+            Cluster cluster = new Cluster();
+            cluster.kind = switch (level.kind[i]) {
+                case SENSOR -> "sensor";
+                case REPORT -> "report";
+                default -> "cluster";
+            };
+            cluster.id = level.id[i];
+            cluster.lon = xLon(level.x[i]);
+            cluster.lat = yLat(level.y[i]);
+            cluster.sensorCount = level.sensors[i];
+            cluster.reportCount = level.reports[i];
+            cluster.severeReportCount = level.severe[i];
+            cluster.pointCount = level.points(i);
+            cluster.worstWqi = Double.isNaN(level.worstWqi[i]) ? null : level.worstWqi[i];
+            cluster.expansionZoom = level.kind[i] == CLUSTER ? level.expansionZoom[i] : null;
+            result.add(cluster);
+        });
+        return result;
+    }
+
+    static double lonX(double lon) {
+        return lon / 360 + 0.5;
+    }
+
+    static double latY(double lat) {
+        double sin = Math.sin(Math.toRadians(lat));
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return Math.max(0, Math.min(1, y));
+    }
+
+    static double xLon(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    static double yLat(double y) {
+        return Math.toDegrees(2 * Math.atan(Math.exp((0.5 - y) * 2 * Math.PI))) - 90;
+    }
+}
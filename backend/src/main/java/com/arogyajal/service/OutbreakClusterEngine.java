@@ -0,0 +1,540 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SymptomRepository;
+import com.arogyajal.util.Geohash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming spatio-temporal clustering (ST-DBSCAN) of symptom reports.
+ *
+ * Reports with coordinates are kept in a geohash grid. Two reports are neighbours
+ * when they are within {@code radius-meters} and {@code time-window-hours} of each
+ * other; a report with at least {@code min-points} neighbours (itself included) is a
+ * core point. Clusters are a union-find over core points, so inserting a report only
+ * touches the cells around it and the clusters it joins - nothing is recomputed.
+ * Report times are clamped to the server clock, and expiry is measured against
+ * the wall clock: reports older than two windows are dropped from the grid as
+ * cells are scanned, and from every cell on a schedule.
+ *
+ * A cluster that reaches {@code min-cluster-size} reports raises one SYMPTOM_CLUSTER
+ * alert listing its members and the water sensors around its centroid.
+ */
+@Component
+public class OutbreakClusterEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(OutbreakClusterEngine.class);
+
+    @Value("${alerts.outbreak-cluster.radius-meters:2000}")
+    private double radiusMeters;
+
+    @Value("${alerts.outbreak-cluster.time-window-hours:72}")
+    private int timeWindowHours;
+
+    @Value("${alerts.outbreak-cluster.min-points:3}")
+    private int minPoints;
+
+    @Value("${alerts.outbreak-cluster.min-cluster-size:5}")
+    private int minClusterSize;
+
+    @Value("${alerts.outbreak-cluster.sensor-radius-meters:5000}")
+    private double sensorRadiusMeters;
+
+    @Value("${alerts.outbreak-cluster.geohash-precision:5}")
+    private int precision;
+
+    @Value("${alerts.outbreak-cluster.max-member-ids:200}")
+    private int maxMemberIds;
+
+    @Value("${alerts.outbreak-cluster.evict-interval-minutes:10}")
+    private long evictIntervalMinutes;
+
+    private final AlertService alertService;
+    private final SymptomRepository symptomRepository;
+
+    // Guarded by this
+    private final Map<String, List<Point>> grid = new HashMap<>();
+    private final Set<Point> clusterRoots = new HashSet<>();
+    private ScheduledExecutorService evictor;
+
+    private final Map<String, double[]> sensorPositions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sensorGrid = new ConcurrentHashMap<>();
+
+    public OutbreakClusterEngine(AlertService alertService, SymptomRepository symptomRepository) {
+        this.alertService = alertService;
+        this.symptomRepository = symptomRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbreak-cluster-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictExpired, evictIntervalMinutes, evictIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    private static final class Point {
+        final String reportId;
+        final String location;
+        final double lat;
+        final double lon;
+        final long time;
+        int neighbors = 1;
+        boolean core;
+        Point parent;     // null while the point is noise
+        Cluster cluster;  // only set on union-find roots
+
+        Point(String reportId, String location, double lat, double lon, long time) {
+            this.reportId = reportId;
+            this.location = location;
+            this.lat = lat;
+            this.lon = lon;
+            this.time = time;
+        }
+    }
+
+    private static final class Cluster {
+        final String id = UUID.randomUUID().toString();
+        int size;
+        double sumLat;
+        double sumLon;
+        long firstTime = Long.MAX_VALUE;
+        long lastTime;
+        final List<String> memberIds = new ArrayList<>();
+        final Map<String, Integer> locations = new HashMap<>();
+        boolean alerted;
+        String alertId;
+    }
+
+    /**
+     * Read-only view of a cluster for the API.
+     */
+    public static class ClusterView {
+        public String clusterId;
+        public double latitude;
+        public double longitude;
+        public int reportCount;
+        public String location;
+        public LocalDateTime firstReportAt;
+        public LocalDateTime lastReportAt;
+        public List<String> reportIds;
+        public List<String> nearbySensorIds;
+        public String alertId;
+    }
+
+    private static final class PendingAlert {
+        final Cluster cluster;
+        final String location;
+        final String description;
+        final List<String> memberIds;
+        final List<String> sensorIds;
+
+        PendingAlert(Cluster cluster, String location, String description, List<String> memberIds, List<String> sensorIds) {
+            this.cluster = cluster;
+            this.location = location;
+            this.description = description;
+            this.memberIds = memberIds;
+            this.sensorIds = sensorIds;
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        if (event.isBatched()) {
+            return;
+        }
+        PendingAlert pending;
+        synchronized (this) {
+            pending = insert(event.getReport(), true);
+        }
+        if (pending != null) {
+            raiseAlert(pending);
+        }
+    }
+
+    /**
+     * Insert a synced batch and check the clusters it touched once at the
+     * end, so a cluster grown by several reports of the batch alerts once.
+     */
+    @EventListener
+    public void onSymptomReportsBatchSaved(SymptomReportsBatchSavedEvent event) {
+        List<PendingAlert> pending;
+        synchronized (this) {
+            Set<Point> touched = new HashSet<>();
+            for (SymptomReport report : event.getReports()) {
+                touched.addAll(place(report));
+            }
+            pending = evaluate(touched, true, Integer.MAX_VALUE);
+        }
+        pending.forEach(this::raiseAlert);
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        double[] latLon = Geohash.parseLatLon(event.getReading().getLocation());
+        String deviceId = event.getReading().getSensorId();
+        if (latLon == null || deviceId == null) {
+            return;
+        }
+        double[] previous = sensorPositions.put(deviceId, latLon);
+        if (previous != null && previous[0] == latLon[0] && previous[1] == latLon[1]) {
+            return;
+        }
+        if (previous != null) {
+            Set<String> cell = sensorGrid.get(Geohash.encode(previous[0], previous[1], precision));
+            if (cell != null) {
+                cell.remove(deviceId);
+            }
+        }
+        sensorGrid.computeIfAbsent(Geohash.encode(latLon[0], latLon[1], precision), k -> ConcurrentHashMap.newKeySet())
+                .add(deviceId);
+    }
+
+    /**
+     * Replay recent reports once the application is up. Clusters that are already
+     * large enough are assumed to have been alerted before the restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime end = LocalDateTime.now();
+            List<SymptomReport> reports = symptomRepository
+                    .findByReportedAtBetweenOrderByReportedAtDesc(end.minusHours(2L * timeWindowHours), end);
+            synchronized (this) {
+                for (int i = reports.size() - 1; i >= 0; i--) {
+                    insert(reports.get(i), false);
+                }
+            }
+            log.info("Outbreak clustering warmed with {} reports, {} clusters", reports.size(), clusterRoots.size());
+        } catch (Exception e) {
+            log.warn("Failed to warm outbreak clustering: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Clusters that had a report within the last window.
+     */
+    public synchronized List<ClusterView> getActiveClusters() {
+        long cutoff = System.currentTimeMillis() - windowMillis();
+        List<ClusterView> views = new ArrayList<>();
+        for (Point root : clusterRoots) {
+            Cluster cluster = root.cluster;
+            if (cluster.lastTime < cutoff) {
+                continue;
+            }
+            ClusterView view = new ClusterView();
+            view.clusterId = cluster.id;
+            view.latitude = cluster.sumLat / cluster.size;
+            view.longitude = cluster.sumLon / cluster.size;
+            view.reportCount = cluster.size;
+            view.location = dominantLocation(cluster);
+            view.firstReportAt = toLocalDateTime(cluster.firstTime);
+            view.lastReportAt = toLocalDateTime(cluster.lastTime);
+            view.reportIds = new ArrayList<>(cluster.memberIds);
+            view.nearbySensorIds = nearbySensors(view.latitude, view.longitude);
+            view.alertId = cluster.alertId;
+            views.add(view);
+        }
+        views.sort((a, b) -> Integer.compare(b.reportCount, a.reportCount));
+        return views;
+    }
+
+    /**
+     * Sensor ids within {@code sensor-radius-meters} of a point, nearest first.
+     */
+    public List<String> nearbySensors(double lat, double lon) {
+        List<Map.Entry<String, Double>> found = new ArrayList<>();
+        for (String cell : Geohash.cellsAround(lat, lon, sensorRadiusMeters, precision)) {
+            Set<String> devices = sensorGrid.get(cell);
+            if (devices == null) {
+                continue;
+            }
+            for (String deviceId : devices) {
+                double[] position = sensorPositions.get(deviceId);
+                if (position == null) {
+                    continue;
+                }
+                double distance = Geohash.distanceMeters(lat, lon, position[0], position[1]);
+                if (distance <= sensorRadiusMeters) {
+                    found.add(Map.entry(deviceId, distance));
+                }
+            }
+        }
+        found.sort(Map.Entry.comparingByValue());
+        List<String> ids = new ArrayList<>(found.size());
+        for (Map.Entry<String, Double> entry : found) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    private PendingAlert insert(SymptomReport report, boolean fire) {
+        List<PendingAlert> pending = evaluate(place(report), fire, 1);
+        return pending.isEmpty() ? null : pending.get(0);
+    }
+
+    /**
+     * Add a report to the grid and grow clusters around it.
+     *
+     * @return points whose clusters changed
+     */
+    private Set<Point> place(SymptomReport report) {
+        double[] latLon = coordinates(report);
+        if (latLon == null) {
+            return Set.of();
+        }
+        long now = System.currentTimeMillis();
+        // reportedAt comes from the client; a future date must not age out everything else
+        long time = report.getReportedAt() != null
+                ? Math.min(now, report.getReportedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                : now;
+        if (time < now - 2 * windowMillis()) {
+            return Set.of(); // too late to matter
+        }
+
+        Point p = new Point(report.getId(), report.getLocation(), latLon[0], latLon[1], time);
+        List<Point> neighbors = neighbors(p);
+        p.neighbors += neighbors.size();
+        grid.computeIfAbsent(Geohash.encode(p.lat, p.lon, precision), k -> new ArrayList<>()).add(p);
+
+        Set<Point> touched = new HashSet<>();
+        if (p.neighbors >= minPoints) {
+            becomeCore(p, neighbors, touched);
+        }
+        for (Point q : neighbors) {
+            q.neighbors++;
+            if (!q.core && q.neighbors >= minPoints) {
+                becomeCore(q, neighbors(q), touched);
+            }
+        }
+        if (p.parent == null) {
+            for (Point q : neighbors) {
+                if (q.core) {
+                    addMember(find(q), p);
+                    touched.add(find(q));
+                    break;
+                }
+            }
+        }
+        if (!touched.isEmpty()) {
+            pruneRoots();
+        }
+        return touched;
+    }
+
+    /**
+     * Mark the touched clusters that reached {@code min-cluster-size} as
+     * alerted, returning alerts for up to {@code maxAlerts} of them when firing.
+     */
+    private List<PendingAlert> evaluate(Set<Point> touched, boolean fire, int maxAlerts) {
+        List<PendingAlert> pending = new ArrayList<>();
+        for (Point touchedPoint : touched) {
+            Point root = find(touchedPoint);
+            Cluster cluster = root.cluster;
+            if (cluster.alerted || cluster.size < minClusterSize) {
+                continue;
+            }
+            cluster.alerted = true;
+            if (fire && pending.size() < maxAlerts) {
+                double lat = cluster.sumLat / cluster.size;
+                double lon = cluster.sumLon / cluster.size;
+                List<String> sensors = nearbySensors(lat, lon);
+                String description = String.format(
+                        "%d symptom reports within %.1f km over %d hours around %.5f,%.5f%s",
+                        cluster.size, radiusMeters / 1000.0, timeWindowHours, lat, lon,
+                        sensors.isEmpty() ? "" : "; nearby sensors: " + String.join(", ", sensors));
+                pending.add(new PendingAlert(cluster, dominantLocation(cluster), description,
+                        new ArrayList<>(cluster.memberIds), sensors));
+            }
+        }
+        return pending;
+    }
+
+    private void raiseAlert(PendingAlert pending) {
+        log.info("Outbreak cluster detected: {}", pending.description);
+        try {
+            Alert alert = alertService.createSymptomClusterAlert(pending.location, pending.memberIds, pending.description,
+                    pending.sensorIds.isEmpty() ? null : pending.sensorIds.get(0));
+            synchronized (this) {
+                pending.cluster.alertId = alert.getId();
+            }
+        } catch (Exception e) {
+            log.error("Error creating outbreak cluster alert", e);
+        }
+    }
+
+    private List<Point> neighbors(Point p) {
+        long window = windowMillis();
+        long expired = System.currentTimeMillis() - 2 * window;
+        List<Point> result = new ArrayList<>();
+        for (String cellHash : Geohash.cellsAround(p.lat, p.lon, radiusMeters, precision)) {
+            List<Point> cell = grid.get(cellHash);
+            if (cell == null) {
+                continue;
+            }
+            cell.removeIf(q -> q.time < expired);
+            if (cell.isEmpty()) {
+                grid.remove(cellHash);
+                continue;
+            }
+            for (Point q : cell) {
+                if (q != p && Math.abs(q.time - p.time) <= window
+                        && Geohash.distanceMeters(p.lat, p.lon, q.lat, q.lon) <= radiusMeters) {
+                    result.add(q);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void becomeCore(Point x, List<Point> neighbors, Set<Point> touched) {
+        x.core = true;
+        if (x.parent == null) {
+            x.parent = x;
+            x.cluster = new Cluster();
+            addMember(x, x);
+            clusterRoots.add(x);
+        }
+        for (Point r : neighbors) {
+            if (r.core) {
+                union(x, r);
+            } else if (r.parent == null) {
+                addMember(find(x), r);
+            }
+        }
+        touched.add(find(x));
+    }
+
+    private void addMember(Point root, Point member) {
+        if (member != root) {
+            member.parent = root;
+        }
+        Cluster cluster = root.cluster;
+        cluster.size++;
+        cluster.sumLat += member.lat;
+        cluster.sumLon += member.lon;
+        cluster.firstTime = Math.min(cluster.firstTime, member.time);
+        cluster.lastTime = Math.max(cluster.lastTime, member.time);
+        if (member.reportId != null && cluster.memberIds.size() < maxMemberIds) {
+            cluster.memberIds.add(member.reportId);
+        }
+        if (member.location != null) {
+            cluster.locations.merge(member.location, 1, Integer::sum);
+        }
+    }
+
+    private Point find(Point p) {
+        while (p.parent != p) {
+            p.parent = p.parent.parent;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    private void union(Point a, Point b) {
+        Point ra = find(a);
+        Point rb = find(b);
+        if (ra == rb) {
+            return;
+        }
+        if (ra.cluster.size < rb.cluster.size) {
+            Point tmp = ra;
+            ra = rb;
+            rb = tmp;
+        }
+        Cluster into = ra.cluster;
+        Cluster from = rb.cluster;
+        into.size += from.size;
+        into.sumLat += from.sumLat;
+        into.sumLon += from.sumLon;
+        into.firstTime = Math.min(into.firstTime, from.firstTime);
+        into.lastTime = Math.max(into.lastTime, from.lastTime);
+        for (String id : from.memberIds) {
+            if (into.memberIds.size() >= maxMemberIds) {
+                break;
+            }
+            into.memberIds.add(id);
+        }
+        from.locations.forEach((location, count) -> into.locations.merge(location, count, Integer::sum));
+        into.alerted |= from.alerted;
+        if (into.alertId == null) {
+            into.alertId = from.alertId;
+        }
+        rb.parent = ra;
+        rb.cluster = null;
+        clusterRoots.remove(rb);
+    }
+
+    private void pruneRoots() {
+        long cutoff = System.currentTimeMillis() - 2 * windowMillis();
+        clusterRoots.removeIf(root -> root.cluster.lastTime < cutoff);
+    }
+
+    /**
+     * Drop expired reports from every cell, including cells no new report
+     * has scanned since they went quiet.
+     */
+    synchronized void evictExpired() {
+        long expired = System.currentTimeMillis() - 2 * windowMillis();
+        Iterator<List<Point>> cells = grid.values().iterator();
+        while (cells.hasNext()) {
+            List<Point> cell = cells.next();
+            cell.removeIf(q -> q.time < expired);
+            if (cell.isEmpty()) {
+                cells.remove();
+            }
+        }
+        pruneRoots();
+    }
+
+    private String dominantLocation(Cluster cluster) {
+        return cluster.locations.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private long windowMillis() {
+        return timeWindowHours * 3_600_000L;
+    }
+
+    private static double[] coordinates(SymptomReport report) {
+        if (report.getLatitude() != null && report.getLongitude() != null) {
+            return new double[]{report.getLatitude(), report.getLongitude()};
+        }
+        return Geohash.parseLatLon(report.getLocation());
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
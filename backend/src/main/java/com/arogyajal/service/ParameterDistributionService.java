@@ -0,0 +1,427 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.util.LogLinearHistogram;
+import com.arogyajal.util.TDigest;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per (location, parameter, day) distribution sketches of pH, turbidity, TDS
+ * and dissolved oxygen, updated at ingest.
+ *
+ * Each cell holds a t-digest (accurate tails, for p5/p95) and an HDR-style
+ * log-linear histogram (bounded relative error). Both merge, so statistics for
+ * any range of days are the merge of the day cells. Cells of past days are kept
+ * in their serialized form (a few KB) and only decoded when queried or when a
+ * late reading arrives.
+ *
+ * All cells are written to the state directory next to the other rollups, by a
+ * background writer so ingest never waits on the disk, and restored on startup. Without a snapshot the sketches are rebuilt from the
+ * last {@code backfill-days} of readings.
+ */
+@Component
+public class ParameterDistributionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParameterDistributionService.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x50445331; // "PDS1"
+    private static final String SNAPSHOT_FILE = "parameter-distributions.bin";
+    private static final int HISTOGRAM_BITS = 8;
+    static final double[] QUANTILES = {0.05, 0.5, 0.95};
+
+    /**
+     * Sketched parameters, their reading accessor and histogram resolution.
+     */
+    enum Parameter {
+        PH("ph", SensorReading::getPh, 0.01),
+        TURBIDITY("turbidity", SensorReading::getTurbidity, 0.01),
+        TDS("totalDissolvedSolids", SensorReading::getTotalDissolvedSolids, 0.1),
+        DISSOLVED_OXYGEN("dissolvedOxygen", SensorReading::getDissolvedOxygen, 0.01);
+
+        final String key;
+        final Function<SensorReading, Double> value;
+        final double unit;
+
+        Parameter(String key, Function<SensorReading, Double> value, double unit) {
+            this.key = key;
+            this.value = value;
+            this.unit = unit;
+        }
+
+        static Optional<Parameter> of(String key) {
+            return Arrays.stream(values()).filter(p -> p.key.equalsIgnoreCase(key)).findFirst();
+        }
+    }
+
+    @Value("${arogyajal.statistics.compression:100}")
+    private double compression;
+
+    @Value("${arogyajal.statistics.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Value("${arogyajal.statistics.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${arogyajal.statistics.backfill-days:30}")
+    private int backfillDays;
+
+    @Value("${arogyajal.statistics.snapshot-interval-seconds:300}")
+    private long snapshotIntervalSeconds;
+
+    @Value("${arogyajal.state.dir:data/state}")
+    private String stateDir;
+
+    private final SensorService sensorService;
+    private final Map<CellKey, Cell> cells = new ConcurrentHashMap<>();
+    private ZoneId zoneId;
+    private boolean restored;
+    private volatile boolean dirty;
+    private ScheduledExecutorService snapshotWriter;
+
+    public ParameterDistributionService(SensorService sensorService) {
+        this.sensorService = sensorService;
+    }
+
+    record CellKey(String location, Parameter parameter, LocalDate day) {
+    }
+
+    /**
+     * Sketches for one cell. Past days sit in {@code frozen} until touched.
+     */
+    private final class Cell {
+        private final Parameter parameter;
+        private TDigest digest;
+        private LogLinearHistogram histogram;
+        private byte[] frozen;
+
+        Cell(Parameter parameter) {
+            this.parameter = parameter;
+            this.digest = new TDigest(compression);
+            this.histogram = new LogLinearHistogram(parameter.unit, HISTOGRAM_BITS);
+        }
+
+        Cell(Parameter parameter, byte[] frozen) {
+            this.parameter = parameter;
+            this.frozen = frozen;
+        }
+
+        synchronized void add(double value) {
+            thaw();
+            digest.add(value);
+            histogram.record(value);
+        }
+
+        synchronized void mergeInto(TDigest targetDigest, LogLinearHistogram targetHistogram) {
+            if (frozen != null) {
+                Sketches sketches = decode(frozen);
+                targetDigest.merge(sketches.digest());
+                targetHistogram.merge(sketches.histogram());
+            } else {
+                targetDigest.merge(digest);
+                targetHistogram.merge(histogram);
+            }
+        }
+
+        synchronized void freeze() {
+            if (frozen == null) {
+                frozen = encode(digest, histogram);
+                digest = null;
+                histogram = null;
+            }
+        }
+
+        synchronized byte[] bytes() {
+            return frozen != null ? frozen : encode(digest, histogram);
+        }
+
+        private void thaw() {
+            if (frozen != null) {
+                Sketches sketches = decode(frozen);
+                digest = sketches.digest();
+                histogram = sketches.histogram();
+                frozen = null;
+            }
+        }
+    }
+
+    private record Sketches(TDigest digest, LogLinearHistogram histogram) {
+    }
+
+    /**
+     * Distribution of one parameter at one location over a range of days.
+     */
+    public static class Distribution {
+        public String location;
+        public String parameter;
+        public LocalDate from;
+        public LocalDate to;
+        public long count;
+        public double min;
+        public double max;
+        public double mean;
+        /** From the t-digest, keyed p5, p50, p95. */
+        public Map<String, Double> quantiles;
+        /** From the log-linear histogram; upper bound of the bucket holding the quantile. */
+        public Map<String, Double> histogramQuantiles;
+    }
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+        restore();
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "parameter-distribution-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWriter.scheduleWithFixedDelay(this::snapshotIfDirty, snapshotIntervalSeconds, snapshotIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+        }
+        snapshotIfDirty();
+    }
+
+    /**
+     * Rebuild recent days from Firestore when no snapshot was restored.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (restored || backfillDays <= 0) {
+            return;
+        }
+        try {
+            Timestamp end = Timestamp.now();
+            Timestamp start = Timestamp.ofTimeSecondsAndNanos(end.getSeconds() - backfillDays * 86400L, 0);
+            List<SensorReading> readings = sensorService.getReadingsByTimeRange(start, end);
+            readings.forEach(this::addReading);
+            freezePastDays();
+            log.info("Parameter distributions backfilled from {} readings into {} cells", readings.size(), cells.size());
+        } catch (Exception e) {
+            log.warn("Failed to backfill parameter distributions: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() != null) {
+            addReading(event.getReading());
+        }
+    }
+
+    void addReading(SensorReading reading) {
+        if (reading.getLocation() == null) {
+            return;
+        }
+        Instant at = reading.getTimestamp() != null ? reading.getTimestamp().toSqlTimestamp().toInstant() : Instant.now();
+        LocalDate day = LocalDate.ofInstant(at, zoneId);
+        String location = reading.getLocation().trim();
+        for (Parameter parameter : Parameter.values()) {
+            Double value = parameter.value.apply(reading);
+            if (value != null && !value.isNaN()) {
+                cells.computeIfAbsent(new CellKey(location, parameter, day), k -> new Cell(parameter)).add(value);
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Distributions over [{@code from}, {@code to}] for every matching location
+     * and parameter, or one entry per day when {@code daily} is set.
+     *
+     * @param location  exact location, or null for all
+     * @param parameter parameter key (ph, turbidity, totalDissolvedSolids, dissolvedOxygen), or null for all
+     */
+    public List<Distribution> getDistributions(String location, String parameter, LocalDate from, LocalDate to,
+                                               boolean daily) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        Parameter only = null;
+        if (parameter != null) {
+            only = Parameter.of(parameter)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown parameter: " + parameter));
+        }
+        Map<CellKey, List<Cell>> groups = new TreeMap<>(Comparator.comparing(CellKey::location)
+                .thenComparing(CellKey::parameter).thenComparing(CellKey::day));
+        for (Map.Entry<CellKey, Cell> entry : cells.entrySet()) {
+            CellKey key = entry.getKey();
+            if ((location != null && !location.trim().equals(key.location()))
+                    || (only != null && only != key.parameter())
+                    || key.day().isBefore(from) || key.day().isAfter(to)) {
+                continue;
+            }
+            CellKey group = new CellKey(key.location(), key.parameter(), daily ? key.day() : from);
+            groups.computeIfAbsent(group, k -> new ArrayList<>()).add(entry.getValue());
+        }
+        List<Distribution> result = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> {
+            TDigest digest = new TDigest(compression);
+            LogLinearHistogram histogram = new LogLinearHistogram(key.parameter().unit, HISTOGRAM_BITS);
+            group.forEach(cell -> cell.mergeInto(digest, histogram));
+            result.add(distribution(key, daily ? key.day() : to, digest, histogram));
+        });
+        return result;
+    }
+
+    /**
+     * Serialized sketches of one cell, for persisting alongside other rollups.
+     */
+    public Optional<byte[]> getCellBytes(String location, String parameter, LocalDate day) {
+        return Parameter.of(parameter)
+                .map(p -> cells.get(new CellKey(location, p, day)))
+                .map(Cell::bytes);
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    private static Distribution distribution(CellKey key, LocalDate to, TDigest digest, LogLinearHistogram histogram) {
+        Distribution distribution = new Distribution();
+        distribution.location = key.location();
+        distribution.parameter = key.parameter().key;
+        distribution.from = key.day();
+        distribution.to = to;
+        distribution.count = digest.size();
+        distribution.min = digest.min();
+        distribution.max = digest.max();
+        distribution.mean = digest.mean();
+        distribution.quantiles = new LinkedHashMap<>();
+        distribution.histogramQuantiles = new LinkedHashMap<>();
+        for (double q : QUANTILES) {
+            String name = "p" + Math.round(q * 100);
+            distribution.quantiles.put(name, digest.quantile(q));
+            distribution.histogramQuantiles.put(name, histogram.quantile(q));
+        }
+        return distribution;
+    }
+
+    /**
+     * Freeze cells of past days and drop those beyond the retention.
+     */
+    void freezePastDays() {
+        LocalDate today = LocalDate.now(zoneId);
+        LocalDate oldest = today.minusDays(retentionDays);
+        cells.entrySet().removeIf(entry -> entry.getKey().day().isBefore(oldest));
+        cells.forEach((key, cell) -> {
+            if (key.day().isBefore(today)) {
+                cell.freeze();
+            }
+        });
+    }
+
+    private void snapshotIfDirty() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Write every cell as (location, parameter, day, serialized sketches).
+     */
+    synchronized void snapshot() {
+        dirty = false;
+        freezePastDays();
+        try {
+            Path dir = Paths.get(stateDir);
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                List<Map.Entry<CellKey, Cell>> entries = new ArrayList<>(cells.entrySet());
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<CellKey, Cell> entry : entries) {
+                    CellKey key = entry.getKey();
+                    byte[] bytes = entry.getValue().bytes();
+                    out.writeUTF(key.location());
+                    out.writeByte(key.parameter().ordinal());
+                    out.writeLong(key.day().toEpochDay());
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to write parameter distribution snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void restore() {
+        Path file = Paths.get(stateDir, SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring parameter distribution snapshot with unknown format: {}", file);
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String location = in.readUTF();
+                Parameter parameter = Parameter.values()[in.readByte()];
+                LocalDate day = LocalDate.ofEpochDay(in.readLong());
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                cells.put(new CellKey(location, parameter, day), new Cell(parameter, bytes));
+            }
+            restored = true;
+            log.info("Restored {} parameter distribution cells from {}", size, file);
+        } catch (Exception e) {
+            cells.clear();
+            log.warn("Failed to restore parameter distribution snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static byte[] encode(TDigest digest, LogLinearHistogram histogram) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            digest.writeTo(out);
+            histogram.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Sketches decode(byte[] bytes) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            return new Sketches(TDigest.readFrom(in), LogLinearHistogram.readFrom(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
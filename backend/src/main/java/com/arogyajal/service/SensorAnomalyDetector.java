@@ -0,0 +1,349 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming anomaly and fault detection on sensor parameters.
+ *
+ * Every device gets a fixed slot on first sight; per (slot, parameter) the running
+ * statistics live in flat primitive arrays sized at startup, so memory does not grow
+ * with traffic and an update is O(1). Tracked per parameter:
+ * <ul>
+ *   <li>Welford mean/variance - long-term baseline</li>
+ *   <li>EWMA - short-term level, compared against the baseline to catch drift</li>
+ *   <li>streaming median and MAD (stochastic approximation) - robust spike scoring</li>
+ *   <li>last value/time and run lengths - flatline, stuck-at-zero and rate of change</li>
+ * </ul>
+ * Anomalous readings are kept out of the baseline, except that a run of
+ * {@code rebaseline-readings} consecutive spikes is taken as a genuine level shift
+ * (recalibration, a new source) and the baseline restarts from the new level.
+ * Parameters the device did not send are not scored. Alerts go through
+ * {@link AlertService}, which folds repeats into one alert per sensor, parameter and kind.
+ */
+@Component
+public class SensorAnomalyDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorAnomalyDetector.class);
+
+    static final String[] PARAMETERS = {"pH", "Temperature", "Turbidity", "DissolvedOxygen", "TDS"};
+    // Largest physically plausible change per minute for each parameter
+    private static final double[] MAX_RATE_PER_MINUTE = {1.0, 2.0, 100.0, 5.0, 500.0};
+    // Changes up to this size are probe jitter and never count as a rate of change
+    private static final double[] MIN_RATE_STEP = {0.5, 1.0, 10.0, 1.0, 50.0};
+    // Closely spaced readings are judged against a minute's allowed change
+    private static final long MIN_RATE_INTERVAL_MS = 60_000;
+    // Parameters where a run of exact zeros means a dead probe rather than clean water
+    private static final boolean[] ZERO_IS_FAULT = {true, false, false, false, true};
+
+    static final int SPIKE = 1;
+    static final int DRIFT = 1 << 1;
+    static final int RATE_OF_CHANGE = 1 << 2;
+    static final int FLATLINE = 1 << 3;
+    static final int STUCK_AT_ZERO = 1 << 4;
+    private static final String[] KIND_NAMES = {"SPIKE", "DRIFT", "RATE_OF_CHANGE", "FLATLINE", "STUCK_AT_ZERO"};
+
+    private static final int LOCK_STRIPES = 64;
+    private static final double EPSILON = 1e-9;
+
+    @Value("${alerts.anomaly.max-devices:20000}")
+    private int maxDevices;
+
+    // Readings per parameter before statistical checks are trusted
+    @Value("${alerts.anomaly.warmup-readings:30}")
+    private int warmupReadings;
+
+    @Value("${alerts.anomaly.spike-z:6.0}")
+    private double spikeZ;
+
+    @Value("${alerts.anomaly.drift-sigma:3.0}")
+    private double driftSigma;
+
+    @Value("${alerts.anomaly.ewma-alpha:0.1}")
+    private double ewmaAlpha;
+
+    @Value("${alerts.anomaly.median-step:0.05}")
+    private double medianStep;
+
+    @Value("${alerts.anomaly.flatline-readings:20}")
+    private int flatlineReadings;
+
+    @Value("${alerts.anomaly.stuck-zero-readings:5}")
+    private int stuckZeroReadings;
+
+    // Consecutive spikes after which the new level becomes the baseline
+    @Value("${alerts.anomaly.rebaseline-readings:10}")
+    private int rebaselineReadings;
+
+    private final AlertService alertService;
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile boolean fullWarned;
+
+    // Indexed by slot * PARAMETERS.length + parameter
+    private long[] count;
+    private double[] mean;
+    private double[] m2;
+    private double[] ewma;
+    private double[] median;
+    private double[] mad;
+    private double[] last;
+    private long[] lastTime;
+    private int[] sameRun;
+    private int[] zeroRun;
+    private int[] spikeRun;
+    private byte[] active;
+
+    public SensorAnomalyDetector(AlertService alertService) {
+        this.alertService = alertService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int size = maxDevices * PARAMETERS.length;
+        count = new long[size];
+        mean = new double[size];
+        m2 = new double[size];
+        ewma = new double[size];
+        median = new double[size];
+        mad = new double[size];
+        last = new double[size];
+        lastTime = new long[size];
+        sameRun = new int[size];
+        zeroRun = new int[size];
+        spikeRun = new int[size];
+        active = new byte[size];
+        log.info("Sensor anomaly detector sized for {} devices", maxDevices);
+    }
+
+    private static final class Finding {
+        final int parameter;
+        final int kind;
+        final double value;
+        final String detail;
+
+        Finding(int parameter, int kind, double value, String detail) {
+            this.parameter = parameter;
+            this.kind = kind;
+            this.value = value;
+            this.detail = detail;
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        SensorReading reading = event.getReading();
+        int slot = slotFor(reading.getSensorId());
+        if (slot < 0) {
+            return;
+        }
+        long time = reading.getTimestamp() != null
+                ? reading.getTimestamp().toSqlTimestamp().getTime()
+                : System.currentTimeMillis();
+        Double[] values = {reading.getPh(), reading.getTemperature(), reading.getTurbidity(),
+                reading.getDissolvedOxygen(), reading.getTotalDissolvedSolids()};
+        if (event.getSensorData() != null) {
+            // The reading holds 0.0 defaults for values the device did not send
+            SensorData.Sensors sensors = event.getSensorData().getSensors();
+            if (sensors == null) {
+                return;
+            }
+            Object[] sent = {sensors.getPH(), sensors.getTemperature_C(), sensors.getTurbidity_NTU(),
+                    sensors.getDO_mgL(), sensors.getTDS_ppm()};
+            for (int p = 0; p < values.length; p++) {
+                if (sent[p] == null) {
+                    values[p] = null;
+                }
+            }
+        }
+
+        List<Finding> raised = new ArrayList<>();
+        List<Finding> cleared = new ArrayList<>();
+        synchronized (locks[slot % LOCK_STRIPES]) {
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                if (values[p] != null && !values[p].isNaN()) {
+                    update(slot * PARAMETERS.length + p, p, values[p], time, raised, cleared);
+                }
+            }
+        }
+
+        // Alert I/O happens outside the stripe lock
+        for (Finding finding : raised) {
+            String kind = kindName(finding.kind);
+            boolean fault = finding.kind != SPIKE && finding.kind != DRIFT;
+            alertService.raiseSensorAnomaly(reading, PARAMETERS[finding.parameter], kind,
+                    fault ? "SENSOR_FAULT" : "SENSOR_ANOMALY", severityFor(finding.kind), finding.value,
+                    String.format("%s %s on sensor %s: %s", PARAMETERS[finding.parameter], kind.toLowerCase().replace('_', ' '),
+                            reading.getSensorId(), finding.detail));
+        }
+        for (Finding finding : cleared) {
+            if (alertService.clearSensorAnomaly(reading.getSensorId(), PARAMETERS[finding.parameter], kindName(finding.kind))) {
+                synchronized (locks[slot % LOCK_STRIPES]) {
+                    active[slot * PARAMETERS.length + finding.parameter] &= (byte) ~finding.kind;
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of devices holding a slot.
+     */
+    public int getTrackedDeviceCount() {
+        return slots.size();
+    }
+
+    private void update(int i, int p, double x, long time, List<Finding> raised, List<Finding> cleared) {
+        long n = count[i];
+        int flags = 0;
+        String spikeDetail = null;
+        String rateDetail = null;
+        String driftDetail = null;
+
+        boolean zero = Math.abs(x) < EPSILON;
+        if (n > 0) {
+            double step = Math.abs(x - last[i]);
+            sameRun[i] = step < EPSILON ? sameRun[i] + 1 : 0;
+            zeroRun[i] = zero ? zeroRun[i] + 1 : 0;
+            long dt = time - lastTime[i];
+            if (dt > 0 && step > MIN_RATE_STEP[p]) {
+                double perMinute = step / (Math.max(dt, MIN_RATE_INTERVAL_MS) / 60_000.0);
+                if (perMinute > MAX_RATE_PER_MINUTE[p]) {
+                    flags |= RATE_OF_CHANGE;
+                    rateDetail = String.format("changed by %.2f in %d s (limit %.2f/min)", step, dt / 1000, MAX_RATE_PER_MINUTE[p]);
+                }
+            }
+        } else {
+            sameRun[i] = 0;
+            zeroRun[i] = zero ? 1 : 0;
+        }
+
+        if (ZERO_IS_FAULT[p] && zeroRun[i] >= stuckZeroReadings) {
+            flags |= STUCK_AT_ZERO;
+        } else if (sameRun[i] + 1 >= flatlineReadings) {
+            flags |= FLATLINE;
+        }
+
+        if (n >= warmupReadings) {
+            double std = Math.sqrt(m2[i] / (n - 1));
+            double robust = 1.4826 * mad[i];
+            double scale = robust > EPSILON ? robust : std;
+            if (scale > EPSILON) {
+                double z = Math.abs(x - median[i]) / scale;
+                if (z > spikeZ) {
+                    flags |= SPIKE;
+                    spikeDetail = String.format("value %.2f is %.1f robust deviations from median %.2f", x, z, median[i]);
+                }
+            }
+            if (std > EPSILON && Math.abs(ewma[i] - mean[i]) > driftSigma * std) {
+                flags |= DRIFT;
+                driftDetail = String.format("recent level %.2f has drifted from baseline %.2f (sd %.2f)", ewma[i], mean[i], std);
+            }
+        }
+
+        last[i] = x;
+        lastTime[i] = Math.max(lastTime[i], time);
+        spikeRun[i] = (flags & SPIKE) != 0 && (flags & (FLATLINE | STUCK_AT_ZERO)) == 0 ? spikeRun[i] + 1 : 0;
+        if ((flags & (SPIKE | RATE_OF_CHANGE | FLATLINE | STUCK_AT_ZERO)) == 0) {
+            updateBaseline(i, x, n);
+        } else if (spikeRun[i] >= rebaselineReadings) {
+            // The level itself has moved; learn it again from here
+            spikeRun[i] = 0;
+            m2[i] = 0;
+            updateBaseline(i, x, 0);
+        }
+
+        for (int bit = 0; bit < KIND_NAMES.length; bit++) {
+            int kind = 1 << bit;
+            if ((flags & kind) != 0) {
+                active[i] |= (byte) kind;
+                String detail;
+                switch (kind) {
+                    case SPIKE: detail = spikeDetail; break;
+                    case DRIFT: detail = driftDetail; break;
+                    case RATE_OF_CHANGE: detail = rateDetail; break;
+                    case FLATLINE: detail = String.format("value %.2f unchanged for %d readings", x, sameRun[i] + 1); break;
+                    default: detail = String.format("reading zero for %d consecutive readings", zeroRun[i]); break;
+                }
+                raised.add(new Finding(p, kind, x, detail));
+            } else if ((active[i] & kind) != 0) {
+                cleared.add(new Finding(p, kind, x, null));
+            }
+        }
+    }
+
+    private void updateBaseline(int i, double x, long n) {
+        count[i] = n + 1;
+        double delta = x - mean[i];
+        mean[i] += delta / (n + 1);
+        m2[i] += delta * (x - mean[i]);
+        if (n == 0) {
+            ewma[i] = x;
+            median[i] = x;
+            mad[i] = 0;
+            return;
+        }
+        ewma[i] = ewmaAlpha * x + (1 - ewmaAlpha) * ewma[i];
+
+        // Frugal streaming quantiles: nudge towards the sample by a step scaled to the spread
+        double spread = Math.max(n > 1 ? Math.sqrt(m2[i] / n) : Math.abs(delta), 1e-6);
+        median[i] += medianStep * spread * Math.signum(x - median[i]);
+        mad[i] += medianStep * spread * Math.signum(Math.abs(x - median[i]) - mad[i]);
+        if (mad[i] < 0) {
+            mad[i] = 0;
+        }
+    }
+
+    private int slotFor(String deviceId) {
+        if (deviceId == null) {
+            return -1;
+        }
+        Integer slot = slots.get(deviceId);
+        if (slot != null) {
+            return slot;
+        }
+        slot = slots.computeIfAbsent(deviceId, k -> {
+            int next = nextSlot.get();
+            if (next >= maxDevices) {
+                if (!fullWarned) {
+                    fullWarned = true;
+                    log.warn("Sensor anomaly detector is full ({} devices); new devices are not tracked", maxDevices);
+                }
+                return null;
+            }
+            return nextSlot.getAndIncrement();
+        });
+        return slot != null ? slot : -1;
+    }
+
+    private static String kindName(int kind) {
+        return KIND_NAMES[Integer.numberOfTrailingZeros(kind)];
+    }
+
+    private static String severityFor(int kind) {
+        switch (kind) {
+            case SPIKE:
+                return "HIGH";
+            case DRIFT:
+                return "LOW";
+            default:
+                return "MEDIUM";
+        }
+    }
+}
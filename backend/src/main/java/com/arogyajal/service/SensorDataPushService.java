@@ -0,0 +1,151 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.util.Geohash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes ingested sensor data to STOMP subscribers.
+ *
+ * Each reading is published to
+ * <ul>
+ *   <li>{@code /topic/sensor-data} - every device, as before</li>
+ *   <li>{@code /topic/sensor-data/{deviceId}}</li>
+ *   <li>{@code /topic/sensor-data/location/{geohash}} - sensors in the same geohash cell</li>
+ * </ul>
+ * Per device, sends are conflated: the first reading goes out at once, readings
+ * arriving within {@code conflation-ms} of the last send replace each other and
+ * only the newest is sent when the interval is up. The payload is the ingested
+ * {@link SensorData}, so nothing is read back from Firestore.
+ *
+ * Messages go through the {@link BrokerRelay}, so dashboards connected to other
+ * nodes receive readings ingested here.
+ */
+@Component
+public class SensorDataPushService {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorDataPushService.class);
+
+    public static final String SENSOR_DATA_TOPIC = "/topic/sensor-data";
+
+    @Value("${arogyajal.push.conflation-ms:1000}")
+    private long conflationMillis;
+
+    @Value("${arogyajal.push.location-precision:5}")
+    private int locationPrecision;
+
+    private final BrokerRelay brokerRelay;
+    private final Map<String, DeviceChannel> channels = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public SensorDataPushService(BrokerRelay brokerRelay) {
+        this.brokerRelay = brokerRelay;
+    }
+
+    private static final class DeviceChannel {
+        long lastSentAt;
+        SensorData pending;
+        boolean flushScheduled;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensor-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        SensorData data = event.getSensorData();
+        if (data == null || data.getDeviceId() == null) {
+            return;
+        }
+        String deviceId = data.getDeviceId();
+        DeviceChannel channel = channels.computeIfAbsent(deviceId, k -> new DeviceChannel());
+        long now = System.currentTimeMillis();
+        boolean sendNow = false;
+        long delay = 0;
+        synchronized (channel) {
+            if (channel.flushScheduled) {
+                channel.pending = data; // conflated with the scheduled send
+                return;
+            }
+            if (now - channel.lastSentAt >= conflationMillis) {
+                channel.lastSentAt = now;
+                sendNow = true;
+            } else {
+                channel.pending = data;
+                channel.flushScheduled = true;
+                delay = channel.lastSentAt + conflationMillis - now;
+            }
+        }
+        if (sendNow) {
+            send(data);
+        } else {
+            flusher.schedule(() -> flush(deviceId), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(String deviceId) {
+        DeviceChannel channel = channels.get(deviceId);
+        SensorData data;
+        synchronized (channel) {
+            data = channel.pending;
+            channel.pending = null;
+            channel.flushScheduled = false;
+            channel.lastSentAt = System.currentTimeMillis();
+        }
+        if (data != null) {
+            send(data);
+        }
+    }
+
+    private void send(SensorData data) {
+        try {
+            brokerRelay.publish(SENSOR_DATA_TOPIC, data);
+            brokerRelay.publish(deviceTopic(data.getDeviceId()), data);
+            String cell = locationCell(data);
+            if (cell != null) {
+                brokerRelay.publish(locationTopic(cell), data);
+            }
+        } catch (Exception e) {
+            log.error("Error pushing sensor data for device {}: {}", data.getDeviceId(), e.getMessage(), e);
+        }
+    }
+
+    public static String deviceTopic(String deviceId) {
+        return SENSOR_DATA_TOPIC + "/" + deviceId;
+    }
+
+    public static String locationTopic(String geohash) {
+        return SENSOR_DATA_TOPIC + "/location/" + geohash;
+    }
+
+    private String locationCell(SensorData data) {
+        if (data.getLocation() == null || data.getLocation().getLat() == null || data.getLocation().getLon() == null) {
+            return null;
+        }
+        return Geohash.encode(data.getLocation().getLat(), data.getLocation().getLon(), locationPrecision);
+    }
+}
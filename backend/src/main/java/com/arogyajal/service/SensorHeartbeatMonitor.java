@@ -0,0 +1,274 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorStatusUpdate;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SensorStatusChangedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.arogyajal.util.HashedTimerWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks sensor liveness from ingest heartbeats.
+ *
+ * Every reading resets the device's timeout in a hashed timer wheel; a single
+ * ticker thread advances the wheel and marks devices whose timeout expired as
+ * OFFLINE. Transitions raise or resolve a SENSOR_OFFLINE alert, are pushed to
+ * {@code /topic/sensor-status} and published as a {@link SensorStatusChangedEvent}.
+ * Status reads are served from memory.
+ */
+@Component
+public class SensorHeartbeatMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorHeartbeatMonitor.class);
+
+    public static final String ONLINE = "ONLINE";
+    public static final String OFFLINE = "OFFLINE";
+    public static final String STATUS_TOPIC = "/topic/sensor-status";
+
+    @Value("${arogyajal.sensors.offline-after-seconds:3600}")
+    private long offlineAfterSeconds;
+
+    @Value("${arogyajal.sensors.heartbeat-tick-seconds:5}")
+    private long tickSeconds;
+
+    @Value("${arogyajal.sensors.heartbeat-wheel-size:1024}")
+    private int wheelSize;
+
+    // Sensors silent for longer than this at startup are marked offline without a new alert
+    @Value("${arogyajal.sensors.offline-alert-max-age-hours:168}")
+    private long offlineAlertMaxAgeHours;
+
+    private final AlertService alertService;
+    private final SensorRepository sensorRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, DeviceState> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger onlineCount = new AtomicInteger();
+
+    // Guarded by itself
+    private HashedTimerWheel<String> wheel;
+    private ScheduledExecutorService ticker;
+
+    public SensorHeartbeatMonitor(AlertService alertService, SensorRepository sensorRepository,
+                                  SimpMessagingTemplate messagingTemplate, ApplicationEventPublisher eventPublisher) {
+        this.alertService = alertService;
+        this.sensorRepository = sensorRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private static final class DeviceState {
+        long lastSeen;
+        String location;
+        boolean online;
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimerWheel<>(tickSeconds * 1000, wheelSize);
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensor-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickSeconds, tickSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        String deviceId = event.getReading().getSensorId();
+        if (deviceId == null) {
+            return;
+        }
+        heartbeat(deviceId, event.getReading().getLocation(), System.currentTimeMillis());
+    }
+
+    /**
+     * Seed the wheel with the last reading of every known sensor, so sensors that
+     * stay silent after a restart still go offline on time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long now = System.currentTimeMillis();
+            long timeout = offlineAfterSeconds * 1000;
+            int online = 0;
+            for (SensorReading latest : sensorRepository.findLatestPerSensor()) {
+                String deviceId = latest.getSensorId();
+                if (deviceId == null || latest.getTimestamp() == null) {
+                    continue;
+                }
+                long lastSeen = latest.getTimestamp().toSqlTimestamp().getTime();
+                DeviceState state = new DeviceState();
+                state.lastSeen = lastSeen;
+                state.location = latest.getLocation();
+                state.online = now - lastSeen < timeout;
+                // Readings that arrived during warm-up win
+                if (devices.putIfAbsent(deviceId, state) == null && state.online) {
+                    synchronized (wheel) {
+                        wheel.schedule(deviceId, lastSeen + timeout);
+                    }
+                    onlineCount.incrementAndGet();
+                    online++;
+                }
+            }
+            log.info("Sensor heartbeat monitor warmed with {} sensors, {} online", devices.size(), online);
+        } catch (Exception e) {
+            log.warn("Failed to warm sensor heartbeat monitor: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ONLINE/OFFLINE per known sensor.
+     */
+    public Map<String, String> getStatusMap() {
+        Map<String, String> statuses = new HashMap<>();
+        devices.forEach((deviceId, state) -> {
+            synchronized (state) {
+                statuses.put(deviceId, state.online ? ONLINE : OFFLINE);
+            }
+        });
+        return statuses;
+    }
+
+    public int getSensorCount() {
+        return devices.size();
+    }
+
+    public int getOnlineCount() {
+        return onlineCount.get();
+    }
+
+    public String getStatus(String deviceId) {
+        DeviceState state = devices.get(deviceId);
+        if (state == null) {
+            return OFFLINE;
+        }
+        synchronized (state) {
+            return state.online ? ONLINE : OFFLINE;
+        }
+    }
+
+    /**
+     * Distinct locations reported by known sensors.
+     */
+    public Set<String> getLocations() {
+        Set<String> locations = new HashSet<>();
+        devices.values().forEach(state -> {
+            synchronized (state) {
+                if (state.location != null) {
+                    locations.add(state.location);
+                }
+            }
+        });
+        return locations;
+    }
+
+    void heartbeat(String deviceId, String location, long now) {
+        DeviceState state = devices.computeIfAbsent(deviceId, k -> new DeviceState());
+        boolean cameOnline;
+        synchronized (state) {
+            cameOnline = !state.online;
+            if (cameOnline) {
+                onlineCount.incrementAndGet();
+            }
+            state.online = true;
+            state.lastSeen = now;
+            if (location != null) {
+                state.location = location;
+            }
+        }
+        synchronized (wheel) {
+            wheel.schedule(deviceId, now + offlineAfterSeconds * 1000);
+        }
+        if (cameOnline) {
+            log.info("Sensor {} is ONLINE", deviceId);
+            alertService.resolveSensorOffline(deviceId);
+            publish(deviceId, ONLINE, location, now);
+        }
+    }
+
+    void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    void tick(long now) {
+        try {
+            List<String> expired = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(now, (deviceId, deadline) -> expired.add(deviceId));
+            }
+            for (String deviceId : expired) {
+                expire(deviceId, now);
+            }
+        } catch (Exception e) {
+            log.error("Error advancing sensor heartbeat wheel", e);
+        }
+    }
+
+    private void expire(String deviceId, long now) {
+        DeviceState state = devices.get(deviceId);
+        if (state == null) {
+            return;
+        }
+        long lastSeen;
+        String location;
+        synchronized (state) {
+            // A heartbeat may have landed between the wheel firing and this check
+            if (!state.online || now - state.lastSeen < offlineAfterSeconds * 1000) {
+                return;
+            }
+            state.online = false;
+            onlineCount.decrementAndGet();
+            lastSeen = state.lastSeen;
+            location = state.location;
+        }
+        log.info("Sensor {} is OFFLINE, last seen {}", deviceId, toLocalDateTime(lastSeen));
+        if (now - lastSeen <= offlineAlertMaxAgeHours * 3_600_000L) {
+            alertService.raiseSensorOffline(deviceId, location, toLocalDateTime(lastSeen));
+        }
+        publish(deviceId, OFFLINE, location, lastSeen);
+    }
+
+    private void publish(String deviceId, String status, String location, long lastSeen) {
+        SensorStatusUpdate update = new SensorStatusUpdate(deviceId, status, location,
+                toLocalDateTime(lastSeen), LocalDateTime.now());
+        try {
+            messagingTemplate.convertAndSend(STATUS_TOPIC, update);
+            eventPublisher.publishEvent(new SensorStatusChangedEvent(update));
+        } catch (Exception e) {
+            log.warn("Failed to publish status of sensor {}: {}", deviceId, e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,852 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.arogyajal.util.StringInterner;
+import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Hot in-memory copy of recent sensor readings, laid out as columns.
+ *
+ * Each reading is one row across primitive arrays: epoch-nanosecond time,
+ * interned device and location codes, a byte-coded quality status, a bitmask
+ * of which parameters were present and one double[] per parameter. Rows are
+ * kept in time order in a ring of at most {@code max-rows}; once full, the
+ * oldest row is evicted for each new one. Series and statistics scan the
+ * columns between two binary-searched bounds without boxing, and a
+ * {@link SensorReading} is only materialised for callers that need one.
+ *
+ * The latest row of every device is kept separately so it survives eviction.
+ * The ring is filled with the last {@code retention-hours} of readings at
+ * startup and appended to at ingest; {@link #covers(long)} says whether a
+ * window can be answered from it or has to go to Firestore. Of the free-text
+ * notes only the battery voltage is kept.
+ *
+ * The columns are checkpointed as they are, a bounded chunk of rows per hold
+ * of the read lock so ingest is not held up. After a restore only readings
+ * newer than the newest one held are fetched, so a reading ingested during
+ * the gap with an older device timestamp is missing until it ages out.
+ */
+@Component
+public class SensorReadingStore implements Checkpointable {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorReadingStore.class);
+
+    private static final int INITIAL_ROWS = 1024;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final String BATTERY_PREFIX = "Battery Voltage: ";
+    private static final int CHECKPOINT_VERSION = 2;
+    private static final int CHECKPOINT_CHUNK_ROWS = 16384;
+    private static final int ROW_BYTES = Long.BYTES + 2 * Integer.BYTES + 1 + Integer.BYTES
+            + Column.values().length * Double.BYTES;
+
+    /**
+     * Stored parameters, their reading accessors and their bit in the presence mask.
+     */
+    public enum Column {
+        LATITUDE("latitude", SensorReading::getLatitude, SensorReading::setLatitude),
+        LONGITUDE("longitude", SensorReading::getLongitude, SensorReading::setLongitude),
+        PH("ph", SensorReading::getPh, SensorReading::setPh),
+        TEMPERATURE("temperature", SensorReading::getTemperature, SensorReading::setTemperature),
+        TURBIDITY("turbidity", SensorReading::getTurbidity, SensorReading::setTurbidity),
+        DISSOLVED_OXYGEN("dissolvedOxygen", SensorReading::getDissolvedOxygen, SensorReading::setDissolvedOxygen),
+        CONDUCTIVITY("conductivity", SensorReading::getConductivity, SensorReading::setConductivity),
+        TOTAL_DISSOLVED_SOLIDS("totalDissolvedSolids", SensorReading::getTotalDissolvedSolids,
+                SensorReading::setTotalDissolvedSolids),
+        CHLORINE("chlorine", SensorReading::getChlorine, SensorReading::setChlorine),
+        HARDNESS("hardness", SensorReading::getHardness, SensorReading::setHardness),
+        WATER_LEVEL("waterLevel", SensorReading::getWaterLevel, SensorReading::setWaterLevel),
+        FLOW_RATE("flowRate", SensorReading::getFlowRate, SensorReading::setFlowRate),
+        WQI("wqi", SensorReading::getWqi, SensorReading::setWqi),
+        BATTERY_VOLTAGE("batteryVoltage", SensorReadingStore::batteryVoltage, SensorReadingStore::setBatteryVoltage);
+
+        final String key;
+        final Function<SensorReading, Double> getter;
+        final BiConsumer<SensorReading, Double> setter;
+        final int bit;
+
+        Column(String key, Function<SensorReading, Double> getter, BiConsumer<SensorReading, Double> setter) {
+            this.key = key;
+            this.getter = getter;
+            this.setter = setter;
+            this.bit = 1 << ordinal();
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public static Optional<Column> of(String key) {
+            return Arrays.stream(values()).filter(c -> c.key.equalsIgnoreCase(key)).findFirst();
+        }
+    }
+
+    /**
+     * Quality labels written by the threshold checks and the WQI model. Other
+     * labels get codes after these, up to a byte.
+     */
+    enum Quality {
+        NONE(null), UNKNOWN("UNKNOWN"), NORMAL("NORMAL"), WARNING("WARNING"), CRITICAL("CRITICAL"),
+        EXCELLENT("Excellent"), GOOD("Good"), MEDIUM("Medium"), POOR("Poor"), VERY_POOR("Very Poor");
+
+        final String label;
+
+        Quality(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final Quality[] QUALITIES = Quality.values();
+    private static final Map<String, Byte> QUALITY_CODES = new HashMap<>();
+
+    static {
+        for (Quality quality : QUALITIES) {
+            if (quality.label != null) {
+                QUALITY_CODES.put(quality.label, (byte) quality.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Time-series values of one column, oldest first.
+     */
+    public record Series(long[] timesNanos, double[] values) {
+        public int size() {
+            return values.length;
+        }
+    }
+
+    public static class Stats {
+        public String parameter;
+        public String deviceId;
+        public long count;
+        public Double min;
+        public Double max;
+        public Double mean;
+        public Double stdDev;
+        public Double latest;
+    }
+
+    /**
+     * Parallel primitive arrays, one entry per row.
+     */
+    private static final class Rows {
+        long[] times;
+        int[] devices;
+        int[] locations;
+        byte[] qualities;
+        int[] present;
+        double[][] values;
+
+        Rows(int capacity) {
+            times = new long[capacity];
+            devices = new int[capacity];
+            locations = new int[capacity];
+            qualities = new byte[capacity];
+            present = new int[capacity];
+            values = new double[COLUMNS.length][capacity];
+        }
+
+        int capacity() {
+            return times.length;
+        }
+
+        void copy(int from, Rows to, int at) {
+            to.times[at] = times[from];
+            to.devices[at] = devices[from];
+            to.locations[at] = locations[from];
+            to.qualities[at] = qualities[from];
+            to.present[at] = present[from];
+            for (int c = 0; c < values.length; c++) {
+                to.values[c][at] = values[c][from];
+            }
+        }
+
+        void set(int at, long time, int device, int location, byte quality, int mask, double[] row) {
+            times[at] = time;
+            devices[at] = device;
+            locations[at] = location;
+            qualities[at] = quality;
+            present[at] = mask;
+            for (int c = 0; c < values.length; c++) {
+                values[c][at] = row[c];
+            }
+        }
+    }
+
+    @Value("${arogyajal.reading-store.max-rows:262144}")
+    private int maxRows = 262144;
+
+    @Value("${arogyajal.reading-store.retention-hours:24}")
+    private int retentionHours = 24;
+
+    private final SensorRepository sensorRepository;
+    private final LocationAggregateView locationAggregateView;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All below guarded by lock
+    private final StringInterner devices = new StringInterner();
+    private final StringInterner locations = new StringInterner();
+    private final StringInterner otherQualities = new StringInterner();
+    private final double[] scratch = new double[COLUMNS.length];
+    private Rows history = new Rows(INITIAL_ROWS);
+    private int head;
+    private int size;
+    // Row per device code
+    private Rows latest = new Rows(16);
+    private String[] latestIds = new String[16];
+    // History holds every reading at or after this time
+    private long coveredFrom = Long.MAX_VALUE;
+    // Ids appended at ingest while the warm-up query was running
+    private Set<String> ingestedDuringWarmUp = new HashSet<>();
+    private volatile boolean ready;
+
+    public SensorReadingStore(SensorRepository sensorRepository, LocationAggregateView locationAggregateView) {
+        this.sensorRepository = sensorRepository;
+        this.locationAggregateView = locationAggregateView;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (ready) {
+            // Restored from a checkpoint
+            return;
+        }
+        try {
+            Timestamp end = Timestamp.now();
+            Timestamp start = Timestamp.ofTimeSecondsAndNanos(end.getSeconds() - retentionHours * 3600L, 0);
+            List<SensorReading> window = sensorRepository.findByTimestampBetween(start, end);
+            List<SensorReading> latestReadings = locationAggregateView.coldStart().join().latestReadings();
+            load(window, latestReadings, nanos(start));
+            log.info("Reading store warmed with {} readings from {} devices", size(), deviceCount());
+        } catch (Exception e) {
+            log.warn("Failed to warm reading store: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fill the store from a window of readings that is complete from
+     * {@code fromNanos}, plus the latest reading of devices outside it.
+     */
+    void load(List<SensorReading> window, List<SensorReading> latestReadings, long fromNanos) {
+        List<SensorReading> sorted = new ArrayList<>(window.size());
+        for (SensorReading reading : window) {
+            if (reading.getTimestamp() != null) {
+                sorted.add(reading);
+            }
+        }
+        sorted.sort(Comparator.comparing(SensorReading::getTimestamp));
+        lock.writeLock().lock();
+        try {
+            coveredFrom = Math.min(coveredFrom, fromNanos);
+            for (SensorReading reading : sorted) {
+                if (reading.getId() == null || !ingestedDuringWarmUp.contains(reading.getId())) {
+                    append(reading);
+                }
+            }
+            if (latestReadings != null) {
+                latestReadings.forEach(this::appendLatest);
+            }
+            ingestedDuringWarmUp = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        SensorReading reading = event.getReading();
+        if (reading == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ingestedDuringWarmUp != null && reading.getId() != null) {
+                ingestedDuringWarmUp.add(reading.getId());
+            }
+            append(reading);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String checkpointName() {
+        return "sensor-reading-store";
+    }
+
+    /**
+     * Version, then the rows oldest first in chunks of at most
+     * {@value #CHECKPOINT_CHUNK_ROWS}, each copied under one hold of the lock
+     * and resumed after the newest time copied so far. A zero-row chunk ends
+     * them and is followed by the coverage, the string tables and the latest
+     * row of every device, copied under the same hold as the end check.
+     */
+    @Override
+    public List<ByteBuffer> writeCheckpoint() {
+        List<ByteBuffer> pieces = new ArrayList<>();
+        pieces.add(ByteBuffer.allocate(Integer.BYTES).putInt(CHECKPOINT_VERSION).flip());
+        long next = Long.MIN_VALUE;
+        long coverage = Long.MIN_VALUE;
+        while (true) {
+            lock.readLock().lock();
+            try {
+                // Rows evicted between chunks narrow the coverage written
+                coverage = Math.max(coverage, coveredFrom);
+                int from = lowerBound(next);
+                if (from == size) {
+                    pieces.add(writeTail(coverage));
+                    return pieces;
+                }
+                int to = Math.min(size, from + CHECKPOINT_CHUNK_ROWS);
+                // Rows sharing a time go in one chunk, since the next resumes after it
+                while (to < size && history.times[physical(to)] == history.times[physical(to - 1)]) {
+                    to++;
+                }
+                pieces.add(writeRows(from, to - from));
+                next = history.times[physical(to - 1)] + 1;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Rows [{@code from}, {@code from + count}) column by column; the range is
+     * at most two runs of the ring.
+     */
+    private ByteBuffer writeRows(int from, int count) {
+        ByteBuffer out = ByteBuffer.allocate(Integer.BYTES + count * ROW_BYTES);
+        out.putInt(count);
+        int start = physical(from);
+        int first = Math.min(count, history.capacity() - start);
+        int second = count - first;
+        out.asLongBuffer().put(history.times, start, first).put(history.times, 0, second);
+        out.position(out.position() + count * Long.BYTES);
+        for (int[] column : new int[][]{history.devices, history.locations, history.present}) {
+            out.asIntBuffer().put(column, start, first).put(column, 0, second);
+            out.position(out.position() + count * Integer.BYTES);
+        }
+        out.put(history.qualities, start, first).put(history.qualities, 0, second);
+        for (double[] column : history.values) {
+            out.asDoubleBuffer().put(column, start, first).put(column, 0, second);
+            out.position(out.position() + count * Double.BYTES);
+        }
+        return out.flip();
+    }
+
+    private ByteBuffer writeTail(long coverage) {
+        int deviceCount = devices.size();
+        long bytes = Integer.BYTES + Long.BYTES + Checkpointable.stringsBytes(devices) + Checkpointable.stringsBytes(locations)
+                + Checkpointable.stringsBytes(otherQualities) + Integer.BYTES;
+        for (int device = 0; device < deviceCount; device++) {
+            bytes += 1 + (latestIds[device] != null ? ROW_BYTES + Checkpointable.stringBytes(latestIds[device]) : 0);
+        }
+        ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(bytes));
+        out.putInt(0).putLong(coverage);
+        Checkpointable.putStrings(out, devices);
+        Checkpointable.putStrings(out, locations);
+        Checkpointable.putStrings(out, otherQualities);
+        out.putInt(deviceCount);
+        for (int device = 0; device < deviceCount; device++) {
+            if (latestIds[device] == null) {
+                out.put((byte) 0);
+                continue;
+            }
+            out.put((byte) 1);
+            out.putLong(latest.times[device]).putInt(latest.locations[device]).put(latest.qualities[device])
+                    .putInt(latest.present[device]);
+            for (double[] column : latest.values) {
+                out.putDouble(column[device]);
+            }
+            Checkpointable.putString(out, latestIds[device]);
+        }
+        return out.flip();
+    }
+
+    @Override
+    public boolean restoreCheckpoint(ByteBuffer in, long checkpointNanos) {
+        if (in.getInt() != CHECKPOINT_VERSION || deviceCount() > 0) {
+            return false;
+        }
+        // Count the rows first: a smaller max-rows than when written keeps the newest
+        int rowsAt = in.position();
+        int rows = 0;
+        for (int count = in.getInt(); count > 0; count = in.getInt()) {
+            rows += count;
+            in.position(in.position() + count * ROW_BYTES);
+        }
+        long restoredCoverage = in.getLong();
+        List<String> deviceNames = Checkpointable.getStrings(in);
+        List<String> locationNames = Checkpointable.getStrings(in);
+        List<String> otherQualityNames = Checkpointable.getStrings(in);
+        int tailAt = in.position();
+
+        int keep = Math.min(rows, maxRows);
+        int skip = rows - keep;
+        Rows restored = new Rows(Math.max(keep, Math.min(INITIAL_ROWS, maxRows)));
+        in.position(rowsAt);
+        int at = 0;
+        for (int count = in.getInt(); count > 0; count = in.getInt()) {
+            int skipped = Math.min(count, skip);
+            int taken = count - skipped;
+            skip -= skipped;
+            if (skipped > 0) {
+                restoredCoverage = Math.max(restoredCoverage, in.getLong(in.position() + (skipped - 1) * Long.BYTES) + 1);
+            }
+            in.asLongBuffer().position(skipped).get(restored.times, at, taken);
+            in.position(in.position() + count * Long.BYTES);
+            for (int[] column : new int[][]{restored.devices, restored.locations, restored.present}) {
+                in.asIntBuffer().position(skipped).get(column, at, taken);
+                in.position(in.position() + count * Integer.BYTES);
+            }
+            in.position(in.position() + skipped).get(restored.qualities, at, taken);
+            for (double[] column : restored.values) {
+                in.asDoubleBuffer().position(skipped).get(column, at, taken);
+                in.position(in.position() + count * Double.BYTES);
+            }
+            at += taken;
+        }
+        in.position(tailAt);
+
+        int deviceCount = in.getInt();
+        Rows restoredLatest = new Rows(Math.max(16, deviceCount));
+        String[] restoredIds = new String[restoredLatest.capacity()];
+        long newest = Long.MIN_VALUE;
+        for (int device = 0; device < deviceCount; device++) {
+            if (in.get() == 0) {
+                continue;
+            }
+            restoredLatest.times[device] = in.getLong();
+            restoredLatest.devices[device] = device;
+            restoredLatest.locations[device] = in.getInt();
+            restoredLatest.qualities[device] = in.get();
+            restoredLatest.present[device] = in.getInt();
+            for (double[] column : restoredLatest.values) {
+                column[device] = in.getDouble();
+            }
+            restoredIds[device] = Checkpointable.getString(in);
+            newest = Math.max(newest, restoredLatest.times[device]);
+        }
+
+        // Everything up to the newest reading held is in the checkpoint
+        List<SensorReading> newer;
+        try {
+            Timestamp from = timestamp(newest == Long.MIN_VALUE ? checkpointNanos : newest + 1);
+            newer = new ArrayList<>(sensorRepository.findByTimestampBetween(from, Timestamp.now()));
+        } catch (Exception e) {
+            log.warn("Failed to fetch readings newer than the checkpoint: {}", e.getMessage());
+            return false;
+        }
+        newer.removeIf(reading -> reading.getTimestamp() == null);
+        newer.sort(Comparator.comparing(SensorReading::getTimestamp));
+
+        lock.writeLock().lock();
+        try {
+            deviceNames.forEach(devices::intern);
+            locationNames.forEach(locations::intern);
+            otherQualityNames.forEach(otherQualities::intern);
+            history = restored;
+            head = 0;
+            size = keep;
+            latest = restoredLatest;
+            latestIds = restoredIds;
+            coveredFrom = restoredCoverage;
+            newer.forEach(this::append);
+            ingestedDuringWarmUp = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Reading store restored with {} readings, {} fetched since the checkpoint", size(), newer.size());
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Hours of readings the store holds once warm.
+     */
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    /**
+     * Whether every reading from {@code fromNanos} on is held.
+     */
+    public boolean covers(long fromNanos) {
+        if (!ready) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return fromNanos >= coveredFrom;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deviceCount() {
+        lock.readLock().lock();
+        try {
+            return devices.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Values of {@code column} in [{@code fromNanos}, {@code toNanos}], oldest first.
+     *
+     * @param deviceId device to restrict to, or null for all
+     */
+    public Series series(Column column, String deviceId, long fromNanos, long toNanos) {
+        lock.readLock().lock();
+        try {
+            int device = deviceId != null ? devices.find(deviceId) : -1;
+            if (deviceId != null && device < 0) {
+                return new Series(new long[0], new double[0]);
+            }
+            long[] times = new long[16];
+            double[] values = new double[16];
+            int n = 0;
+            double[] columnValues = history.values[column.ordinal()];
+            for (int i = lowerBound(fromNanos); i < size; i++) {
+                int row = physical(i);
+                if (history.times[row] > toNanos) {
+                    break;
+                }
+                if ((history.present[row] & column.bit) == 0 || (device >= 0 && history.devices[row] != device)) {
+                    continue;
+                }
+                if (n == values.length) {
+                    times = Arrays.copyOf(times, n * 2);
+                    values = Arrays.copyOf(values, n * 2);
+                }
+                times[n] = history.times[row];
+                values[n++] = columnValues[row];
+            }
+            return new Series(Arrays.copyOf(times, n), Arrays.copyOf(values, n));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count, range, mean and standard deviation of {@code column} in
+     * [{@code fromNanos}, {@code toNanos}].
+     *
+     * @param deviceId device to restrict to, or null for all
+     */
+    public Stats stats(Column column, String deviceId, long fromNanos, long toNanos) {
+        Stats stats = new Stats();
+        stats.parameter = column.key;
+        stats.deviceId = deviceId;
+        lock.readLock().lock();
+        try {
+            int device = deviceId != null ? devices.find(deviceId) : -1;
+            if (deviceId != null && device < 0) {
+                return stats;
+            }
+            double[] values = history.values[column.ordinal()];
+            long count = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double mean = 0;
+            double m2 = 0;
+            double last = Double.NaN;
+            for (int i = lowerBound(fromNanos); i < size; i++) {
+                int row = physical(i);
+                if (history.times[row] > toNanos) {
+                    break;
+                }
+                if ((history.present[row] & column.bit) == 0 || (device >= 0 && history.devices[row] != device)) {
+                    continue;
+                }
+                double value = values[row];
+                count++;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                // Welford's update
+                double delta = value - mean;
+                mean += delta / count;
+                m2 += delta * (value - mean);
+                last = value;
+            }
+            stats.count = count;
+            if (count > 0) {
+                stats.min = min;
+                stats.max = max;
+                stats.mean = mean;
+                stats.stdDev = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+                stats.latest = last;
+            }
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The newest reading of a device, whether or not it is still in the ring.
+     */
+    public Optional<SensorReading> latest(String deviceId) {
+        lock.readLock().lock();
+        try {
+            int device = devices.find(deviceId);
+            if (device < 0 || device >= latest.capacity() || latestIds[device] == null) {
+                return Optional.empty();
+            }
+            return Optional.of(materialise(latest, device, latestIds[device]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The newest reading of every known device, newest first.
+     */
+    public List<SensorReading> latestOfAllDevices() {
+        lock.readLock().lock();
+        try {
+            Integer[] order = new Integer[devices.size()];
+            int n = 0;
+            for (int device = 0; device < devices.size(); device++) {
+                if (latestIds[device] != null) {
+                    order[n++] = device;
+                }
+            }
+            Arrays.sort(order, 0, n, (a, b) -> Long.compare(latest.times[b], latest.times[a]));
+            List<SensorReading> readings = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                readings.add(materialise(latest, order[i], latestIds[order[i]]));
+            }
+            return readings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the newest readings in the ring, newest first.
+     * Ids are not kept per row, so the materialised readings have none.
+     */
+    public List<SensorReading> recent(int limit) {
+        lock.readLock().lock();
+        try {
+            int n = Math.min(Math.max(limit, 0), size);
+            List<SensorReading> readings = new ArrayList<>(n);
+            for (int i = size - 1; i >= size - n; i--) {
+                readings.add(materialise(history, physical(i), null));
+            }
+            return readings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void append(SensorReading reading) {
+        if (reading.getTimestamp() == null || reading.getSensorId() == null) {
+            return;
+        }
+        long time = nanos(reading.getTimestamp());
+        int device = devices.intern(reading.getSensorId());
+        int location = locations.intern(reading.getLocation());
+        byte quality = qualityCode(reading.getQualityStatus());
+        int mask = extract(reading);
+        updateLatest(device, reading.getId(), time, location, quality, mask);
+        insert(time, device, location, quality, mask);
+    }
+
+    private void appendLatest(SensorReading reading) {
+        if (reading.getTimestamp() == null || reading.getSensorId() == null) {
+            return;
+        }
+        int mask = extract(reading);
+        updateLatest(devices.intern(reading.getSensorId()), reading.getId(), nanos(reading.getTimestamp()),
+                locations.intern(reading.getLocation()), qualityCode(reading.getQualityStatus()), mask);
+    }
+
+    /**
+     * Copy the reading's parameters into the scratch row and return the presence mask.
+     */
+    private int extract(SensorReading reading) {
+        int mask = 0;
+        for (Column column : COLUMNS) {
+            Double value = column.getter.apply(reading);
+            if (value != null && !value.isNaN()) {
+                scratch[column.ordinal()] = value;
+                mask |= column.bit;
+            } else {
+                scratch[column.ordinal()] = 0;
+            }
+        }
+        return mask;
+    }
+
+    private void updateLatest(int device, String id, long time, int location, byte quality, int mask) {
+        if (device >= latest.capacity()) {
+            Rows grown = new Rows(Math.max(device + 1, latest.capacity() * 2));
+            for (int d = 0; d < latest.capacity(); d++) {
+                latest.copy(d, grown, d);
+            }
+            latest = grown;
+            latestIds = Arrays.copyOf(latestIds, grown.capacity());
+        }
+        if (latestIds[device] != null && latest.times[device] > time) {
+            return;
+        }
+        latest.set(device, time, device, location, quality, mask, scratch);
+        latestIds[device] = id != null ? id : "";
+    }
+
+    private void insert(long time, int device, int location, byte quality, int mask) {
+        if (size == history.capacity() || size >= maxRows) {
+            if (size < maxRows) {
+                grow(Math.min(maxRows, history.capacity() * 2));
+            } else {
+                if (time < history.times[physical(0)]) {
+                    coveredFrom = Math.max(coveredFrom, time + 1);
+                    return;
+                }
+                // Evicting the oldest row drops completeness up to and including its time
+                coveredFrom = Math.max(coveredFrom, history.times[physical(0)] + 1);
+                head = (head + 1) % history.capacity();
+                size--;
+            }
+        }
+        // Readings nearly always arrive in order, so the position is found from the end
+        int at = size;
+        while (at > 0 && history.times[physical(at - 1)] > time) {
+            at--;
+        }
+        for (int i = size; i > at; i--) {
+            history.copy(physical(i - 1), history, physical(i));
+        }
+        history.set(physical(at), time, device, location, quality, mask, scratch);
+        size++;
+    }
+
+    private void grow(int capacity) {
+        Rows grown = new Rows(capacity);
+        for (int i = 0; i < size; i++) {
+            history.copy(physical(i), grown, i);
+        }
+        history = grown;
+        head = 0;
+    }
+
+    private int physical(int index) {
+        int row = head + index;
+        return row >= history.capacity() ? row - history.capacity() : row;
+    }
+
+    /**
+     * First logical index whose time is at or after {@code time}.
+     */
+    private int lowerBound(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (history.times[physical(mid)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private SensorReading materialise(Rows rows, int row, String id) {
+        SensorReading reading = new SensorReading();
+        reading.setId(id == null || id.isEmpty() ? null : id);
+        reading.setSensorId(devices.value(rows.devices[row]));
+        reading.setLocation(locations.value(rows.locations[row]));
+        reading.setTimestamp(timestamp(rows.times[row]));
+        reading.setQualityStatus(qualityLabel(rows.qualities[row]));
+        for (Column column : COLUMNS) {
+            if ((rows.present[row] & column.bit) != 0) {
+                column.setter.accept(reading, rows.values[column.ordinal()][row]);
+            }
+        }
+        return reading;
+    }
+
+    private byte qualityCode(String label) {
+        if (label == null) {
+            return (byte) Quality.NONE.ordinal();
+        }
+        Byte code = QUALITY_CODES.get(label);
+        if (code != null) {
+            return code;
+        }
+        int other = otherQualities.find(label);
+        if (other < 0 && QUALITIES.length + otherQualities.size() <= Byte.MAX_VALUE) {
+            other = otherQualities.intern(label);
+        }
+        return other >= 0 ? (byte) (QUALITIES.length + other) : (byte) Quality.UNKNOWN.ordinal();
+    }
+
+    private String qualityLabel(byte code) {
+        return code < QUALITIES.length ? QUALITIES[code].label : otherQualities.value(code - QUALITIES.length);
+    }
+
+    public static long nanos(Timestamp timestamp) {
+        return timestamp.getSeconds() * NANOS_PER_SECOND + timestamp.getNanos();
+    }
+
+    public static Timestamp timestamp(long nanos) {
+        return Timestamp.ofTimeSecondsAndNanos(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    static Double batteryVoltage(SensorReading reading) {
+        String notes = reading.getNotes();
+        int start = notes != null ? notes.indexOf(BATTERY_PREFIX) : -1;
+        if (start < 0) {
+            return null;
+        }
+        start += BATTERY_PREFIX.length();
+        int end = notes.indexOf('V', start);
+        if (end <= start) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(notes.substring(start, end).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static void setBatteryVoltage(SensorReading reading, Double voltage) {
+        reading.setNotes(BATTERY_PREFIX + voltage + "V");
+    }
+}
@@ -1,10 +1,13 @@
 package com.arogyajal.service;
 
 import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.GeoPoint;
 import com.arogyajal.model.SensorReading;
 import com.arogyajal.repository.SensorRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.google.cloud.Timestamp;
@@ -20,10 +23,20 @@ public class SensorService {
     private static final Logger log = LoggerFactory.getLogger(SensorService.class);
     private final SensorRepository sensorRepository;
     private final MLPredictionService mlPredictionService;
+    private final AlertService alertService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SensorReadingStore readingStore;
+    private final DeviceReadingBuffers deviceBuffers;
     
-    public SensorService(SensorRepository sensorRepository, MLPredictionService mlPredictionService) {
+    public SensorService(SensorRepository sensorRepository, MLPredictionService mlPredictionService,
+                         AlertService alertService, ApplicationEventPublisher eventPublisher,
+                         SensorReadingStore readingStore, DeviceReadingBuffers deviceBuffers) {
         this.sensorRepository = sensorRepository;
         this.mlPredictionService = mlPredictionService;
+        this.alertService = alertService;
+        this.eventPublisher = eventPublisher;
+        this.readingStore = readingStore;
+        this.deviceBuffers = deviceBuffers;
     }
     
     /**
@@ -67,6 +80,8 @@ public class SensorService {
             // Set location if available
             if (sensorData.getLocation() != null) {
                 reading.setLocation(sensorData.getLocation().getLat() + "," + sensorData.getLocation().getLon());
+                reading.setLatitude(sensorData.getLocation().getLat());
+                reading.setLongitude(sensorData.getLocation().getLon());
             }
             
             // Set sensor readings if available
@@ -104,6 +119,7 @@ public class SensorService {
                     
                     if (prediction.isSuccess()) {
                         reading.setQualityStatus(prediction.getQualityStatus());
+                        reading.setWqi(prediction.getWqi());
                         log.info("ML Prediction - WQI: {}, Status: {}", prediction.getWqi(), prediction.getQualityStatus());
                     } else {
                         reading.setQualityStatus("UNKNOWN");
@@ -136,8 +152,18 @@ public class SensorService {
             // Save to database with a generated document ID
             String documentId = UUID.randomUUID().toString();
             sensorRepository.save(reading, documentId);
+            reading.setId(documentId);
             log.info("Saved sensor data for device: {} with ID: {}", deviceId, documentId);
             
+            // Threshold checks; repeated breaches are folded into one alert per sensor parameter
+            alertService.checkForWaterQualityAlerts(reading);
+            // Listeners run on this thread; the reading is stored whatever they do
+            try {
+                eventPublisher.publishEvent(new SensorReadingIngestedEvent(reading, sensorData));
+            } catch (Exception e) {
+                log.error("Error handling ingested reading {} of device {}", documentId, deviceId, e);
+            }
+            
             return sensorData;
             
         } catch (Exception e) {
@@ -151,6 +177,10 @@ public class SensorService {
      * @return The most recent sensor data, or null if no data is available
      */
     public SensorData getLatestSensorData() {
+        if (readingStore.isReady()) {
+            List<SensorReading> latest = readingStore.latestOfAllDevices();
+            return latest.isEmpty() ? null : convertToSensorData(latest.get(0));
+        }
         try {
             // First try to get all device IDs
             List<String> deviceIds = getDistinctDeviceIds();
@@ -211,6 +241,10 @@ public class SensorService {
      * @return The sensor data for the specified device, or null if not found
      */
     public SensorData getSensorDataByDeviceId(String deviceId) {
+        Optional<SensorReading> stored = readingStore.isReady() ? readingStore.latest(deviceId) : Optional.empty();
+        if (stored.isPresent()) {
+            return convertToSensorData(stored.get());
+        }
         try {
             log.info("Fetching sensor data for device: {}", deviceId);
             List<SensorReading> readings = sensorRepository.findBySensorId(deviceId);
@@ -297,6 +331,80 @@ public class SensorService {
         }
     }
     
+    /**
+     * Count, range, mean and standard deviation of one parameter over the last
+     * {@code hours}, scanned from the in-memory reading store
+     * @param parameter Reading field, e.g. ph or dissolvedOxygen
+     * @param deviceId Device to restrict to, or null for all
+     * @param hours Window length
+     * @return The statistics, or null while the store does not hold the whole window
+     */
+    public SensorReadingStore.Stats getWindowStatistics(String parameter, String deviceId, int hours) {
+        SensorReadingStore.Column column = SensorReadingStore.Column.of(parameter)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown parameter: " + parameter));
+        if (hours <= 0) {
+            throw new IllegalArgumentException("'hours' must be positive");
+        }
+        long to = SensorReadingStore.nanos(Timestamp.now());
+        long from = to - hours * 3_600_000_000_000L;
+        if (!readingStore.covers(from)) {
+            return null;
+        }
+        return readingStore.stats(column, deviceId, from, to);
+    }
+    
+    /**
+     * One parameter of a device over the last {@code minutes}, oldest first,
+     * from the device's ring buffer when it holds the window, else from the
+     * reading store or Firestore
+     * @param sensorId The sensor ID
+     * @param parameter Reading field, e.g. ph or turbidity
+     * @param minutes Window length, at most the reading store's retention
+     * @return Times in epoch nanoseconds and the matching values
+     */
+    public SensorReadingStore.Series getDeviceTrend(String sensorId, String parameter, int minutes) {
+        SensorReadingStore.Column column = SensorReadingStore.Column.of(parameter)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown parameter: " + parameter));
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("'minutes' must be positive");
+        }
+        int maxMinutes = readingStore.getRetentionHours() * 60;
+        if (minutes > maxMinutes) {
+            throw new IllegalArgumentException("'minutes' must not exceed " + maxMinutes);
+        }
+        Timestamp end = Timestamp.now();
+        long to = SensorReadingStore.nanos(end);
+        long from = to - minutes * 60_000_000_000L;
+        Optional<SensorReadingStore.Series> buffered = deviceBuffers.series(sensorId, column, from, to);
+        if (buffered.isPresent()) {
+            return buffered.get();
+        }
+        if (readingStore.covers(from)) {
+            return readingStore.series(column, sensorId, from, to);
+        }
+        try {
+            List<SensorReading> readings = sensorRepository.findBySensorIdAndTimestampBetween(
+                sensorId, SensorReadingStore.timestamp(from), end);
+            List<SensorReading> withValue = new ArrayList<>();
+            for (int i = readings.size() - 1; i >= 0; i--) {
+                Double value = column.getter.apply(readings.get(i));
+                if (value != null && !value.isNaN() && readings.get(i).getTimestamp() != null) {
+                    withValue.add(readings.get(i));
+                }
+            }
+            long[] times = new long[withValue.size()];
+            double[] values = new double[withValue.size()];
+            for (int i = 0; i < withValue.size(); i++) {
+                times[i] = SensorReadingStore.nanos(withValue.get(i).getTimestamp());
+                values[i] = column.getter.apply(withValue.get(i));
+            }
+            return new SensorReadingStore.Series(times, values);
+        } catch (Exception e) {
+            log.error("Error retrieving trend for sensor {}: {}", sensorId, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve trend for sensor: " + sensorId, e);
+        }
+    }
+    
     /**
      * Get sensor reading by ID
      * @param id The ID of the sensor reading to retrieve
@@ -317,6 +425,10 @@ public class SensorService {
      * @return List of sensor readings for the specified sensor
      */
     public List<SensorReading> getReadingsBySensorId(String sensorId) {
+        Optional<List<SensorReading>> buffered = deviceBuffers.history(sensorId);
+        if (buffered.isPresent()) {
+            return buffered.get();
+        }
         try {
             return sensorRepository.findBySensorId(sensorId);
         } catch (Exception e) {
@@ -331,6 +443,12 @@ public class SensorService {
      * @return List of recent sensor data
      */
     public List<SensorData> getRecentReadings(int limit) {
+        // The store holds every reading since its coverage start, so its newest rows are the newest overall
+        if (readingStore.isReady() && readingStore.size() >= limit) {
+            return readingStore.recent(limit).stream()
+                .map(this::convertToSensorData)
+                .collect(Collectors.toList());
+        }
         try {
             List<SensorReading> allReadings = sensorRepository.findAll();
             
@@ -360,6 +478,14 @@ public class SensorService {
      * @return Optional containing the latest sensor reading if found, empty otherwise
      */
     public Optional<SensorReading> getLatestReadingBySensorId(String sensorId) {
+        Optional<SensorReading> buffered = deviceBuffers.latest(sensorId);
+        if (buffered.isPresent()) {
+            return buffered;
+        }
+        Optional<SensorReading> stored = readingStore.isReady() ? readingStore.latest(sensorId) : Optional.empty();
+        if (stored.isPresent()) {
+            return stored;
+        }
         try {
             List<SensorReading> readings = sensorRepository.findBySensorId(sensorId);
             if (readings.isEmpty()) {
@@ -524,19 +650,12 @@ public class SensorService {
         sensorData.setTimestamp(reading.getTimestamp());
         
         // Set location (default to null if not available)
-        if (reading.getLocation() != null) {
-            try {
-                // Assuming location is stored as "lat,lon" in the database
-                String[] latLon = reading.getLocation().split(",");
-                if (latLon.length == 2) {
-                    SensorData.Location location = new SensorData.Location();
-                    location.setLat(Double.parseDouble(latLon[0].trim()));
-                    location.setLon(Double.parseDouble(latLon[1].trim()));
-                    sensorData.setLocation(location);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to parse location: " + reading.getLocation(), e);
-            }
+        // Typed coordinates; only older documents need the "lat,lon" string parsed
+        GeoPoint point = GeoPoint.of(reading);
+        if (point != null) {
+            sensorData.setLocation(new SensorData.Location(point.lat(), point.lon()));
+        } else if (reading.getLocation() != null) {
+            log.warn("Failed to parse location: {}", reading.getLocation());
         }
         
         // Set sensor readings
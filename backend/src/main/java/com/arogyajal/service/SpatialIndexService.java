@@ -0,0 +1,390 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.GeoPoint;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.Geohash;
+import com.arogyajal.util.QuadTree;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory spatial index of sensors (at their latest position) and symptom
+ * reports, with per-geohash-cell aggregates for map tiles.
+ *
+ * Points live in quadtrees for bounding-box and nearest-neighbour queries. For
+ * every geohash precision up to {@code max-tile-precision} each cell keeps its
+ * sensor and report counts and the WQI of every sensor in it, so the worst WQI
+ * is at hand. Ingest and report events adjust only the cells a point leaves
+ * and enters; a tile request reads the cells of one precision that cover its
+ * box. Reports older than {@code report-retention-days} are evicted from the
+ * tree and the cells in the background.
+ *
+ * Filled from the shared cold-start load of {@link LocationAggregateView}.
+ */
+@Component
+public class SpatialIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SpatialIndexService.class);
+
+    @Value("${arogyajal.spatial.node-capacity:16}")
+    private int nodeCapacity = 16;
+
+    @Value("${arogyajal.spatial.max-tile-precision:8}")
+    private int maxTilePrecision = 8;
+
+    @Value("${arogyajal.spatial.report-retention-days:30}")
+    private int reportRetentionDays = 30;
+
+    @Value("${arogyajal.spatial.evict-interval-minutes:10}")
+    private long evictIntervalMinutes = 10;
+
+    private final LocationAggregateView locationAggregateView;
+
+    // Guarded by "this"
+    private QuadTree<String> sensorTree;
+    private QuadTree<String> reportTree;
+    private final Map<String, SensorPoint> sensors = new HashMap<>();
+    private final Map<String, ReportPoint> reports = new HashMap<>();
+    private List<Map<String, TileCell>> tiles;
+    private long version;
+    private ScheduledExecutorService evictor;
+
+    public SpatialIndexService(LocationAggregateView locationAggregateView) {
+        this.locationAggregateView = locationAggregateView;
+    }
+
+    public record SensorPoint(String deviceId, double lat, double lon, Double wqi, String qualityStatus,
+                              String location) {
+    }
+
+    public record ReportPoint(String reportId, double lat, double lon, String severity, LocalDateTime reportedAt) {
+    }
+
+    public record Nearby<T>(T item, double distanceMeters) {
+    }
+
+    /**
+     * Aggregates of one geohash cell.
+     */
+    public static class Tile {
+        public String geohash;
+        public double lat;
+        public double lon;
+        public int sensorCount;
+        public int reportCount;
+        public int severeReportCount;
+        /** Lowest latest WQI of the cell's sensors, null if none has one. */
+        public Double worstWqi;
+    }
+
+    private static final class TileCell {
+        int sensors;
+        int reports;
+        int severeReports;
+        final TreeMap<Double, Integer> wqis = new TreeMap<>();
+
+        boolean isEmpty() {
+            return sensors == 0 && reports == 0;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "spatial-index-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictExpired, evictIntervalMinutes, evictIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    private synchronized void ensureInitialized() {
+        if (tiles == null) {
+            sensorTree = new QuadTree<>(nodeCapacity);
+            reportTree = new QuadTree<>(nodeCapacity);
+            tiles = new ArrayList<>(maxTilePrecision);
+            for (int p = 1; p <= maxTilePrecision; p++) {
+                tiles.add(new HashMap<>());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocationAggregateView.ColdStart data = locationAggregateView.coldStart().join();
+            synchronized (this) {
+                ensureInitialized();
+                for (SensorReading reading : data.latestReadings()) {
+                    // Readings that arrived during warm-up are newer
+                    if (reading.getSensorId() != null && !sensors.containsKey(reading.getSensorId())) {
+                        updateSensor(reading);
+                    }
+                }
+                data.symptomReports().forEach(this::addReport);
+            }
+            log.info("Spatial index warmed with {} sensors and {} symptom reports", getSensorCount(), getReportCount());
+        } catch (Exception e) {
+            log.warn("Failed to warm spatial index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public synchronized void onSensorReading(SensorReadingIngestedEvent event) {
+        if (event.getReading() != null && event.getReading().getSensorId() != null) {
+            ensureInitialized();
+            updateSensor(event.getReading());
+        }
+    }
+
+    @EventListener
+    public synchronized void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        ensureInitialized();
+        addReport(event.getReport());
+    }
+
+    private void updateSensor(SensorReading reading) {
+        GeoPoint point = GeoPoint.of(reading);
+        if (point == null) {
+            return;
+        }
+        SensorPoint previous = sensors.get(reading.getSensorId());
+        if (previous != null) {
+            countSensor(previous, -1);
+        }
+        SensorPoint current = new SensorPoint(reading.getSensorId(), point.lat(), point.lon(), reading.getWqi(),
+                reading.getQualityStatus(), reading.getLocation());
+        sensors.put(current.deviceId(), current);
+        sensorTree.put(current.deviceId(), current.lat(), current.lon());
+        countSensor(current, 1);
+        version++;
+    }
+
+    private void addReport(SymptomReport report) {
+        GeoPoint point = GeoPoint.of(report);
+        if (report.getId() == null || point == null || reports.containsKey(report.getId())) {
+            return;
+        }
+        // A report without a time is dated when indexed, so that it is evicted in turn
+        LocalDateTime reportedAt = report.getReportedAt() != null ? report.getReportedAt() : LocalDateTime.now();
+        if (reportedAt.isBefore(retentionCutoff())) {
+            return;
+        }
+        ReportPoint current = new ReportPoint(report.getId(), point.lat(), point.lon(), report.getSeverity(),
+                reportedAt);
+        reports.put(current.reportId(), current);
+        reportTree.put(current.reportId(), current.lat(), current.lon());
+        countReport(current, 1);
+        version++;
+    }
+
+    private void countReport(ReportPoint report, int delta) {
+        boolean severe = "SEVERE".equalsIgnoreCase(report.severity());
+        for (int p = 1; p <= maxTilePrecision; p++) {
+            Map<String, TileCell> level = tiles.get(p - 1);
+            String hash = Geohash.encode(report.lat(), report.lon(), p);
+            TileCell cell = level.computeIfAbsent(hash, k -> new TileCell());
+            cell.reports += delta;
+            if (severe) {
+                cell.severeReports += delta;
+            }
+            if (cell.isEmpty()) {
+                level.remove(hash);
+            }
+        }
+    }
+
+    private LocalDateTime retentionCutoff() {
+        return LocalDateTime.now().minusDays(reportRetentionDays);
+    }
+
+    /**
+     * Drop reports older than the retention from the tree and the cells.
+     */
+    synchronized void evictExpired() {
+        if (tiles == null) {
+            return;
+        }
+        LocalDateTime cutoff = retentionCutoff();
+        int evicted = 0;
+        Iterator<ReportPoint> it = reports.values().iterator();
+        while (it.hasNext()) {
+            ReportPoint report = it.next();
+            if (report.reportedAt().isBefore(cutoff)) {
+                it.remove();
+                reportTree.remove(report.reportId());
+                countReport(report, -1);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            version++;
+            log.debug("Evicted {} symptom reports from the spatial index", evicted);
+        }
+    }
+
+    private void countSensor(SensorPoint sensor, int delta) {
+        for (int p = 1; p <= maxTilePrecision; p++) {
+            Map<String, TileCell> level = tiles.get(p - 1);
+            String hash = Geohash.encode(sensor.lat(), sensor.lon(), p);
+            TileCell cell = level.computeIfAbsent(hash, k -> new TileCell());
+            cell.sensors += delta;
+            if (sensor.wqi() != null) {
+                cell.wqis.merge(sensor.wqi(), delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+            if (cell.isEmpty()) {
+                level.remove(hash);
+            }
+        }
+    }
+
+    public synchronized List<SensorPoint> sensorsWithin(double minLat, double minLon, double maxLat, double maxLon) {
+        ensureInitialized();
+        return sensorTree.within(minLat, minLon, maxLat, maxLon).stream().map(sensors::get).toList();
+    }
+
+    public synchronized List<ReportPoint> reportsWithin(double minLat, double minLon, double maxLat, double maxLon) {
+        ensureInitialized();
+        return reportTree.within(minLat, minLon, maxLat, maxLon).stream().map(reports::get).toList();
+    }
+
+    /**
+     * Up to {@code k} sensors nearest to (lat, lon) within {@code maxDistanceMeters}, closest first.
+     */
+    public synchronized List<Nearby<SensorPoint>> nearestSensors(double lat, double lon, int k, double maxDistanceMeters) {
+        ensureInitialized();
+        return sensorTree.nearest(lat, lon, k, maxDistanceMeters).stream()
+                .map(n -> new Nearby<>(sensors.get(n.key()), n.distanceMeters())).toList();
+    }
+
+    public synchronized List<Nearby<ReportPoint>> nearestReports(double lat, double lon, int k, double maxDistanceMeters) {
+        ensureInitialized();
+        return reportTree.nearest(lat, lon, k, maxDistanceMeters).stream()
+                .map(n -> new Nearby<>(reports.get(n.key()), n.distanceMeters())).toList();
+    }
+
+    /**
+     * Aggregates of the cells whose centre lies in the box, at the geohash
+     * precision for {@code zoom}. Only the cells covering the box are looked
+     * up, unless the box spans more cells than the level holds.
+     */
+    public synchronized List<Tile> tiles(int zoom, double minLat, double minLon, double maxLat, double maxLon) {
+        ensureInitialized();
+        int precision = precisionForZoom(zoom);
+        Map<String, TileCell> level = tiles.get(precision - 1);
+        double height = Geohash.cellHeightDegrees(precision);
+        double width = Geohash.cellWidthDegrees(precision);
+        // Rows and columns of the grid whose centres can fall in the box
+        long firstRow = (long) Math.floor((Math.max(-90, minLat) + 90) / height);
+        long lastRow = Math.min((long) Math.floor((Math.min(90, maxLat) + 90) / height), Math.round(180 / height) - 1);
+        long firstColumn = (long) Math.floor((Math.max(-180, minLon) + 180) / width);
+        long lastColumn = Math.min((long) Math.floor((Math.min(180, maxLon) + 180) / width), Math.round(360 / width) - 1);
+        long covering = Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastColumn - firstColumn + 1);
+
+        List<Tile> result = new ArrayList<>();
+        if (covering <= level.size()) {
+            for (long row = firstRow; row <= lastRow; row++) {
+                for (long column = firstColumn; column <= lastColumn; column++) {
+                    String hash = Geohash.encode(-90 + (row + 0.5) * height, -180 + (column + 0.5) * width, precision);
+                    TileCell cell = level.get(hash);
+                    if (cell != null) {
+                        addTile(result, hash, cell, minLat, minLon, maxLat, maxLon);
+                    }
+                }
+            }
+        } else {
+            level.forEach((hash, cell) -> addTile(result, hash, cell, minLat, minLon, maxLat, maxLon));
+        }
+        result.sort(Comparator.comparing(t -> t.geohash));
+        return result;
+    }
+
+    private static void addTile(List<Tile> result, String hash, TileCell cell,
+                                double minLat, double minLon, double maxLat, double maxLon) {
+        double[] bounds = Geohash.bounds(hash);
+        double lat = (bounds[0] + bounds[2]) / 2;
+        double lon = (bounds[1] + bounds[3]) / 2;
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+            return;
+        }
+        Tile tile = new Tile();
+        tile.geohash = hash;
+        tile.lat = lat;
+        tile.lon = lon;
+        tile.sensorCount = cell.sensors;
+        tile.reportCount = cell.reports;
+        tile.severeReportCount = cell.severeReports;
+        tile.worstWqi = cell.wqis.isEmpty() ? null : cell.wqis.firstKey();
+        result.add(tile);
+    }
+
+    /**
+     * Geohash precision giving roughly eight or more cells across a web map
+     * tile at {@code zoom}: a tile spans 360 / 2^zoom degrees of longitude and a
+     * cell of precision p spans 360 / 2^ceil(5p / 2).
+     */
+    int precisionForZoom(int zoom) {
+        int precision = (int) Math.ceil(2.0 * (Math.max(0, zoom) + 3) / 5);
+        return Math.max(1, Math.min(maxTilePrecision, precision));
+    }
+
+    /**
+     * Bounds of web map tile (zoom, x, y) as {minLat, minLon, maxLat, maxLon}.
+     */
+    public static double[] tileBounds(int zoom, int x, int y) {
+        double n = 1L << zoom;
+        if (zoom < 0 || zoom > 30 || x < 0 || y < 0 || x >= n || y >= n) {
+            throw new IllegalArgumentException("Invalid tile " + zoom + "/" + x + "/" + y);
+        }
+        double minLon = x / n * 360 - 180;
+        double maxLon = (x + 1) / n * 360 - 180;
+        double maxLat = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / n))));
+        double minLat = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * (y + 1) / n))));
+        return new double[]{minLat, minLon, maxLat, maxLon};
+    }
+
+    public synchronized List<SensorPoint> getSensors() {
+        return List.copyOf(sensors.values());
+    }
+
+    public synchronized List<ReportPoint> getReports() {
+        return List.copyOf(reports.values());
+    }
+
+    /**
+     * Incremented on every change to the indexed sensors or reports.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getSensorCount() {
+        return sensors.size();
+    }
+
+    public synchronized int getReportCount() {
+        return reports.size();
+    }
+}
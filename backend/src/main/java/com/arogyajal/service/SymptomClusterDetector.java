@@ -0,0 +1,291 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SymptomRepository;
+import com.arogyajal.util.SlidingWindowCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental symptom cluster detection.
+ *
+ * Every saved report is counted into a per-location ring of time buckets (and one
+ * ring per symptom), so the window total is available in O(1) and a cluster alert
+ * fires as soon as a report pushes a location over {@code minimum-reports}.
+ * Firestore is only read once at startup to warm the windows.
+ */
+@Component
+public class SymptomClusterDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(SymptomClusterDetector.class);
+
+    @Value("${alerts.symptom-cluster.time-window-hours:24}")
+    private int timeWindowHours;
+
+    @Value("${alerts.symptom-cluster.minimum-reports:5}")
+    private int minimumReports;
+
+    @Value("${alerts.symptom-cluster.severity-threshold:MODERATE}")
+    private String severityThreshold;
+
+    @Value("${alerts.symptom-cluster.bucket-minutes:60}")
+    private int bucketMinutes;
+
+    // Report ids kept per location for relatedSymptomReportIds
+    @Value("${alerts.symptom-cluster.max-related-reports:100}")
+    private int maxRelatedReports;
+
+    private final AlertService alertService;
+    private final SymptomRepository symptomRepository;
+    private final Map<String, LocationWindow> windows = new ConcurrentHashMap<>();
+
+    public SymptomClusterDetector(AlertService alertService, SymptomRepository symptomRepository) {
+        this.alertService = alertService;
+        this.symptomRepository = symptomRepository;
+    }
+
+    private class LocationWindow {
+        final SlidingWindowCounter reports = newCounter();
+        final Map<String, SlidingWindowCounter> bySymptom = new HashMap<>();
+        final ArrayDeque<RecentReport> recentReports = new ArrayDeque<>();
+        boolean armed = true;
+        long lastFiredAt;
+    }
+
+    private static class RecentReport {
+        final long time;
+        final String id;
+
+        RecentReport(long time, String id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Count a newly saved report and raise a cluster alert if it completes one.
+     */
+    public void record(SymptomReport report) {
+        record(report, true, System.currentTimeMillis());
+    }
+
+    void record(SymptomReport report, long now) {
+        record(report, true, now);
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        if (!event.isBatched()) {
+            record(event.getReport());
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportsBatchSaved(SymptomReportsBatchSavedEvent event) {
+        recordBatch(event.getReports());
+    }
+
+    /**
+     * Replay the reports of the current window once the application is up, so a
+     * restart does not reset the counts. Locations already over the threshold are
+     * treated as alerted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime end = LocalDateTime.now();
+            List<SymptomReport> reports = symptomRepository
+                    .findByReportedAtBetweenOrderByReportedAtDesc(end.minusHours(timeWindowHours), end);
+            long now = System.currentTimeMillis();
+            for (int i = reports.size() - 1; i >= 0; i--) {
+                record(reports.get(i), false, now);
+            }
+            log.info("Symptom cluster windows warmed with {} reports across {} locations",
+                    reports.size(), windows.size());
+        } catch (Exception e) {
+            log.warn("Failed to warm symptom cluster windows: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Number of qualifying reports for a location inside the current window.
+     */
+    public long getRecentReportCount(String location) {
+        LocationWindow window = location != null ? windows.get(location.trim()) : null;
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.reports.total(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Qualifying reports per symptom for a location inside the current window.
+     */
+    public Map<String, Long> getRecentSymptomCounts(String location) {
+        LocationWindow window = location != null ? windows.get(location.trim()) : null;
+        if (window == null) {
+            return Collections.emptyMap();
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Long> counts = new HashMap<>();
+        synchronized (window) {
+            window.bySymptom.forEach((symptom, counter) -> {
+                long count = counter.total(now);
+                if (count > 0) {
+                    counts.put(symptom, count);
+                }
+            });
+        }
+        return counts;
+    }
+
+    private void record(SymptomReport report, boolean fire, long now) {
+        String location = count(report, now);
+        if (location != null) {
+            evaluate(location, fire, now);
+        }
+    }
+
+    /**
+     * Count a synced batch, then check each location it touched once, so a
+     * batch raises at most one alert per location.
+     */
+    public void recordBatch(List<SymptomReport> reports) {
+        long now = System.currentTimeMillis();
+        Set<String> touched = new LinkedHashSet<>();
+        for (SymptomReport report : reports) {
+            String location = count(report, now);
+            if (location != null) {
+                touched.add(location);
+            }
+        }
+        touched.forEach(location -> evaluate(location, true, now));
+    }
+
+    /**
+     * Add a qualifying report to its location's window.
+     *
+     * @return the location, or null if the report does not count
+     */
+    private String count(SymptomReport report, long now) {
+        if (report == null || report.getLocation() == null || severityRank(report.getSeverity()) < severityRank(severityThreshold)) {
+            return null;
+        }
+        String location = report.getLocation().trim();
+        long time = report.getReportedAt() != null
+                ? report.getReportedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : now;
+        long windowMillis = timeWindowHours * 3_600_000L;
+
+        LocationWindow window = windows.computeIfAbsent(location, k -> new LocationWindow());
+        synchronized (window) {
+            window.reports.add(time, 1);
+            if (report.getSymptoms() != null) {
+                for (String symptom : report.getSymptoms()) {
+                    if (symptom != null) {
+                        window.bySymptom.computeIfAbsent(symptom.trim().toUpperCase(), k -> newCounter()).add(time, 1);
+                    }
+                }
+            }
+            if (report.getId() != null) {
+                window.recentReports.addLast(new RecentReport(time, report.getId()));
+            }
+            while (!window.recentReports.isEmpty()
+                    && (window.recentReports.peekFirst().time < now - windowMillis
+                        || window.recentReports.size() > maxRelatedReports)) {
+                window.recentReports.pollFirst();
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Raise a cluster alert for the location if its window has crossed the
+     * threshold since the last one.
+     */
+    private void evaluate(String location, boolean fire, long now) {
+        LocationWindow window = windows.get(location);
+        long windowMillis = timeWindowHours * 3_600_000L;
+        long total;
+        List<String> relatedIds = null;
+        String dominantSymptoms = null;
+        synchronized (window) {
+            total = window.reports.total(now);
+            if (total < minimumReports || now - window.lastFiredAt >= windowMillis) {
+                window.armed = true;
+            }
+            if (window.armed && total >= minimumReports) {
+                window.armed = false;
+                window.lastFiredAt = now;
+                if (fire) {
+                    relatedIds = new ArrayList<>(window.recentReports.size());
+                    for (RecentReport recent : window.recentReports) {
+                        relatedIds.add(recent.id);
+                    }
+                    dominantSymptoms = topSymptoms(window, now);
+                }
+            }
+        }
+
+        if (relatedIds != null) {
+            log.info("Symptom cluster detected in {}: {} reports in the last {} hours", location, total, timeWindowHours);
+            String description = String.format("High number of symptom reports (%d) in the last %d hours in %s%s",
+                    total, timeWindowHours, location, dominantSymptoms.isEmpty() ? "" : " (" + dominantSymptoms + ")");
+            try {
+                alertService.createSymptomClusterAlert(location, relatedIds, description);
+            } catch (Exception e) {
+                log.error("Error creating symptom cluster alert for location: " + location, e);
+            }
+        }
+    }
+
+    private String topSymptoms(LocationWindow window, long now) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        window.bySymptom.forEach((symptom, counter) -> {
+            long count = counter.total(now);
+            if (count > 0) {
+                counts.add(Map.entry(symptom, count));
+            }
+        });
+        counts.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < Math.min(3, counts.size()); i++) {
+            joiner.add(counts.get(i).getKey() + ": " + counts.get(i).getValue());
+        }
+        return joiner.toString();
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(timeWindowHours * 3_600_000L, bucketMinutes * 60_000L);
+    }
+
+    private static int severityRank(String severity) {
+        if (severity == null) {
+            return 1;
+        }
+        switch (severity.trim().toUpperCase()) {
+            case "MILD":
+            case "LOW":
+                return 0;
+            case "SEVERE":
+            case "HIGH":
+            case "CRITICAL":
+                return 2;
+            default:
+                return 1; // MODERATE and anything unrecognised
+        }
+    }
+}
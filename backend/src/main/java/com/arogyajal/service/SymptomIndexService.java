@@ -0,0 +1,387 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of symptom reports for boolean queries.
+ *
+ * Every report gets a dense ordinal, and each (field, value) pair - symptom,
+ * location, severity, status and reporting day - maps to a
+ * {@link RoaringBitmap} of the ordinals that have it. A query such as
+ * {@code symptom:DIARRHEA AND symptom:FEVER AND location:"Ward 5" AND NOT status:RESOLVED}
+ * is evaluated as bitmap AND / OR / AND NOT, without touching the reports until
+ * the matching ordinals are turned back into ids. Values are matched
+ * case-insensitively.
+ *
+ * Kept current from report saved and status changed events and filled from the
+ * shared cold-start load; until then {@link #isReady()} is false and callers
+ * fall back to Firestore.
+ */
+@Component
+public class SymptomIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SymptomIndexService.class);
+
+    public enum Field {
+        SYMPTOM, LOCATION, SEVERITY, STATUS, DAY;
+
+        static Field of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+        }
+    }
+
+    @Value("${arogyajal.symptom-index.max-day-range:3660}")
+    private int maxDayRange = 3660;
+
+    private final LocationAggregateView locationAggregateView;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private final List<SymptomReport> reports = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<Term, RoaringBitmap> postings = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private volatile boolean ready;
+
+    public SymptomIndexService(LocationAggregateView locationAggregateView) {
+        this.locationAggregateView = locationAggregateView;
+    }
+
+    record Term(Field field, String value) {
+    }
+
+    /**
+     * Matches of a query, newest report first.
+     */
+    public static class SearchResult {
+        public String query;
+        public long total;
+        public List<String> ids;
+        public List<SymptomReport> reports;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<SymptomReport> loaded = locationAggregateView.coldStart().join().symptomReports();
+            lock.writeLock().lock();
+            try {
+                // Reports saved during warm-up are already in and newer
+                loaded.forEach(this::addIfAbsent);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Symptom index built over {} reports with {} terms", getReportCount(), getTermCount());
+        } catch (Exception e) {
+            log.warn("Failed to build symptom index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            addIfAbsent(event.getReport());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSymptomReportStatusChanged(SymptomReportStatusChangedEvent event) {
+        SymptomReport report = event.getReport();
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = report.getId() != null ? ordinals.get(report.getId()) : null;
+            if (ordinal == null) {
+                addIfAbsent(report);
+                return;
+            }
+            SymptomReport previous = reports.get(ordinal);
+            unpost(Field.STATUS, previous.getStatus(), ordinal);
+            post(Field.STATUS, report.getStatus(), ordinal);
+            reports.set(ordinal, report);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addIfAbsent(SymptomReport report) {
+        if (report == null || report.getId() == null || ordinals.containsKey(report.getId())) {
+            return;
+        }
+        int ordinal = reports.size();
+        reports.add(report);
+        ordinals.put(report.getId(), ordinal);
+        all.add(ordinal);
+        if (report.getSymptoms() != null) {
+            for (String symptom : report.getSymptoms()) {
+                post(Field.SYMPTOM, symptom, ordinal);
+            }
+        }
+        post(Field.LOCATION, report.getLocation(), ordinal);
+        post(Field.SEVERITY, report.getSeverity(), ordinal);
+        post(Field.STATUS, report.getStatus(), ordinal);
+        if (report.getReportedAt() != null) {
+            post(Field.DAY, report.getReportedAt().toLocalDate().toString(), ordinal);
+        }
+    }
+
+    private void post(Field field, String value, int ordinal) {
+        if (value != null && !value.isBlank()) {
+            postings.computeIfAbsent(new Term(field, normalize(value)), k -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private void unpost(Field field, String value, int ordinal) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        Term term = new Term(field, normalize(value));
+        RoaringBitmap bitmap = postings.get(term);
+        if (bitmap != null && bitmap.remove(ordinal) && bitmap.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+
+    /**
+     * The form values are indexed and matched in; the Firestore fallback of
+     * {@link SymptomService} matches the same way.
+     */
+    static String normalize(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reports matching {@code query}, optionally only those reported in the last
+     * {@code days} days, newest first and at most {@code limit} of them (all
+     * are counted in {@code total}).
+     *
+     * @param query terms {@code field:value} (symptom, location, severity,
+     *              status, day; a day may be a range {@code 2026-10-01..2026-10-07})
+     *              combined with AND, OR, NOT and parentheses; adjacent terms
+     *              are ANDed
+     */
+    public SearchResult search(String query, Integer days, int limit, boolean idsOnly) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = new QueryParser(query).parse();
+            if (days != null) {
+                if (days < 1) {
+                    throw new IllegalArgumentException("days must be positive");
+                }
+                LocalDate today = LocalDate.now();
+                matches = matches.and(dayRange(today.minusDays(days - 1L), today));
+            }
+            List<SymptomReport> found = new ArrayList<>(Math.toIntExact(matches.cardinality()));
+            matches.forEach(ordinal -> found.add(reports.get(ordinal)));
+            found.sort(Comparator.comparing(SymptomReport::getReportedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+            List<SymptomReport> page = found.subList(0, Math.min(Math.max(0, limit), found.size()));
+
+            SearchResult result = new SearchResult();
+            result.query = query;
+            result.total = found.size();
+            result.ids = page.stream().map(SymptomReport::getId).toList();
+            result.reports = idsOnly ? null : List.copyOf(page);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reports at {@code location} (any location if null) having any of {@code symptoms}.
+     */
+    public List<SymptomReport> findByLocationAndAnySymptom(String location, Collection<String> symptoms) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap any = new RoaringBitmap();
+            for (String symptom : symptoms) {
+                any = any.or(term(Field.SYMPTOM, symptom));
+            }
+            if (location != null) {
+                any = any.and(term(Field.LOCATION, location));
+            }
+            List<SymptomReport> found = new ArrayList<>();
+            any.forEach(ordinal -> found.add(reports.get(ordinal)));
+            found.sort(Comparator.comparing(SymptomReport::getReportedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap term(Field field, String value) {
+        if (field == Field.DAY) {
+            int range = value.indexOf("..");
+            try {
+                if (range >= 0) {
+                    return dayRange(LocalDate.parse(value.substring(0, range).trim()),
+                            LocalDate.parse(value.substring(range + 2).trim()));
+                }
+                LocalDate.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid day: " + value);
+            }
+        }
+        RoaringBitmap bitmap = postings.get(new Term(field, normalize(value)));
+        return bitmap != null ? bitmap : new RoaringBitmap();
+    }
+
+    private RoaringBitmap dayRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || from.plusDays(maxDayRange).isBefore(to)) {
+            throw new IllegalArgumentException("Day range must be ordered and span at most " + maxDayRange + " days");
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            RoaringBitmap bitmap = postings.get(new Term(Field.DAY, day.toString()));
+            if (bitmap != null) {
+                result = result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Recursive descent over {@code or := and (OR and)*},
+     * {@code and := not (AND? not)*}, {@code not := NOT not | ( or ) | field:value}.
+     */
+    private final class QueryParser {
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        QueryParser(String query) {
+            if (query == null || query.isBlank()) {
+                throw new IllegalArgumentException("Query must not be empty");
+            }
+            tokenize(query);
+        }
+
+        private void tokenize(String query) {
+            StringBuilder token = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < query.length(); i++) {
+                char c = query.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                    token.append(c);
+                } else if (!quoted && (Character.isWhitespace(c) || c == '(' || c == ')')) {
+                    if (!token.isEmpty()) {
+                        tokens.add(token.toString());
+                        token.setLength(0);
+                    }
+                    if (c == '(' || c == ')') {
+                        tokens.add(String.valueOf(c));
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quote in query");
+            }
+            if (!token.isEmpty()) {
+                tokens.add(token.toString());
+            }
+        }
+
+        RoaringBitmap parse() {
+            RoaringBitmap result = or();
+            if (position < tokens.size()) {
+                throw new IllegalArgumentException("Unexpected '" + tokens.get(position) + "' in query");
+            }
+            return result;
+        }
+
+        private boolean accept(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private RoaringBitmap or() {
+            RoaringBitmap result = and();
+            while (accept("OR")) {
+                result = result.or(and());
+            }
+            return result;
+        }
+
+        private RoaringBitmap and() {
+            RoaringBitmap result = not();
+            while (position < tokens.size() && !tokens.get(position).equals(")")
+                    && !tokens.get(position).equalsIgnoreCase("OR")) {
+                accept("AND");
+                result = result.and(not());
+            }
+            return result;
+        }
+
+        private RoaringBitmap not() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Query ends unexpectedly");
+            }
+            if (accept("NOT")) {
+                return all.andNot(not());
+            }
+            if (accept("(")) {
+                RoaringBitmap result = or();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in query");
+                }
+                return result;
+            }
+            String token = tokens.get(position++);
+            int colon = token.indexOf(':');
+            if (colon <= 0 || colon == token.length() - 1) {
+                throw new IllegalArgumentException("Expected field:value but found '" + token + "'");
+            }
+            return term(Field.of(token.substring(0, colon)), token.substring(colon + 1).replace("\"", ""));
+        }
+    }
+
+    public int getReportCount() {
+        lock.readLock().lock();
+        try {
+            return reports.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.arogyajal.service;
 
 import com.arogyajal.dto.SymptomRequest;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
 import com.arogyajal.model.SymptomReport;
 import com.arogyajal.repository.SymptomRepository;
+import com.arogyajal.repository.projection.SymptomReportHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -16,9 +20,11 @@ public class SymptomService {
     private static final Logger log = LoggerFactory.getLogger(SymptomService.class);
     
     private final SymptomRepository symptomRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public SymptomService(SymptomRepository symptomRepository) {
+    public SymptomService(SymptomRepository symptomRepository, ApplicationEventPublisher eventPublisher) {
         this.symptomRepository = symptomRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     public SymptomReport saveSymptomReport(SymptomRequest request) {
@@ -32,6 +38,8 @@ public class SymptomService {
                     .id(reportId)
                     .userId(request.getUserId())
                     .location(request.getLocation())
+                    .latitude(request.getLatitude())
+                    .longitude(request.getLongitude())
                     .waterSource(request.getWaterSource())
                     .symptoms(request.getSymptoms())
                     .severity(request.getSeverity())
@@ -44,13 +52,25 @@ public class SymptomService {
                     .status("PENDING")
                     .build();
             
-            return symptomRepository.save(report);
+            SymptomReport saved = symptomRepository.save(report);
+            // Cluster detectors listen for this and alert on arrival; the report is
+            // stored whatever they do
+            publish(new SymptomReportSavedEvent(saved), saved.getId());
+            return saved;
         } catch (Exception e) {
             log.error("Error saving symptom report for user ID: {}", request.getUserId(), e);
             throw new RuntimeException("Failed to save symptom report", e);
         }
     }
     
+    private void publish(Object event, String reportId) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("Error handling {} for symptom report {}", event.getClass().getSimpleName(), reportId, e);
+        }
+    }
+
     public List<SymptomReport> getAllSymptomReports() {
         log.info("Retrieving all symptom reports");
         return symptomRepository.findAll();
@@ -91,52 +111,99 @@ public class SymptomService {
         return symptomRepository.findByLocationAndReportedAtBetweenOrderByReportedAtDesc(location, start, end);
     }
     
+    /**
+     * Reports with any of the symptoms, newest first. Matched case-insensitively
+     * like {@link SymptomIndexService}, which answers these once warm: stored
+     * values keep the reporter's spelling, so the usual spellings are queried
+     * and the results filtered on the normalised values.
+     */
     public List<SymptomReport> getReportsBySymptoms(List<String> symptoms) {
         try {
-            List<SymptomReport> reports = new ArrayList<>();
-            for (String symptom : symptoms) {
-                reports.addAll(symptomRepository.findBySymptomsContaining(symptom));
-            }
-            return reports;
+            return matching(symptomRepository.findBySymptomsIn(spellings(symptoms)), symptoms);
         } catch (Exception e) {
             log.error("Error fetching reports by symptoms", e);
             return Collections.emptyList();
         }
     }
     
+    /**
+     * Reports at the location with any of the symptoms, newest first, matched
+     * like {@link #getReportsBySymptoms}.
+     */
     public List<SymptomReport> getReportsByLocationAndSymptoms(String location, List<String> symptoms) {
         try {
-            List<SymptomReport> reports = new ArrayList<>();
-            for (String symptom : symptoms) {
-                List<SymptomReport> locationReports = symptomRepository.findByLocation(location);
-                for (SymptomReport report : locationReports) {
-                    if (report.getSymptoms() != null && report.getSymptoms().contains(symptom)) {
-                        reports.add(report);
-                    }
+            Map<String, SymptomReport> atLocation = new LinkedHashMap<>();
+            for (String spelling : spellings(List.of(location))) {
+                for (SymptomReport report : symptomRepository.findByLocation(spelling)) {
+                    atLocation.putIfAbsent(report.getId(), report);
                 }
             }
-            return reports;
+            return matching(atLocation.values(), symptoms);
         } catch (Exception e) {
             log.error("Error fetching reports by location and symptoms", e);
             return Collections.emptyList();
         }
     }
     
+    /**
+     * The values as given, upper-case, lower-case and capitalised.
+     */
+    private static List<String> spellings(Collection<String> values) {
+        Set<String> spellings = new LinkedHashSet<>();
+        for (String value : values) {
+            String trimmed = value.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            spellings.add(trimmed);
+            spellings.add(trimmed.toUpperCase(Locale.ROOT));
+            spellings.add(trimmed.toLowerCase(Locale.ROOT));
+            spellings.add(trimmed.substring(0, 1).toUpperCase(Locale.ROOT) + trimmed.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return new ArrayList<>(spellings);
+    }
+    
+    private static List<SymptomReport> matching(Collection<SymptomReport> reports, List<String> symptoms) {
+        Set<String> wanted = new HashSet<>();
+        symptoms.forEach(symptom -> wanted.add(SymptomIndexService.normalize(symptom)));
+        List<SymptomReport> found = new ArrayList<>();
+        for (SymptomReport report : reports) {
+            if (report.getSymptoms() != null && report.getSymptoms().stream()
+                    .anyMatch(symptom -> symptom != null && wanted.contains(SymptomIndexService.normalize(symptom)))) {
+                found.add(report);
+            }
+        }
+        found.sort(Comparator.comparing(SymptomReport::getReportedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return found;
+    }
+    
     public List<SymptomReport> getHighSeverityRecentReports(LocalDateTime since) {
         log.info("Retrieving high severity reports since: {}", since);
         return symptomRepository.findHighSeverityRecentReports(since);
     }
     
+    public List<SymptomReportHeader> getHighSeverityRecentReportHeaders(LocalDateTime since) {
+        log.info("Retrieving high severity report headers since: {}", since);
+        return symptomRepository.findHighSeverityRecentHeaders(since);
+    }
+    
+    public List<SymptomReport> getReportsByIds(List<String> ids) {
+        return symptomRepository.findAllById(ids);
+    }
+    
     public SymptomReport updateReportStatus(String id, String status, String investigationNotes) {
         log.info("Updating report {} status to: {}", id, status);
         
         Optional<SymptomReport> reportOpt = symptomRepository.findById(id);
         if (reportOpt.isPresent()) {
             SymptomReport report = reportOpt.get();
+            String previousStatus = report.getStatus();
             report.setStatus(status);
             report.setInvestigationNotes(investigationNotes);
             report.setInvestigatedAt(LocalDateTime.now());
-            return symptomRepository.save(report);
+            SymptomReport saved = symptomRepository.save(report);
+            publish(new SymptomReportStatusChangedEvent(saved, previousStatus), saved.getId());
+            return saved;
         }
         throw new RuntimeException("Symptom report not found with ID: " + id);
     }
@@ -0,0 +1,224 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SymptomSyncItem;
+import com.arogyajal.dto.SymptomSyncRequest;
+import com.arogyajal.dto.SymptomSyncResponse;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SymptomRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk upload of symptom reports collected offline.
+ *
+ * Each item carries an idempotency key generated on the device. The report id
+ * is derived from (user, key), so a retried item maps to the same document: it
+ * is answered as a duplicate from a cache of recently synced ids, or from one
+ * batched existence check against Firestore, and never stored twice. New
+ * reports are created with batched writes that fail on documents that already
+ * exist, so concurrent retries of one batch store and announce each report
+ * once. The usual saved events are published for the reports actually
+ * created, flagged as batched, followed by one batch event on which cluster
+ * detection runs.
+ */
+@Service
+public class SymptomSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(SymptomSyncService.class);
+
+    @Value("${arogyajal.symptom-sync.max-batch-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${arogyajal.symptom-sync.recent-keys:100000}")
+    private int recentKeys = 100000;
+
+    // How far ahead of the server a device clock may run
+    @Value("${arogyajal.symptom-sync.max-clock-skew-seconds:300}")
+    private long maxClockSkewSeconds = 300;
+
+    private final SymptomRepository symptomRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    // Guarded by itself; ids of recently synced reports, least recently used first
+    private final LinkedHashMap<String, Boolean> recentIds = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > recentKeys;
+        }
+    };
+
+    public SymptomSyncService(SymptomRepository symptomRepository, ApplicationEventPublisher eventPublisher,
+                              Validator validator) {
+        this.symptomRepository = symptomRepository;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+    }
+
+    public SymptomSyncResponse sync(SymptomSyncRequest request) {
+        List<SymptomSyncItem> items = request.getReports();
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one report is required");
+        }
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " reports can be synced at once");
+        }
+
+        SymptomSyncResponse.ItemResult[] results = new SymptomSyncResponse.ItemResult[items.size()];
+        // Report id -> index of the first item that claimed it
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            SymptomSyncItem item = items.get(i);
+            String error = validate(item);
+            if (error != null) {
+                results[i] = result(item, SymptomSyncResponse.Status.REJECTED, null, error);
+                continue;
+            }
+            String reportId = reportIdFor(item.getUserId(), item.getIdempotencyKey());
+            if (candidates.containsKey(reportId) || isRecent(reportId)) {
+                results[i] = result(item, SymptomSyncResponse.Status.DUPLICATE, reportId, null);
+            } else {
+                candidates.put(reportId, i);
+            }
+        }
+
+        // Cheap pre-check for retries of earlier uploads; the create below is the real guard
+        Set<String> existing = new HashSet<>(candidates.isEmpty()
+                ? Set.of() : symptomRepository.findExistingIds(candidates.keySet()));
+        LocalDateTime now = LocalDateTime.now();
+        List<SymptomReport> reports = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            if (!existing.contains(candidate.getKey())) {
+                reports.add(toReport(candidate.getKey(), items.get(candidate.getValue()), now));
+            }
+        }
+
+        List<SymptomReport> created = reports;
+        if (!reports.isEmpty()) {
+            Set<String> raced;
+            try {
+                // Fails per document if a concurrent retry created it first
+                raced = symptomRepository.createAll(reports);
+            } catch (Exception e) {
+                log.error("Error syncing {} symptom reports", reports.size(), e);
+                throw new RuntimeException("Failed to sync symptom reports", e);
+            }
+            if (!raced.isEmpty()) {
+                existing.addAll(raced);
+                created = reports.stream().filter(report -> !raced.contains(report.getId())).toList();
+            }
+        }
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            SymptomSyncResponse.Status status = existing.contains(candidate.getKey())
+                    ? SymptomSyncResponse.Status.DUPLICATE : SymptomSyncResponse.Status.CREATED;
+            results[candidate.getValue()] = result(items.get(candidate.getValue()), status, candidate.getKey(), null);
+        }
+
+        if (!created.isEmpty()) {
+            synchronized (recentIds) {
+                created.forEach(report -> recentIds.put(report.getId(), Boolean.TRUE));
+            }
+            // The batch is committed; a failing listener must not turn it into an error the client retries
+            for (SymptomReport report : created) {
+                publish(new SymptomReportSavedEvent(report, true));
+            }
+            publish(new SymptomReportsBatchSavedEvent(List.copyOf(created)));
+        }
+        synchronized (recentIds) {
+            existing.forEach(id -> recentIds.put(id, Boolean.TRUE));
+        }
+
+        SymptomSyncResponse response = new SymptomSyncResponse();
+        response.setResults(Arrays.asList(results));
+        for (SymptomSyncResponse.ItemResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> response.setCreated(response.getCreated() + 1);
+                case DUPLICATE -> response.setDuplicates(response.getDuplicates() + 1);
+                case REJECTED -> response.setRejected(response.getRejected() + 1);
+            }
+        }
+        log.info("Synced symptom reports: {} created, {} duplicates, {} rejected",
+                response.getCreated(), response.getDuplicates(), response.getRejected());
+        return response;
+    }
+
+    private void publish(Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("Error handling {} for synced symptom reports", event.getClass().getSimpleName(), e);
+        }
+    }
+
+    private String validate(SymptomSyncItem item) {
+        if (item == null) {
+            return "Report is empty";
+        }
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<SymptomSyncItem> violation : validator.validate(item)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (item.getCollectedAt() != null
+                && item.getCollectedAt().isAfter(LocalDateTime.now().plusSeconds(maxClockSkewSeconds))) {
+            errors.add("collectedAt: Collection time must not be in the future");
+        }
+        if (errors.isEmpty()) {
+            return null;
+        }
+        errors.sort(null);
+        return String.join("; ", errors);
+    }
+
+    private boolean isRecent(String reportId) {
+        synchronized (recentIds) {
+            return recentIds.get(reportId) != null;
+        }
+    }
+
+    private static SymptomSyncResponse.ItemResult result(SymptomSyncItem item, SymptomSyncResponse.Status status,
+                                                         String reportId, String error) {
+        return new SymptomSyncResponse.ItemResult(item != null ? item.getIdempotencyKey() : null, status, reportId, error);
+    }
+
+    private static SymptomReport toReport(String reportId, SymptomSyncItem item, LocalDateTime now) {
+        // A device clock running slightly fast is clamped to the sync time
+        LocalDateTime collectedAt = item.getCollectedAt() != null && item.getCollectedAt().isBefore(now)
+                ? item.getCollectedAt() : now;
+        return SymptomReport.builder()
+                .id(reportId)
+                .userId(item.getUserId())
+                .location(item.getLocation())
+                .latitude(item.getLatitude())
+                .longitude(item.getLongitude())
+                .waterSource(item.getWaterSource())
+                .symptoms(item.getSymptoms())
+                .severity(item.getSeverity())
+                .duration(item.getDuration())
+                .waterConsumption(item.getWaterConsumption())
+                .lastWaterConsumption(collectedAt)
+                .additionalNotes(item.getAdditionalNotes())
+                .contactInfo(item.getContactInfo())
+                .reportedAt(collectedAt)
+                .status("PENDING")
+                .build();
+    }
+
+    /**
+     * Stable report id for a user's idempotency key, so every retry of an item
+     * addresses the same document.
+     */
+    static String reportIdFor(String userId, String idempotencyKey) {
+        return UUID.nameUUIDFromBytes(("symptom-sync:" + userId + ":" + idempotencyKey)
+                .getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.arogyajal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Node-to-node relay over UDP.
+ *
+ * Every node delivers its own messages to its local broker and sends one
+ * datagram per peer node; a peer's receiver thread hands the message to that
+ * node's broker, which fans it out to its subscribers. A message therefore
+ * crosses the network once per node, however many dashboards are connected.
+ *
+ * Peers are listed in {@code arogyajal.relay.peers} as {@code host:port}. All
+ * nodes may share the same list; a node drops datagrams carrying its own id.
+ * Delivery is best effort, which matches the conflated sensor-data topics: a
+ * lost update is superseded by the next reading.
+ *
+ * The socket binds to {@code arogyajal.relay.bind-address} only, and datagrams
+ * are accepted only from a listed peer's address and port. With
+ * {@code arogyajal.relay.secret} set, every frame also carries an HMAC-SHA256
+ * over its contents and frames that fail the check are dropped, so a host that
+ * can reach the port cannot push messages to the dashboards.
+ */
+@Component
+@ConditionalOnProperty(name = "arogyajal.relay.mode", havingValue = "udp")
+public class UdpBrokerRelay extends InProcessBrokerRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpBrokerRelay.class);
+
+    private static final int MAGIC = 0x41524a52; // "ARJR"
+    private static final int MAX_DATAGRAM = 65_507;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 32;
+
+    @Value("${arogyajal.relay.port:7400}")
+    private int port;
+
+    @Value("${arogyajal.relay.bind-address:127.0.0.1}")
+    private String bindAddress = "127.0.0.1";
+
+    @Value("${arogyajal.relay.peers:}")
+    private String peers;
+
+    @Value("${arogyajal.relay.secret:}")
+    private String secret = "";
+
+    private final List<InetSocketAddress> peerAddresses = new ArrayList<>();
+    private SecretKeySpec macKey;
+    private DatagramSocket socket;
+    private Thread receiver;
+    private volatile boolean running;
+
+    public UdpBrokerRelay(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        super(messagingTemplate, objectMapper);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (String peer : peers.split(",")) {
+            String trimmed = peer.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            peerAddresses.add(new InetSocketAddress(trimmed.substring(0, colon),
+                    Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        if (secret != null && !secret.isBlank()) {
+            macKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        } else {
+            log.warn("Broker relay frames are not authenticated; set arogyajal.relay.secret");
+        }
+        try {
+            socket = new DatagramSocket(new InetSocketAddress(bindAddress, port));
+        } catch (SocketException e) {
+            throw new RuntimeException("Failed to bind broker relay on " + bindAddress + ":" + port, e);
+        }
+        running = true;
+        receiver = new Thread(this::receive, "broker-relay-" + port);
+        receiver.setDaemon(true);
+        receiver.start();
+        log.info("Broker relay node {} listening on {}:{} with {} peers", getNodeId(), bindAddress, port,
+                peerAddresses.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        socket.close();
+    }
+
+    @Override
+    protected void forward(String destination, byte[] json) {
+        byte[] frame;
+        try {
+            frame = encode(getNodeId(), destination, json);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode relay frame for " + destination, e);
+        }
+        if (frame.length > MAX_DATAGRAM) {
+            log.warn("Message to {} is {} bytes, too large to relay; delivered locally only", destination, frame.length);
+            return;
+        }
+        for (InetSocketAddress peer : peerAddresses) {
+            try {
+                socket.send(new DatagramPacket(frame, frame.length, peer));
+            } catch (IOException e) {
+                log.warn("Failed to relay {} to {}: {}", destination, peer, e.getMessage());
+            }
+        }
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        while (running) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                if (!peerAddresses.contains(packet.getSocketAddress())) {
+                    log.debug("Dropping relay datagram from unknown sender {}", packet.getSocketAddress());
+                    continue;
+                }
+                int length = packet.getLength();
+                if (macKey != null) {
+                    length -= MAC_BYTES;
+                    if (length < 0 || !MessageDigest.isEqual(mac(packet.getData(), packet.getOffset(), length),
+                            Arrays.copyOfRange(packet.getData(), packet.getOffset() + length,
+                                    packet.getOffset() + length + MAC_BYTES))) {
+                        log.warn("Dropping relay datagram with a bad signature from {}", packet.getSocketAddress());
+                        continue;
+                    }
+                }
+                DataInputStream in = new DataInputStream(
+                        new ByteArrayInputStream(packet.getData(), packet.getOffset(), length));
+                if (in.readInt() != MAGIC) {
+                    continue;
+                }
+                String origin = in.readUTF();
+                if (getNodeId().equals(origin)) {
+                    continue;
+                }
+                String destination = in.readUTF();
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                deliverLocally(destination, json);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Error receiving relayed message: {}", e.getMessage());
+                }
+            } catch (Exception e) {
+                log.error("Error delivering relayed message: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private byte[] encode(String nodeId, String destination, byte[] json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeUTF(nodeId);
+        out.writeUTF(destination);
+        out.writeInt(json.length);
+        out.write(json);
+        if (macKey != null) {
+            out.flush();
+            out.write(mac(bytes.toByteArray(), 0, bytes.size()));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] mac(byte[] data, int offset, int length) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            mac.update(data, offset, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign relay frame", e);
+        }
+    }
+}
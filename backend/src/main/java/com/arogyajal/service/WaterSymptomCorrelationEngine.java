@@ -0,0 +1,377 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.Geohash;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Lagged cross-correlation between water quality and symptom reports per sensor location.
+ *
+ * Readings and reports are rolled up on arrival into a ring of time buckets per
+ * sensor location (mean per parameter, report count). Reports are attributed to every
+ * sensor location within {@code symptom-radius-meters} of their coordinates, or to a
+ * sensor location with the same location text. A query correlates each parameter at
+ * bucket t with report counts at t + lag, for every lag up to {@code max-lag-hours};
+ * locations are computed in parallel on a fork/join pool and a result is reused until
+ * that location receives new data or the current bucket rolls over.
+ */
+@Component
+public class WaterSymptomCorrelationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(WaterSymptomCorrelationEngine.class);
+
+    // pH is correlated as distance from neutral, so excursions either way count
+    static final String[] PARAMETERS = {"turbidity", "pHExcursion", "totalDissolvedSolids"};
+    private static final int GRID_PRECISION = 5;
+
+    @Value("${arogyajal.correlation.bucket-hours:6}")
+    private int bucketHours;
+
+    @Value("${arogyajal.correlation.horizon-days:30}")
+    private int horizonDays;
+
+    @Value("${arogyajal.correlation.max-lag-hours:72}")
+    private int maxLagHours;
+
+    // Bucket pairs needed before a correlation is reported
+    @Value("${arogyajal.correlation.min-samples:8}")
+    private int minSamples;
+
+    @Value("${arogyajal.correlation.symptom-radius-meters:5000}")
+    private double symptomRadiusMeters;
+
+    @Value("${arogyajal.correlation.parallelism:0}")
+    private int parallelism;
+
+    private final SensorService sensorService;
+    private final SymptomService symptomService;
+    private final Map<String, LocationSeries> series = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> locationGrid = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private ForkJoinPool pool;
+    private int bucketCount;
+
+    public WaterSymptomCorrelationEngine(SensorService sensorService, SymptomService symptomService) {
+        this.sensorService = sensorService;
+        this.symptomService = symptomService;
+    }
+
+    private class LocationSeries {
+        final String location;
+        final long[] epochs = new long[bucketCount];
+        final double[][] sums = new double[PARAMETERS.length][bucketCount];
+        final int[][] counts = new int[PARAMETERS.length][bucketCount];
+        final int[] symptoms = new int[bucketCount];
+        long version;
+
+        LocationSeries(String location) {
+            this.location = location;
+            Arrays.fill(epochs, -1);
+        }
+
+        /**
+         * @return ring index for the epoch, or -1 if it is older than the ring
+         */
+        int slot(long epoch) {
+            int idx = (int) (epoch % bucketCount);
+            if (epochs[idx] == epoch) {
+                return idx;
+            }
+            if (epochs[idx] > epoch) {
+                return -1;
+            }
+            epochs[idx] = epoch;
+            symptoms[idx] = 0;
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                sums[p][idx] = 0;
+                counts[p][idx] = 0;
+            }
+            return idx;
+        }
+    }
+
+    private static final class CachedResult {
+        final long version;
+        final long epoch;
+        final LocationCorrelation result;
+
+        CachedResult(long version, long epoch, LocationCorrelation result) {
+            this.version = version;
+            this.epoch = epoch;
+            this.result = result;
+        }
+    }
+
+    public static class LocationCorrelation {
+        public String location;
+        public int bucketHours;
+        public List<ParameterCorrelation> parameters;
+    }
+
+    public static class ParameterCorrelation {
+        public String parameter;
+        // Null when no lag had enough samples
+        public Integer bestLagHours;
+        public Double correlation;
+        public int samples;
+        // Pearson r at lag 0, 1, 2 ... buckets; null where there were too few samples
+        public List<Double> correlationByLag;
+    }
+
+    @PostConstruct
+    public void init() {
+        bucketCount = Math.max(2, horizonDays * 24 / bucketHours);
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @EventListener
+    public void onSensorReading(SensorReadingIngestedEvent event) {
+        addReading(event.getReading());
+    }
+
+    @EventListener
+    public void onSymptomReportSaved(SymptomReportSavedEvent event) {
+        addReport(event.getReport());
+    }
+
+    /**
+     * Load the horizon from Firestore once so correlations are available right after a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime end = LocalDateTime.now();
+            LocalDateTime start = end.minusDays(horizonDays);
+            List<SensorReading> readings = sensorService.getReadingsByTimeRange(
+                    Timestamp.of(java.sql.Timestamp.valueOf(start)), Timestamp.of(java.sql.Timestamp.valueOf(end)));
+            readings.forEach(this::addReading);
+            // Sensor locations must be known before reports can be attributed
+            List<SymptomReport> reports = symptomService.getReportsByTimeRange(start, end);
+            reports.forEach(this::addReport);
+            log.info("Correlation rollups warmed with {} readings and {} reports across {} locations",
+                    readings.size(), reports.size(), series.size());
+        } catch (Exception e) {
+            log.warn("Failed to warm correlation rollups: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Correlations for every sensor location, strongest first.
+     */
+    public List<LocationCorrelation> getCorrelations() {
+        long epoch = currentEpoch();
+        List<LocationSeries> all = new ArrayList<>(series.values());
+        try {
+            return pool.submit(() -> all.parallelStream()
+                            .map(s -> resultFor(s, epoch))
+                            .sorted(Comparator.comparingDouble(WaterSymptomCorrelationEngine::strongest).reversed())
+                            .collect(Collectors.toList()))
+                    .get();
+        } catch (Exception e) {
+            log.error("Error computing water quality/symptom correlations", e);
+            throw new RuntimeException("Failed to compute correlations", e);
+        }
+    }
+
+    public Optional<LocationCorrelation> getCorrelation(String location) {
+        LocationSeries s = location != null ? series.get(location.trim()) : null;
+        return s == null ? Optional.empty() : Optional.of(resultFor(s, currentEpoch()));
+    }
+
+    void addReading(SensorReading reading) {
+        if (reading.getLocation() == null || reading.getTimestamp() == null) {
+            return;
+        }
+        String location = reading.getLocation().trim();
+        LocationSeries s = series.computeIfAbsent(location, k -> {
+            double[] latLon = Geohash.parseLatLon(k);
+            if (latLon != null) {
+                locationGrid.computeIfAbsent(Geohash.encode(latLon[0], latLon[1], GRID_PRECISION),
+                        c -> ConcurrentHashMap.newKeySet()).add(k);
+            }
+            return new LocationSeries(k);
+        });
+        double[] values = {
+                value(reading.getTurbidity()),
+                reading.getPh() != null && reading.getPh() > 0 ? Math.abs(reading.getPh() - 7.0) : Double.NaN,
+                value(reading.getTotalDissolvedSolids())
+        };
+        long epoch = reading.getTimestamp().toSqlTimestamp().getTime() / bucketMillis();
+        synchronized (s) {
+            int idx = s.slot(epoch);
+            if (idx < 0) {
+                return;
+            }
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                if (!Double.isNaN(values[p])) {
+                    s.sums[p][idx] += values[p];
+                    s.counts[p][idx]++;
+                }
+            }
+            s.version++;
+        }
+    }
+
+    void addReport(SymptomReport report) {
+        long time = report.getReportedAt() != null
+                ? report.getReportedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        long epoch = time / bucketMillis();
+        for (LocationSeries s : attributedLocations(report)) {
+            synchronized (s) {
+                int idx = s.slot(epoch);
+                if (idx >= 0) {
+                    s.symptoms[idx]++;
+                    s.version++;
+                }
+            }
+        }
+    }
+
+    private List<LocationSeries> attributedLocations(SymptomReport report) {
+        List<LocationSeries> result = new ArrayList<>();
+        double[] latLon = report.getLatitude() != null && report.getLongitude() != null
+                ? new double[]{report.getLatitude(), report.getLongitude()}
+                : Geohash.parseLatLon(report.getLocation());
+        if (latLon != null) {
+            for (String cell : Geohash.cellsAround(latLon[0], latLon[1], symptomRadiusMeters, GRID_PRECISION)) {
+                for (String location : locationGrid.getOrDefault(cell, Collections.emptySet())) {
+                    double[] sensor = Geohash.parseLatLon(location);
+                    if (Geohash.distanceMeters(latLon[0], latLon[1], sensor[0], sensor[1]) <= symptomRadiusMeters) {
+                        result.add(series.get(location));
+                    }
+                }
+            }
+        } else if (report.getLocation() != null) {
+            LocationSeries s = series.get(report.getLocation().trim());
+            if (s != null) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    private LocationCorrelation resultFor(LocationSeries s, long epoch) {
+        CachedResult cached = cache.get(s.location);
+        long version;
+        double[][] x = new double[PARAMETERS.length][bucketCount];
+        double[] y = new double[bucketCount];
+        synchronized (s) {
+            version = s.version;
+            if (cached != null && cached.version == version && cached.epoch == epoch) {
+                return cached.result;
+            }
+            // Oldest bucket first; buckets without data are NaN (readings) or 0 (reports)
+            for (int i = 0; i < bucketCount; i++) {
+                long e = epoch - bucketCount + 1 + i;
+                int idx = (int) (e % bucketCount);
+                boolean current = s.epochs[idx] == e;
+                y[i] = current ? s.symptoms[idx] : 0;
+                for (int p = 0; p < PARAMETERS.length; p++) {
+                    x[p][i] = current && s.counts[p][idx] > 0 ? s.sums[p][idx] / s.counts[p][idx] : Double.NaN;
+                }
+            }
+        }
+
+        LocationCorrelation result = new LocationCorrelation();
+        result.location = s.location;
+        result.bucketHours = bucketHours;
+        result.parameters = new ArrayList<>();
+        int maxLag = Math.min(bucketCount - 1, maxLagHours / bucketHours);
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            ParameterCorrelation pc = new ParameterCorrelation();
+            pc.parameter = PARAMETERS[p];
+            pc.correlationByLag = new ArrayList<>(maxLag + 1);
+            for (int lag = 0; lag <= maxLag; lag++) {
+                int[] samples = new int[1];
+                double r = laggedPearson(x[p], y, lag, samples);
+                pc.correlationByLag.add(Double.isNaN(r) ? null : r);
+                if (!Double.isNaN(r) && (pc.correlation == null || r > pc.correlation)) {
+                    pc.correlation = r;
+                    pc.bestLagHours = lag * bucketHours;
+                    pc.samples = samples[0];
+                }
+            }
+            result.parameters.add(pc);
+        }
+        cache.put(s.location, new CachedResult(version, epoch, result));
+        return result;
+    }
+
+    /**
+     * Pearson correlation of x[t] with y[t + lag] over buckets where x has data.
+     */
+    private double laggedPearson(double[] x, double[] y, int lag, int[] samples) {
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, syy = 0, sxy = 0;
+        for (int t = 0; t + lag < y.length; t++) {
+            double xv = x[t];
+            if (Double.isNaN(xv)) {
+                continue;
+            }
+            double yv = y[t + lag];
+            n++;
+            sx += xv;
+            sy += yv;
+            sxx += xv * xv;
+            syy += yv * yv;
+            sxy += xv * yv;
+        }
+        samples[0] = n;
+        if (n < minSamples) {
+            return Double.NaN;
+        }
+        double cov = sxy - sx * sy / n;
+        double vx = sxx - sx * sx / n;
+        double vy = syy - sy * sy / n;
+        if (vx <= 1e-12 || vy <= 1e-12) {
+            return Double.NaN;
+        }
+        return cov / Math.sqrt(vx * vy);
+    }
+
+    private static double strongest(LocationCorrelation c) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (ParameterCorrelation p : c.parameters) {
+            if (p.correlation != null) {
+                best = Math.max(best, p.correlation);
+            }
+        }
+        return best;
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / bucketMillis();
+    }
+
+    private long bucketMillis() {
+        return bucketHours * 3_600_000L;
+    }
+
+    private static double value(Double v) {
+        return v != null ? v : Double.NaN;
+    }
+}
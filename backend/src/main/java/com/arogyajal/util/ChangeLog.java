@@ -0,0 +1,87 @@
+package com.arogyajal.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fixed-size ring of versioned changes, for answering "what changed since
+ * version N" without going back to the store.
+ *
+ * Versions must be appended in increasing order. A query for a version older
+ * than the oldest change still held cannot be answered completely and returns
+ * empty, telling the caller to fall back to a full read. Changes carrying the
+ * same key are collapsed to the newest one. Thread-safe.
+ *
+ * @param <T> type of the changed item
+ */
+public class ChangeLog<T> {
+
+    private final long[] versions;
+    private final Object[] keys;
+    private final Object[] items;
+    private long floor; // every change up to and including this version has been evicted or never logged
+    private int head;   // next slot to write
+    private int size;
+
+    /**
+     * @param capacity number of changes kept
+     * @param floor    version the log starts from; queries for older versions are incomplete
+     */
+    public ChangeLog(int capacity, long floor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.versions = new long[capacity];
+        this.keys = new Object[capacity];
+        this.items = new Object[capacity];
+        this.floor = floor;
+    }
+
+    /**
+     * Record that {@code item} changed at {@code version}.
+     *
+     * @param key identity used to collapse repeated changes, or null to keep every change
+     */
+    public synchronized void append(long version, Object key, T item) {
+        if (size == versions.length) {
+            floor = versions[head];
+        } else {
+            size++;
+        }
+        versions[head] = version;
+        keys[head] = key;
+        items[head] = item;
+        head = (head + 1) % versions.length;
+    }
+
+    /**
+     * Changes after {@code version}, oldest first, or empty if some of them are
+     * no longer held.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Optional<List<T>> since(long version) {
+        if (version < floor) {
+            return Optional.empty();
+        }
+        Map<Object, T> changes = new LinkedHashMap<>();
+        int start = (head - size + versions.length) % versions.length;
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % versions.length;
+            if (versions[slot] <= version) {
+                continue;
+            }
+            // A re-changed key moves to its newest position; unkeyed changes never collide
+            Object key = keys[slot] != null ? keys[slot] : new Object();
+            changes.remove(key);
+            changes.put(key, (T) items[slot]);
+        }
+        return Optional.of(new ArrayList<>(changes.values()));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,165 @@
+package com.arogyajal.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash encoding and a few grid helpers used by the in-memory spatial indexes.
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+        }
+    }
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        int bit = 0, ch = 0, pos = 0;
+        while (pos < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash[pos++] = BASE32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    /**
+     * @return {minLat, minLon, maxLat, maxLon} of the cell
+     */
+    public static double[] bounds(String hash) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int c = hash.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + hash);
+            }
+            for (int b = 4; b >= 0; b--) {
+                int bitValue = (value >> b) & 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (bitValue == 1) minLon = mid; else maxLon = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bitValue == 1) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, minLon, maxLat, maxLon};
+    }
+
+    public static double cellHeightDegrees(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    public static double cellWidthDegrees(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    /**
+     * All cells of the given precision that may contain a point within
+     * {@code radiusMeters} of (lat, lon).
+     */
+    public static List<String> cellsAround(double lat, double lon, double radiusMeters, int precision) {
+        double height = cellHeightDegrees(precision);
+        double width = cellWidthDegrees(precision);
+        double metersPerLonDegree = Math.max(1.0, METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+        int latSteps = (int) Math.ceil(radiusMeters / (height * METERS_PER_DEGREE));
+        int lonSteps = (int) Math.ceil(radiusMeters / (width * metersPerLonDegree));
+
+        // Step from the centre of the cell holding the point so boundaries line up
+        double centerLat = (Math.floor((lat + 90) / height) + 0.5) * height - 90;
+        double centerLon = (Math.floor((lon + 180) / width) + 0.5) * width - 180;
+        Set<String> cells = new LinkedHashSet<>();
+        for (int i = -latSteps; i <= latSteps; i++) {
+            double cellLat = centerLat + i * height;
+            if (cellLat < -90 || cellLat > 90) {
+                continue;
+            }
+            for (int j = -lonSteps; j <= lonSteps; j++) {
+                double cellLon = centerLon + j * width;
+                if (cellLon >= 180) cellLon -= 360;
+                if (cellLon < -180) cellLon += 360;
+                cells.add(encode(cellLat, cellLon, precision));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+
+    /**
+     * Great-circle distance in meters (haversine).
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Parse a {@code "lat,lon"} string as stored by the sensor ingest path.
+     * @return {lat, lon}, or null if the string is not a coordinate pair
+     */
+    public static double[] parseLatLon(String value) {
+        if (value == null) {
+            return null;
+        }
+        int comma = value.indexOf(',');
+        if (comma <= 0 || comma != value.lastIndexOf(',')) {
+            return null;
+        }
+        try {
+            double lat = Double.parseDouble(value.substring(0, comma).trim());
+            double lon = Double.parseDouble(value.substring(comma + 1).trim());
+            if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+                return null;
+            }
+            return new double[]{lat, lon};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.arogyajal.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hashed timer wheel keyed by an id, with at most one pending timeout per key.
+ *
+ * Scheduling, rescheduling and cancelling are O(1): each key owns one node in a
+ * doubly linked bucket list, so a reset just unlinks and relinks it. Advancing
+ * the wheel only visits the buckets of the elapsed ticks; a timeout further out
+ * than one revolution keeps its absolute tick and is skipped until its lap comes
+ * round. Not thread-safe.
+ */
+public class HashedTimerWheel<K> {
+
+    private final long tickMillis;
+    private final Node<K>[] buckets;
+    private final int mask;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long currentTick = -1;
+
+    private static final class Node<K> {
+        final K key;
+        long deadline;
+        long tick;
+        Node<K> prev;
+        Node<K> next;
+        int bucket = -1;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * @param tickMillis resolution; timeouts fire up to one tick late
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = (Node<K>[]) new Node[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedule (or move) the timeout for {@code key} to {@code deadlineMillis}.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        Node<K> node = nodes.computeIfAbsent(key, Node::new);
+        unlink(node);
+        node.deadline = deadlineMillis;
+        // A deadline in an already processed tick fires on the next advance
+        node.tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        link(node, (int) (node.tick & mask));
+    }
+
+    public boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public boolean isScheduled(K key) {
+        return nodes.containsKey(key);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Process every tick up to {@code nowMillis} and hand expired keys with their
+     * deadline to {@code expired}. Expired keys are removed before the callback, so
+     * it may schedule them again.
+     */
+    public void advance(long nowMillis, BiConsumer<K, Long> expired) {
+        long target = nowMillis / tickMillis;
+        // The first advance, or one after a long pause, sweeps the whole wheel once
+        long from = currentTick < 0 ? target - mask : Math.max(currentTick + 1, target - mask);
+        List<Node<K>> due = new ArrayList<>();
+        for (long tick = from; tick <= target; tick++) {
+            Node<K> node = buckets[(int) (tick & mask)];
+            while (node != null) {
+                Node<K> next = node.next;
+                if (node.tick <= target) {
+                    unlink(node);
+                    nodes.remove(node.key);
+                    due.add(node);
+                }
+                node = next;
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        for (Node<K> node : due) {
+            expired.accept(node.key, node.deadline);
+        }
+    }
+
+    private void link(Node<K> node, int bucket) {
+        node.bucket = bucket;
+        node.prev = null;
+        node.next = buckets[bucket];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        buckets[bucket] = node;
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.bucket < 0) {
+            return;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets[node.bucket] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.bucket = -1;
+    }
+}
@@ -0,0 +1,195 @@
+package com.arogyajal.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^precision registers; the standard
+ * error is about 1.04 / sqrt(2^precision), 1.6% at precision 12.
+ *
+ * A sketch starts sparse, holding only the registers that were set (4 bytes
+ * each), and switches to the dense byte-per-register form once that would be
+ * smaller. Sketches of the same precision merge by taking the register-wise
+ * maximum, so counts over several time buckets or nodes are the estimate of the
+ * merged sketch. Not thread-safe.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private byte[] registers;        // dense form, null while sparse
+    private int[] sparse = new int[8]; // index << 8 | rank, unordered
+    private int sparseSize;
+
+    /**
+     * @param precision number of index bits, 4 to 16
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be within 4..16");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    public void add(String value) {
+        if (value != null) {
+            addHash(hash(value));
+        }
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits, capped when all are zero
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision) + 1, 64 - precision + 1);
+        set(index, rank);
+    }
+
+    private void set(int index, int rank) {
+        if (registers != null) {
+            if (registers[index] < rank) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+        for (int i = 0; i < sparseSize; i++) {
+            if (sparse[i] >>> 8 == index) {
+                if ((sparse[i] & 0xFF) < rank) {
+                    sparse[i] = index << 8 | rank;
+                }
+                return;
+            }
+        }
+        if (sparseSize * 4 >= registerCount) {
+            densify();
+            set(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparseSize * 2);
+        }
+        sparse[sparseSize++] = index << 8 | rank;
+    }
+
+    private void densify() {
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Sketches with different precision cannot be merged");
+        }
+        if (other.registers != null) {
+            if (registers == null) {
+                densify();
+            }
+            for (int i = 0; i < registerCount; i++) {
+                if (registers[i] < other.registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Estimated number of distinct values added, using linear counting while
+     * many registers are still empty.
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte rank : registers) {
+                sum += 1.0 / (1L << rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+        }
+        double m = registerCount;
+        double alpha = registerCount >= 128 ? 0.7213 / (1 + 1.079 / m)
+                : registerCount == 64 ? 0.709 : registerCount == 32 ? 0.697 : 0.673;
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public double standardError() {
+        return 1.04 / Math.sqrt(registerCount);
+    }
+
+    /**
+     * Write precision, form and either the set registers or all registers.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.writeBoolean(registers != null);
+        if (registers != null) {
+            out.write(registers);
+        } else {
+            out.writeInt(sparseSize);
+            for (int i = 0; i < sparseSize; i++) {
+                out.writeInt(sparse[i]);
+            }
+        }
+    }
+
+    public static HyperLogLog readFrom(DataInput in) throws IOException {
+        HyperLogLog sketch = new HyperLogLog(in.readByte());
+        if (in.readBoolean()) {
+            sketch.registers = new byte[sketch.registerCount];
+            in.readFully(sketch.registers);
+            sketch.sparse = null;
+        } else {
+            int size = in.readInt();
+            sketch.sparse = new int[Math.max(8, size)];
+            for (int i = 0; i < size; i++) {
+                sketch.sparse[i] = in.readInt();
+            }
+            sketch.sparseSize = size;
+        }
+        return sketch;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+     * so every output bit depends on every input bit.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,161 @@
+package com.arogyajal.util;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Static 2-d tree over points in a flat array, for range and radius queries.
+ *
+ * Built once by recursively partitioning the point indices around the median
+ * of alternating axes (quickselect, no per-node objects), so the tree is an
+ * index and two coordinates per point. Leaves of up to {@code nodeSize} points
+ * are scanned linearly. Queries report the index each point had in the input
+ * arrays. Immutable once built, so it may be read from any thread.
+ */
+public final class KdTree {
+
+    private final int nodeSize;
+    private final int[] ids;
+    private final double[] coords; // x0, y0, x1, y1, ... in tree order
+
+    public KdTree(double[] xs, double[] ys, int nodeSize) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length");
+        }
+        this.nodeSize = Math.max(1, nodeSize);
+        ids = new int[xs.length];
+        coords = new double[xs.length * 2];
+        for (int i = 0; i < xs.length; i++) {
+            ids[i] = i;
+            coords[2 * i] = xs[i];
+            coords[2 * i + 1] = ys[i];
+        }
+        sort(0, ids.length - 1, 0);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    private void sort(int left, int right, int axis) {
+        if (right - left <= nodeSize) {
+            return;
+        }
+        int median = (left + right) >>> 1;
+        select(median, left, right, axis);
+        sort(left, median - 1, 1 - axis);
+        sort(median + 1, right, 1 - axis);
+    }
+
+    /**
+     * Rearrange [left, right] so position k holds the value it would have if
+     * sorted on {@code axis}, with nothing greater before it or smaller after.
+     */
+    private void select(int k, int left, int right, int axis) {
+        while (right > left) {
+            double pivot = coords[2 * ((left + right) >>> 1) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coords[2 * i + axis] < pivot) {
+                    i++;
+                }
+                while (coords[2 * j + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        for (int axis = 0; axis < 2; axis++) {
+            double c = coords[2 * i + axis];
+            coords[2 * i + axis] = coords[2 * j + axis];
+            coords[2 * j + axis] = c;
+        }
+    }
+
+    /**
+     * Visit the input index of every point inside the box, edges included.
+     */
+    public void range(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        search(minX, minY, maxX, maxY, 0, 0, -1, visitor);
+    }
+
+    /**
+     * Visit the input index of every point within {@code radius} of (x, y).
+     */
+    public void within(double x, double y, double radius, IntConsumer visitor) {
+        search(x - radius, y - radius, x + radius, y + radius, x, y, radius * radius, visitor);
+    }
+
+    /**
+     * Points inside the box and, when {@code r2} is not negative, also within
+     * sqrt(r2) of (cx, cy).
+     */
+    private void search(double minX, double minY, double maxX, double maxY,
+                        double cx, double cy, double r2, IntConsumer visitor) {
+        if (ids.length == 0) {
+            return;
+        }
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = ids.length - 1;
+        stack[top++] = 0;
+        while (top > 0) {
+            int axis = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+            if (right - left <= nodeSize) {
+                for (int i = left; i <= right; i++) {
+                    double x = coords[2 * i];
+                    double y = coords[2 * i + 1];
+                    if (matches(x, y, minX, minY, maxX, maxY, cx, cy, r2)) {
+                        visitor.accept(ids[i]);
+                    }
+                }
+                continue;
+            }
+            int median = (left + right) >>> 1;
+            double x = coords[2 * median];
+            double y = coords[2 * median + 1];
+            if (matches(x, y, minX, minY, maxX, maxY, cx, cy, r2)) {
+                visitor.accept(ids[median]);
+            }
+            double value = axis == 0 ? x : y;
+            if ((axis == 0 ? minX : minY) <= value) {
+                stack[top++] = left;
+                stack[top++] = median - 1;
+                stack[top++] = 1 - axis;
+            }
+            if ((axis == 0 ? maxX : maxY) >= value) {
+                stack[top++] = median + 1;
+                stack[top++] = right;
+                stack[top++] = 1 - axis;
+            }
+        }
+    }
+
+    private static boolean matches(double x, double y, double minX, double minY, double maxX, double maxY,
+                                   double cx, double cy, double r2) {
+        if (r2 >= 0) {
+            double dx = x - cx;
+            double dy = y - cy;
+            return dx * dx + dy * dy <= r2;
+        }
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+}
@@ -0,0 +1,197 @@
+package com.arogyajal.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HDR-style histogram: values are counted in log-linear buckets with a fixed
+ * number of significant binary digits, so every recorded value is known to
+ * within a constant relative error (under 0.8% with 8 bits) at any magnitude.
+ *
+ * Values are scaled by {@code unit} to non-negative integers; everything below
+ * {@code 2^bits} units is counted exactly. The count array grows only as far as
+ * the largest value seen, and is serialized sparsely. Histograms with the same
+ * unit and precision merge by adding counts. Not thread-safe.
+ */
+public class LogLinearHistogram {
+
+    private final double unit;
+    private final int bits;
+    private final int half;
+    private int[] counts = new int[0];
+    private long total;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param unit smallest distinguishable value, e.g. 0.01 for pH
+     * @param bits significant binary digits per bucket (1 to 16)
+     */
+    public LogLinearHistogram(double unit, int bits) {
+        if (unit <= 0 || bits < 1 || bits > 16) {
+            throw new IllegalArgumentException("Unit must be positive and bits within 1..16");
+        }
+        this.unit = unit;
+        this.bits = bits;
+        this.half = 1 << (bits - 1);
+    }
+
+    /**
+     * Count one value; negative values are counted as zero.
+     */
+    public void record(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int index = index(Math.max(0, Math.round(value / unit)));
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + counts.length / 2));
+        }
+        counts[index]++;
+        total++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(LogLinearHistogram other) {
+        if (other.unit != unit || other.bits != bits) {
+            throw new IllegalArgumentException("Histograms with different unit or precision cannot be merged");
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Value at or below which a fraction {@code q} of the counts fall, reported
+     * as the top of its bucket (clamped to the largest value seen), or NaN if
+     * empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be within [0, 1]");
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highest(i) * unit));
+            }
+        }
+        return max;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public double min() {
+        return total == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return total == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Values below 2^bits map to themselves; above that, bucket b keeps the top
+     * {@code bits} binary digits of the value, so it spans 2^b units.
+     */
+    int index(long value) {
+        if (value < 2L * half) {
+            return (int) value;
+        }
+        int bucket = 63 - Long.numberOfLeadingZeros(value) - (bits - 1);
+        return bucket * half + (int) (value >>> bucket);
+    }
+
+    /**
+     * Largest scaled value that maps to {@code index}.
+     */
+    long highest(int index) {
+        if (index < 2 * half) {
+            return index;
+        }
+        int bucket = index / half - 1;
+        long sub = index - (long) bucket * half;
+        return ((sub + 1) << bucket) - 1;
+    }
+
+    /**
+     * Write the histogram as unit, precision, bounds and the non-zero buckets
+     * as (index gap, count) varint pairs.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(unit);
+        out.writeByte(bits);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                nonZero++;
+            }
+        }
+        out.writeInt(nonZero);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarint(out, i - previous);
+                writeVarint(out, counts[i]);
+                previous = i;
+            }
+        }
+    }
+
+    public static LogLinearHistogram readFrom(DataInput in) throws IOException {
+        LogLinearHistogram histogram = new LogLinearHistogram(in.readDouble(), in.readByte());
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int nonZero = in.readInt();
+        int index = 0;
+        for (int i = 0; i < nonZero; i++) {
+            index += readVarint(in);
+            int count = readVarint(in);
+            if (index >= histogram.counts.length) {
+                histogram.counts = Arrays.copyOf(histogram.counts, Math.max(index + 1, histogram.counts.length * 2));
+            }
+            histogram.counts[index] = count;
+            histogram.total += count;
+        }
+        histogram.min = min;
+        histogram.max = max;
+        return histogram;
+    }
+
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,199 @@
+package com.arogyajal.util;
+
+import java.util.*;
+
+/**
+ * Point quadtree over latitude/longitude for bounding-box and k-nearest
+ * queries.
+ *
+ * A node splits into four quadrants when it holds more than {@code capacity}
+ * points, down to a minimum cell size so coincident points cannot recurse
+ * forever. Each key is stored once; inserting an existing key moves it. Nearest
+ * neighbours are found best-first: nodes are visited in order of their
+ * distance from the query point, so only the cells that can still hold a closer
+ * point are opened. Not thread-safe.
+ *
+ * @param <K> key of a point, e.g. a device id
+ */
+public class QuadTree<K> {
+
+    private static final double MIN_CELL_DEGREES = 1e-6;
+
+    private final int capacity;
+    private final Node<K> root = new Node<>(-90, -180, 90, 180);
+    private final Map<K, double[]> positions = new HashMap<>();
+
+    public QuadTree(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * A key with its distance from the query point.
+     */
+    public record Neighbour<K>(K key, double lat, double lon, double distanceMeters) {
+    }
+
+    private static final class Candidate<K> {
+        final double distance;
+        final Node<K> node;    // a node still to open, or
+        final K key;           // a point
+        final double[] position;
+
+        Candidate(double distance, Node<K> node, K key, double[] position) {
+            this.distance = distance;
+            this.node = node;
+            this.key = key;
+            this.position = position;
+        }
+    }
+
+    private static final class Node<K> {
+        final double minLat, minLon, maxLat, maxLon;
+        List<K> keys = new ArrayList<>();
+        List<Node<K>> children; // SW, SE, NW, NE once split
+
+        Node(double minLat, double minLon, double maxLat, double maxLon) {
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+        }
+
+        Node<K> child(double lat, double lon) {
+            double midLat = (minLat + maxLat) / 2;
+            double midLon = (minLon + maxLon) / 2;
+            return children.get((lat >= midLat ? 2 : 0) + (lon >= midLon ? 1 : 0));
+        }
+
+        void split(Map<K, double[]> positions) {
+            double midLat = (minLat + maxLat) / 2;
+            double midLon = (minLon + maxLon) / 2;
+            children = List.of(
+                    new Node<>(minLat, minLon, midLat, midLon), new Node<>(minLat, midLon, midLat, maxLon),
+                    new Node<>(midLat, minLon, maxLat, midLon), new Node<>(midLat, midLon, maxLat, maxLon));
+            for (K key : keys) {
+                double[] p = positions.get(key);
+                child(p[0], p[1]).keys.add(key);
+            }
+            keys = null;
+        }
+
+        boolean intersects(double qMinLat, double qMinLon, double qMaxLat, double qMaxLon) {
+            return qMinLat <= maxLat && qMaxLat >= minLat && qMinLon <= maxLon && qMaxLon >= minLon;
+        }
+
+        /**
+         * Lower bound of the distance from (lat, lon) to any point in this node.
+         */
+        double distanceMeters(double lat, double lon) {
+            double clampedLat = Math.max(minLat, Math.min(maxLat, lat));
+            double clampedLon = Math.max(minLon, Math.min(maxLon, lon));
+            return Geohash.distanceMeters(lat, lon, clampedLat, clampedLon);
+        }
+    }
+
+    /**
+     * Add {@code key} at (lat, lon), moving it if it is already present.
+     */
+    public void put(K key, double lat, double lon) {
+        double[] previous = positions.get(key);
+        if (previous != null) {
+            if (previous[0] == lat && previous[1] == lon) {
+                return;
+            }
+            remove(key);
+        }
+        positions.put(key, new double[]{lat, lon});
+        Node<K> node = root;
+        while (node.children != null) {
+            node = node.child(lat, lon);
+        }
+        node.keys.add(key);
+        while (node.keys != null && node.keys.size() > capacity && node.maxLat - node.minLat > MIN_CELL_DEGREES) {
+            node.split(positions);
+            node = node.child(lat, lon);
+        }
+    }
+
+    public boolean remove(K key) {
+        double[] p = positions.remove(key);
+        if (p == null) {
+            return false;
+        }
+        Node<K> node = root;
+        while (node.children != null) {
+            node = node.child(p[0], p[1]);
+        }
+        node.keys.remove(key);
+        return true;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Keys inside the box, edges included.
+     */
+    public List<K> within(double minLat, double minLon, double maxLat, double maxLon) {
+        List<K> found = new ArrayList<>();
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            if (!node.intersects(minLat, minLon, maxLat, maxLon)) {
+                continue;
+            }
+            if (node.children != null) {
+                for (Node<K> child : node.children) {
+                    stack.push(child);
+                }
+                continue;
+            }
+            for (K key : node.keys) {
+                double[] p = positions.get(key);
+                if (p[0] >= minLat && p[0] <= maxLat && p[1] >= minLon && p[1] <= maxLon) {
+                    found.add(key);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Up to {@code k} keys nearest to (lat, lon) and no farther than
+     * {@code maxDistanceMeters}, closest first.
+     */
+    public List<Neighbour<K>> nearest(double lat, double lon, int k, double maxDistanceMeters) {
+        List<Neighbour<K>> found = new ArrayList<>();
+        if (k <= 0) {
+            return found;
+        }
+        // Nodes and points share one queue; a point is final once it is the closest thing left
+        PriorityQueue<Candidate<K>> queue = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        queue.add(new Candidate<>(0, root, null, null));
+        while (!queue.isEmpty() && found.size() < k) {
+            Candidate<K> candidate = queue.poll();
+            if (candidate.distance > maxDistanceMeters) {
+                break;
+            }
+            Node<K> node = candidate.node;
+            if (node == null) {
+                found.add(new Neighbour<>(candidate.key, candidate.position[0], candidate.position[1], candidate.distance));
+            } else if (node.children != null) {
+                for (Node<K> child : node.children) {
+                    queue.add(new Candidate<>(child.distanceMeters(lat, lon), child, null, null));
+                }
+            } else {
+                for (K key : node.keys) {
+                    double[] p = positions.get(key);
+                    queue.add(new Candidate<>(Geohash.distanceMeters(lat, lon, p[0], p[1]), null, key, p));
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,404 @@
+package com.arogyajal.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints in the roaring layout.
+ *
+ * Values are split by their high 16 bits into containers holding the low 16
+ * bits: a sorted char array while the container has at most 4096 values, a
+ * 1024-word bitmap above that. Both forms stay within 8 KB per 65536 values,
+ * and AND / OR / AND NOT work container by container with the cheapest
+ * algorithm for each pair of forms. The set operations return new bitmaps and
+ * leave their inputs alone. Not thread-safe.
+ */
+public class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Low 16 bits of the values sharing one high half, either as a sorted
+     * array or as a bitmap.
+     */
+    private static final class Container {
+        char[] array; // sorted, null in bitmap form
+        long[] bits;  // null in array form
+        int cardinality;
+
+        static Container ofArray(char[] array, int cardinality) {
+            Container c = new Container();
+            c.array = array;
+            c.cardinality = cardinality;
+            return c;
+        }
+
+        static Container ofBits(long[] bits, int cardinality) {
+            Container c = new Container();
+            c.bits = bits;
+            c.cardinality = cardinality;
+            return c;
+        }
+
+        /**
+         * The smaller form for the bitmap's cardinality.
+         */
+        static Container fromBits(long[] bits) {
+            int cardinality = 0;
+            for (long word : bits) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_MAX) {
+                return ofBits(bits, cardinality);
+            }
+            char[] array = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    array[n++] = (char) (w * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return ofArray(array, cardinality);
+        }
+
+        boolean contains(char low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (bits != null) {
+                long before = bits[low >>> 6];
+                bits[low >>> 6] = before | (1L << low);
+                if (before == bits[low >>> 6]) {
+                    return false;
+                }
+                cardinality++;
+                return true;
+            }
+            int at = Arrays.binarySearch(array, 0, cardinality, low);
+            if (at >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_MAX) {
+                bits = toBits();
+                array = null;
+                return add(low);
+            }
+            at = -at - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(array, at, array, at + 1, cardinality - at);
+            array[at] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bits != null) {
+                long before = bits[low >>> 6];
+                bits[low >>> 6] = before & ~(1L << low);
+                if (before == bits[low >>> 6]) {
+                    return false;
+                }
+                if (--cardinality <= ARRAY_MAX) {
+                    Container array = fromBits(bits);
+                    this.array = array.array;
+                    this.bits = null;
+                }
+                return true;
+            }
+            int at = Arrays.binarySearch(array, 0, cardinality, low);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(array, at + 1, array, at, cardinality - at - 1);
+            cardinality--;
+            return true;
+        }
+
+        long[] toBits() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                result[array[i] >>> 6] |= 1L << array[i];
+            }
+            return result;
+        }
+
+        Container copy() {
+            return bits != null ? ofBits(bits.clone(), cardinality) : ofArray(Arrays.copyOf(array, cardinality), cardinality);
+        }
+
+        Container and(Container other) {
+            if (bits != null && other.bits != null) {
+                long[] result = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    result[w] = bits[w] & other.bits[w];
+                }
+                return fromBits(result);
+            }
+            if (bits != null) {
+                return other.and(this);
+            }
+            char[] result = new char[cardinality];
+            int n = 0;
+            if (other.bits != null) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(array[i])) {
+                        result[n++] = array[i];
+                    }
+                }
+            } else {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < other.cardinality) {
+                    char a = array[i];
+                    char b = other.array[j];
+                    if (a == b) {
+                        result[n++] = a;
+                        i++;
+                        j++;
+                    } else if (a < b) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+            }
+            return ofArray(result, n);
+        }
+
+        Container or(Container other) {
+            if (bits == null && other.bits == null && cardinality + other.cardinality <= ARRAY_MAX) {
+                char[] result = new char[cardinality + other.cardinality];
+                int i = 0;
+                int j = 0;
+                int n = 0;
+                while (i < cardinality || j < other.cardinality) {
+                    if (j == other.cardinality || (i < cardinality && array[i] < other.array[j])) {
+                        result[n++] = array[i++];
+                    } else if (i == cardinality || other.array[j] < array[i]) {
+                        result[n++] = other.array[j++];
+                    } else {
+                        result[n++] = array[i++];
+                        j++;
+                    }
+                }
+                return ofArray(result, n);
+            }
+            long[] result = toBits();
+            if (other.bits != null) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    result[w] |= other.bits[w];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.array[i] >>> 6] |= 1L << other.array[i];
+                }
+            }
+            return fromBits(result);
+        }
+
+        Container andNot(Container other) {
+            if (bits == null) {
+                char[] result = new char[cardinality];
+                int n = 0;
+                for (int i = 0; i < cardinality; i++) {
+                    if (!other.contains(array[i])) {
+                        result[n++] = array[i];
+                    }
+                }
+                return ofArray(result, n);
+            }
+            long[] result = bits.clone();
+            if (other.bits != null) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    result[w] &= ~other.bits[w];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.array[i] >>> 6] &= ~(1L << other.array[i]);
+                }
+            }
+            return fromBits(result);
+        }
+
+        void forEach(int high, IntConsumer consumer) {
+            if (bits != null) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        consumer.accept(high | (w * 64 + Long.numberOfTrailingZeros(word)));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    consumer.accept(high | array[i]);
+                }
+            }
+        }
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(char key, Container container) {
+        if (container.cardinality == 0) {
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size++] = container;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative: " + value);
+        }
+    }
+
+    public boolean add(int value) {
+        checkValue(value);
+        char key = (char) (value >>> 16);
+        int at = find(key);
+        if (at < 0) {
+            at = -at - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(containers, at, containers, at + 1, size - at);
+            keys[at] = key;
+            containers[at] = Container.ofArray(new char[4], 0);
+            size++;
+        }
+        return containers[at].add((char) value);
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int at = find((char) (value >>> 16));
+        if (at < 0 || !containers[at].remove((char) value)) {
+            return false;
+        }
+        if (containers[at].cardinality == 0) {
+            System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+            System.arraycopy(containers, at + 1, containers, at, size - at - 1);
+            containers[--size] = null;
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int at = find((char) (value >>> 16));
+        return at >= 0 && containers[at].contains((char) value);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] == other.keys[j]) {
+                result.append(keys[i], containers[i++].and(other.containers[j++]));
+            } else if (keys[i] < other.keys[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i++].copy());
+            } else if (i == size || other.keys[j] < keys[i]) {
+                result.append(other.keys[j], other.containers[j++].copy());
+            } else {
+                result.append(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visit the values in ascending order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[Math.toIntExact(cardinality())];
+        int[] n = new int[1];
+        forEach(v -> values[n[0]++] = v);
+        return values;
+    }
+}
@@ -0,0 +1,79 @@
+package com.arogyajal.util;
+
+/**
+ * Fixed-size ring of time buckets holding event counts for a sliding window.
+ *
+ * Adding an event and reading the window total are O(1) amortized: expired
+ * buckets are zeroed lazily as the window advances, and a running total is kept
+ * so the window is never summed. Not thread-safe.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final long[] epochs;
+    private final int[] counts;
+    private long head = -1; // newest bucket epoch the ring has advanced to
+    private long total;
+
+    /**
+     * @param windowMillis length of the window
+     * @param bucketMillis bucket resolution; the window is rounded up to whole buckets
+     */
+    public SlidingWindowCounter(long windowMillis, long bucketMillis) {
+        if (windowMillis <= 0 || bucketMillis <= 0) {
+            throw new IllegalArgumentException("Window and bucket size must be positive");
+        }
+        int buckets = (int) Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis);
+        this.bucketMillis = bucketMillis;
+        this.epochs = new long[buckets];
+        this.counts = new int[buckets];
+        java.util.Arrays.fill(epochs, -1);
+    }
+
+    /**
+     * Count {@code delta} events at {@code timeMillis}. Events older than the window
+     * relative to the newest event seen so far are dropped.
+     */
+    public void add(long timeMillis, int delta) {
+        long epoch = timeMillis / bucketMillis;
+        if (epoch > head) {
+            advance(epoch);
+        } else if (epoch <= head - epochs.length) {
+            return;
+        }
+        int idx = (int) (epoch % epochs.length);
+        if (epochs[idx] != epoch) {
+            total -= counts[idx];
+            counts[idx] = 0;
+            epochs[idx] = epoch;
+        }
+        counts[idx] += delta;
+        total += delta;
+    }
+
+    /**
+     * Number of events inside the window ending at {@code nowMillis}.
+     */
+    public long total(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        if (epoch > head) {
+            advance(epoch);
+        }
+        return total;
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * epochs.length;
+    }
+
+    private void advance(long epoch) {
+        long from = Math.max(head + 1, epoch - epochs.length + 1);
+        for (long e = from; e <= epoch; e++) {
+            int idx = (int) (e % epochs.length);
+            total -= counts[idx];
+            counts[idx] = 0;
+            epochs[idx] = e;
+        }
+        head = epoch;
+    }
+}
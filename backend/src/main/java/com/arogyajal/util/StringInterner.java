@@ -0,0 +1,55 @@
+package com.arogyajal.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense int codes for a small, slowly growing set of strings such as device
+ * ids or locations. Codes start at 0 and are never reused, so they can index
+ * plain arrays; null maps to -1. Not thread-safe.
+ */
+public class StringInterner {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+
+    /**
+     * The code of {@code value}, assigning the next one on first sight.
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next == values.length) {
+            values = Arrays.copyOf(values, next * 2);
+        }
+        values[next] = value;
+        codes.put(value, next);
+        return next;
+    }
+
+    /**
+     * The code of {@code value}, or -1 when it was never interned.
+     */
+    public int find(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    public String value(int code) {
+        return code >= 0 && code < codes.size() ? values[code] : null;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,241 @@
+package com.arogyajal.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest: a mergeable quantile sketch that keeps a bounded number of
+ * weighted centroids, small near the tails and larger in the middle, so extreme
+ * quantiles stay accurate.
+ *
+ * Values are buffered and folded into the centroids in one sorted pass when the
+ * buffer fills or a quantile is read. Two digests merge by feeding one's
+ * centroids into the other. With compression 100 a digest holds at most a few
+ * hundred centroids whatever the number of values. Not thread-safe.
+ */
+public class TDigest {
+
+    private final double compression;
+    private double[] means;
+    private long[] weights;
+    private int centroids;
+    private final double[] bufferMeans;
+    private final long[] bufferWeights;
+    private int buffered;
+    private long totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression accuracy/size trade-off; the number of centroids is about twice this
+     */
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * 2) + 10;
+        this.means = new double[capacity];
+        this.weights = new long[capacity];
+        this.bufferMeans = new double[capacity * 4];
+        this.bufferWeights = new long[capacity * 4];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, long weight) {
+        if (Double.isNaN(value) || weight <= 0) {
+            return;
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Fold another digest into this one; {@code other} is not modified beyond
+     * compressing its buffer. Its centroids are buffered, or compressed in one
+     * pass with the buffer if they do not fit, so every compression sees a
+     * total weight that matches the centroids it merges.
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        totalWeight += other.totalWeight;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (buffered + other.centroids <= bufferMeans.length) {
+            System.arraycopy(other.means, 0, bufferMeans, buffered, other.centroids);
+            System.arraycopy(other.weights, 0, bufferWeights, buffered, other.centroids);
+            buffered += other.centroids;
+        } else {
+            compress(other.means, other.weights, other.centroids);
+        }
+    }
+
+    /**
+     * Value below which a fraction {@code q} of the values fall, or NaN if empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be within [0, 1]");
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        if (index <= weights[0] / 2.0) {
+            return min + (means[0] - min) * index / (weights[0] / 2.0);
+        }
+        double center = weights[0] / 2.0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double next = center + (weights[i] + weights[i + 1]) / 2.0;
+            if (index <= next) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (next - center);
+            }
+            center = next;
+        }
+        double tail = totalWeight - center;
+        return tail <= 0 ? max : means[centroids - 1] + (max - means[centroids - 1]) * (index - center) / tail;
+    }
+
+    public double mean() {
+        compress();
+        double sum = 0;
+        for (int i = 0; i < centroids; i++) {
+            sum += means[i] * weights[i];
+        }
+        return totalWeight == 0 ? Double.NaN : sum / totalWeight;
+    }
+
+    public long size() {
+        return totalWeight;
+    }
+
+    public double min() {
+        return totalWeight == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return totalWeight == 0 ? Double.NaN : max;
+    }
+
+    public int centroidCount() {
+        compress();
+        return centroids;
+    }
+
+    private void compress() {
+        compress(null, null, 0);
+    }
+
+    /**
+     * Merge the buffer and {@code extra} further centroids into the centroids,
+     * keeping each centroid within the size the k1 scale function allows at its
+     * quantile.
+     */
+    private void compress(double[] extraMeans, long[] extraWeights, int extra) {
+        if (buffered == 0 && extra == 0) {
+            return;
+        }
+        int n = centroids + buffered + extra;
+        double[] allMeans = new double[n];
+        long[] allWeights = new long[n];
+        System.arraycopy(means, 0, allMeans, 0, centroids);
+        System.arraycopy(weights, 0, allWeights, 0, centroids);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        if (extra > 0) {
+            System.arraycopy(extraMeans, 0, allMeans, centroids + buffered, extra);
+            System.arraycopy(extraWeights, 0, allWeights, centroids + buffered, extra);
+        }
+        buffered = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        long seen = 0;
+        int out = 0;
+        double mean = allMeans[order[0]];
+        long weight = allWeights[order[0]];
+        double limit = totalWeight * q(k(0) + 1);
+        for (int i = 1; i < n; i++) {
+            int next = order[i];
+            if (seen + weight + allWeights[next] <= limit) {
+                weight += allWeights[next];
+                mean += (allMeans[next] - mean) * allWeights[next] / weight;
+            } else {
+                out = emit(out, mean, weight);
+                seen += weight;
+                limit = totalWeight * q(k((double) seen / totalWeight) + 1);
+                mean = allMeans[next];
+                weight = allWeights[next];
+            }
+        }
+        centroids = emit(out, mean, weight);
+    }
+
+    private int emit(int at, double mean, long weight) {
+        if (at == means.length) {
+            means = Arrays.copyOf(means, at * 2);
+            weights = Arrays.copyOf(weights, at * 2);
+        }
+        means[at] = mean;
+        weights[at] = weight;
+        return at + 1;
+    }
+
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    private double q(double k) {
+        double angle = k * 2 * Math.PI / compression;
+        return angle >= Math.PI / 2 ? 1 : (Math.sin(angle) + 1) / 2;
+    }
+
+    /**
+     * Write the digest as compression, bounds and centroids (12 bytes each).
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        compress();
+        out.writeDouble(compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeInt((int) Math.min(Integer.MAX_VALUE, weights[i]));
+        }
+    }
+
+    public static TDigest readFrom(DataInput in) throws IOException {
+        TDigest digest = new TDigest(in.readDouble());
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            digest.centroids = digest.emit(digest.centroids, in.readDouble(), in.readInt());
+            digest.totalWeight += digest.weights[i];
+        }
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+}
@@ -0,0 +1,137 @@
+package com.arogyajal.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits mixed Hindi / English free text into index terms.
+ *
+ * A token is a run of letters, digits and combining marks, so Devanagari
+ * vowel signs and viramas stay inside their word while the danda and other
+ * punctuation separate words. Each token is NFKC-normalised and lower-cased,
+ * zero-width joiners are dropped, chandrabindu is folded into anusvara and
+ * digits of any script become ASCII. Common English and Hindi function words
+ * are skipped, and a light suffix stripper conflates plural and inflected forms
+ * (fevers / fever, उल्टियां / उल्टी). Romanised Hindi is treated as English.
+ */
+public final class TextAnalyzer {
+
+    /**
+     * Receives each term with the character range of its token in the input.
+     */
+    @FunctionalInterface
+    public interface TokenSink {
+        void accept(String term, int start, int end);
+    }
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he", "her",
+            "his", "in", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their", "this", "to",
+            "was", "were", "will", "with",
+            "का", "की", "के", "को", "में", "है", "हैं", "और", "से", "पर", "यह", "वह", "था", "थी", "थे", "भी",
+            "तो", "ही", "एक", "कि", "जो", "ने", "हो", "रहा", "रही", "रहे", "गया", "गई", "लिए");
+
+    // Longest first; from the light stemmer of Ramanathan and Rao, after chandrabindu folding
+    private static final String[] HINDI_SUFFIXES = {
+            "ियां", "ियों", "ाएं", "ाओं", "ाने", "ाना", "ाते", "ाती", "ाता",
+            "ों", "ें", "ीं", "ां", "ाई", "ी", "े", "ा", "ो", "ि", "ु", "ू"};
+
+    private static final char ZWNJ = '‌';
+    private static final char ZWJ = '‍';
+    private static final char CHANDRABINDU = 'ँ';
+    private static final char ANUSVARA = 'ं';
+
+    public void analyze(String text, TokenSink sink) {
+        if (text == null) {
+            return;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (!isTokenChar(cp)) {
+                i += Character.charCount(cp);
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && isTokenChar(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            String term = normalize(text.substring(start, i));
+            if (!term.isEmpty() && !STOPWORDS.contains(term)) {
+                sink.accept(stem(term), start, i);
+            }
+        }
+    }
+
+    public List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, (term, start, end) -> terms.add(term));
+        return terms;
+    }
+
+    private static boolean isTokenChar(int cp) {
+        if (Character.isLetterOrDigit(cp) || cp == ZWNJ || cp == ZWJ) {
+            return true;
+        }
+        int type = Character.getType(cp);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    private static String normalize(String token) {
+        String normalized = Normalizer.normalize(token, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp == ZWNJ || cp == ZWJ) {
+                continue;
+            }
+            if (cp == CHANDRABINDU) {
+                out.append(ANUSVARA);
+            } else if (Character.isDigit(cp)) {
+                out.append((char) ('0' + Character.digit(cp, 10)));
+            } else {
+                out.appendCodePoint(cp);
+            }
+        }
+        return out.toString();
+    }
+
+    static String stem(String term) {
+        if (isDevanagari(term.charAt(0))) {
+            for (String suffix : HINDI_SUFFIXES) {
+                if (term.length() - suffix.length() >= 2 && term.endsWith(suffix)) {
+                    return term.substring(0, term.length() - suffix.length());
+                }
+            }
+            return term;
+        }
+        if (!Character.isLetter(term.charAt(term.length() - 1))) {
+            return term;
+        }
+        if (term.length() > 4 && term.endsWith("ies")) {
+            return term.substring(0, term.length() - 3) + "y";
+        }
+        if (term.length() > 5 && term.endsWith("ing")) {
+            return term.substring(0, term.length() - 3);
+        }
+        if (term.length() > 4 && term.endsWith("ed")) {
+            return term.substring(0, term.length() - 2);
+        }
+        if (term.endsWith("sses")) {
+            return term.substring(0, term.length() - 2);
+        }
+        if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us")) {
+            return term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    private static boolean isDevanagari(char c) {
+        return c >= 'ऀ' && c <= 'ॿ';
+    }
+}
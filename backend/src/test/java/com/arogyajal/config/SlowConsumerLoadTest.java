@@ -0,0 +1,212 @@
+package com.arogyajal.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 5k simulated subscribers, a few of which stop reading altogether.
+ */
+class SlowConsumerLoadTest {
+
+    private static final int SUBSCRIBERS = 5_000;
+    private static final int THREADS = 8;
+    private static final int STUCK = 16;
+    private static final int TOPICS = 5;
+    private static final int ROUNDS = 10;
+
+    private OutboundSenderPool sender;
+    private ScheduledExecutorService watchdog;
+    private SimpleMeterRegistry registry;
+    private WebSocketSessionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        sender = new OutboundSenderPool(THREADS, 50);
+        watchdog = Executors.newSingleThreadScheduledExecutor();
+        registry = new SimpleMeterRegistry();
+        metrics = new WebSocketSessionMetrics(registry);
+        watchdog.scheduleAtFixedRate(() -> metrics.checkLag(System.currentTimeMillis()), 50, 50, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.shutdownNow();
+        sender.shutdown();
+    }
+
+    private static final class Subscriber {
+        final AtomicReferenceArray<String> lastByTopic = new AtomicReferenceArray<>(TOPICS);
+        final CountDownLatch closed = new CountDownLatch(1);
+        OutboundSessionQueue queue;
+    }
+
+    private Subscriber subscriber(int id, boolean stuck, OutboundSessionQueue.Limits limits) throws Exception {
+        Subscriber subscriber = new Subscriber();
+        WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+        when(session.getId()).thenReturn("s" + id);
+        doAnswer(invocation -> {
+            if (stuck) {
+                subscriber.closed.await(); // a dead socket blocks until the session is closed
+                throw new java.io.IOException("closed");
+            }
+            String payload = ((TextMessage) invocation.getArgument(0)).getPayload();
+            int topic = payload.charAt(payload.indexOf("/topic/t") + 8) - '0';
+            subscriber.lastByTopic.set(topic, payload.substring(payload.indexOf("\n\n") + 2));
+            return null;
+        }).when(session).sendMessage(any());
+        doAnswer(invocation -> {
+            subscriber.closed.countDown();
+            return null;
+        }).when(session).close(any(CloseStatus.class));
+        subscriber.queue = new OutboundSessionQueue(session, sender, metrics, limits);
+        metrics.register(subscriber.queue);
+        return subscriber;
+    }
+
+    private static TextMessage frame(int subscription, int topic, int round) {
+        return new TextMessage("MESSAGE\ndestination:/topic/t" + topic + "\nsubscription:sub-" + subscription
+                + "\ncontent-type:application/json\n\n{\"round\":" + round + "}");
+    }
+
+    @Test
+    void fastSubscribersGetLatestValuesWhileStuckOnesAreCut() throws Exception {
+        OutboundSessionQueue.Limits limits = new OutboundSessionQueue.Limits(32, 2_000, 300, 100, false);
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            subscribers.add(subscriber(i, i < STUCK, limits));
+        }
+        assertEquals(SUBSCRIBERS, metrics.getSessionCount());
+
+        long start = System.currentTimeMillis();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int topic = 0; topic < TOPICS; topic++) {
+                for (int i = 0; i < SUBSCRIBERS; i++) {
+                    subscribers.get(i).queue.sendMessage(frame(topic, topic, round));
+                }
+            }
+        }
+        long publishMillis = System.currentTimeMillis() - start;
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (metrics.totalDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(200);
+
+        assertEquals(0, metrics.totalDepth(), "all queues drained");
+        String expected = "{\"round\":" + (ROUNDS - 1) + "}";
+        for (int i = STUCK; i < SUBSCRIBERS; i++) {
+            for (int topic = 0; topic < TOPICS; topic++) {
+                assertEquals(expected, subscribers.get(i).lastByTopic.get(topic), "subscriber " + i + " topic " + topic);
+            }
+        }
+        for (int i = 0; i < STUCK; i++) {
+            assertTrue(subscribers.get(i).closed.await(5, TimeUnit.SECONDS), "stuck subscriber " + i + " closed");
+        }
+
+        double sent = registry.get("arogyajal.websocket.messages.sent").counter().count();
+        double conflated = registry.get("arogyajal.websocket.messages.conflated").counter().count();
+        double dropped = registry.get("arogyajal.websocket.messages.dropped").counter().count();
+        double disconnects = registry.get("arogyajal.websocket.sessions.slow-disconnects").counter().count();
+        assertEquals(STUCK, disconnects);
+        assertTrue(conflated > 0);
+        // Conflation means far fewer writes than the publish count
+        assertTrue(sent < (double) SUBSCRIBERS * TOPICS * ROUNDS);
+        assertEquals((double) SUBSCRIBERS * TOPICS * ROUNDS, sent + conflated + dropped,
+                STUCK * TOPICS * ROUNDS, "every frame to a live subscriber is accounted for");
+        // Publishing only enqueues, so stuck subscribers never hold up the publisher
+        assertTrue(publishMillis < 5_000, "published in " + publishMillis + " ms");
+    }
+
+    @Test
+    void moreStalledSessionsThanSendersDoNotStarveTheRest() throws Exception {
+        // Stalled writes are only cut after a minute, far beyond this test
+        OutboundSessionQueue.Limits limits = new OutboundSessionQueue.Limits(32, 60_000, 60_000, 100, false);
+        int stalled = THREADS * 3;
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < stalled + 100; i++) {
+            subscribers.add(subscriber(i, i < stalled, limits));
+        }
+        for (int i = 0; i < stalled; i++) {
+            subscribers.get(i).queue.sendMessage(frame(0, 0, 0));
+        }
+        Thread.sleep(100);
+        for (int i = stalled; i < subscribers.size(); i++) {
+            subscribers.get(i).queue.sendMessage(frame(0, 0, 1));
+        }
+
+        long deadline = System.currentTimeMillis() + 3_000;
+        for (int i = stalled; i < subscribers.size(); i++) {
+            while (subscribers.get(i).lastByTopic.get(0) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("{\"round\":1}", subscribers.get(i).lastByTopic.get(0), "subscriber " + i);
+        }
+        // Each stalled write gets its spare once it has blocked for the stall threshold
+        deadline = System.currentTimeMillis() + 3_000;
+        while (sender.getPoolSize() < THREADS + stalled && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(THREADS + stalled, sender.getPoolSize(), "one spare per stalled write");
+        assertEquals(0, registry.get("arogyajal.websocket.sessions.slow-disconnects").counter().count());
+
+        // Spares are retired once the stalled writes return
+        subscribers.subList(0, stalled).forEach(subscriber -> subscriber.closed.countDown());
+        deadline = System.currentTimeMillis() + 3_000;
+        while (sender.getPoolSize() > THREADS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(THREADS, sender.getPoolSize());
+    }
+
+    @Test
+    void conflationIsPerSubscriptionAndDestination() {
+        String a = OutboundSessionQueue.conflationKey(frame(1, 1, 0));
+        assertEquals(a, OutboundSessionQueue.conflationKey(frame(1, 1, 5)));
+        assertNotEquals(a, OutboundSessionQueue.conflationKey(frame(2, 1, 0)));
+        assertNull(OutboundSessionQueue.conflationKey(new TextMessage("CONNECTED\nversion:1.2\n\n")));
+    }
+
+    @Test
+    void laggingSessionIsDowngradedThenDisconnected() throws Exception {
+        OutboundSessionQueue.Limits limits = new OutboundSessionQueue.Limits(8, 100, 60_000, 50, false);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("lagging");
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(); // slow, but within the send time limit
+            return null;
+        }).when(session).sendMessage(any());
+        OutboundSessionQueue queue = new OutboundSessionQueue(session, sender, metrics, limits);
+        metrics.register(queue);
+
+        queue.sendMessage(frame(0, 0, 0));
+        Thread.sleep(50);
+        queue.sendMessage(frame(0, 1, 1)); // waits behind the blocked write
+        Thread.sleep(150);
+        queue.checkLag(System.currentTimeMillis());
+        assertTrue(queue.isDowngraded());
+
+        Thread.sleep(150);
+        queue.checkLag(System.currentTimeMillis());
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        release.countDown();
+    }
+}
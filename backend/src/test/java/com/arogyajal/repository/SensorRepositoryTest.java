@@ -0,0 +1,87 @@
+package com.arogyajal.repository;
+
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.codec.SensorReadingCodec;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.firebase.cloud.FirestoreClient;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SensorRepositoryTest {
+
+    // A stored document with the fields exactly as the codec writes them
+    private static QueryDocumentSnapshot stored(String id, String sensorId, long seconds, double ph) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId(sensorId);
+        reading.setLocation("Ward " + sensorId);
+        reading.setPh(ph);
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(seconds, 0));
+        return document(id, SensorReadingCodec.INSTANCE.encode(reading));
+    }
+
+    private static QueryDocumentSnapshot document(String id, Map<String, Object> data) {
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        when(doc.getId()).thenReturn(id);
+        when(doc.getData()).thenReturn(data);
+        when(doc.exists()).thenReturn(true);
+        when(doc.get(any(String.class))).thenAnswer(invocation -> data.get(invocation.<String>getArgument(0)));
+        when(doc.getString(any(String.class))).thenAnswer(invocation -> (String) data.get(invocation.<String>getArgument(0)));
+        return doc;
+    }
+
+    @Test
+    void latestReadingPerSensorIsFoundByTheStoredSensorId() throws Exception {
+        List<QueryDocumentSnapshot> documents = List.of(
+                stored("r1", "S1", 100, 7.0),
+                stored("r2", "S1", 300, 7.1),
+                stored("r3", "S2", 200, 6.5),
+                stored("r4", "S1", 200, 7.2),
+                // Written before readings carried sensorId
+                document("r5", new HashMap<>(Map.of("deviceId", "S3", "timestamp", Timestamp.ofTimeSecondsAndNanos(50, 0)))));
+        Map<String, QueryDocumentSnapshot> byId = new HashMap<>();
+        documents.forEach(doc -> byId.put(doc.getId(), doc));
+
+        Firestore db = mock(Firestore.class, RETURNS_DEEP_STUBS);
+        QuerySnapshot projection = mock(QuerySnapshot.class);
+        when(projection.getDocuments()).thenReturn(documents);
+        when(db.collection("sensor_readings").select(any(String[].class)).get())
+                .thenReturn(ApiFutures.immediateFuture(projection));
+        when(db.collection("sensor_readings").document(any(String.class))).thenAnswer(invocation -> {
+            DocumentReference ref = mock(DocumentReference.class);
+            when(ref.getId()).thenReturn(invocation.getArgument(0));
+            return ref;
+        });
+        when(db.getAll(any(DocumentReference[].class))).thenAnswer(invocation -> {
+            List<DocumentSnapshot> fetched = new ArrayList<>();
+            for (Object ref : invocation.getArguments()) {
+                fetched.add(byId.get(((DocumentReference) ref).getId()));
+            }
+            return ApiFutures.immediateFuture(fetched);
+        });
+
+        SensorRepository repository;
+        try (MockedStatic<FirestoreClient> client = mockStatic(FirestoreClient.class)) {
+            client.when(FirestoreClient::getFirestore).thenReturn(db);
+            repository = new SensorRepository();
+        }
+
+        Map<String, SensorReading> latest = new HashMap<>();
+        for (SensorReading reading : repository.findLatestPerSensor()) {
+            latest.put(reading.getSensorId(), reading);
+        }
+        assertEquals(Set.of("S1", "S2", "S3"), latest.keySet());
+        assertEquals("r2", latest.get("S1").getId());
+        assertEquals(7.1, latest.get("S1").getPh());
+        assertEquals("Ward S1", latest.get("S1").getLocation());
+        assertEquals("r3", latest.get("S2").getId());
+        assertEquals("r5", latest.get("S3").getId());
+    }
+}
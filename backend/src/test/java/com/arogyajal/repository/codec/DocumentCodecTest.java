@@ -0,0 +1,115 @@
+package com.arogyajal.repository.codec;
+
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldValue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCodecTest {
+
+    private static SensorReading reading() {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("S1");
+        reading.setLocation("26.85,80.95");
+        reading.setLatitude(26.85);
+        reading.setLongitude(80.95);
+        reading.setPh(7.2);
+        reading.setTurbidity(4.1);
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(1_760_000_000L, 123_000));
+        reading.setQualityStatus("GOOD");
+        reading.setWqi(82.5);
+        return reading;
+    }
+
+    @Test
+    void sensorReadingsMatchTheBeanMapperLayout() throws Exception {
+        Method serialize = Class.forName("com.google.cloud.firestore.CustomClassMapper")
+                .getDeclaredMethod("serialize", Object.class);
+        serialize.setAccessible(true);
+        SensorReading reading = reading();
+        assertEquals(serialize.invoke(null, reading), SensorReadingCodec.INSTANCE.encode(reading));
+
+        SensorReading decoded = SensorReadingCodec.INSTANCE.decode("R1", SensorReadingCodec.INSTANCE.encode(reading));
+        reading.setId("R1");
+        assertEquals(reading, decoded);
+
+        SensorReading unstamped = new SensorReading();
+        assertEquals(FieldValue.serverTimestamp(), SensorReadingCodec.INSTANCE.encode(unstamped).get("timestamp"));
+    }
+
+    @Test
+    void wholeNumbersAndMissingFieldsDecodeLikeTheBeanMapper() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("ph", 7L);
+        data.put("waterConsumption", 3L);
+        data.put("symptoms", List.of("FEVER", "DIARRHEA"));
+        assertEquals(7.0, SensorReadingCodec.INSTANCE.decode("R1", data).getPh());
+
+        SymptomReport report = SymptomReportCodec.INSTANCE.decode("S1", data);
+        assertEquals(3, report.getWaterConsumption());
+        assertEquals(List.of("FEVER", "DIARRHEA"), report.getSymptoms());
+        assertEquals("PENDING", report.getStatus());
+        assertNull(report.getReportedAt());
+
+        Alert alert = AlertCodec.INSTANCE.decode("A1", Map.of());
+        assertEquals("A1", alert.getId());
+        assertEquals(List.of(), alert.getNotifiedUsers());
+
+        data.put("ph", "high");
+        assertThrows(IllegalArgumentException.class, () -> SensorReadingCodec.INSTANCE.decode("R1", data));
+    }
+
+    @Test
+    void dateTimesRoundTripAsTimestamps() {
+        LocalDateTime reportedAt = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 500_000_000);
+        SymptomReport report = SymptomReport.builder()
+                .id("S1")
+                .userId("U1")
+                .location("Ward 5")
+                .symptoms(List.of("FEVER"))
+                .severity("SEVERE")
+                .waterConsumption(2)
+                .reportedAt(reportedAt)
+                .status("INVESTIGATED")
+                .investigationNotes("Well water")
+                .build();
+        Map<String, Object> data = SymptomReportCodec.INSTANCE.encode(report);
+        assertInstanceOf(Timestamp.class, data.get("reportedAt"));
+        assertFalse(data.containsKey("id"));
+        assertEquals(report, SymptomReportCodec.INSTANCE.decode("S1", data));
+
+        Alert alert = Alert.builder()
+                .id("A1")
+                .alertType("WATER_QUALITY")
+                .severity("HIGH")
+                .title("High turbidity")
+                .thresholdValue(5.0)
+                .actualValue(9.5)
+                .triggeredAt(reportedAt)
+                .lastSeenAt(reportedAt.plusMinutes(5))
+                .occurrenceCount(3)
+                .status("ACTIVE")
+                .relatedSymptomReportIds(List.of("S1"))
+                .build();
+        Map<String, Object> alertData = AlertCodec.INSTANCE.encode(alert);
+        assertNull(alertData.get("resolvedAt"));
+        Alert decoded = AlertCodec.INSTANCE.decode("A1", alertData);
+        assertEquals(reportedAt, decoded.getTriggeredAt());
+        assertEquals(reportedAt.plusMinutes(5), decoded.getLastSeenAt());
+        assertEquals(3, decoded.getOccurrenceCount());
+        assertEquals(List.of("S1"), decoded.getRelatedSymptomReportIds());
+        assertEquals(9.5, decoded.getActualValue());
+
+        assertEquals(FieldValue.serverTimestamp(), AlertCodec.INSTANCE.encode(new Alert()).get("triggeredAt"));
+    }
+}
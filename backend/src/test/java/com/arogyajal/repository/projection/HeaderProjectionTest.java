@@ -0,0 +1,37 @@
+package com.arogyajal.repository.projection;
+
+import com.arogyajal.repository.codec.DocumentValues;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeaderProjectionTest {
+
+    private static DocumentSnapshot doc(String id, String timeField, Object time) {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getId()).thenReturn(id);
+        when(doc.getString("location")).thenReturn("Ward 5");
+        when(doc.getString("severity")).thenReturn("CRITICAL");
+        when(doc.getString("status")).thenReturn("ACTIVE");
+        when(doc.get(timeField)).thenReturn(time);
+        return doc;
+    }
+
+    @Test
+    void storedTimestampsAndStringsDecodeToLocalTimes() {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000);
+        Timestamp stored = DocumentValues.timestampOf(at);
+
+        AlertHeader alert = AlertHeader.from(doc("A1", "triggeredAt", stored));
+        assertEquals(new AlertHeader("A1", "Ward 5", "CRITICAL", "ACTIVE", at), alert);
+
+        SymptomReportHeader report = SymptomReportHeader.from(doc("R1", "reportedAt", at.toString()));
+        assertEquals(at, report.reportedAt());
+        assertNull(SymptomReportHeader.from(doc("R2", "reportedAt", null)).reportedAt());
+    }
+}
@@ -0,0 +1,54 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.AlertRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AlertServiceTest {
+
+    @TempDir
+    Path stateDir;
+
+    @Test
+    void escalationRebuildsTheTitleAtTheNewSeverity() throws Exception {
+        AlertStateMachine machine = new AlertStateMachine();
+        ReflectionTestUtils.setField(machine, "updateIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(machine, "clearAfterSeconds", 900L);
+        ReflectionTestUtils.setField(machine, "suppressionWindowSeconds", 3600L);
+        // Every repeat is overdue, so the second breach escalates one step
+        ReflectionTestUtils.setField(machine, "escalateAfterSeconds", 0L);
+        ReflectionTestUtils.setField(machine, "stateDir", stateDir.toString());
+        AlertRepository repository = mock(AlertRepository.class);
+        // The tracked alert is updated in place, so note each title as it is written
+        List<String> titles = new ArrayList<>();
+        when(repository.save(any(Alert.class), anyString())).thenAnswer(invocation -> {
+            Alert alert = invocation.getArgument(0);
+            titles.add(alert.getSeverity() + ": " + alert.getTitle());
+            return alert;
+        });
+        AlertService service = new AlertService(repository, machine, mock(ApplicationEventPublisher.class));
+
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("DEV-1");
+        // The severity also appears in the location, which must stay as it is
+        reading.setLocation("MEDIUM Tank Road");
+        service.raiseSensorAnomaly(reading, "ph", "SPIKE", "SENSOR_ANOMALY", "MEDIUM", 9.9, "ph spike");
+        service.raiseSensorAnomaly(reading, "ph", "SPIKE", "SENSOR_ANOMALY", "MEDIUM", 9.8, "ph spike");
+
+        assertEquals(List.of("MEDIUM: ph SPIKE MEDIUM - MEDIUM Tank Road", "HIGH: ph SPIKE HIGH - MEDIUM Tank Road"),
+                titles);
+    }
+}
@@ -0,0 +1,127 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.arogyajal.service.AlertStateMachine.State;
+import static com.arogyajal.service.AlertStateMachine.Transition;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertStateMachineTest {
+
+    private static final long MINUTE = 60_000;
+
+    @TempDir
+    Path stateDir;
+
+    private AlertStateMachine machine;
+
+    @BeforeEach
+    void setUp() {
+        machine = newMachine();
+    }
+
+    private AlertStateMachine newMachine() {
+        AlertStateMachine m = new AlertStateMachine();
+        ReflectionTestUtils.setField(m, "updateIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(m, "clearAfterSeconds", 900L);
+        ReflectionTestUtils.setField(m, "suppressionWindowSeconds", 3600L);
+        ReflectionTestUtils.setField(m, "escalateAfterSeconds", 3600L);
+        ReflectionTestUtils.setField(m, "snapshotIntervalSeconds", 60L);
+        ReflectionTestUtils.setField(m, "stateDir", stateDir.toString());
+        return m;
+    }
+
+    @Test
+    void repeatedBreachesAreFoldedIntoOneAlert() {
+        AlertStateMachine.Track track = machine.track("DEV-1", "pH");
+        assertEquals(Transition.OPENED, machine.onBreach(track, "HIGH", 0));
+        for (int i = 1; i < 60; i++) {
+            assertEquals(Transition.NONE, machine.onBreach(track, "HIGH", i * 5_000L));
+        }
+        assertEquals(Transition.REPEATED, machine.onBreach(track, "HIGH", 5 * MINUTE));
+        assertEquals(61, track.getCount());
+        assertEquals(State.OPEN, track.getState());
+    }
+
+    @Test
+    void worseSeverityEscalates() {
+        AlertStateMachine.Track track = machine.track("DEV-1", "pH");
+        machine.onBreach(track, "MEDIUM", 0);
+        assertEquals(Transition.ESCALATED, machine.onBreach(track, "CRITICAL", MINUTE));
+        assertEquals("CRITICAL", track.getSeverity());
+        assertEquals(State.ESCALATED, track.getState());
+    }
+
+    @Test
+    void clearsOnlyAfterStayingNormal() {
+        AlertStateMachine.Track track = machine.track("DEV-1", "Turbidity");
+        machine.onBreach(track, "HIGH", 0);
+        assertEquals(Transition.NONE, machine.onNormal(track, MINUTE));
+        assertEquals(State.COOLING_DOWN, track.getState());
+
+        // A breach while cooling down goes back to the open alert
+        assertEquals(Transition.NONE, machine.onBreach(track, "HIGH", 2 * MINUTE));
+        assertEquals(State.OPEN, track.getState());
+
+        machine.onNormal(track, 3 * MINUTE);
+        assertEquals(Transition.NONE, machine.onNormal(track, 10 * MINUTE));
+        assertEquals(Transition.CLEARED, machine.onNormal(track, 18 * MINUTE));
+        assertEquals(State.CLEARED, track.getState());
+    }
+
+    @Test
+    void breachInsideSuppressionWindowReopens() {
+        AlertStateMachine.Track track = machine.track("DEV-1", "pH");
+        machine.onBreach(track, "HIGH", 0);
+        track.attach(Alert.builder().id("alert-1").build());
+        machine.onNormal(track, MINUTE);
+        machine.onNormal(track, 20 * MINUTE);
+
+        assertEquals(Transition.REOPENED, machine.onBreach(track, "HIGH", 30 * MINUTE));
+        machine.onNormal(track, 31 * MINUTE);
+        machine.onNormal(track, 50 * MINUTE);
+        assertEquals(Transition.OPENED, machine.onBreach(track, "HIGH", 200 * MINUTE));
+    }
+
+    @Test
+    void stateSurvivesSnapshotAndRestore() {
+        AlertStateMachine.Track track = machine.track("DEV-1", "pH");
+        machine.onBreach(track, "HIGH", 0);
+        track.attach(Alert.builder().id("alert-1").build());
+        machine.onBreach(track, "HIGH", 5_000);
+        machine.snapshot();
+
+        AlertStateMachine restored = newMachine();
+        restored.restore();
+        AlertStateMachine.Track copy = restored.find("DEV-1", "pH");
+        assertEquals("alert-1", copy.getAlertId());
+        assertEquals(2, copy.getCount());
+        assertEquals(State.OPEN, copy.getState());
+        assertEquals(Transition.NONE, restored.onBreach(copy, "HIGH", 10_000));
+    }
+
+    @Test
+    void transitionsLeaveTheSnapshotToTheBackgroundWriter() {
+        machine.init();
+        AlertStateMachine.Track track = machine.track("DEV-1", "pH");
+        machine.onBreach(track, "HIGH", 0);
+        track.attach(Alert.builder().id("alert-1").sensorId("DEV-1").parameter("pH").build());
+        machine.onAlertUpdated(Alert.builder().id("alert-1").sensorId("DEV-1").parameter("pH").status("RESOLVED").build());
+        assertFalse(Files.exists(stateDir.resolve("alert-state.bin")), "transitions do not touch the disk");
+
+        machine.shutdown();
+        assertTrue(Files.exists(stateDir.resolve("alert-state.bin")));
+        AlertStateMachine restored = newMachine();
+        restored.restore();
+        assertEquals(State.CLEARED, restored.find("DEV-1", "pH").getState());
+    }
+}
@@ -0,0 +1,126 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CardinalityServiceTest {
+
+    @TempDir
+    Path stateDir;
+
+    private CardinalityService newService() {
+        return newService("Asia/Kolkata");
+    }
+
+    private CardinalityService newService(String zone) {
+        CardinalityService service = new CardinalityService(mock(SensorService.class), mock(SymptomService.class));
+        ReflectionTestUtils.setField(service, "precision", 12);
+        ReflectionTestUtils.setField(service, "zone", zone);
+        ReflectionTestUtils.setField(service, "retentionDays", 400);
+        ReflectionTestUtils.setField(service, "backfillDays", 0);
+        ReflectionTestUtils.setField(service, "snapshotIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(service, "stateDir", stateDir.toString());
+        service.init();
+        return service;
+    }
+
+    private static SymptomReport report(String userId, String location, LocalDate day, String... symptoms) {
+        return SymptomReport.builder().userId(userId).location(location)
+                .reportedAt(day.atTime(10, 0)).symptoms(List.of(symptoms)).build();
+    }
+
+    @Test
+    void distinctReportersPerLocationAcrossDaysAndRestarts() {
+        CardinalityService service = newService();
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u1", "Village A", yesterday, "diarrhea")));
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u2", "Village A", yesterday, "Diarrhea", "fever")));
+        // u1 again the next day counts once over both days
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u1", "Village A", today, "fever")));
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u3", "Village B", today, "nausea")));
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("DEV-1");
+        reading.setLocation("Village A");
+        service.addReading(reading);
+
+        assertEquals(2, service.estimate(CardinalityService.Dimension.REPORTERS, "Village A", yesterday, today).distinct);
+        assertEquals(1, service.estimate(CardinalityService.Dimension.REPORTERS, "Village A", today, today).distinct);
+        assertEquals(3, service.estimate(CardinalityService.Dimension.REPORTERS, null, yesterday, today).distinct);
+        assertEquals(2, service.estimate(CardinalityService.Dimension.SYMPTOMS, "Village A", yesterday, today).distinct);
+        assertEquals(1, service.estimateAll(CardinalityService.Dimension.DEVICES, "Village A"));
+
+        service.snapshot();
+        CardinalityService restarted = newService();
+        assertEquals(service.getSketchCount(), restarted.getSketchCount());
+        assertEquals(3, restarted.estimateAll(CardinalityService.Dimension.REPORTERS, CardinalityService.ALL));
+
+    }
+
+    @Test
+    void readingsAndReportsAtTheSameInstantShareADayInTheConfiguredZone() {
+        CardinalityService service = newService("Pacific/Kiritimati");
+        // Noon UTC is already the next day at UTC+14
+        Instant at = LocalDate.now(ZoneOffset.UTC).minusDays(3).atTime(12, 0).toInstant(ZoneOffset.UTC);
+        LocalDate day = at.atZone(ZoneId.of("Pacific/Kiritimati")).toLocalDate();
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("DEV-1");
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(at.getEpochSecond(), 0));
+        service.addReading(reading);
+        service.addReport(SymptomReport.builder().userId("u1")
+                .reportedAt(LocalDateTime.ofInstant(at, ZoneId.systemDefault())).build());
+
+        assertEquals(1, service.estimate(CardinalityService.Dimension.DEVICES, null, day, day).distinct);
+        assertEquals(1, service.estimate(CardinalityService.Dimension.REPORTERS, null, day, day).distinct);
+    }
+
+    @Test
+    void unboundedRangesOnlyVisitRetainedDays() {
+        CardinalityService service = newService();
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u1", "Village A", LocalDate.now(), "fever")));
+
+        CardinalityService.Estimate estimate = service.estimate(CardinalityService.Dimension.REPORTERS, null,
+                LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+        assertEquals(1, estimate.distinct);
+    }
+
+    @Test
+    void sketchesExportedFromAnotherNodeMergeIntoTheSameDay() {
+        CardinalityService service = newService();
+        CardinalityService other = newService();
+        LocalDate today = LocalDate.now();
+        service.onSymptomReportSaved(new SymptomReportSavedEvent(report("u1", "Village A", today, "fever")));
+        other.onSymptomReportSaved(new SymptomReportSavedEvent(report("u1", "Village A", today, "fever")));
+        other.onSymptomReportSaved(new SymptomReportSavedEvent(report("u9", "Village A", today, "nausea")));
+
+        byte[] exported = other.getSketch(CardinalityService.Dimension.REPORTERS, "Village A", today).orElseThrow();
+        service.mergeSketch(CardinalityService.Dimension.REPORTERS, "Village A", today, exported);
+        // u1 is on both nodes and still counts once
+        assertEquals(2, service.estimate(CardinalityService.Dimension.REPORTERS, "Village A", today, today).distinct);
+        assertTrue(service.getSketch(CardinalityService.Dimension.REPORTERS, "Village B", today).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.mergeSketch(
+                CardinalityService.Dimension.REPORTERS, "Village B", today, new byte[]{1, 2}));
+        assertTrue(service.getSketch(CardinalityService.Dimension.REPORTERS, "Village B", today).isEmpty());
+
+        // A merged sketch is persisted like a locally built one
+        service.snapshot();
+        assertEquals(2, newService().estimate(CardinalityService.Dimension.REPORTERS, "Village A", today, today).distinct);
+    }
+}
@@ -0,0 +1,157 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.arogyajal.service.TestReadings.reading;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CheckpointServiceTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @TempDir
+    Path stateDir;
+
+    private final SensorRepository repository = mock(SensorRepository.class);
+
+    private CheckpointService newService(SensorReadingStore store, DeviceReadingBuffers buffers) {
+        CheckpointService service = new CheckpointService(List.of(store, buffers));
+        ReflectionTestUtils.setField(service, "stateDir", stateDir.toString());
+        return service;
+    }
+
+    private SensorReadingStore newStore() {
+        SensorReadingStore store = new SensorReadingStore(repository, mock(LocationAggregateView.class));
+        ReflectionTestUtils.setField(store, "maxRows", 1024);
+        return store;
+    }
+
+    private DeviceReadingBuffers newBuffers() {
+        DeviceReadingBuffers buffers = new DeviceReadingBuffers(repository);
+        ReflectionTestUtils.setField(buffers, "readingsPerDevice", 8);
+        return buffers;
+    }
+
+    @Test
+    void viewsAreRestoredAndCaughtUpFromTheCheckpoint() throws Exception {
+        long now = Timestamp.now().getSeconds();
+        SensorReadingStore store = newStore();
+        DeviceReadingBuffers buffers = newBuffers();
+        store.load(List.of(), List.of(), (now - 3600) * SECOND);
+        buffers.load(List.of(), (now - 3600) * SECOND);
+        // Twelve readings over two devices, so the 8-reading rings have wrapped
+        for (int i = 0; i < 12; i++) {
+            SensorReading reading = reading("r" + i, "DEV-" + (i % 2), now - 600 + i * 10L, 6.0 + i / 10.0);
+            // A label outside the known qualities goes through the checkpoint's string table
+            reading.setQualityStatus(i % 2 == 1 ? "Odd label" : "Good");
+            store.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+            buffers.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+        }
+        newService(store, buffers).write();
+        assertTrue(Files.exists(stateDir.resolve("checkpoint.bin")));
+
+        // One reading was stored by another instance after the checkpoint
+        SensorReading later = reading("r12", "DEV-2", now - 100, 8.0);
+        when(repository.findByTimestampBetween(any(), any())).thenReturn(new ArrayList<>(List.of(later)));
+        SensorReadingStore restoredStore = newStore();
+        DeviceReadingBuffers restoredBuffers = newBuffers();
+        assertEquals(2, newService(restoredStore, restoredBuffers).restore());
+
+        assertTrue(restoredStore.isReady());
+        assertTrue(restoredStore.covers((now - 3600) * SECOND));
+        assertEquals(13, restoredStore.size());
+        assertArrayEquals(store.series(SensorReadingStore.Column.PH, "DEV-1", 0, Long.MAX_VALUE).values(),
+                restoredStore.series(SensorReadingStore.Column.PH, "DEV-1", 0, Long.MAX_VALUE).values());
+        SensorReading latest = restoredStore.latest("DEV-1").orElseThrow();
+        assertEquals("r11", latest.getId());
+        assertEquals("Odd label", latest.getQualityStatus());
+        assertEquals("26.1,91.7", latest.getLocation());
+        assertEquals("r12", restoredStore.latest("DEV-2").orElseThrow().getId());
+
+        when(repository.findRecentBySensorId(anyString(), anyInt())).thenThrow(new RuntimeException("offline"));
+        assertEquals("r10", restoredBuffers.heldLatest("DEV-0").orElseThrow().getId());
+        assertEquals(8.0, restoredBuffers.latest("DEV-2").orElseThrow().getPh());
+        assertArrayEquals(new double[]{6.1, 6.3, 6.5, 6.7, 6.9, 7.1},
+                restoredBuffers.series("DEV-1", SensorReadingStore.Column.PH, (now - 3600) * SECOND, now * SECOND)
+                        .orElseThrow().values(), 1e-12);
+    }
+
+    @Test
+    void corruptOrStaleCheckpointsAreIgnored() throws Exception {
+        SensorReadingStore store = newStore();
+        DeviceReadingBuffers buffers = newBuffers();
+        store.load(List.of(), List.of(), 0);
+        store.onSensorReading(new SensorReadingIngestedEvent(reading("r1", "DEV-1", Timestamp.now().getSeconds(), 7.0), null));
+        newService(store, buffers).write();
+
+        Path file = stateDir.resolve("checkpoint.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        // The last byte belongs to the device buffers' section
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        SensorReadingStore restoredStore = newStore();
+        DeviceReadingBuffers restoredBuffers = newBuffers();
+        when(repository.findByTimestampBetween(any(), any())).thenReturn(new ArrayList<>());
+        assertEquals(1, newService(restoredStore, restoredBuffers).restore(), "only the intact section is restored");
+        assertTrue(restoredStore.isReady());
+        assertEquals("r1", restoredStore.latest("DEV-1").orElseThrow().getId());
+        assertEquals(false, ReflectionTestUtils.getField(restoredBuffers, "restored"));
+
+        CheckpointService stale = newService(newStore(), newBuffers());
+        ReflectionTestUtils.setField(stale, "maxAgeHours", -1L);
+        assertEquals(0, stale.restore());
+    }
+
+    @Test
+    void largeViewsAreCheckpointedInChunks() throws Exception {
+        long now = Timestamp.now().getSeconds();
+        SensorReadingStore store = newStore();
+        ReflectionTestUtils.setField(store, "maxRows", 65536);
+        DeviceReadingBuffers buffers = newBuffers();
+        store.load(List.of(), List.of(), (now - 3600) * SECOND);
+        buffers.load(List.of(), (now - 3600) * SECOND);
+        // 40000 rows over 100 devices, ten to a second so equal times straddle chunk boundaries
+        for (int i = 0; i < 40_000; i++) {
+            SensorReading reading = reading("r" + i, "DEV-" + (i % 100), now - 3000 + i / 10, i / 1000.0);
+            store.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+            buffers.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+        }
+        assertTrue(store.writeCheckpoint().size() > 3, "rows are copied in several chunks");
+        newService(store, buffers).write();
+
+        when(repository.findByTimestampBetween(any(), any())).thenReturn(new ArrayList<>());
+        SensorReadingStore restoredStore = newStore();
+        ReflectionTestUtils.setField(restoredStore, "maxRows", 30_000);
+        DeviceReadingBuffers restoredBuffers = newBuffers();
+        assertEquals(2, newService(restoredStore, restoredBuffers).restore());
+
+        // The smaller store keeps the newest rows and narrows its coverage to them
+        assertEquals(30_000, restoredStore.size());
+        assertFalse(restoredStore.covers((now - 3000) * SECOND));
+        assertTrue(restoredStore.covers((now - 3000 + 1000) * SECOND));
+        for (String device : List.of("DEV-0", "DEV-57", "DEV-99")) {
+            double[] original = store.series(SensorReadingStore.Column.PH, device, 0, Long.MAX_VALUE).values();
+            double[] restored = restoredStore.series(SensorReadingStore.Column.PH, device, 0, Long.MAX_VALUE).values();
+            assertEquals(300, restored.length);
+            assertArrayEquals(Arrays.copyOfRange(original, original.length - 300, original.length), restored);
+            assertEquals(device, restoredBuffers.heldLatest(device).orElseThrow().getSensorId());
+        }
+        assertEquals("r39999", restoredBuffers.heldLatest("DEV-99").orElseThrow().getId());
+    }
+}
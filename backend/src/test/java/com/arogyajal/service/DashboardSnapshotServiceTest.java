@@ -0,0 +1,142 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SensorRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardSnapshotServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private DashboardSnapshotService service;
+    private LocationAggregateView locations;
+
+    @BeforeEach
+    void setUp() {
+        SensorHeartbeatMonitor monitor = mock(SensorHeartbeatMonitor.class);
+        when(monitor.getSensorCount()).thenReturn(3);
+        when(monitor.getOnlineCount()).thenReturn(2);
+        locations = new LocationAggregateView(mock(AlertService.class),
+                mock(SymptomService.class), mock(SensorRepository.class), mock(DeviceReadingBuffers.class));
+        service = new DashboardSnapshotService(monitor, locations, objectMapper);
+        ReflectionTestUtils.setField(service, "maxStalenessMillis", 0L);
+        ReflectionTestUtils.setField(service, "recentItems", 10);
+        ReflectionTestUtils.setField(service, "trendPoints", 5);
+    }
+
+    private static Alert alert(String id, String status, String severity, String location) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setAlertType("WATER_QUALITY");
+        alert.setParameter("turbidity");
+        alert.setStatus(status);
+        alert.setSeverity(severity);
+        alert.setLocation(location);
+        alert.setTitle(severity + " turbidity");
+        return alert;
+    }
+
+    private static SymptomReport report(String id, String location) {
+        return SymptomReport.builder().id(id).location(location).status("PENDING")
+                .symptoms(List.of("diarrhea")).build();
+    }
+
+    // What the application event multicaster would do
+    private void publish(Object event) {
+        if (event instanceof SensorReadingIngestedEvent reading) {
+            service.onSensorReading(reading);
+            locations.onSensorReading(reading);
+        } else if (event instanceof AlertChangedEvent alert) {
+            service.onAlertChanged(alert);
+            locations.onAlertChanged(alert);
+        } else if (event instanceof SymptomReportSavedEvent report) {
+            service.onSymptomReportSaved(report);
+            locations.onSymptomReportSaved(report);
+        } else if (event instanceof SymptomReportStatusChangedEvent status) {
+            service.onSymptomReportStatusChanged(status);
+        }
+    }
+
+    private JsonNode overview() throws Exception {
+        return objectMapper.readTree(service.getSnapshot().json());
+    }
+
+    @Test
+    void countersFollowEvents() throws Exception {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId("S1");
+        reading.setLocation("26.1,91.7");
+        reading.setPh(7.2);
+        reading.setTurbidity(6.5);
+        publish(new SensorReadingIngestedEvent(reading, null));
+
+        publish(new AlertChangedEvent(alert("A1", "ACTIVE", "CRITICAL", "26.1,91.7")));
+        publish(new AlertChangedEvent(alert("A2", "ACTIVE", "HIGH", "26.1,91.7")));
+        publish(new SymptomReportSavedEvent(report("R1", "26.1,91.7")));
+        publish(new SymptomReportSavedEvent(report("R2", "Village B")));
+        // A repeated event must not count twice
+        publish(new SymptomReportSavedEvent(report("R2", "Village B")));
+
+        JsonNode overview = overview();
+        assertEquals("CRITICAL", overview.get("overallStatus").asText());
+        assertEquals(3, overview.get("totalSensors").asInt());
+        assertEquals(1, overview.get("offlineSensors").asInt());
+        assertEquals(2, overview.get("activeAlerts").asInt());
+        assertEquals(1, overview.get("criticalAlerts").asInt());
+        assertEquals(2, overview.get("totalSymptomReports").asInt());
+        assertEquals(2, overview.get("pendingReports").asInt());
+        assertEquals("CRITICAL", overview.get("qualityStatus").get("turbidity").asText());
+        assertEquals("NORMAL", overview.get("qualityStatus").get("ph").asText());
+        assertEquals(7.2, overview.get("latestReadings").get("ph").asDouble());
+        assertEquals("A2", overview.get("recentAlerts").get(0).get("id").asText());
+        JsonNode location = overview.get("locationData").get("26.1,91.7");
+        assertEquals(1, location.get("sensorCount").asInt());
+        assertEquals(2, location.get("alertCount").asInt());
+        assertEquals(1, location.get("symptomReportCount").asInt());
+
+        // Resolving the critical alert and a report moves the counters back
+        publish(new AlertChangedEvent(alert("A1", "RESOLVED", "CRITICAL", "26.1,91.7")));
+        SymptomReport resolved = report("R1", "26.1,91.7");
+        resolved.setStatus("RESOLVED");
+        publish(new SymptomReportStatusChangedEvent(resolved, "PENDING"));
+
+        overview = overview();
+        assertEquals("WARNING", overview.get("overallStatus").asText());
+        assertEquals(2, overview.get("totalAlerts").asInt());
+        assertEquals(1, overview.get("activeAlerts").asInt());
+        // Only open alerts count as critical
+        assertEquals(0, overview.get("criticalAlerts").asInt());
+        assertEquals(1, overview.get("resolvedReports").asInt());
+        assertEquals(1, overview.get("pendingReports").asInt());
+        assertEquals("WARNING", overview.get("qualityStatus").get("turbidity").asText());
+        assertEquals(1, overview.get("locationData").get("26.1,91.7").get("alertCount").asInt());
+    }
+
+    @Test
+    void snapshotIsReusedUntilSomethingChanges() {
+        DashboardSnapshotService.Snapshot first = service.getSnapshot();
+        assertSame(first, service.getSnapshot());
+
+        publish(new AlertChangedEvent(alert("A1", "ACTIVE", "LOW", "X")));
+        DashboardSnapshotService.Snapshot second = service.getSnapshot();
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        assertSame(second, service.getSnapshot());
+    }
+}
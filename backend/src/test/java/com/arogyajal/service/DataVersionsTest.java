@@ -0,0 +1,115 @@
+package com.arogyajal.service;
+
+import com.arogyajal.controller.SensorController;
+import com.arogyajal.dto.ChangesResponse;
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class DataVersionsTest {
+
+    private DataVersions versions;
+    private SensorService sensorService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        versions = new DataVersions();
+        ReflectionTestUtils.setField(versions, "changeLogSize", 4);
+        versions.init();
+        sensorService = mock(SensorService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new SensorController(sensorService, versions,
+                mock(ParameterDistributionService.class), mock(CardinalityService.class),
+                mock(SensorHeartbeatMonitor.class))).build();
+    }
+
+    private static SensorData data(String deviceId, double ph) {
+        SensorData data = new SensorData();
+        data.setDeviceId(deviceId);
+        data.setSensors(new SensorData.Sensors(ph, null, null, null, null));
+        return data;
+    }
+
+    private void ingest(String deviceId, double ph) {
+        versions.onSensorReading(new SensorReadingIngestedEvent(null, data(deviceId, ph)));
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+    }
+
+    @Test
+    void unchangedDataIsAnswered304WithoutReadingIt() throws Exception {
+        when(sensorService.getLatestSensorData()).thenReturn(data("DEV-1", 7.0));
+        when(sensorService.getSensorDataByDeviceId("DEV-1")).thenReturn(data("DEV-1", 7.0));
+
+        String latest = etagOf("/api/sensor-data/latest");
+        String device = etagOf("/api/sensor-data/device/DEV-1");
+        assertNotNull(latest);
+        mockMvc.perform(get("/api/sensor-data/latest").header("If-None-Match", latest))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(sensorService, times(1)).getLatestSensorData();
+
+        // Another device's reading changes the collection but not DEV-1
+        ingest("DEV-2", 7.1);
+        mockMvc.perform(get("/api/sensor-data/device/DEV-1").header("If-None-Match", device))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/sensor-data/latest").header("If-None-Match", latest))
+                .andExpect(status().isOk());
+        verify(sensorService, times(1)).getSensorDataByDeviceId("DEV-1");
+
+        ingest("DEV-1", 7.2);
+        String changed = etagOf("/api/sensor-data/device/DEV-1");
+        assertNotEquals(device, changed);
+    }
+
+    @Test
+    void changesSinceVersionComeFromTheBoundedLog() {
+        long start = versions.get(DataVersions.Domain.READINGS).version();
+        ingest("DEV-1", 7.0);
+        ingest("DEV-1", 7.1);
+        ChangesResponse<SensorData> changes = versions.readingsSince(start);
+        assertTrue(changes.isComplete());
+        assertEquals(start + 2, changes.getVersion());
+        assertEquals(List.of(7.0, 7.1), changes.getChanges().stream().map(d -> d.getSensors().getPH()).toList());
+        assertTrue(versions.readingsSince(changes.getVersion()).getChanges().isEmpty());
+
+        // Past the log's reach the client is told to re-read the full list
+        for (int i = 0; i < 4; i++) {
+            ingest("DEV-1", 8.0 + i);
+        }
+        assertFalse(versions.readingsSince(start).isComplete());
+        assertEquals(4, versions.readingsSince(start + 2).getChanges().size());
+
+        // An alert changed twice is returned once, in its latest state
+        long alertStart = versions.get(DataVersions.Domain.ALERTS).version();
+        Alert alert = new Alert();
+        alert.setId("A1");
+        alert.setStatus("ACTIVE");
+        versions.onAlertChanged(new AlertChangedEvent(alert));
+        Alert resolved = new Alert();
+        resolved.setId("A1");
+        resolved.setStatus("RESOLVED");
+        versions.onAlertChanged(new AlertChangedEvent(resolved));
+        List<Alert> alerts = versions.alertsSince(alertStart).getChanges();
+        assertEquals(1, alerts.size());
+        assertEquals("RESOLVED", alerts.get(0).getStatus());
+    }
+}
@@ -0,0 +1,139 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.arogyajal.service.TestReadings.reading;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DeviceReadingBuffersTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final SensorRepository repository = mock(SensorRepository.class);
+
+    private DeviceReadingBuffers newBuffers(int readingsPerDevice) throws Exception {
+        when(repository.findRecentBySensorId(anyString(), anyInt())).thenReturn(List.of());
+        DeviceReadingBuffers buffers = new DeviceReadingBuffers(repository);
+        ReflectionTestUtils.setField(buffers, "readingsPerDevice", readingsPerDevice);
+        return buffers;
+    }
+
+    private static void ingest(DeviceReadingBuffers buffers, SensorReading reading) {
+        buffers.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+    }
+
+    @Test
+    void readingsRoundTripThroughTheOffHeapRecord() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(8);
+        String uuid = "3f2b8c1e-1d2a-4c5b-9e8f-0a1b2c3d4e5f";
+        SensorReading reading = reading(uuid, "DEV-1", 100, 7.25);
+        reading.setTurbidity(3.5);
+        ingest(buffers, reading);
+        ingest(buffers, reading("AbCdEfGhIjKlMnOpQrSt", "DEV-1", 50, 6.5));
+
+        SensorReading latest = buffers.latest("DEV-1").orElseThrow();
+        assertEquals(uuid, latest.getId());
+        assertEquals(7.25, latest.getPh());
+        assertEquals(3.5, latest.getTurbidity());
+        assertNull(latest.getHardness());
+        assertEquals("Good", latest.getQualityStatus());
+        assertEquals("26.1,91.7", latest.getLocation());
+        assertEquals("Battery Voltage: 3.7V", latest.getNotes());
+        assertEquals(Timestamp.ofTimeSecondsAndNanos(100, 0), latest.getTimestamp());
+
+        // Loaded once on first query; an empty result means the ring is the whole history
+        List<SensorReading> history = buffers.history("DEV-1").orElseThrow();
+        assertEquals(List.of(uuid, "AbCdEfGhIjKlMnOpQrSt"), history.stream().map(SensorReading::getId).toList());
+        verify(repository, times(1)).findRecentBySensorId("DEV-1", 8);
+    }
+
+    @Test
+    void fullRingsEvictTheOldestAndNarrowCoverage() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(4);
+        for (int i = 1; i <= 6; i++) {
+            ingest(buffers, reading("r" + i, "DEV-1", i * 10L, i));
+        }
+        // A duplicate delivery is skipped, as are the stored copies loaded on first query
+        ingest(buffers, reading("r6", "DEV-1", 60, 6));
+        when(repository.findRecentBySensorId("DEV-1", 4)).thenReturn(List.of(reading("r6", "DEV-1", 60, 6),
+                reading("r5", "DEV-1", 50, 5), reading("r4", "DEV-1", 40, 4), reading("r3", "DEV-1", 30, 3)));
+
+        SensorReadingStore.Series series = buffers.series("DEV-1", SensorReadingStore.Column.PH, 30 * SECOND, 100 * SECOND)
+                .orElseThrow();
+        assertArrayEquals(new double[]{3, 4, 5, 6}, series.values());
+        assertTrue(buffers.series("DEV-1", SensorReadingStore.Column.PH, 20 * SECOND, 100 * SECOND).isEmpty());
+        assertTrue(buffers.history("DEV-1").isEmpty());
+    }
+
+    @Test
+    void unknownDevicesAreLoadedOnFirstQuery() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(2);
+        when(repository.findRecentBySensorId(eq("DEV-2"), anyInt()))
+                .thenReturn(List.of(reading("b", "DEV-2", 20, 7.0), reading("a", "DEV-2", 10, 6.0)));
+
+        assertEquals("b", buffers.latest("DEV-2").orElseThrow().getId());
+        // A full page may not be the whole history
+        assertTrue(buffers.history("DEV-2").isEmpty());
+        assertEquals(Optional.empty(), buffers.latest("DEV-3"));
+        assertEquals(1, buffers.deviceCount());
+    }
+
+    @Test
+    void warmUpCoversTheWindowForEveryDevice() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(16);
+        buffers.load(List.of(reading("r1", "DEV-1", 1000, 7.0)), 900 * SECOND);
+        ingest(buffers, reading("r2", "DEV-2", 1200, 8.0));
+        when(repository.findRecentBySensorId(anyString(), anyInt())).thenThrow(new RuntimeException("offline"));
+
+        // Without Firestore the slots still answer what warm-up and ingest cover
+        assertArrayEquals(new double[]{7.0},
+                buffers.series("DEV-1", SensorReadingStore.Column.PH, 900 * SECOND, 2000 * SECOND).orElseThrow().values());
+        assertArrayEquals(new double[]{8.0},
+                buffers.series("DEV-2", SensorReadingStore.Column.PH, 900 * SECOND, 2000 * SECOND).orElseThrow().values());
+        assertTrue(buffers.series("DEV-1", SensorReadingStore.Column.PH, 800 * SECOND, 2000 * SECOND).isEmpty());
+        assertEquals((long) DeviceReadingBuffers.SLOTS_PER_CHUNK * 16 * DeviceReadingBuffers.RECORD_BYTES,
+                buffers.offHeapBytes());
+    }
+
+    @Test
+    void ringsThatOverflowDuringWarmUpOnlyCoverWhatTheyHold() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(4);
+        ingest(buffers, reading("r7", "DEV-1", 1070, 7));
+        buffers.load(List.of(reading("r1", "DEV-1", 1010, 1), reading("r2", "DEV-1", 1020, 2),
+                reading("r3", "DEV-1", 1030, 3), reading("r4", "DEV-1", 1040, 4), reading("r5", "DEV-1", 1050, 5),
+                reading("r6", "DEV-1", 1060, 6), reading("x1", "DEV-2", 1010, 8)), 1000 * SECOND);
+        when(repository.findRecentBySensorId(anyString(), anyInt())).thenThrow(new RuntimeException("offline"));
+
+        assertTrue(buffers.series("DEV-1", SensorReadingStore.Column.PH, 1000 * SECOND, 2000 * SECOND).isEmpty());
+        assertArrayEquals(new double[]{4, 5, 6, 7},
+                buffers.series("DEV-1", SensorReadingStore.Column.PH, 1040 * SECOND, 2000 * SECOND).orElseThrow().values());
+        assertArrayEquals(new double[]{8},
+                buffers.series("DEV-2", SensorReadingStore.Column.PH, 1000 * SECOND, 2000 * SECOND).orElseThrow().values());
+    }
+
+    @Test
+    void ringsThatOverflowOnFirstQueryOnlyCoverWhatTheyHold() throws Exception {
+        DeviceReadingBuffers buffers = newBuffers(4);
+        ingest(buffers, reading("r5", "DEV-1", 50, 5));
+        ingest(buffers, reading("r6", "DEV-1", 60, 6));
+        // The stored page predates the live readings, so the ring cannot take all of it
+        when(repository.findRecentBySensorId("DEV-1", 4)).thenReturn(List.of(reading("r4", "DEV-1", 40, 4),
+                reading("r3", "DEV-1", 30, 3), reading("r2", "DEV-1", 20, 2), reading("r1", "DEV-1", 10, 1)));
+
+        assertTrue(buffers.series("DEV-1", SensorReadingStore.Column.PH, 10 * SECOND, 100 * SECOND).isEmpty());
+        assertArrayEquals(new double[]{3, 4, 5, 6},
+                buffers.series("DEV-1", SensorReadingStore.Column.PH, 21 * SECOND, 100 * SECOND).orElseThrow().values());
+    }
+}
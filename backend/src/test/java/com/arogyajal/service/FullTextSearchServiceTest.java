@@ -0,0 +1,105 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SymptomReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FullTextSearchServiceTest {
+
+    private static SymptomReport report(String id, String location, int daysAgo, String notes) {
+        return SymptomReport.builder()
+                .id(id)
+                .location(location)
+                .status("PENDING")
+                .additionalNotes(notes)
+                .reportedAt(LocalDateTime.now().minusDays(daysAgo))
+                .build();
+    }
+
+    private static FullTextSearchService warmIndex(List<Alert> alerts, List<SymptomReport> reports) {
+        LocationAggregateView view = mock(LocationAggregateView.class);
+        when(view.coldStart()).thenReturn(CompletableFuture.completedFuture(
+                new LocationAggregateView.ColdStart(alerts, reports, List.of())));
+        FullTextSearchService index = new FullTextSearchService(view);
+        index.warmUp();
+        return index;
+    }
+
+    private static List<String> ids(FullTextSearchService.SearchResult result) {
+        return result.hits.stream().map(hit -> hit.id).toList();
+    }
+
+    @Test
+    void ranksByRelevanceAndAppliesFilters() {
+        Alert alert = Alert.builder()
+                .id("A1")
+                .title("Turbidity spike")
+                .description("Muddy water reported near the hand pump")
+                .location("Ward 5")
+                .triggeredAt(LocalDateTime.now().minusDays(1))
+                .build();
+        FullTextSearchService index = warmIndex(List.of(alert), List.of(
+                report("R1", "Ward 5", 1, "Muddy water from the hand pump, stomach pain"),
+                report("R2", "Ward 9", 2, "Stomach pain after eating outside"),
+                report("R3", "Ward 5", 10, "पानी गंदा है, बच्चों को दस्त"),
+                report("R4", "Ward 5", 0, "")));
+        assertTrue(index.isReady());
+        assertEquals(4, index.getDocumentCount());
+
+        FullTextSearchService.SearchResult result = index.search("muddy pump stomach", null, null, null, null, 10);
+        assertEquals(3, result.total);
+        assertEquals("R1", result.hits.get(0).id);
+        assertTrue(result.hits.get(0).score > result.hits.get(1).score);
+
+        assertEquals(List.of("A1"), ids(index.search("muddy", FullTextSearchService.DocType.ALERT, null, null, null, 10)));
+        assertEquals(List.of("R2"), ids(index.search("stomach", null, "ward 9", null, null, 10)));
+        assertEquals(List.of("R3"), ids(index.search("दस्त बच्चे", null, null, null, null, 10)));
+        LocalDate today = LocalDate.now();
+        assertEquals(List.of("R3"), ids(index.search("गंदा", null, "Ward 5", today.minusDays(14), today.minusDays(7), 10)));
+        assertEquals(0, index.search("गंदा", null, null, today.minusDays(5), today, 10).total);
+        assertTrue(index.search("pump", FullTextSearchService.DocType.REPORT, null, null, null, 1).hits.get(0).snippet
+                .contains("hand pump"));
+
+        assertThrows(IllegalArgumentException.class, () -> index.search("the and", null, null, null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("pump", null, null, null, null, 0));
+    }
+
+    @Test
+    void followsSavesAndEditsAcrossCompaction() {
+        FullTextSearchService index = warmIndex(List.of(), List.of());
+        for (int i = 0; i < 100; i++) {
+            index.onSymptomReportSaved(new SymptomReportSavedEvent(report("R" + i, "Ward 1", 0, "fever case " + i)));
+        }
+        for (int i = 0; i < 100; i++) {
+            SymptomReport investigated = report("R" + i, "Ward 1", 0, "fever case " + i);
+            investigated.setInvestigationNotes(i % 2 == 0 ? "traced to broken pipeline" : "no water link");
+            index.onSymptomReportStatusChanged(new SymptomReportStatusChangedEvent(investigated, "PENDING"));
+        }
+        assertEquals(100, index.getDocumentCount());
+        assertEquals(50, index.search("pipeline", null, null, null, null, 100).total);
+        assertEquals(100, index.search("fever", null, null, null, null, 100).total);
+        assertEquals(List.of("R7"), ids(index.search("7", null, null, null, null, 10)));
+
+        Alert alert = Alert.builder().id("A1").title("Low chlorine").location("Ward 1").occurrenceCount(1).build();
+        index.onAlertChanged(new AlertChangedEvent(alert));
+        alert.setOccurrenceCount(2);
+        alert.setLocation("Ward 2");
+        index.onAlertChanged(new AlertChangedEvent(alert));
+        assertEquals(List.of("A1"), ids(index.search("chlorine", null, "Ward 2", null, null, 10)));
+        alert.setResolutionNotes("Tank flushed and chlorinated");
+        index.onAlertChanged(new AlertChangedEvent(alert));
+        assertEquals(List.of("A1"), ids(index.search("flushed", null, null, null, null, 10)));
+        assertEquals(1, index.search("chlorine", null, null, null, null, 10).total);
+    }
+}
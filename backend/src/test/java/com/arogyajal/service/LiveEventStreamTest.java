@@ -0,0 +1,178 @@
+package com.arogyajal.service;
+
+import com.arogyajal.controller.StreamController;
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class LiveEventStreamTest {
+
+    private static final Pattern ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+
+    private LiveEventStream stream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        stream = new LiveEventStream(new ObjectMapper());
+        ReflectionTestUtils.setField(stream, "replaySize", 8);
+        ReflectionTestUtils.setField(stream, "heartbeatMillis", 200L);
+        ReflectionTestUtils.setField(stream, "timeoutMillis", 10_000L);
+        ReflectionTestUtils.setField(stream, "maxQueuedEvents", 64);
+        ReflectionTestUtils.setField(stream, "senderThreads", 2);
+        stream.start();
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(stream)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    private void ingest(String deviceId, double ph) {
+        SensorData data = new SensorData();
+        data.setDeviceId(deviceId);
+        data.setSensors(new SensorData.Sensors(ph, null, null, null, null));
+        stream.onSensorReading(new SensorReadingIngestedEvent(null, data));
+    }
+
+    private MockHttpServletResponse open(String url, String lastEventId) throws Exception {
+        var builder = get(url);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn().getResponse();
+    }
+
+    private static List<Long> ids(String body) {
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+
+    private static String awaitBody(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 2_000;
+        String body = response.getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = response.getContentAsString();
+        }
+        return body;
+    }
+
+    @Test
+    void liveEventsAreFilteredAndResumedFromLastEventId() throws Exception {
+        MockHttpServletResponse all = open("/api/stream/readings", null);
+        MockHttpServletResponse one = open("/api/stream/readings?deviceId=DEV-2", null);
+        assertEquals(2, stream.getClientCount(LiveEventStream.READINGS));
+
+        ingest("DEV-1", 7.1);
+        ingest("DEV-2", 7.2);
+        ingest("DEV-1", 7.3);
+
+        String allBody = awaitBody(all, "7.3");
+        List<Long> allIds = ids(allBody);
+        assertEquals(3, allIds.size());
+        assertTrue(allIds.get(0) < allIds.get(1) && allIds.get(1) < allIds.get(2));
+        assertTrue(allBody.contains("event:readings"));
+
+        String oneBody = awaitBody(one, "7.2");
+        assertEquals(List.of(allIds.get(1)), ids(oneBody));
+
+        // A reconnect after the first event gets the two it missed
+        MockHttpServletResponse resumed = open("/api/stream/readings", Long.toString(allIds.get(0)));
+        String resumedBody = awaitBody(resumed, "7.3");
+        assertEquals(allIds.subList(1, 3), ids(resumedBody));
+        assertFalse(resumedBody.contains("7.1"));
+    }
+
+    @Test
+    void replayIsBoundedAndIdleClientsGetHeartbeats() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            ingest("DEV-1", i);
+        }
+        // An id from before the ring replays only what the ring still holds
+        MockHttpServletResponse resumed = open("/api/stream/readings", "0");
+        String body = awaitBody(resumed, "19.0");
+        assertEquals(8, ids(body).size());
+
+        MockHttpServletResponse idle = open("/api/stream/alerts", null);
+        assertTrue(awaitBody(idle, ":heartbeat").contains(":heartbeat"));
+    }
+
+    @Test
+    void overflowingAClientStuckInSendDoesNotBlockIngest() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        // Sending and completing share the emitter's lock, as on a real response
+        SseEmitter stuck = new SseEmitter(10_000L) {
+            @Override
+            public synchronized void send(SseEventBuilder builder) throws java.io.IOException {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public synchronized void complete() {
+                completed.countDown();
+            }
+        };
+        stream.stop();
+        stream = new LiveEventStream(new ObjectMapper()) {
+            @Override
+            SseEmitter newEmitter() {
+                return stuck;
+            }
+        };
+        ReflectionTestUtils.setField(stream, "replaySize", 8);
+        ReflectionTestUtils.setField(stream, "heartbeatMillis", 60_000L);
+        ReflectionTestUtils.setField(stream, "timeoutMillis", 10_000L);
+        ReflectionTestUtils.setField(stream, "maxQueuedEvents", 4);
+        ReflectionTestUtils.setField(stream, "senderThreads", 2);
+        stream.start();
+        stream.subscribe(LiveEventStream.READINGS, null, null);
+
+        ingest("DEV-1", 7.0);
+        assertTrue(stalled.await(2, TimeUnit.SECONDS));
+        // The client overflows while its sender is stuck on the socket
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            for (int i = 0; i < 10; i++) {
+                ingest("DEV-1", 7.1);
+            }
+        });
+        assertEquals(0, stream.getClientCount(LiveEventStream.READINGS));
+        assertEquals(1, completed.getCount(), "the emitter is not completed from the publishing thread");
+
+        release.countDown();
+        assertTrue(completed.await(2, TimeUnit.SECONDS), "the sender completes it once the send returns");
+    }
+}
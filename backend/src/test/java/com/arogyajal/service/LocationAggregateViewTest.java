@@ -0,0 +1,108 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.DashboardResponse;
+import com.arogyajal.event.AlertChangedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LocationAggregateViewTest {
+
+    private static final int SENSORS = 100;
+    private static final int LOCATIONS = 10;
+
+    @Test
+    void coldStartLoadsOnceAndServesCachedSummaries() throws Exception {
+        SensorRepository sensorRepository = mock(SensorRepository.class);
+        List<SensorReading> latest = new ArrayList<>();
+        for (int i = 0; i < SENSORS; i++) {
+            latest.add(reading("S" + i, "L" + (i % LOCATIONS), 7.0 + i % LOCATIONS / 10.0));
+        }
+        when(sensorRepository.findLatestPerSensor()).thenReturn(latest);
+        // The ring buffers hold a newer reading of one sensor, as after a checkpoint restore
+        DeviceReadingBuffers deviceBuffers = mock(DeviceReadingBuffers.class);
+        when(deviceBuffers.heldLatest(anyString())).thenReturn(Optional.empty());
+        when(deviceBuffers.heldLatest("S0")).thenReturn(Optional.of(reading("S0", "L0", 8.5)));
+        Alert critical = new Alert();
+        critical.setId("A1");
+        critical.setLocation("L3");
+        critical.setSeverity("CRITICAL");
+        critical.setStatus("ACTIVE");
+        AlertService alertService = mock(AlertService.class);
+        when(alertService.getAllAlerts()).thenReturn(List.of(critical));
+        SymptomService symptomService = mock(SymptomService.class);
+        when(symptomService.getAllSymptomReports()).thenReturn(List.of());
+
+        LocationAggregateView view = new LocationAggregateView(alertService, symptomService, sensorRepository,
+                deviceBuffers);
+        ReflectionTestUtils.setField(view, "warmupThreads", 4);
+        view.warmUp();
+        List<SensorReading> loaded = view.coldStart().join().latestReadings(); // a second consumer shares the first load
+        assertEquals(SENSORS, loaded.size());
+        assertEquals(8.5, loaded.get(0).getPh());
+        view.warmUp();
+
+        assertTrue(view.isWarm());
+        verify(sensorRepository, times(1)).findLatestPerSensor();
+        verify(sensorRepository, never()).findFirstBySensorIdOrderByTimestampDesc(anyString());
+
+        List<DashboardResponse.LocationSummary> summaries = view.getSummaries();
+        assertEquals(LOCATIONS, summaries.size());
+        DashboardResponse.LocationSummary l3 = summaries.get(3);
+        assertEquals("L3", l3.getLocation());
+        assertEquals(SENSORS / LOCATIONS, l3.getSensorCount());
+        assertEquals("CRITICAL", l3.getStatus());
+        assertEquals(1, l3.getAlertCount());
+        assertEquals(7.3, l3.getLatestReadings().get("ph"), 1e-9);
+        assertSame(summaries, view.getSummaries());
+
+        critical.setStatus("RESOLVED");
+        view.onAlertChanged(new AlertChangedEvent(critical));
+        List<DashboardResponse.LocationSummary> updated = view.getSummaries();
+        assertNotSame(summaries, updated);
+        assertEquals("HEALTHY", updated.get(3).getStatus());
+        assertEquals(0, updated.get(3).getAlertCount());
+    }
+
+    @Test
+    void coldStartIsReleasedOnceTheApplicationAcceptsTraffic() throws Exception {
+        SensorRepository sensorRepository = mock(SensorRepository.class);
+        when(sensorRepository.findLatestPerSensor()).thenReturn(List.of());
+        AlertService alertService = mock(AlertService.class);
+        when(alertService.getAllAlerts()).thenReturn(List.of());
+        SymptomService symptomService = mock(SymptomService.class);
+        when(symptomService.getAllSymptomReports()).thenReturn(List.of());
+        LocationAggregateView view = new LocationAggregateView(alertService, symptomService, sensorRepository,
+                mock(DeviceReadingBuffers.class));
+
+        view.warmUp();
+        view.onReadiness(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+        assertNotNull(ReflectionTestUtils.getField(view, "coldStart"));
+        view.onReadiness(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        assertNull(ReflectionTestUtils.getField(view, "coldStart"), "the payload is no longer reachable");
+
+        view.coldStart().join();
+        assertNull(ReflectionTestUtils.getField(view, "coldStart"), "a late load is not kept");
+        verify(alertService, times(2)).getAllAlerts();
+    }
+
+    private static SensorReading reading(String sensorId, String location, double ph) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId(sensorId);
+        reading.setLocation(location);
+        reading.setPh(ph);
+        return reading;
+    }
+}
@@ -0,0 +1,62 @@
+package com.arogyajal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MapClusterServiceTest {
+
+    @Test
+    void pointsMergeIntoClustersWhenZoomingOutAndKeepTheirTotals() {
+        List<SpatialIndexService.SensorPoint> sensors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Twenty sensors around Guwahati, a few hundred meters apart
+            sensors.add(new SpatialIndexService.SensorPoint("G" + i, 26.14 + i * 0.003, 91.73, 50.0 + i, "GOOD", null));
+        }
+        sensors.add(new SpatialIndexService.SensorPoint("D1", 28.61, 77.20, 35.0, "POOR", null));
+        LocalDateTime now = LocalDateTime.now();
+        List<SpatialIndexService.ReportPoint> reports = List.of(
+                new SpatialIndexService.ReportPoint("R1", 26.15, 91.731, "SEVERE", now.minusHours(1)),
+                new SpatialIndexService.ReportPoint("R2", 26.15, 91.732, "MILD", now.minusDays(30))); // too old
+        SpatialIndexService spatialIndex = mock(SpatialIndexService.class);
+        when(spatialIndex.getVersion()).thenReturn(1L);
+        when(spatialIndex.getSensors()).thenReturn(sensors);
+        when(spatialIndex.getReports()).thenReturn(reports);
+
+        MapClusterService service = new MapClusterService(spatialIndex);
+        service.rebuildIfChanged();
+        service.rebuildIfChanged(); // unchanged, not rebuilt
+        verify(spatialIndex, times(1)).getSensors();
+
+        // Whole of India at zoom 4: one Guwahati cluster and the Delhi sensor
+        List<MapClusterService.Cluster> india = service.clusters(6, 68, 37, 98, 4);
+        assertEquals(2, india.size());
+        MapClusterService.Cluster guwahati = india.stream().filter(c -> "cluster".equals(c.kind)).findFirst().orElseThrow();
+        assertEquals(21, guwahati.pointCount);
+        assertEquals(20, guwahati.sensorCount);
+        assertEquals(1, guwahati.severeReportCount);
+        assertEquals(50.0, guwahati.worstWqi);
+        assertTrue(guwahati.expansionZoom > 4);
+        assertEquals(26.17, guwahati.lat, 0.05);
+        MapClusterService.Cluster delhi = india.stream().filter(c -> "sensor".equals(c.kind)).findFirst().orElseThrow();
+        assertEquals("D1", delhi.id);
+        assertEquals(28.61, delhi.lat, 1e-9);
+        assertEquals(77.20, delhi.lon, 1e-9);
+
+        // Street level shows every Guwahati point on its own
+        List<MapClusterService.Cluster> street = service.clusters(26.0, 91.6, 26.3, 91.9, 17);
+        assertEquals(21, street.size());
+        assertTrue(street.stream().allMatch(c -> c.pointCount == 1 && c.expansionZoom == null));
+
+        int total = 0;
+        for (MapClusterService.Cluster cluster : service.clusters(-85, -180, 85, 180, 9)) {
+            total += cluster.pointCount;
+        }
+        assertEquals(22, total);
+    }
+}
@@ -0,0 +1,121 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.Alert;
+import com.arogyajal.model.SymptomReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutbreakClusterEngineTest {
+
+    private AlertService alertService;
+    private OutbreakClusterEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        when(alertService.createSymptomClusterAlert(any(), anyList(), any(), any()))
+                .thenReturn(Alert.builder().id("alert-1").build());
+        engine = new OutbreakClusterEngine(alertService, null);
+        ReflectionTestUtils.setField(engine, "radiusMeters", 2000.0);
+        ReflectionTestUtils.setField(engine, "timeWindowHours", 72);
+        ReflectionTestUtils.setField(engine, "minPoints", 3);
+        ReflectionTestUtils.setField(engine, "minClusterSize", 5);
+        ReflectionTestUtils.setField(engine, "sensorRadiusMeters", 5000.0);
+        ReflectionTestUtils.setField(engine, "precision", 5);
+        ReflectionTestUtils.setField(engine, "maxMemberIds", 200);
+    }
+
+    private void report(String id, double lat, double lon, LocalDateTime at) {
+        SymptomReport report = SymptomReport.builder()
+                .id(id).location("Ward 7").latitude(lat).longitude(lon).reportedAt(at).build();
+        engine.onSymptomReportSaved(new SymptomReportSavedEvent(report));
+    }
+
+    @Test
+    void nearbyReportsFormOneClusterAndAlertOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            report("r" + i, 26.1400 + i * 0.001, 91.7400, now.minusHours(i));
+        }
+        // Far away and too sparse to cluster
+        report("far", 28.6, 77.2, now);
+
+        List<OutbreakClusterEngine.ClusterView> clusters = engine.getActiveClusters();
+        assertEquals(1, clusters.size());
+        assertEquals(7, clusters.get(0).reportCount);
+        assertEquals("alert-1", clusters.get(0).alertId);
+        verify(alertService, times(1)).createSymptomClusterAlert(eq("Ward 7"), anyList(), anyString(), isNull());
+    }
+
+    @Test
+    void reportsOutsideTheTimeWindowDoNotCluster() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            report("r" + i, 26.14, 91.74, now.minusDays(4L * i));
+        }
+        assertEquals(0, engine.getActiveClusters().size());
+        verifyNoInteractions(alertService);
+    }
+
+    @Test
+    void aSyncedBatchIsClusteredOnceWithAllItsReports() {
+        LocalDateTime now = LocalDateTime.now();
+        List<SymptomReport> batch = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            SymptomReport report = SymptomReport.builder().id("b" + i).location("Ward 7")
+                    .latitude(26.1400 + i * 0.001).longitude(91.7400).reportedAt(now.minusHours(i)).build();
+            batch.add(report);
+            engine.onSymptomReportSaved(new SymptomReportSavedEvent(report, true));
+        }
+        assertEquals(0, engine.getActiveClusters().size());
+
+        engine.onSymptomReportsBatchSaved(new SymptomReportsBatchSavedEvent(batch));
+        assertEquals(7, engine.getActiveClusters().get(0).reportCount);
+        verify(alertService, times(1)).createSymptomClusterAlert(eq("Ward 7"),
+                argThat(ids -> ids.size() == 7), anyString(), isNull());
+    }
+
+    @Test
+    void aFutureDatedReportDoesNotExpireLiveClusters() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            report("r" + i, 26.1400 + i * 0.001, 91.7400, now.minusHours(i));
+        }
+        report("future", 28.6, 77.2, now.plusYears(1));
+        report("late", 26.1405, 91.7400, now.minusHours(1));
+
+        List<OutbreakClusterEngine.ClusterView> clusters = engine.getActiveClusters();
+        assertEquals(1, clusters.size());
+        assertEquals(8, clusters.get(0).reportCount);
+    }
+
+    @Test
+    void clustersAgeAgainstTheWallClockAndQuietCellsAreEvicted() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            report("r" + i, 26.1400 + i * 0.001, 91.7400, now.minusDays(4).minusHours(i));
+        }
+        // Nothing newer has arrived, but the cluster's last report is more than a window old
+        assertEquals(0, engine.getActiveClusters().size());
+
+        Map<?, ?> grid = (Map<?, ?>) ReflectionTestUtils.getField(engine, "grid");
+        assertFalse(grid.isEmpty());
+        ReflectionTestUtils.setField(engine, "timeWindowHours", 24);
+        engine.evictExpired();
+        assertTrue(grid.isEmpty());
+    }
+}
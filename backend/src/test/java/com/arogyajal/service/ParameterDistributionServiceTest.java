@@ -0,0 +1,100 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ParameterDistributionServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
+    @TempDir
+    Path stateDir;
+
+    private ParameterDistributionService newService() {
+        ParameterDistributionService service = new ParameterDistributionService(mock(SensorService.class));
+        ReflectionTestUtils.setField(service, "compression", 100.0);
+        ReflectionTestUtils.setField(service, "zone", ZONE.getId());
+        ReflectionTestUtils.setField(service, "retentionDays", 400);
+        ReflectionTestUtils.setField(service, "backfillDays", 0);
+        ReflectionTestUtils.setField(service, "snapshotIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(service, "stateDir", stateDir.toString());
+        service.init();
+        return service;
+    }
+
+    private static SensorReading reading(String location, LocalDate day, double ph) {
+        SensorReading reading = new SensorReading();
+        reading.setLocation(location);
+        reading.setPh(ph);
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(day.atTime(12, 0).atZone(ZONE).toEpochSecond(), 0));
+        return reading;
+    }
+
+    @Test
+    void daysMergeIntoRangesAndSurviveARestart() {
+        ParameterDistributionService service = newService();
+        LocalDate today = LocalDate.now(ZONE);
+        LocalDate yesterday = today.minusDays(1);
+        // Yesterday pH 6.00..6.99, today 8.00..8.99
+        for (int i = 0; i < 100; i++) {
+            service.addReading(reading("Village A", yesterday, 6 + i / 100.0));
+            service.addReading(reading("Village A", today, 8 + i / 100.0));
+        }
+        service.addReading(reading("Village B", today, 7.0));
+
+        List<ParameterDistributionService.Distribution> range =
+                service.getDistributions("Village A", "ph", yesterday, today, false);
+        assertEquals(1, range.size());
+        ParameterDistributionService.Distribution ph = range.get(0);
+        assertEquals(200, ph.count);
+        assertEquals(6.0, ph.min, 1e-9);
+        assertEquals(8.99, ph.max, 1e-9);
+        assertEquals(6.1, ph.quantiles.get("p5"), 0.02);
+        assertEquals(8.9, ph.quantiles.get("p95"), 0.02);
+        assertEquals(8.9, ph.histogramQuantiles.get("p95"), 0.08);
+
+        List<ParameterDistributionService.Distribution> daily =
+                service.getDistributions("Village A", null, yesterday, today, true);
+        assertEquals(List.of(yesterday, today), daily.stream().map(d -> d.from).toList());
+        assertEquals(6.5, daily.get(0).quantiles.get("p50"), 0.02);
+
+        service.snapshot();
+        assertTrue(service.getCellBytes("Village A", "ph", yesterday).isPresent());
+
+        ParameterDistributionService restarted = newService();
+        assertEquals(service.getCellCount(), restarted.getCellCount());
+        // A late reading thaws the frozen day and is merged with the restored sketches
+        restarted.addReading(reading("Village A", yesterday, 6.5));
+        ParameterDistributionService.Distribution restored =
+                restarted.getDistributions("Village A", "ph", yesterday, today, false).get(0);
+        assertEquals(201, restored.count);
+        assertEquals(ph.quantiles.get("p95"), restored.quantiles.get("p95"), 0.02);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getDistributions(null, "chlorine", today, today, false));
+    }
+
+    @Test
+    void ingestLeavesTheSnapshotToTheBackgroundWriter() {
+        ParameterDistributionService service = newService();
+        service.onSensorReading(new SensorReadingIngestedEvent(reading("Village A", LocalDate.now(ZONE), 7.0), null));
+        assertFalse(Files.exists(stateDir.resolve("parameter-distributions.bin")), "ingest does not touch the disk");
+
+        service.shutdown();
+        assertTrue(Files.exists(stateDir.resolve("parameter-distributions.bin")));
+        assertEquals(1, newService().getCellCount());
+    }
+}
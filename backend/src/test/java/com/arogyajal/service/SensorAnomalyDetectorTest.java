@@ -0,0 +1,128 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SensorAnomalyDetectorTest {
+
+    private AlertService alertService;
+    private SensorAnomalyDetector detector;
+    private long time = 1_700_000_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        when(alertService.clearSensorAnomaly(any(), any(), any())).thenReturn(true);
+        detector = new SensorAnomalyDetector(alertService);
+        ReflectionTestUtils.setField(detector, "maxDevices", 4);
+        ReflectionTestUtils.setField(detector, "warmupReadings", 30);
+        ReflectionTestUtils.setField(detector, "spikeZ", 6.0);
+        ReflectionTestUtils.setField(detector, "driftSigma", 3.0);
+        ReflectionTestUtils.setField(detector, "ewmaAlpha", 0.1);
+        ReflectionTestUtils.setField(detector, "medianStep", 0.05);
+        ReflectionTestUtils.setField(detector, "flatlineReadings", 20);
+        ReflectionTestUtils.setField(detector, "stuckZeroReadings", 5);
+        ReflectionTestUtils.setField(detector, "rebaselineReadings", 10);
+        detector.init();
+    }
+
+    private void ingest(String deviceId, double ph, double tds) {
+        ingest(deviceId, ph, tds, 60_000, null);
+    }
+
+    private void ingest(String deviceId, double ph, double tds, long stepMillis, SensorData sensorData) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId(deviceId);
+        reading.setPh(ph);
+        reading.setTotalDissolvedSolids(tds);
+        reading.setTimestamp(Timestamp.ofTimeMicroseconds(time * 1000));
+        time += stepMillis;
+        detector.onSensorReading(new SensorReadingIngestedEvent(reading, sensorData));
+    }
+
+    @Test
+    void stuckAtZeroTdsRaisesFaultAndClearsOnRecovery() {
+        for (int i = 0; i < 10; i++) {
+            ingest("DEV-1", 7.0 + (i % 3) * 0.05, 0.0);
+        }
+        verify(alertService, atLeastOnce()).raiseSensorAnomaly(any(), eq("TDS"), eq("STUCK_AT_ZERO"),
+                eq("SENSOR_FAULT"), eq("MEDIUM"), eq(0.0), anyString());
+
+        ingest("DEV-1", 7.0, 250.0);
+        verify(alertService).clearSensorAnomaly("DEV-1", "TDS", "STUCK_AT_ZERO");
+    }
+
+    @Test
+    void spikeIsFlaggedOnlyAfterWarmup() {
+        for (int i = 0; i < 60; i++) {
+            ingest("DEV-2", 7.0 + (i % 5) * 0.02, 300 + (i % 7));
+        }
+        verify(alertService, never()).raiseSensorAnomaly(any(), any(), any(), any(), any(), anyDouble(), any());
+
+        ingest("DEV-2", 7.0, 900);
+        verify(alertService).raiseSensorAnomaly(any(), eq("TDS"), eq("SPIKE"),
+                eq("SENSOR_ANOMALY"), eq("HIGH"), eq(900.0), anyString());
+    }
+
+    @Test
+    void devicesBeyondCapacityAreIgnored() {
+        for (int d = 0; d < 6; d++) {
+            for (int i = 0; i < 5; i++) {
+                ingest("DEV-" + d, 7.0, 0.0);
+            }
+        }
+        verify(alertService, times(4)).raiseSensorAnomaly(any(), eq("TDS"), eq("STUCK_AT_ZERO"),
+                any(), any(), anyDouble(), any());
+    }
+
+    @Test
+    void sustainedLevelShiftBecomesTheNewBaseline() {
+        for (int i = 0; i < 60; i++) {
+            ingest("DEV-3", 7.0 + (i % 5) * 0.02, 300 + (i % 7));
+        }
+        // A new water source: the first readings at the new level are spikes, then it is learned
+        for (int i = 0; i < 100; i++) {
+            ingest("DEV-3", 7.0 + (i % 5) * 0.02, 600 + (i % 7));
+        }
+        verify(alertService, times(10)).raiseSensorAnomaly(any(), eq("TDS"), eq("SPIKE"),
+                any(), any(), anyDouble(), any());
+        verify(alertService).clearSensorAnomaly("DEV-3", "TDS", "SPIKE");
+
+        ingest("DEV-3", 7.0, 300);
+        verify(alertService, times(11)).raiseSensorAnomaly(any(), eq("TDS"), eq("SPIKE"),
+                any(), any(), anyDouble(), any());
+    }
+
+    @Test
+    void jitterBetweenCloselySpacedReadingsIsNotARateOfChange() {
+        for (int i = 0; i < 40; i++) {
+            ingest("DEV-1", i % 2 == 0 ? 7.0 : 7.3, 300 + (i % 3), 5_000, null);
+        }
+        verify(alertService, never()).raiseSensorAnomaly(any(), any(), eq("RATE_OF_CHANGE"),
+                any(), any(), anyDouble(), any());
+
+        ingest("DEV-1", 9.5, 300, 5_000, null);
+        verify(alertService).raiseSensorAnomaly(any(), eq("pH"), eq("RATE_OF_CHANGE"),
+                any(), any(), eq(9.5), any());
+    }
+
+    @Test
+    void valuesTheDeviceDidNotSendAreNotScored() {
+        SensorData withoutSensors = new SensorData();
+        SensorData withoutTds = new SensorData();
+        withoutTds.setSensors(new SensorData.Sensors(7.0, null, null, null, null));
+        for (int i = 0; i < 10; i++) {
+            ingest("DEV-1", 0.0, 0.0, 60_000, withoutSensors);
+            ingest("DEV-2", 7.0 + (i % 3) * 0.05, 0.0, 60_000, withoutTds);
+        }
+        verify(alertService, never()).raiseSensorAnomaly(any(), any(), any(), any(), any(), anyDouble(), any());
+    }
+}
@@ -0,0 +1,43 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SensorDataPushServiceTest {
+
+    @Test
+    void burstFromOneDeviceIsConflatedToLeadingAndTrailingSend() throws Exception {
+        BrokerRelay relay = mock(BrokerRelay.class);
+        SensorDataPushService service = new SensorDataPushService(relay);
+        ReflectionTestUtils.setField(service, "conflationMillis", 200L);
+        ReflectionTestUtils.setField(service, "locationPrecision", 5);
+        service.start();
+
+        SensorData last = null;
+        for (int i = 0; i < 10; i++) {
+            last = new SensorData();
+            last.setDeviceId("DEV-1");
+            service.onSensorReading(new SensorReadingIngestedEvent(null, last));
+        }
+        verify(relay, times(1)).publish(eq("/topic/sensor-data/DEV-1"), any(Object.class));
+
+        Thread.sleep(500);
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(relay, times(2)).publish(eq("/topic/sensor-data/DEV-1"), sent.capture());
+        List<Object> payloads = sent.getAllValues();
+        assertEquals(2, payloads.size());
+        assertSame(last, payloads.get(1));
+        service.stop();
+    }
+}
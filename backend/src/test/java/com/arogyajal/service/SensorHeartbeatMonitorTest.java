@@ -0,0 +1,166 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorStatusUpdate;
+import com.arogyajal.event.SensorStatusChangedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.arogyajal.util.HashedTimerWheel;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SensorHeartbeatMonitorTest {
+
+    private static final long SECOND = 1000L;
+
+    private AlertService alertService;
+    private SensorRepository sensorRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private SensorHeartbeatMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        sensorRepository = mock(SensorRepository.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        monitor = new SensorHeartbeatMonitor(alertService, sensorRepository, messagingTemplate, eventPublisher);
+        ReflectionTestUtils.setField(monitor, "offlineAfterSeconds", 60L);
+        ReflectionTestUtils.setField(monitor, "offlineAlertMaxAgeHours", 168L);
+        // Driven by hand instead of the ticker thread
+        ReflectionTestUtils.setField(monitor, "wheel", new HashedTimerWheel<String>(5 * SECOND, 64));
+    }
+
+    private List<SensorStatusUpdate> published() {
+        ArgumentCaptor<SensorStatusChangedEvent> events = ArgumentCaptor.forClass(SensorStatusChangedEvent.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+        return events.getAllValues().stream().map(SensorStatusChangedEvent::getUpdate).toList();
+    }
+
+    @Test
+    void silentSensorGoesOfflineAfterTheTimeout() {
+        long start = System.currentTimeMillis();
+        monitor.heartbeat("DEV-1", "Ward 7", start);
+        assertEquals(SensorHeartbeatMonitor.ONLINE, monitor.getStatus("DEV-1"));
+        assertEquals(1, monitor.getOnlineCount());
+
+        monitor.tick(start + 30 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.ONLINE, monitor.getStatus("DEV-1"));
+        verify(alertService, never()).raiseSensorOffline(any(), any(), any());
+
+        monitor.tick(start + 70 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+        assertEquals(0, monitor.getOnlineCount());
+        assertEquals(Map.of("DEV-1", SensorHeartbeatMonitor.OFFLINE), monitor.getStatusMap());
+        verify(alertService).raiseSensorOffline(eq("DEV-1"), eq("Ward 7"), any());
+
+        // Further ticks do not repeat the transition
+        monitor.tick(start + 200 * SECOND);
+        verify(alertService, times(1)).raiseSensorOffline(any(), any(), any());
+    }
+
+    @Test
+    void heartbeatsPushTheTimeoutBack() {
+        long start = System.currentTimeMillis();
+        monitor.heartbeat("DEV-1", "Ward 7", start);
+        monitor.heartbeat("DEV-1", null, start + 50 * SECOND);
+
+        monitor.tick(start + 70 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.ONLINE, monitor.getStatus("DEV-1"));
+        monitor.tick(start + 120 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+        // A reading without a location keeps the last known one
+        verify(alertService).raiseSensorOffline(eq("DEV-1"), eq("Ward 7"), any());
+    }
+
+    @Test
+    void newReadingBringsAnOfflineSensorBackOnline() {
+        long start = System.currentTimeMillis();
+        monitor.heartbeat("DEV-1", "Ward 7", start);
+        monitor.tick(start + 70 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+        clearInvocations(alertService);
+
+        monitor.heartbeat("DEV-1", "Ward 7", start + 80 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.ONLINE, monitor.getStatus("DEV-1"));
+        assertEquals(1, monitor.getOnlineCount());
+        verify(alertService).resolveSensorOffline("DEV-1");
+
+        // It is timed out again from its new reading
+        monitor.tick(start + 120 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.ONLINE, monitor.getStatus("DEV-1"));
+        monitor.tick(start + 150 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+    }
+
+    @Test
+    void statusChangesArePushedAndPublished() {
+        long start = System.currentTimeMillis();
+        monitor.heartbeat("DEV-1", "Ward 7", start);
+        monitor.heartbeat("DEV-1", "Ward 7", start + 10 * SECOND);
+        monitor.tick(start + 80 * SECOND);
+        monitor.heartbeat("DEV-1", "Ward 7", start + 90 * SECOND);
+
+        // Only transitions are announced, not every heartbeat
+        List<String> statuses = published().stream().map(SensorStatusUpdate::getStatus).toList();
+        assertEquals(List.of(SensorHeartbeatMonitor.ONLINE, SensorHeartbeatMonitor.OFFLINE,
+                SensorHeartbeatMonitor.ONLINE), statuses);
+        SensorStatusUpdate offline = published().get(1);
+        assertEquals("DEV-1", offline.getDeviceId());
+        assertEquals("Ward 7", offline.getLocation());
+        verify(messagingTemplate, times(3)).convertAndSend(eq(SensorHeartbeatMonitor.STATUS_TOPIC),
+                any(SensorStatusUpdate.class));
+    }
+
+    @Test
+    void longSilentSensorsGoOfflineWithoutAnAlert() {
+        ReflectionTestUtils.setField(monitor, "offlineAlertMaxAgeHours", 1L);
+        long start = System.currentTimeMillis();
+        monitor.heartbeat("DEV-1", "Ward 7", start);
+        monitor.tick(start + 2 * 3600 * SECOND);
+
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+        verify(alertService, never()).raiseSensorOffline(any(), any(), any());
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, published().get(1).getStatus());
+    }
+
+    @Test
+    void warmUpSeedsEveryKnownSensorFromOneQuery() throws Exception {
+        long now = System.currentTimeMillis();
+        when(sensorRepository.findLatestPerSensor()).thenReturn(List.of(
+                latest("DEV-1", "Ward 7", now - 30 * SECOND),
+                latest("DEV-2", "Ward 8", now - 600 * SECOND)));
+        monitor.warmUp();
+
+        assertEquals(Map.of("DEV-1", SensorHeartbeatMonitor.ONLINE, "DEV-2", SensorHeartbeatMonitor.OFFLINE),
+                monitor.getStatusMap());
+        assertEquals(1, monitor.getOnlineCount());
+        assertEquals(2, monitor.getSensorCount());
+        verify(sensorRepository, times(1)).findLatestPerSensor();
+
+        // A sensor that stays silent after the restart still times out from its last reading
+        monitor.tick(now + 40 * SECOND);
+        assertEquals(SensorHeartbeatMonitor.OFFLINE, monitor.getStatus("DEV-1"));
+        verify(alertService).raiseSensorOffline(eq("DEV-1"), eq("Ward 7"), any());
+    }
+
+    private static SensorReading latest(String sensorId, String location, long at) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId(sensorId);
+        reading.setLocation(location);
+        reading.setTimestamp(Timestamp.ofTimeMicroseconds(at * 1000));
+        return reading;
+    }
+}
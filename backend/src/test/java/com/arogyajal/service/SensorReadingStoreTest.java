@@ -0,0 +1,114 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static com.arogyajal.service.TestReadings.reading;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SensorReadingStoreTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static SensorReadingStore newStore(int maxRows) {
+        SensorReadingStore store = new SensorReadingStore(mock(SensorRepository.class), mock(LocationAggregateView.class));
+        ReflectionTestUtils.setField(store, "maxRows", maxRows);
+        return store;
+    }
+
+    private static void ingest(SensorReadingStore store, SensorReading reading) {
+        store.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+    }
+
+    @Test
+    void seriesAndStatsScanTheWindowInTimeOrder() {
+        SensorReadingStore store = newStore(1024);
+        store.load(List.of(), List.of(), 0);
+        ingest(store, reading("r1", "DEV-1", 100, 7.0));
+        ingest(store, reading("r3", "DEV-1", 300, 8.0));
+        ingest(store, reading("r2", "DEV-2", 200, 6.0));
+        ingest(store, reading("r4", "DEV-1", 400, null));
+
+        SensorReadingStore.Series all = store.series(SensorReadingStore.Column.PH, null, 0, 1000 * SECOND);
+        assertArrayEquals(new double[]{7.0, 6.0, 8.0}, all.values());
+        assertArrayEquals(new long[]{100 * SECOND, 200 * SECOND, 300 * SECOND}, all.timesNanos());
+
+        SensorReadingStore.Series device = store.series(SensorReadingStore.Column.PH, "DEV-1", 150 * SECOND, 1000 * SECOND);
+        assertArrayEquals(new double[]{8.0}, device.values());
+
+        SensorReadingStore.Stats stats = store.stats(SensorReadingStore.Column.PH, null, 0, 1000 * SECOND);
+        assertEquals(3, stats.count);
+        assertEquals(6.0, stats.min);
+        assertEquals(8.0, stats.max);
+        assertEquals(7.0, stats.mean, 1e-12);
+        assertEquals(1.0, stats.stdDev, 1e-12);
+        assertEquals(8.0, stats.latest);
+
+        assertEquals(0, store.stats(SensorReadingStore.Column.PH, "DEV-9", 0, 1000 * SECOND).count);
+    }
+
+    @Test
+    void latestMaterialisesTheNewestReadingOfADevice() {
+        SensorReadingStore store = newStore(1024);
+        store.load(List.of(), List.of(), 0);
+        ingest(store, reading("r2", "DEV-1", 200, 7.5));
+        ingest(store, reading("r1", "DEV-1", 100, 6.5));
+
+        SensorReading latest = store.latest("DEV-1").orElseThrow();
+        assertEquals("r2", latest.getId());
+        assertEquals(7.5, latest.getPh());
+        assertEquals("Good", latest.getQualityStatus());
+        assertEquals("26.1,91.7", latest.getLocation());
+        assertEquals("Battery Voltage: 3.7V", latest.getNotes());
+        assertNull(latest.getTurbidity());
+        assertEquals(Timestamp.ofTimeSecondsAndNanos(200, 0), latest.getTimestamp());
+        assertTrue(store.latest("DEV-2").isEmpty());
+    }
+
+    @Test
+    void evictionKeepsTheNewestRowsAndNarrowsCoverage() {
+        SensorReadingStore store = newStore(4);
+        store.load(List.of(), List.of(), 0);
+        assertTrue(store.covers(0));
+        for (int i = 1; i <= 6; i++) {
+            ingest(store, reading("r" + i, "DEV-" + (i % 2), i * 10L, (double) i));
+        }
+
+        assertEquals(4, store.size());
+        assertFalse(store.covers(20 * SECOND));
+        assertTrue(store.covers(21 * SECOND));
+        List<SensorReading> recent = store.recent(10);
+        assertEquals(List.of(6.0, 5.0, 4.0, 3.0), recent.stream().map(SensorReading::getPh).toList());
+        // Latest per device survives eviction
+        assertEquals(6.0, store.latest("DEV-0").orElseThrow().getPh());
+        assertEquals(5.0, store.latest("DEV-1").orElseThrow().getPh());
+
+        // Older than everything held once full
+        ingest(store, reading("old", "DEV-1", 1, 99.0));
+        assertEquals(4, store.size());
+        assertEquals(3.0, store.series(SensorReadingStore.Column.PH, null, 0, Long.MAX_VALUE).values()[0]);
+    }
+
+    @Test
+    void warmUpSkipsReadingsAlreadyIngested() {
+        SensorReadingStore store = newStore(1024);
+        SensorReading early = reading("r1", "DEV-1", 100, 7.0);
+        ingest(store, early);
+        assertFalse(store.isReady());
+
+        store.load(List.of(reading("r2", "DEV-1", 50, 6.0), early), List.of(reading("r0", "DEV-3", 10, 5.0)), 0);
+
+        assertTrue(store.isReady());
+        assertEquals(2, store.size());
+        assertEquals("r0", store.latest("DEV-3").orElseThrow().getId());
+        assertEquals(List.of("DEV-1", "DEV-3"),
+                store.latestOfAllDevices().stream().map(SensorReading::getSensorId).toList());
+    }
+}
@@ -0,0 +1,48 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SensorData;
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.repository.SensorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SensorServiceTest {
+
+    @Test
+    void deviceTrendWindowIsBoundedByTheReadingStoreRetention() {
+        SensorRepository repository = mock(SensorRepository.class);
+        SensorReadingStore readingStore = mock(SensorReadingStore.class);
+        when(readingStore.getRetentionHours()).thenReturn(24);
+        DeviceReadingBuffers deviceBuffers = mock(DeviceReadingBuffers.class);
+        SensorService service = new SensorService(repository, mock(MLPredictionService.class), mock(AlertService.class),
+                mock(ApplicationEventPublisher.class), readingStore, deviceBuffers);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.getDeviceTrend("DEV-1", "ph", 24 * 60 + 1));
+        assertEquals("'minutes' must not exceed 1440", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> service.getDeviceTrend("DEV-1", "ph", Integer.MAX_VALUE));
+        verifyNoInteractions(repository, deviceBuffers);
+    }
+
+    @Test
+    void failingListenersDoNotFailAStoredReading() throws Exception {
+        SensorRepository repository = mock(SensorRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doThrow(new IllegalStateException("listener failed"))
+                .when(eventPublisher).publishEvent(any(SensorReadingIngestedEvent.class));
+        SensorService service = new SensorService(repository, mock(MLPredictionService.class), mock(AlertService.class),
+                eventPublisher, mock(SensorReadingStore.class), mock(DeviceReadingBuffers.class));
+
+        SensorData data = new SensorData();
+        data.setDeviceId("DEV-1");
+        assertSame(data, service.processAndSaveSensorData(data));
+        verify(repository, times(1)).save(any(SensorReading.class), anyString());
+        verify(eventPublisher).publishEvent(any(SensorReadingIngestedEvent.class));
+    }
+}
@@ -0,0 +1,144 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SensorReadingIngestedEvent;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.model.GeoPoint;
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.util.Geohash;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SpatialIndexServiceTest {
+
+    private static SensorReading reading(String sensorId, double lat, double lon, Double wqi) {
+        SensorReading reading = new SensorReading();
+        reading.setSensorId(sensorId);
+        reading.setLocation(lat + "," + lon);
+        reading.setWqi(wqi);
+        return reading;
+    }
+
+    private static SymptomReportSavedEvent report(String id, double lat, double lon, String severity) {
+        return new SymptomReportSavedEvent(SymptomReport.builder()
+                .id(id).latitude(lat).longitude(lon).severity(severity).build());
+    }
+
+    @Test
+    void tileAggregatesFollowSensorsAsTheyMoveAndReport() {
+        SpatialIndexService index = new SpatialIndexService(mock(LocationAggregateView.class));
+        index.onSensorReading(new SensorReadingIngestedEvent(reading("S1", 26.14, 91.73, 80.0), null));
+        index.onSensorReading(new SensorReadingIngestedEvent(reading("S2", 26.15, 91.74, 40.0), null));
+        index.onSensorReading(new SensorReadingIngestedEvent(reading("S3", 28.61, 77.20, 55.0), null));
+        index.onSymptomReportSaved(report("R1", 26.145, 91.735, "SEVERE"));
+        index.onSymptomReportSaved(report("R2", 26.146, 91.736, "MILD"));
+        index.onSymptomReportSaved(report("R2", 26.146, 91.736, "MILD")); // redelivered
+
+        // Zoom 4 tile holding Guwahati but not Delhi
+        double[] box = SpatialIndexService.tileBounds(4, 12, 6);
+        List<SpatialIndexService.Tile> tiles = index.tiles(4, box[0], box[1], box[2], box[3]);
+        assertEquals(1, tiles.size());
+        SpatialIndexService.Tile cell = tiles.get(0);
+        assertEquals(2, cell.sensorCount);
+        assertEquals(2, cell.reportCount);
+        assertEquals(1, cell.severeReportCount);
+        assertEquals(40.0, cell.worstWqi);
+
+        // S2 improves, then S1 moves to Delhi
+        index.onSensorReading(new SensorReadingIngestedEvent(reading("S2", 26.15, 91.74, 70.0), null));
+        index.onSensorReading(new SensorReadingIngestedEvent(reading("S1", 28.60, 77.21, 30.0), null));
+        cell = index.tiles(4, box[0], box[1], box[2], box[3]).get(0);
+        assertEquals(1, cell.sensorCount);
+        assertEquals(70.0, cell.worstWqi);
+
+        assertEquals(List.of("S1", "S3"),
+                index.sensorsWithin(28, 77, 29, 78).stream().map(SpatialIndexService.SensorPoint::deviceId).sorted().toList());
+        List<SpatialIndexService.Nearby<SpatialIndexService.ReportPoint>> nearest =
+                index.nearestReports(26.146, 91.736, 5, 1000);
+        assertEquals("R2", nearest.get(0).item().reportId());
+        assertEquals(2, nearest.size());
+    }
+
+    @Test
+    void readingsWithOutOfRangeCoordinatesAreSkipped() {
+        SpatialIndexService index = new SpatialIndexService(mock(LocationAggregateView.class));
+        SensorReading reading = reading("S1", 26.14, 91.73, 80.0);
+        reading.setLatitude(95.0);
+        reading.setLongitude(91.73);
+        assertNull(GeoPoint.of(reading));
+
+        index.onSensorReading(new SensorReadingIngestedEvent(reading, null));
+        assertTrue(index.sensorsWithin(-90, -180, 90, 180).isEmpty());
+    }
+
+    @Test
+    void zoomMapsToIncreasingGeohashPrecisionAndTileBoundsFollowWebMercator() {
+        SpatialIndexService index = new SpatialIndexService(mock(LocationAggregateView.class));
+        assertEquals(2, index.precisionForZoom(0));
+        assertEquals(4, index.precisionForZoom(6));
+        assertEquals(8, index.precisionForZoom(18));
+
+        double[] world = SpatialIndexService.tileBounds(0, 0, 0);
+        assertEquals(-85.0511, world[0], 1e-4);
+        assertEquals(-180, world[1], 1e-9);
+        assertEquals(85.0511, world[2], 1e-4);
+        assertEquals(180, world[3], 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> SpatialIndexService.tileBounds(2, 4, 0));
+    }
+
+    @Test
+    void tilesOfASmallBoxMatchTheCellsWhoseCentreItHolds() {
+        SpatialIndexService index = new SpatialIndexService(mock(LocationAggregateView.class));
+        Random random = new Random(3);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            double[] point = {25 + random.nextDouble() * 3, 90 + random.nextDouble() * 3};
+            points.add(point);
+            index.onSensorReading(new SensorReadingIngestedEvent(reading("S" + i, point[0], point[1], 50.0), null));
+        }
+
+        double[] box = SpatialIndexService.tileBounds(8, 192, 109);
+        int precision = index.precisionForZoom(8);
+        long expected = points.stream().filter(point -> {
+            double[] cell = Geohash.bounds(Geohash.encode(point[0], point[1], precision));
+            double lat = (cell[0] + cell[2]) / 2;
+            double lon = (cell[1] + cell[3]) / 2;
+            return lat >= box[0] && lat <= box[2] && lon >= box[1] && lon <= box[3];
+        }).count();
+        List<SpatialIndexService.Tile> tiles = index.tiles(8, box[0], box[1], box[2], box[3]);
+        assertTrue(expected > 0);
+        assertEquals(expected, tiles.stream().mapToInt(tile -> tile.sensorCount).sum());
+        assertTrue(tiles.stream().allMatch(tile -> tile.geohash.length() == precision));
+    }
+
+    @Test
+    void reportsPastTheRetentionAreEvicted() {
+        SpatialIndexService index = new SpatialIndexService(mock(LocationAggregateView.class));
+        index.onSymptomReportSaved(new SymptomReportSavedEvent(SymptomReport.builder().id("OLD")
+                .latitude(26.145).longitude(91.735).severity("SEVERE")
+                .reportedAt(LocalDateTime.now().minusDays(29)).build()));
+        index.onSymptomReportSaved(report("NEW", 26.146, 91.736, "MILD"));
+        index.onSymptomReportSaved(new SymptomReportSavedEvent(SymptomReport.builder().id("STALE")
+                .latitude(26.147).longitude(91.737).reportedAt(LocalDateTime.now().minusDays(31)).build()));
+        assertEquals(2, index.getReportCount(), "a report already past the retention is not indexed");
+
+        ReflectionTestUtils.setField(index, "reportRetentionDays", 28);
+        long version = index.getVersion();
+        index.evictExpired();
+        assertEquals(List.of("NEW"), index.getReports().stream().map(SpatialIndexService.ReportPoint::reportId).toList());
+        assertEquals(1, index.nearestReports(26.145, 91.735, 5, 1000).size());
+        double[] box = SpatialIndexService.tileBounds(4, 12, 6);
+        SpatialIndexService.Tile cell = index.tiles(4, box[0], box[1], box[2], box[3]).get(0);
+        assertEquals(1, cell.reportCount);
+        assertEquals(0, cell.severeReportCount);
+        assertTrue(index.getVersion() > version);
+    }
+}
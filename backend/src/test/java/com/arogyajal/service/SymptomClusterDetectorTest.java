@@ -0,0 +1,124 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.SymptomReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SymptomClusterDetectorTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private AlertService alertService;
+    private SymptomClusterDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        detector = new SymptomClusterDetector(alertService, null);
+        ReflectionTestUtils.setField(detector, "timeWindowHours", 24);
+        ReflectionTestUtils.setField(detector, "minimumReports", 5);
+        ReflectionTestUtils.setField(detector, "severityThreshold", "MODERATE");
+        ReflectionTestUtils.setField(detector, "bucketMinutes", 60);
+        ReflectionTestUtils.setField(detector, "maxRelatedReports", 100);
+    }
+
+    private static SymptomReport report(String id, String severity, long at) {
+        return SymptomReport.builder()
+                .id(id).location("Ward 7 ").severity(severity).symptoms(List.of("NAUSEA", "diarrhea"))
+                .reportedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(at), ZoneId.systemDefault()))
+                .build();
+    }
+
+    @Test
+    void crossingTheThresholdRaisesOneAlert() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            detector.record(report("r" + i, "MODERATE", now - i * HOUR), now);
+        }
+        // Below the severity threshold, so it does not complete the cluster
+        detector.record(report("mild", "MILD", now), now);
+        verifyNoInteractions(alertService);
+
+        detector.record(report("r4", "SEVERE", now), now);
+        detector.record(report("r5", "MODERATE", now), now);
+
+        ArgumentCaptor<List<String>> ids = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> description = ArgumentCaptor.forClass(String.class);
+        verify(alertService, times(1)).createSymptomClusterAlert(eq("Ward 7"), ids.capture(), description.capture());
+        assertEquals(List.of("r0", "r1", "r2", "r3", "r4"), ids.getValue());
+        assertTrue(description.getValue().startsWith("High number of symptom reports (5) in the last 24 hours in Ward 7"));
+        assertTrue(description.getValue().contains("NAUSEA: 5"));
+        assertTrue(description.getValue().contains("DIARRHEA: 5"));
+    }
+
+    @Test
+    void reportsExpireFromTheWindow() {
+        long start = System.currentTimeMillis() - 48 * HOUR;
+        for (int i = 0; i < 4; i++) {
+            detector.record(report("old" + i, "MODERATE", start), start);
+        }
+        // A day later the first four have left the window
+        long later = start + 25 * HOUR;
+        detector.record(report("new0", "MODERATE", later), later);
+        verifyNoInteractions(alertService);
+
+        for (int i = 1; i < 4; i++) {
+            detector.record(report("new" + i, "MODERATE", later), later);
+        }
+        verifyNoInteractions(alertService);
+        detector.record(report("new4", "MODERATE", later), later);
+        verify(alertService).createSymptomClusterAlert(eq("Ward 7"),
+                eq(List.of("new0", "new1", "new2", "new3", "new4")), anyString());
+    }
+
+    @Test
+    void aClearedWindowRaisesTheNextCluster() {
+        long start = System.currentTimeMillis() - 48 * HOUR;
+        for (int i = 0; i < 6; i++) {
+            detector.record(report("a" + i, "MODERATE", start), start);
+        }
+        verify(alertService, times(1)).createSymptomClusterAlert(eq("Ward 7"), anyList(), anyString());
+
+        // The window empties, which clears the cluster and re-arms the location
+        long later = start + 25 * HOUR;
+        detector.record(report("b0", "MODERATE", later), later);
+        verify(alertService, times(1)).createSymptomClusterAlert(anyString(), anyList(), anyString());
+        for (int i = 1; i < 5; i++) {
+            detector.record(report("b" + i, "MODERATE", later), later);
+        }
+        verify(alertService, times(2)).createSymptomClusterAlert(eq("Ward 7"), anyList(), anyString());
+    }
+
+    @Test
+    void aSyncedBatchRaisesAtMostOneAlertPerLocation() {
+        LocalDateTime now = LocalDateTime.now();
+        List<SymptomReport> batch = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            SymptomReport report = SymptomReport.builder().id("b" + i).location("Ward 7")
+                    .severity("MODERATE").reportedAt(now.minusMinutes(i)).build();
+            batch.add(report);
+            // Batched reports are counted from the batch event alone
+            detector.onSymptomReportSaved(new SymptomReportSavedEvent(report, true));
+        }
+        verifyNoInteractions(alertService);
+
+        detector.onSymptomReportsBatchSaved(new SymptomReportsBatchSavedEvent(batch));
+        verify(alertService, times(1)).createSymptomClusterAlert(eq("Ward 7"), anyList(), anyString());
+        assertEquals(8, detector.getRecentReportCount("Ward 7"));
+    }
+}
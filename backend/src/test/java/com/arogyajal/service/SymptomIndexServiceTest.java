@@ -0,0 +1,75 @@
+package com.arogyajal.service;
+
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.SymptomReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SymptomIndexServiceTest {
+
+    private static SymptomReport report(String id, String location, String severity, int daysAgo, String... symptoms) {
+        return SymptomReport.builder()
+                .id(id)
+                .location(location)
+                .severity(severity)
+                .status("PENDING")
+                .symptoms(List.of(symptoms))
+                .reportedAt(LocalDateTime.now().minusDays(daysAgo))
+                .build();
+    }
+
+    @Test
+    void booleanQueriesFollowSavesAndStatusChanges() {
+        LocationAggregateView view = mock(LocationAggregateView.class);
+        when(view.coldStart()).thenReturn(CompletableFuture.completedFuture(new LocationAggregateView.ColdStart(
+                List.of(), List.of(
+                        report("R1", "Ward 5", "SEVERE", 1, "DIARRHEA", "FEVER"),
+                        report("R2", "Ward 5", "MILD", 2, "DIARRHEA"),
+                        report("R3", "Ward 9", "SEVERE", 3, "DIARRHEA", "FEVER"),
+                        report("R4", "Ward 5", "SEVERE", 20, "DIARRHEA", "FEVER")),
+                List.of())));
+        SymptomIndexService index = new SymptomIndexService(view);
+        assertFalse(index.isReady());
+        index.warmUp();
+        assertTrue(index.isReady());
+        index.onSymptomReportSaved(new SymptomReportSavedEvent(report("R5", "ward 5", "SEVERE", 0, "fever", "diarrhea")));
+
+        SymptomIndexService.SearchResult result = index.search(
+                "symptom:diarrhea AND symptom:FEVER location:\"Ward 5\" severity:SEVERE", 7, 10, true);
+        assertEquals(List.of("R5", "R1"), result.ids);
+        assertNull(result.reports);
+
+        assertEquals(3, index.search("symptom:FEVER AND NOT location:\"Ward 9\"", null, 10, false).total);
+        assertEquals(List.of("R2", "R3"),
+                index.search("(severity:MILD OR location:\"Ward 9\") AND day:" + LocalDateTime.now().minusDays(3).toLocalDate()
+                        + ".." + LocalDateTime.now().toLocalDate(), null, 10, false)
+                        .reports.stream().map(SymptomReport::getId).toList());
+
+        SymptomReport resolved = report("R1", "Ward 5", "SEVERE", 1, "DIARRHEA", "FEVER");
+        resolved.setStatus("RESOLVED");
+        index.onSymptomReportStatusChanged(new SymptomReportStatusChangedEvent(resolved, "PENDING"));
+        assertEquals(List.of("R1"), index.search("status:resolved", null, 10, true).ids);
+        assertEquals(4, index.search("status:PENDING", null, 10, true).total);
+
+        assertEquals(List.of("R5", "R1", "R2", "R4"),
+                index.findByLocationAndAnySymptom("Ward 5", List.of("DIARRHEA", "NAUSEA")).stream()
+                        .map(SymptomReport::getId).toList());
+    }
+
+    @Test
+    void malformedQueriesAreRejected() {
+        SymptomIndexService index = new SymptomIndexService(mock(LocationAggregateView.class));
+        assertThrows(IllegalArgumentException.class, () -> index.search("colour:RED", null, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> index.search("(symptom:FEVER", null, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> index.search("symptom:FEVER AND", null, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> index.search("day:yesterday", null, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> index.search("FEVER", null, 10, true));
+    }
+}
@@ -0,0 +1,90 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SymptomRequest;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportStatusChangedEvent;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SymptomRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SymptomServiceTest {
+
+    private static SymptomReport report(String id, String location, int daysAgo, String... symptoms) {
+        return SymptomReport.builder()
+                .id(id)
+                .location(location)
+                .symptoms(List.of(symptoms))
+                .reportedAt(LocalDateTime.now().minusDays(daysAgo))
+                .build();
+    }
+
+    @Test
+    void firestoreFallbackMatchesCaseInsensitivelyLikeTheIndex() {
+        List<SymptomReport> stored = List.of(
+                report("R1", "Ward 5", 1, "DIARRHEA", "FEVER"),
+                report("R2", "ward 5", 2, "Diarrhea"),
+                report("R3", "Ward 9", 3, "fever"),
+                report("R4", "WARD 5", 4, "Cough"));
+        // Firestore matches values exactly
+        SymptomRepository repository = mock(SymptomRepository.class);
+        when(repository.findBySymptomsIn(anyList())).thenAnswer(invocation -> {
+            List<String> symptoms = invocation.getArgument(0);
+            return stored.stream().filter(r -> r.getSymptoms().stream().anyMatch(symptoms::contains)).toList();
+        });
+        Map<String, List<SymptomReport>> byLocation = stored.stream()
+                .collect(Collectors.groupingBy(SymptomReport::getLocation));
+        when(repository.findByLocation(anyString()))
+                .thenAnswer(invocation -> byLocation.getOrDefault(invocation.<String>getArgument(0), List.of()));
+        SymptomService service = new SymptomService(repository, mock(ApplicationEventPublisher.class));
+
+        SymptomIndexService index = new SymptomIndexService(mock(LocationAggregateView.class));
+        stored.forEach(report -> index.onSymptomReportSaved(new SymptomReportSavedEvent(report)));
+
+        List<String> symptoms = List.of(" diarrhea", "Fever ");
+        assertEquals(List.of("R1", "R2", "R3"), ids(service.getReportsBySymptoms(symptoms)));
+        assertEquals(ids(index.findByLocationAndAnySymptom(null, symptoms)), ids(service.getReportsBySymptoms(symptoms)));
+        assertEquals(List.of("R1", "R2"), ids(service.getReportsByLocationAndSymptoms("Ward 5", symptoms)));
+        assertEquals(ids(index.findByLocationAndAnySymptom("Ward 5", symptoms)),
+                ids(service.getReportsByLocationAndSymptoms("Ward 5", symptoms)));
+        assertEquals(List.of("R4"), ids(service.getReportsByLocationAndSymptoms("ward 5", List.of("COUGH"))));
+    }
+
+    private static List<String> ids(List<SymptomReport> reports) {
+        return reports.stream().map(SymptomReport::getId).toList();
+    }
+
+    @Test
+    void failingListenersDoNotFailAStoredReport() {
+        SymptomRepository repository = mock(SymptomRepository.class);
+        when(repository.save(any(SymptomReport.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doThrow(new IllegalStateException("listener failed")).when(eventPublisher).publishEvent(any(Object.class));
+        SymptomService service = new SymptomService(repository, eventPublisher);
+
+        SymptomRequest request = new SymptomRequest();
+        request.setUserId("U1");
+        request.setLocation("Ward 5");
+        request.setSymptoms(List.of("FEVER"));
+        SymptomReport saved = service.saveSymptomReport(request);
+        assertEquals("Ward 5", saved.getLocation());
+        verify(eventPublisher).publishEvent(any(SymptomReportSavedEvent.class));
+
+        when(repository.findById(saved.getId())).thenReturn(Optional.of(saved));
+        assertEquals("RESOLVED", service.updateReportStatus(saved.getId(), "RESOLVED", "checked").getStatus());
+        verify(eventPublisher).publishEvent(any(SymptomReportStatusChangedEvent.class));
+        verify(repository, times(2)).save(any(SymptomReport.class));
+    }
+}
@@ -0,0 +1,156 @@
+package com.arogyajal.service;
+
+import com.arogyajal.dto.SymptomSyncItem;
+import com.arogyajal.dto.SymptomSyncRequest;
+import com.arogyajal.dto.SymptomSyncResponse;
+import com.arogyajal.event.SymptomReportSavedEvent;
+import com.arogyajal.event.SymptomReportsBatchSavedEvent;
+import com.arogyajal.model.SymptomReport;
+import com.arogyajal.repository.SymptomRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SymptomSyncServiceTest {
+
+    private static SymptomSyncItem item(String key) {
+        SymptomSyncItem item = new SymptomSyncItem();
+        item.setIdempotencyKey(key);
+        item.setUserId("asha-17");
+        item.setLocation("Ward 7");
+        item.setWaterSource("WELL");
+        item.setSymptoms(List.of("DIARRHEA"));
+        item.setSeverity("MODERATE");
+        item.setDuration("DAYS");
+        item.setWaterConsumption(3);
+        item.setCollectedAt(LocalDateTime.now().minusHours(6));
+        return item;
+    }
+
+    private static SymptomSyncRequest request(SymptomSyncItem... items) {
+        SymptomSyncRequest request = new SymptomSyncRequest();
+        request.setReports(List.of(items));
+        return request;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retriedItemsAreDuplicatesAndEachBatchIsWrittenAndAnnouncedOnce() {
+        SymptomRepository repository = mock(SymptomRepository.class);
+        String storedEarlier = SymptomSyncService.reportIdFor("asha-17", "k-stored");
+        when(repository.findExistingIds(anyCollection())).thenAnswer(invocation ->
+                ((java.util.Collection<String>) invocation.getArgument(0)).contains(storedEarlier)
+                        ? Set.of(storedEarlier) : Set.of());
+        List<Object> events = new ArrayList<>();
+        ApplicationEventPublisher publisher = events::add;
+        SymptomSyncService service = new SymptomSyncService(repository, publisher,
+                Validation.buildDefaultValidatorFactory().getValidator());
+
+        SymptomSyncItem invalid = item("k-bad");
+        invalid.setSeverity("TERRIBLE");
+        SymptomSyncResponse first = service.sync(request(item("k1"), item("k2"), item("k1"), invalid, item("k-stored")));
+
+        assertEquals(2, first.getCreated());
+        assertEquals(2, first.getDuplicates());
+        assertEquals(1, first.getRejected());
+        List<SymptomSyncResponse.Status> statuses = first.getResults().stream().map(SymptomSyncResponse.ItemResult::getStatus).toList();
+        assertEquals(List.of(SymptomSyncResponse.Status.CREATED, SymptomSyncResponse.Status.CREATED,
+                SymptomSyncResponse.Status.DUPLICATE, SymptomSyncResponse.Status.REJECTED,
+                SymptomSyncResponse.Status.DUPLICATE), statuses);
+        assertEquals(first.getResults().get(0).getReportId(), first.getResults().get(2).getReportId());
+        assertTrue(first.getResults().get(3).getError().contains("severity"));
+
+        verify(repository, times(1)).createAll(argThat(reports -> reports.size() == 2
+                && reports.get(0).getReportedAt().isBefore(LocalDateTime.now().minusHours(5))
+                && reports.stream().allMatch(r -> "PENDING".equals(r.getStatus()))));
+        assertEquals(3, events.size());
+        assertTrue(((SymptomReportSavedEvent) events.get(0)).isBatched());
+        assertEquals(2, ((SymptomReportsBatchSavedEvent) events.get(2)).getReports().size());
+
+        // The device retries the whole upload: nothing is written again
+        SymptomSyncResponse retry = service.sync(request(item("k1"), item("k2")));
+        assertEquals(2, retry.getDuplicates());
+        verify(repository, times(1)).createAll(anyList());
+        verify(repository, times(1)).findExistingIds(anyCollection());
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void reportsCreatedByAConcurrentRetryAreDuplicatesAndNotAnnounced() {
+        SymptomRepository repository = mock(SymptomRepository.class);
+        String raced = SymptomSyncService.reportIdFor("asha-17", "k2");
+        // Both requests passed the existence check; the other one committed k2 first
+        when(repository.createAll(anyList())).thenReturn(Set.of(raced));
+        List<Object> events = new ArrayList<>();
+        SymptomSyncService service = new SymptomSyncService(repository, events::add,
+                Validation.buildDefaultValidatorFactory().getValidator());
+
+        SymptomSyncResponse response = service.sync(request(item("k1"), item("k2")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(SymptomSyncResponse.Status.DUPLICATE, response.getResults().get(1).getStatus());
+        assertEquals(2, events.size());
+        assertNotEquals(raced, ((SymptomReportSavedEvent) events.get(0)).getReport().getId());
+        assertEquals(1, ((SymptomReportsBatchSavedEvent) events.get(1)).getReports().size());
+    }
+
+    @Test
+    void collectionTimesSlightlyAheadOfTheServerAreClampedNotRejected() {
+        SymptomRepository repository = mock(SymptomRepository.class);
+        SymptomSyncService service = new SymptomSyncService(repository, event -> { },
+                Validation.buildDefaultValidatorFactory().getValidator());
+        SymptomSyncItem fast = item("k-fast");
+        fast.setCollectedAt(LocalDateTime.now().plusSeconds(20));
+        SymptomSyncItem future = item("k-future");
+        future.setCollectedAt(LocalDateTime.now().plusHours(2));
+
+        SymptomSyncResponse response = service.sync(request(fast, future));
+
+        assertEquals(1, response.getCreated());
+        assertTrue(response.getResults().get(1).getError().contains("collectedAt"));
+        verify(repository).createAll(argThat(reports -> reports.size() == 1
+                && !reports.get(0).getReportedAt().isAfter(LocalDateTime.now())));
+    }
+
+    @Test
+    void oversizedBatchesAreRefused() {
+        SymptomSyncService service = new SymptomSyncService(mock(SymptomRepository.class), event -> { },
+                Validation.buildDefaultValidatorFactory().getValidator());
+        SymptomSyncItem[] items = new SymptomSyncItem[501];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item("k" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.sync(request(items)));
+    }
+
+    @Test
+    void failingListenersDoNotFailACommittedBatch() {
+        SymptomRepository repository = mock(SymptomRepository.class);
+        when(repository.findExistingIds(anyCollection())).thenReturn(Set.of());
+        List<Object> events = new ArrayList<>();
+        ApplicationEventPublisher publisher = event -> {
+            events.add(event);
+            if (event instanceof SymptomReportSavedEvent) {
+                throw new IllegalStateException("listener failed");
+            }
+        };
+        SymptomSyncService service = new SymptomSyncService(repository, publisher,
+                Validation.buildDefaultValidatorFactory().getValidator());
+
+        SymptomSyncResponse response = service.sync(request(item("k1"), item("k2")));
+        assertEquals(2, response.getCreated());
+        verify(repository, times(1)).createAll(anyList());
+        // Every report and the batch are still announced
+        assertEquals(3, events.size());
+        assertInstanceOf(SymptomReportsBatchSavedEvent.class, events.get(2));
+    }
+}
@@ -0,0 +1,33 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.SensorReading;
+import com.google.cloud.Timestamp;
+
+/**
+ * Sensor reading fixture shared by the reading store, device buffer and
+ * checkpoint tests.
+ */
+final class TestReadings {
+
+    private TestReadings() {
+    }
+
+    static SensorReading reading(String id, String device, long seconds, double ph) {
+        return reading(id, device, seconds, Double.valueOf(ph));
+    }
+
+    /**
+     * @param ph null for a reading without a pH value
+     */
+    static SensorReading reading(String id, String device, long seconds, Double ph) {
+        SensorReading reading = new SensorReading();
+        reading.setId(id);
+        reading.setSensorId(device);
+        reading.setLocation("26.1,91.7");
+        reading.setTimestamp(Timestamp.ofTimeSecondsAndNanos(seconds, 0));
+        reading.setPh(ph);
+        reading.setQualityStatus("Good");
+        reading.setNotes("Battery Voltage: 3.7V");
+        return reading;
+    }
+}
@@ -0,0 +1,178 @@
+package com.arogyajal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.DatagramSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Several relay nodes on loopback, each with its own simple broker and STOMP
+ * subscribers, standing in for backend instances behind a load balancer.
+ */
+class UdpBrokerRelayIntegrationTest {
+
+    private static final int NODES = 3;
+    private static final int SUBSCRIBERS_PER_NODE = 50;
+    private static final String TOPIC = "/topic/sensor-data/DEV-1";
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private static final class Node {
+        UdpBrokerRelay relay;
+        SimpleBrokerMessageHandler broker;
+        final AtomicInteger brokerMessages = new AtomicInteger();
+        final Map<String, AtomicInteger> deliveredBySession = new ConcurrentHashMap<>();
+        final List<String> payloads = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Node node : nodes) {
+            node.relay.stop();
+            node.broker.stop();
+        }
+    }
+
+    private Node node(int port, String peers) {
+        return node(port, peers, "cluster-secret");
+    }
+
+    private Node node(int port, String peers, String secret) {
+        Node node = new Node();
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        brokerChannel.addInterceptor(new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+                node.brokerMessages.incrementAndGet();
+                return message;
+            }
+        });
+        clientOutbound.subscribe(message -> {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            if (accessor.getMessageType() != SimpMessageType.MESSAGE) {
+                return; // CONNECT_ACK
+            }
+            node.deliveredBySession.computeIfAbsent(accessor.getSessionId(), k -> new AtomicInteger()).incrementAndGet();
+            synchronized (node.payloads) {
+                node.payloads.add(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+            }
+        });
+        node.broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        node.broker.start();
+        for (int i = 0; i < SUBSCRIBERS_PER_NODE; i++) {
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId("session-" + i);
+            clientInbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(TOPIC);
+            clientInbound.send(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+
+        node.relay = new UdpBrokerRelay(new SimpMessagingTemplate(brokerChannel), new ObjectMapper());
+        ReflectionTestUtils.setField(node.relay, "port", port);
+        ReflectionTestUtils.setField(node.relay, "peers", peers);
+        ReflectionTestUtils.setField(node.relay, "secret", secret);
+        node.relay.start();
+        return node;
+    }
+
+    private static int freePort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void awaitBrokerMessages(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (nodes.stream().allMatch(node -> node.brokerMessages.get() >= expected)) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        Thread.sleep(100); // let any duplicate arrive before asserting
+    }
+
+    @Test
+    void messagePublishedOnOneNodeReachesSubscribersOnEveryNodeOnce() throws Exception {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ports.add(freePort());
+        }
+        String peers = String.join(",", ports.stream().map(p -> "127.0.0.1:" + p).toList());
+        for (int port : ports) {
+            nodes.add(node(port, peers));
+        }
+
+        nodes.get(0).relay.publish(TOPIC, Map.of("deviceId", "DEV-1", "turbidity", 4.2));
+        awaitBrokerMessages(1);
+        nodes.get(2).relay.publish(TOPIC, Map.of("deviceId", "DEV-1", "turbidity", 5.0));
+        awaitBrokerMessages(2);
+
+        for (Node node : nodes) {
+            // one broker message per publish on each node, not one per subscriber
+            assertEquals(2, node.brokerMessages.get());
+            assertEquals(SUBSCRIBERS_PER_NODE, node.deliveredBySession.size());
+            for (AtomicInteger delivered : node.deliveredBySession.values()) {
+                assertEquals(2, delivered.get());
+            }
+            assertTrue(node.payloads.stream().anyMatch(p -> p.contains("4.2")));
+            assertTrue(node.payloads.stream().anyMatch(p -> p.contains("5.0")));
+        }
+    }
+
+    @Test
+    void datagramsFromUnlistedSendersOrWithBadSignaturesAreDropped() throws Exception {
+        int a = freePort();
+        int b = freePort();
+        int impostor = freePort();
+        int intruder = freePort();
+        String peers = "127.0.0.1:" + a + ",127.0.0.1:" + b + ",127.0.0.1:" + impostor;
+        Node nodeA = node(a, peers);
+        Node nodeB = node(b, peers);
+        nodes.add(nodeA);
+        nodes.add(nodeB);
+        // Listed, but signs with another key
+        nodes.add(node(impostor, peers, "guessed-secret"));
+        // Right key, but not a listed peer
+        nodes.add(node(intruder, peers));
+
+        nodes.get(2).relay.publish(TOPIC, Map.of("deviceId", "DEV-1", "turbidity", 99.0));
+        nodes.get(3).relay.publish(TOPIC, Map.of("deviceId", "DEV-1", "turbidity", 98.0));
+        nodeA.relay.publish(TOPIC, Map.of("deviceId", "DEV-1", "turbidity", 4.2));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (nodeB.brokerMessages.get() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+
+        assertEquals(1, nodeA.brokerMessages.get());
+        assertEquals(1, nodeB.brokerMessages.get());
+        assertTrue(nodeB.payloads.stream().allMatch(p -> p.contains("4.2")));
+    }
+}
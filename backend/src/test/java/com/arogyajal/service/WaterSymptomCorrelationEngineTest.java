@@ -0,0 +1,59 @@
+package com.arogyajal.service;
+
+import com.arogyajal.model.SensorReading;
+import com.arogyajal.model.SymptomReport;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WaterSymptomCorrelationEngineTest {
+
+    private static final long BUCKET = 6 * 3_600_000L;
+
+    @Test
+    void symptomsFollowingTurbidityPeakAtTheirLag() {
+        WaterSymptomCorrelationEngine engine = new WaterSymptomCorrelationEngine(null, null);
+        ReflectionTestUtils.setField(engine, "bucketHours", 6);
+        ReflectionTestUtils.setField(engine, "horizonDays", 10);
+        ReflectionTestUtils.setField(engine, "maxLagHours", 48);
+        ReflectionTestUtils.setField(engine, "minSamples", 8);
+        ReflectionTestUtils.setField(engine, "symptomRadiusMeters", 3000.0);
+        ReflectionTestUtils.setField(engine, "parallelism", 2);
+        engine.init();
+
+        long now = System.currentTimeMillis() / BUCKET * BUCKET;
+        for (int b = 0; b < 40; b++) {
+            long t = now - (39 - b) * BUCKET;
+            double turbidity = b % 8 == 0 ? 12.0 : 1.0;
+            SensorReading reading = new SensorReading();
+            reading.setLocation("26.1400,91.7400");
+            reading.setTurbidity(turbidity);
+            reading.setPh(7.2);
+            reading.setTimestamp(Timestamp.ofTimeMicroseconds(t * 1000));
+            engine.addReading(reading);
+
+            // Reports two buckets (12 hours) after each turbidity peak
+            if (b >= 2 && (b - 2) % 8 == 0) {
+                for (int i = 0; i < 4; i++) {
+                    engine.addReport(SymptomReport.builder()
+                            .latitude(26.145).longitude(91.741)
+                            .reportedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(t + 60_000), ZoneId.systemDefault()))
+                            .build());
+                }
+            }
+        }
+
+        WaterSymptomCorrelationEngine.ParameterCorrelation turbidity = engine.getCorrelations().get(0).parameters.get(0);
+        assertEquals("turbidity", turbidity.parameter);
+        assertEquals(12, turbidity.bestLagHours);
+        assertTrue(turbidity.correlation > 0.9);
+        engine.shutdown();
+    }
+}
@@ -0,0 +1,43 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void rescheduledKeysOnlyFireAtTheirLatestDeadline() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(1000, 8);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("a", 5_000);
+        wheel.schedule("b", 20_000); // beyond one revolution
+        wheel.advance(3_000, (k, d) -> fired.add(k));
+        wheel.schedule("a", 9_000);
+
+        wheel.advance(8_000, (k, d) -> fired.add(k));
+        assertTrue(fired.isEmpty());
+        wheel.advance(9_000, (k, d) -> fired.add(k));
+        assertEquals(List.of("a"), fired);
+        wheel.advance(19_000, (k, d) -> fired.add(k));
+        assertEquals(List.of("a"), fired);
+        wheel.advance(20_000, (k, d) -> fired.add(k));
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overdueKeysFireOnTheFirstAdvance() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(1000, 8);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("late", 2_000);
+        wheel.schedule("cancelled", 2_000);
+        wheel.cancel("cancelled");
+        wheel.advance(100_000, (k, d) -> fired.add(k));
+        assertEquals(List.of("late"), fired);
+    }
+}
@@ -0,0 +1,57 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    private static byte[] bytes(HyperLogLog sketch) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static HyperLogLog read(byte[] bytes) throws Exception {
+        return HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void smallSketchesStaySparseAndCountExactlyEnough() throws Exception {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int repeat = 0; repeat < 5; repeat++) {
+            for (int i = 0; i < 40; i++) {
+                sketch.add("DEV-" + i);
+            }
+        }
+        assertEquals(40, sketch.estimate(), 1);
+        assertTrue(bytes(sketch).length < 200, "sparse form holds only the set registers");
+        assertEquals(sketch.estimate(), read(bytes(sketch)).estimate());
+    }
+
+    @Test
+    void mergedSketchesEstimateTheUnionWithinTheStandardError() throws Exception {
+        HyperLogLog monday = new HyperLogLog(12);
+        HyperLogLog tuesday = new HyperLogLog(12);
+        for (int i = 0; i < 60_000; i++) {
+            monday.add("user-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            tuesday.add("user-" + i);
+        }
+        assertEquals(4096 + 2, bytes(monday).length, "dense form is one byte per register");
+
+        HyperLogLog week = new HyperLogLog(12);
+        week.merge(read(bytes(monday)));
+        week.merge(tuesday);
+        double error = Math.abs(week.estimate() - 100_000) / 100_000.0;
+        assertTrue(error < 3 * week.standardError(), "error " + error);
+
+        assertThrows(IllegalArgumentException.class, () -> week.merge(new HyperLogLog(10)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KdTreeTest {
+
+    @Test
+    void rangeAndRadiusQueriesMatchABruteForceScan() {
+        Random random = new Random(5);
+        int n = 5000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            // Coarse grid so many points share a coordinate
+            xs[i] = random.nextInt(200) / 200.0;
+            ys[i] = random.nextInt(200) / 200.0;
+        }
+        KdTree tree = new KdTree(xs, ys, 8);
+        assertEquals(n, tree.size());
+
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            double r = random.nextDouble() * 0.1;
+            Set<Integer> expectedBox = new HashSet<>();
+            Set<Integer> expectedCircle = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                if (xs[i] >= x - r && xs[i] <= x + r && ys[i] >= y && ys[i] <= y + r) {
+                    expectedBox.add(i);
+                }
+                if ((xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y) <= r * r) {
+                    expectedCircle.add(i);
+                }
+            }
+            Set<Integer> box = new HashSet<>();
+            tree.range(x - r, y, x + r, y + r, box::add);
+            assertEquals(expectedBox, box);
+            Set<Integer> circle = new HashSet<>();
+            tree.within(x, y, r, circle::add);
+            assertEquals(expectedCircle, circle);
+        }
+    }
+
+    @Test
+    void emptyTreeFindsNothing() {
+        KdTree tree = new KdTree(new double[0], new double[0], 4);
+        tree.range(0, 0, 1, 1, i -> fail("unexpected point " + i));
+    }
+}
@@ -0,0 +1,43 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearHistogramTest {
+
+    private static double exact(double[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+    }
+
+    @Test
+    void mergedQuantilesStayWithinRelativeError() throws Exception {
+        Random random = new Random(7);
+        double[] values = new double[50_000];
+        LogLinearHistogram first = new LogLinearHistogram(0.1, 8);
+        LogLinearHistogram second = new LogLinearHistogram(0.1, 8);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 50 + random.nextDouble() * 1500; // TDS in ppm
+            (i % 2 == 0 ? first : second).record(values[i]);
+        }
+        first.merge(second);
+        Arrays.sort(values);
+        for (double q : new double[]{0.05, 0.5, 0.95}) {
+            double expected = exact(values, q);
+            assertEquals(expected, first.quantile(q), expected / 128 + 0.1, "q=" + q);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        first.writeTo(new DataOutputStream(bytes));
+        LogLinearHistogram read = LogLinearHistogram.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(values.length, read.count());
+        assertEquals(first.quantile(0.5), read.quantile(0.5), 1e-12);
+    }
+}
@@ -0,0 +1,59 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuadTreeTest {
+
+    @Test
+    void boxAndNearestQueriesMatchABruteForceScan() {
+        Random random = new Random(11);
+        QuadTree<Integer> tree = new QuadTree<>(4);
+        double[][] points = new double[2000][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[]{20 + random.nextDouble() * 5, 75 + random.nextDouble() * 5};
+            tree.put(i, points[i][0], points[i][1]);
+        }
+        // Move a tenth of the points; the tree must forget the old positions
+        for (int i = 0; i < points.length; i += 10) {
+            points[i] = new double[]{20 + random.nextDouble() * 5, 75 + random.nextDouble() * 5};
+            tree.put(i, points[i][0], points[i][1]);
+        }
+        assertEquals(points.length, tree.size());
+
+        Set<Integer> expectedInBox = new HashSet<>();
+        for (int i = 0; i < points.length; i++) {
+            if (points[i][0] >= 21 && points[i][0] <= 22 && points[i][1] >= 76 && points[i][1] <= 77.5) {
+                expectedInBox.add(i);
+            }
+        }
+        assertEquals(expectedInBox, new HashSet<>(tree.within(21, 76, 22, 77.5)));
+
+        double lat = 22.5, lon = 77.5;
+        List<Integer> byDistance = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            byDistance.add(i);
+        }
+        byDistance.sort(Comparator.comparingDouble(i -> Geohash.distanceMeters(lat, lon, points[i][0], points[i][1])));
+        List<QuadTree.Neighbour<Integer>> nearest = tree.nearest(lat, lon, 15, Double.MAX_VALUE);
+        assertEquals(byDistance.subList(0, 15), nearest.stream().map(QuadTree.Neighbour::key).toList());
+
+        double radius = nearest.get(4).distanceMeters();
+        assertEquals(5, tree.nearest(lat, lon, 15, radius).size());
+    }
+
+    @Test
+    void coincidentPointsDoNotSplitForeverAndCanBeRemoved() {
+        QuadTree<String> tree = new QuadTree<>(2);
+        for (int i = 0; i < 50; i++) {
+            tree.put("S" + i, 26.1445, 91.7362);
+        }
+        assertEquals(50, tree.within(26, 91, 27, 92).size());
+        assertTrue(tree.remove("S7"));
+        assertFalse(tree.remove("S7"));
+        assertEquals(49, tree.nearest(26.1445, 91.7362, 100, 1).size());
+    }
+}
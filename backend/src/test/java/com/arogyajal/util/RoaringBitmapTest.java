@@ -0,0 +1,79 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    private static BitSet toBitSet(RoaringBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    @Test
+    void setOperationsMatchBitSetAcrossArrayAndBitmapContainers() {
+        Random random = new Random(3);
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        // Dense, sparse and mixed chunks so every pair of container forms meets
+        for (int i = 0; i < 60000; i++) {
+            int dense = random.nextInt(65536);
+            a.add(dense);
+            expectedA.set(dense);
+            int sparse = 65536 + random.nextInt(65536 * 3);
+            if (i % 10 == 0) {
+                b.add(sparse);
+                expectedB.set(sparse);
+            }
+            int mixed = 65536 * 2 + random.nextInt(65536);
+            if (i % 3 == 0) {
+                a.add(mixed);
+                expectedA.set(mixed);
+            } else {
+                b.add(mixed);
+                expectedB.set(mixed);
+            }
+        }
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(65536 * 3);
+            assertEquals(expectedA.get(value), a.remove(value));
+            expectedA.clear(value);
+        }
+        assertEquals(expectedA, toBitSet(a));
+        assertEquals(expectedA.cardinality(), a.cardinality());
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        assertEquals(and, toBitSet(a.and(b)));
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+        assertEquals(or, toBitSet(a.or(b)));
+        assertEquals(or.cardinality(), b.or(a).cardinality());
+        BitSet andNot = (BitSet) expectedA.clone();
+        andNot.andNot(expectedB);
+        assertEquals(andNot, toBitSet(a.andNot(b)));
+
+        // Inputs are untouched
+        assertEquals(expectedA, toBitSet(a));
+        assertEquals(expectedB, toBitSet(b));
+    }
+
+    @Test
+    void valuesComeBackInOrder() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : new int[]{70000, 3, 1 << 30, 65535, 3}) {
+            bitmap.add(value);
+        }
+        assertArrayEquals(new int[]{3, 65535, 70000, 1 << 30}, bitmap.toArray());
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(4));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+}
@@ -0,0 +1,31 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlidingWindowCounterTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void countsExpireAsTheWindowSlides() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24 * HOUR, HOUR);
+        counter.add(0, 1);
+        counter.add(HOUR, 2);
+        counter.add(5 * HOUR, 1);
+        assertEquals(4, counter.total(6 * HOUR));
+        assertEquals(3, counter.total(24 * HOUR));
+        assertEquals(1, counter.total(25 * HOUR));
+        assertEquals(0, counter.total(100 * HOUR));
+    }
+
+    @Test
+    void lateEventsInsideTheWindowAreCounted() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24 * HOUR, HOUR);
+        counter.add(30 * HOUR, 1);
+        counter.add(10 * HOUR, 1);
+        counter.add(2 * HOUR, 1); // already outside the window
+        assertEquals(2, counter.total(30 * HOUR));
+    }
+}
@@ -0,0 +1,71 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TDigestTest {
+
+    private static double exact(double[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+    }
+
+    @Test
+    void mergedDigestsTrackExactQuantiles() throws Exception {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        TDigest[] parts = {new TDigest(100), new TDigest(100), new TDigest(100)};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 7 + random.nextGaussian() * 0.5;
+            parts[i % parts.length].add(values[i]);
+        }
+        TDigest merged = new TDigest(100);
+        for (TDigest part : parts) {
+            merged.merge(part);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, merged.size());
+        assertTrue(merged.centroidCount() < 300, "size is bounded by the compression");
+        for (double q : new double[]{0.01, 0.05, 0.5, 0.95, 0.99}) {
+            assertEquals(exact(values, q), merged.quantile(q), 0.01, "q=" + q);
+        }
+        assertEquals(values[0], merged.quantile(0), 1e-12);
+        assertEquals(values[values.length - 1], merged.quantile(1), 1e-12);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        merged.writeTo(new DataOutputStream(bytes));
+        assertTrue(bytes.size() < 4_000);
+        TDigest read = TDigest.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(merged.size(), read.size());
+        assertEquals(merged.quantile(0.95), read.quantile(0.95), 1e-12);
+    }
+
+    @Test
+    void mergingManyDigestsCompressesAgainstTheirCombinedWeight() {
+        Random random = new Random(11);
+        double[] values = new double[200_000];
+        TDigest merged = new TDigest(100);
+        // Twenty parts hold far more centroids than the merge buffer, so the merge compresses mid-way
+        for (int part = 0; part < 20; part++) {
+            TDigest digest = new TDigest(100);
+            for (int i = part; i < values.length; i += 20) {
+                values[i] = random.nextDouble() * 1000;
+                digest.add(values[i]);
+            }
+            merged.merge(digest);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, merged.size());
+        assertTrue(merged.centroidCount() < 300, "size is bounded by the compression");
+        for (double q : new double[]{0.001, 0.01, 0.5, 0.99, 0.999}) {
+            assertEquals(exact(values, q), merged.quantile(q), 2.0, "q=" + q);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.arogyajal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextAnalyzerTest {
+
+    private final TextAnalyzer analyzer = new TextAnalyzer();
+
+    @Test
+    void englishTokensAreLowercasedStemmedAndStopwordsDropped() {
+        assertEquals(List.of("children", "vomit", "fever", "diarrhea", "3", "day"),
+                analyzer.terms("The children are VOMITING, fevers and diarrhea for 3 days."));
+        assertEquals(analyzer.terms("contaminated well"), analyzer.terms("Contaminated wells"));
+        assertEquals(List.of("illness"), analyzer.terms("illnesses"));
+    }
+
+    @Test
+    void hindiWordsKeepTheirMarksAndInflectionsConflate() {
+        assertEquals(List.of("बुखार", "दस्त"), analyzer.terms("बुखार और दस्त।"));
+        assertEquals(analyzer.terms("उल्टी"), analyzer.terms("उल्टियां"));
+        assertEquals(analyzer.terms("बच्चों"), analyzer.terms("बच्चे"));
+        // Chandrabindu and anusvara spellings, and a zero-width joiner, match
+        assertEquals(analyzer.terms("उल्टियां"), analyzer.terms("उल्टियाँ"));
+        assertEquals(analyzer.terms("क्ष"), analyzer.terms("क्‍ष"));
+    }
+
+    @Test
+    void mixedTextReportsTokenOffsetsAndAsciiDigits() {
+        String text = "Ward ५ में पानी dirty";
+        List<String> tokens = new ArrayList<>();
+        analyzer.analyze(text, (term, start, end) -> tokens.add(term + "@" + text.substring(start, end)));
+        assertEquals(List.of("ward@Ward", "5@५", "पान@पानी", "dirty@dirty"), tokens);
+    }
+}